@@ -0,0 +1,37 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.fn;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+import org.commonjava.cartographer.result.GraphExport;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+
+/**
+ * Receives a graph export while the graph is still open, so the relationships can be written out as they're read
+ * instead of being collected first.
+ */
+@FunctionalInterface
+public interface GraphExportWriter
+{
+    /**
+     * @param summary everything in the export except the relationships (which are left null)
+     * @param relationships the graph's relationships, read lazily. Only valid during this call.
+     */
+    void write( GraphExport summary, Stream<ProjectRelationship<?, ?>> relationships )
+                    throws IOException;
+}
@@ -16,11 +16,16 @@
 package org.commonjava.cartographer.graph.fn;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
 
-import org.codehaus.plexus.util.StringUtils;
 import org.commonjava.cartographer.graph.RelationshipGraph;
+import org.commonjava.cartographer.graph.util.GavPattern;
 import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
 import org.commonjava.maven.atlas.ident.util.ProjectVersionRefComparator;
 import org.commonjava.cartographer.CartoRequestException;
@@ -39,6 +44,10 @@ public class MatchingProjectFunction<T>
 
     private ProjectSelector supplier;
 
+    private final boolean allProjects;
+
+    private ExecutorService pool;
+
     public MatchingProjectFunction( final ProjectGraphRequest recipe, final ProjectProjector<T> extractor,
                                      final ProjectCollector<T> consumer )
     {
@@ -48,6 +57,7 @@ public class MatchingProjectFunction<T>
         this.supplier = ( graph ) -> {
             return graph.getAllProjects();
         };
+        this.allProjects = true;
     }
 
     public MatchingProjectFunction( final ProjectGraphRequest recipe, final ProjectProjector<T> extractor,
@@ -57,6 +67,18 @@ public class MatchingProjectFunction<T>
         this.extractor = extractor;
         this.consumer = consumer;
         this.supplier = supplier;
+        this.allProjects = false;
+    }
+
+    /**
+     * Run the extractor for matching projects concurrently on the given pool. Results are still handed to the consumer
+     * on the calling thread, in project order, so only the extractor needs to be thread-safe. Use this only where each
+     * project's extraction is independent of the others.
+     */
+    public MatchingProjectFunction<T> inParallel( final ExecutorService pool )
+    {
+        this.pool = pool;
+        return this;
     }
 
     @Override
@@ -69,17 +91,66 @@ public class MatchingProjectFunction<T>
             consumer.accept( ref, extractor.extract( ref, graph ) );
         }
 
-        final String matcher = recipe.getProjectGavPattern();
-        final List<ProjectVersionRef> projects = new ArrayList<>( supplier.getProjects( graph ) );
-        Collections.sort( projects, new ProjectVersionRefComparator() );
+        final GavPattern pattern;
+        try
+        {
+            pattern = GavPattern.compile( recipe.getProjectGavPattern() );
+        }
+        catch ( final PatternSyntaxException e )
+        {
+            throw new CartoRequestException( "Invalid project GAV pattern: {}. Reason: {}", e,
+                                             recipe.getProjectGavPattern(), e.getMessage() );
+        }
+
+        // with the default selector, the pattern's literal prefix narrows the candidates to a range of the graph's
+        // GAV index instead of a scan of every project.
+        final Collection<ProjectVersionRef> candidates = allProjects ?
+                        graph.getProjectGavIndex().withPrefix( pattern.getLiteralPrefix() ) :
+                        supplier.getProjects( graph );
 
-        for ( final ProjectVersionRef project : projects )
+        final List<ProjectVersionRef> matches = candidates.stream()
+                                                          .filter( pattern::matches )
+                                                          .sorted( new ProjectVersionRefComparator() )
+                                                          .collect( Collectors.toList() );
+
+        if ( pool == null || matches.size() < 2 )
         {
-            if ( StringUtils.isEmpty( matcher ) || project.toString()
-                                                          .matches( matcher ) )
+            for ( final ProjectVersionRef project : matches )
             {
                 consumer.accept( project, extractor.extract( project, graph ) );
             }
+
+            return;
+        }
+
+        final List<Future<T>> tasks = new ArrayList<>( matches.size() );
+        for ( final ProjectVersionRef project : matches )
+        {
+            tasks.add( pool.submit( () -> extractor.extract( project, graph ) ) );
+        }
+
+        for ( int i = 0; i < matches.size(); i++ )
+        {
+            final T result;
+            try
+            {
+                result = tasks.get( i )
+                              .get();
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread()
+                      .interrupt();
+                throw new CartoDataException( "Interrupted while extracting: {}", e, matches.get( i ) );
+            }
+            catch ( final ExecutionException e )
+            {
+                throw new CartoDataException( "Failed to extract: {}. Reason: {}", e.getCause(), matches.get( i ),
+                                              e.getCause()
+                                               .getMessage() );
+            }
+
+            consumer.accept( matches.get( i ), result );
         }
     }
 
@@ -0,0 +1,31 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.fn;
+
+import org.commonjava.cartographer.result.ProjectBatchEntry;
+
+import java.io.IOException;
+
+/**
+ * Receives the answers to a batch query one project at a time, while the graph is still open, so they can be written
+ * out as they're produced.
+ */
+@FunctionalInterface
+public interface ProjectBatchWriter
+{
+    void write( ProjectBatchEntry entry )
+                    throws IOException;
+}
@@ -19,7 +19,11 @@ import org.commonjava.cartographer.CartoDataException;
 import org.commonjava.cartographer.result.*;
 import org.commonjava.cartographer.graph.traverse.model.BuildOrder;
 import org.commonjava.cartographer.CartoRequestException;
+import org.commonjava.cartographer.graph.fn.GraphExportWriter;
+import org.commonjava.cartographer.graph.fn.ProjectBatchWriter;
+import org.commonjava.cartographer.graph.fn.ProjectPathsWriter;
 import org.commonjava.cartographer.request.PathsRequest;
+import org.commonjava.cartographer.request.ProjectBatchRequest;
 import org.commonjava.cartographer.request.ProjectGraphRelationshipsRequest;
 import org.commonjava.cartographer.request.ProjectGraphRequest;
 import org.commonjava.cartographer.request.SingleGraphRequest;
@@ -41,6 +45,14 @@ public interface GraphOps
     ProjectPathsResult getPaths( PathsRequest recipe )
                     throws CartoDataException, CartoRequestException;
 
+    /**
+     * Finds paths like {@link #getPaths(PathsRequest)}, but hands them to the writer a page at a time while the graphs
+     * are open, so large results don't have to be held in memory. Paths are grouped by target version; the request's
+     * offset / limit apply to that order.
+     */
+    void getPaths( PathsRequest recipe, ProjectPathsWriter writer )
+                    throws CartoDataException, CartoRequestException;
+
     ProjectErrors getProjectErrors( ProjectGraphRequest recipe )
                     throws CartoDataException, CartoRequestException;
 
@@ -70,4 +82,19 @@ public interface GraphOps
 
     GraphExport exportGraph( SingleGraphRequest recipe )
                     throws CartoDataException, CartoRequestException;
+
+    /**
+     * Exports the graph like {@link #exportGraph(SingleGraphRequest)}, but hands the relationships to the writer as a
+     * lazy stream while the graph is open, so large exports don't have to be held in memory.
+     */
+    void exportGraph( SingleGraphRequest recipe, GraphExportWriter writer )
+                    throws CartoDataException, CartoRequestException;
+
+    /**
+     * Answers the requested lookups (direct relationships either way, parent, metadata) for every project in the
+     * request, resolving and opening the graph once for the whole batch. Entries are handed to the writer in request
+     * order, while the graph is open.
+     */
+    void batchQuery( ProjectBatchRequest recipe, ProjectBatchWriter writer )
+                    throws CartoDataException, CartoRequestException;
 }
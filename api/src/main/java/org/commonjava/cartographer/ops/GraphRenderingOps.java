@@ -49,4 +49,10 @@ public interface GraphRenderingOps
 
     String dotfile( MultiRenderRequest recipe )
                     throws CartoDataException, CartoRequestException;
+
+    /**
+     * Renders the Graphviz dotfile straight to the writer, instead of building it up as a String.
+     */
+    void dotfile( MultiRenderRequest recipe, PrintWriter writer )
+                    throws CartoDataException, CartoRequestException;
 }
@@ -20,8 +20,9 @@ import org.commonjava.cartographer.CartoRequestException;
 import org.commonjava.cartographer.request.MetadataCollationRequest;
 import org.commonjava.cartographer.request.MetadataExtractionRequest;
 import org.commonjava.cartographer.request.MetadataUpdateRequest;
-import org.commonjava.cartographer.request.ProjectGraphRequest;
+import org.commonjava.cartographer.request.MetadataRescanRequest;
 import org.commonjava.cartographer.result.MetadataCollationResult;
+import org.commonjava.cartographer.result.MetadataRescanResult;
 import org.commonjava.cartographer.result.MetadataResult;
 import org.commonjava.cartographer.result.ProjectListResult;
 
@@ -36,7 +37,11 @@ public interface MetadataOps
     ProjectListResult updateMetadata( MetadataUpdateRequest recipe )
                     throws CartoDataException, CartoRequestException;
 
-    ProjectListResult rescanMetadata( ProjectGraphRequest recipe )
+    /**
+     * Rescan the matching projects' POMs for metadata, in parallel and with batched writes. See
+     * {@link MetadataRescanRequest} for resuming an interrupted run.
+     */
+    MetadataRescanResult rescanMetadata( MetadataRescanRequest recipe )
                     throws CartoDataException, CartoRequestException;
 
     MetadataCollationResult collate( MetadataCollationRequest recipe )
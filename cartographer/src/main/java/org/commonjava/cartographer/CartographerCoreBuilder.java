@@ -122,6 +122,10 @@ public class CartographerCoreBuilder
 
     private ExecutorService resolveExecutor;
 
+    private ExecutorService extractExecutor;
+
+    private ExecutorService rescanExecutor;
+
     private MetadataScannerSupport scannerSupport;
 
     private Collection<DepgraphPatcher> depgraphPatchers;
@@ -282,6 +286,19 @@ public class CartographerCoreBuilder
                                                                 new NamedThreadFactory( "carto-graph", true, 8 ) );
         }
 
+        if ( extractExecutor == null )
+        {
+            extractExecutor = Executors.newFixedThreadPool( aggregatorThreads * 4,
+                                                            new NamedThreadFactory( "carto-graph-extract", true, 8 ) );
+        }
+
+        if ( rescanExecutor == null )
+        {
+            rescanExecutor = Executors.newFixedThreadPool( MetadataOpsImpl.RESCAN_THREADS,
+                                                           new NamedThreadFactory( "carto-metadata-rescan", true,
+                                                                                   4 ) );
+        }
+
         if ( this.metadataScanners == null )
         {
             this.metadataScanners = new ArrayList<MetadataScanner>( Arrays.asList( new LicenseScanner( getPomReader() ),
@@ -360,14 +377,14 @@ public class CartographerCoreBuilder
                         new ResolveOpsImpl( sourceManager, discoverer, getArtifactManager(), resolveExecutor,
                                             dtoResolver, resolver );
 
-        final GraphOps graphOps = new GraphOpsImpl( resolver );
+        final GraphOps graphOps = new GraphOpsImpl( resolver, extractExecutor );
 
         final GraphRenderingOps graphRenderingOps =
                         new GraphRenderingOpsImpl( resolveOps, resolver, getLocationExpander(), dtoResolver );
 
         final MetadataOps metadataOps =
                         new MetadataOpsImpl( getArtifactManager(), getPomReader(), scannerSupport, resolver,
-                                             dtoResolver );
+                                             dtoResolver, rescanExecutor );
 
         try
         {
@@ -531,6 +548,16 @@ public class CartographerCoreBuilder
         return resolveExecutor;
     }
 
+    public ExecutorService getExtractExecutor()
+    {
+        return extractExecutor;
+    }
+
+    public ExecutorService getRescanExecutor()
+    {
+        return rescanExecutor;
+    }
+
     public MetadataScannerSupport getScannerSupport()
     {
         return scannerSupport;
@@ -560,6 +587,18 @@ public class CartographerCoreBuilder
         return this;
     }
 
+    public CartographerCoreBuilder withExtractExecutor( final ExecutorService extractExecutor )
+    {
+        this.extractExecutor = extractExecutor;
+        return this;
+    }
+
+    public CartographerCoreBuilder withRescanExecutor( final ExecutorService rescanExecutor )
+    {
+        this.rescanExecutor = rescanExecutor;
+        return this;
+    }
+
     public CartographerCoreBuilder withScannerSupport( final MetadataScannerSupport scannerSupport )
     {
         this.scannerSupport = scannerSupport;
@@ -22,6 +22,9 @@ import java.util.Map;
 import java.util.Set;
 
 import org.commonjava.cartographer.graph.RelationshipGraph;
+import org.commonjava.cartographer.graph.util.IntObjectMap;
+import org.commonjava.cartographer.graph.util.IntSet;
+import org.commonjava.cartographer.graph.util.ProjectRefInterner;
 import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
 import org.commonjava.maven.atlas.ident.ref.ArtifactRef;
 import org.commonjava.maven.atlas.ident.ref.ProjectRef;
@@ -39,7 +42,7 @@ public final class AggregationUtils
     public static Map<ProjectRef, ProjectRefCollection> collectProjectReferences( final RelationshipGraph graph )
     {
         final Collection<ProjectRelationship<?, ?>> rels = graph.getAllRelationships();
-        return collectProjectReferences( rels );
+        return collectProjectReferences( rels, graph.getRefInterner() );
     }
 
     public static Map<ProjectRef, ProjectRefCollection> collectProjectReferences( final Map<ProjectVersionRef, Map<ArtifactRef, ConcreteResource>> refMap )
@@ -73,7 +76,18 @@ public final class AggregationUtils
 
     public static Map<ProjectRef, ProjectRefCollection> collectProjectReferences( final Collection<ProjectRelationship<?, ?>> rels )
     {
-        final Map<ProjectRef, ProjectRefCollection> projects = new HashMap<ProjectRef, ProjectRefCollection>();
+        return collectProjectReferences( rels, new ProjectRefInterner() );
+    }
+
+    /**
+     * Group the GAVs and artifacts referenced by the relationships by GA. Intermediate state is keyed by the ids from
+     * the given interner, so each GA is only hashed as a {@link ProjectRef} once, when the result map is built.
+     */
+    public static Map<ProjectRef, ProjectRefCollection> collectProjectReferences( final Collection<ProjectRelationship<?, ?>> rels,
+                                                                                  final ProjectRefInterner refIds )
+    {
+        final IntObjectMap<ProjectRefCollection> projects = new IntObjectMap<>();
+        final IntSet declarers = new IntSet();
 
         for ( final ProjectRelationship<?, ?> rel : rels )
         {
@@ -83,39 +97,29 @@ public final class AggregationUtils
             //            }
 
             final ProjectVersionRef orig = rel.getDeclaring();
-            final ProjectVersionRef pvr = orig.asProjectVersionRef();
-            final ProjectRef r = rel.getDeclaring()
-                                    .asProjectRef();
-            ProjectRefCollection prc = projects.get( r );
-            if ( prc == null )
+            final ProjectRefCollection prc = collectionFor( projects, refIds.projectId( orig ) );
+            if ( declarers.add( refIds.versionId( orig ) ) )
             {
-                prc = new ProjectRefCollection();
-                projects.put( r, prc );
+                final ProjectVersionRef pvr = orig.asProjectVersionRef();
+                prc.addVersionRef( pvr );
+                prc.addArtifactRef( pvr.asPomArtifact() );
             }
 
-            prc.addVersionRef( pvr );
-            prc.addArtifactRef( pvr.asPomArtifact() );
-
             final ArtifactRef tar = rel.getTargetArtifact();
-
-            final ProjectRef tr = tar.asProjectRef();
-            ProjectRefCollection tprc = projects.get( tr );
-            if ( tprc == null )
-            {
-                tprc = new ProjectRefCollection();
-                projects.put( tr, tprc );
-            }
-
-            tprc.addArtifactRef( tar );
+            collectionFor( projects, refIds.projectId( tar ) ).addArtifactRef( tar );
         }
 
-        return projects;
+        final Map<ProjectRef, ProjectRefCollection> result = new HashMap<>( projects.size() * 2 );
+        projects.forEach( ( id, prc ) -> result.put( refIds.getProjectRef( id ), prc ) );
+
+        return result;
     }
 
     public static Map<ProjectVersionRef, ProjectRefCollection> collectProjectVersionReferences( final RelationshipGraph graph )
     {
         final Collection<ProjectRelationship<?, ?>> rels = graph.getAllRelationships();
-        final Map<ProjectVersionRef, ProjectRefCollection> result = collectProjectVersionReferences( rels );
+        final Map<ProjectVersionRef, ProjectRefCollection> result =
+            collectProjectVersionReferences( rels, graph.getRefInterner() );
         for ( final ProjectVersionRef root : graph.getParams()
                                                   .getRoots() )
         {
@@ -134,8 +138,17 @@ public final class AggregationUtils
 
     public static Map<ProjectVersionRef, ProjectRefCollection> collectProjectVersionReferences( final Collection<ProjectRelationship<?, ?>> rels )
     {
-        final Map<ProjectVersionRef, ProjectRefCollection> projects =
-            new HashMap<ProjectVersionRef, ProjectRefCollection>();
+        return collectProjectVersionReferences( rels, new ProjectRefInterner() );
+    }
+
+    /**
+     * Group the artifacts referenced by the relationships by GAV. Intermediate state is keyed by the ids from the
+     * given interner, so each GAV is only hashed as a {@link ProjectVersionRef} once, when the result map is built.
+     */
+    public static Map<ProjectVersionRef, ProjectRefCollection> collectProjectVersionReferences( final Collection<ProjectRelationship<?, ?>> rels,
+                                                                                                final ProjectRefInterner refIds )
+    {
+        final IntObjectMap<ProjectRefCollection> projects = new IntObjectMap<>( rels.size() );
 
         for ( final ProjectRelationship<?, ?> rel : rels )
         {
@@ -144,46 +157,61 @@ public final class AggregationUtils
             //                continue;
             //            }
 
-            final ProjectVersionRef pvr = rel.getDeclaring()
-                                             .asProjectVersionRef();
-
-            ProjectRefCollection prc = projects.get( pvr );
-            if ( prc == null )
+            final int id = refIds.versionId( rel.getDeclaring() );
+            ProjectRefCollection prc = projects.get( id );
+            if ( prc == null || prc.getVersionRefs()
+                                   .isEmpty() )
             {
-                prc = new ProjectRefCollection();
-                projects.put( pvr, prc );
-            }
+                prc = collectionFor( projects, id );
 
-            prc.addVersionRef( pvr );
-            prc.addArtifactRef( pvr.asPomArtifact() );
+                final ProjectVersionRef pvr = refIds.getVersionRef( id );
+                prc.addVersionRef( pvr );
+                prc.addArtifactRef( pvr.asPomArtifact() );
+            }
 
             final ArtifactRef tar = rel.getTargetArtifact();
+            collectionFor( projects, refIds.versionId( tar ) ).addArtifactRef( tar );
+        }
 
-            final ProjectVersionRef tr = tar.asProjectVersionRef();
-            ProjectRefCollection tprc = projects.get( tr );
-            if ( tprc == null )
+        final Map<ProjectVersionRef, ProjectRefCollection> result = new HashMap<>( projects.size() * 2 );
+        projects.forEach( ( id, prc ) -> {
+            // version strings that differ but parse to the same version (1.0 vs. 1.0.0) land in the same entry.
+            final ProjectRefCollection existing = result.put( refIds.getVersionRef( id ), prc );
+            if ( existing != null )
             {
-                tprc = new ProjectRefCollection();
-                projects.put( tr, tprc );
+                existing.getVersionRefs()
+                        .forEach( prc::addVersionRef );
+                existing.getArtifactRefs()
+                        .forEach( prc::addArtifactRef );
             }
+        } );
 
-            tprc.addArtifactRef( tar );
-        }
-
-        return projects;
+        return result;
     }
 
     public static Set<ArtifactRef> collectArtifactReferences( final RelationshipGraph graph,
                                                               final boolean includePomArtifacts )
     {
         final Collection<ProjectRelationship<?, ?>> rels = graph.getAllRelationships();
-        return collectArtifactReferences( rels, includePomArtifacts );
+        return collectArtifactReferences( rels, includePomArtifacts, graph.getRefInterner() );
     }
 
     public static Set<ArtifactRef> collectArtifactReferences( final Collection<ProjectRelationship<?, ?>> rels,
                                                               final boolean includePomArtifacts )
+    {
+        return collectArtifactReferences( rels, includePomArtifacts, new ProjectRefInterner() );
+    }
+
+    /**
+     * Collect the artifacts referenced by the relationships. When POM artifacts are included, each GAV's POM is only
+     * created and hashed once (tracked by the ids from the given interner), rather than once per relationship.
+     */
+    public static Set<ArtifactRef> collectArtifactReferences( final Collection<ProjectRelationship<?, ?>> rels,
+                                                              final boolean includePomArtifacts,
+                                                              final ProjectRefInterner refIds )
     {
         final Set<ArtifactRef> artifacts = new HashSet<ArtifactRef>();
+        final IntSet poms = new IntSet();
 
         for ( final ProjectRelationship<?, ?> rel : rels )
         {
@@ -192,7 +220,7 @@ public final class AggregationUtils
             //                continue;
             //            }
 
-            if ( includePomArtifacts )
+            if ( includePomArtifacts && poms.add( refIds.versionId( rel.getDeclaring() ) ) )
             {
                 final ProjectVersionRef pvr = rel.getDeclaring()
                                                  .asProjectVersionRef();
@@ -203,7 +231,7 @@ public final class AggregationUtils
             final ArtifactRef tar = rel.getTargetArtifact();
 
             artifacts.add( tar );
-            if ( includePomArtifacts )
+            if ( includePomArtifacts && poms.add( refIds.versionId( tar ) ) )
             {
                 artifacts.add( tar.asPomArtifact() );
             }
@@ -213,4 +241,16 @@ public final class AggregationUtils
         return artifacts;
     }
 
+    private static ProjectRefCollection collectionFor( final IntObjectMap<ProjectRefCollection> projects, final int id )
+    {
+        ProjectRefCollection prc = projects.get( id );
+        if ( prc == null )
+        {
+            prc = new ProjectRefCollection();
+            projects.put( id, prc );
+        }
+
+        return prc;
+    }
+
 }
@@ -18,6 +18,7 @@ package org.commonjava.cartographer.INTERNAL.graph.agg;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.commonjava.cartographer.CartoDataException;
 import org.commonjava.cartographer.graph.agg.AggregationOptions;
+import org.commonjava.cartographer.graph.agg.ProgressListener;
 import org.commonjava.cartographer.graph.discover.DiscoveryConfig;
 import org.commonjava.cartographer.graph.discover.DiscoveryResult;
 import org.commonjava.cartographer.spi.graph.agg.GraphAggregator;
@@ -28,11 +29,13 @@ import org.commonjava.cartographer.graph.RelationshipGraph;
 import org.commonjava.cartographer.graph.RelationshipGraphException;
 import org.commonjava.cartographer.graph.model.GraphPath;
 import org.commonjava.cartographer.graph.model.GraphPathInfo;
+import org.commonjava.cartographer.graph.util.SingleFlight;
+import org.commonjava.cartographer.rest.dto.ProgressEvent;
+import org.commonjava.cartographer.rest.dto.ProgressEventType;
 import org.commonjava.maven.atlas.graph.rel.DependencyRelationship;
 import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
 import org.commonjava.maven.atlas.graph.rel.RelationshipType;
 import org.commonjava.maven.atlas.graph.rel.SimpleParentRelationship;
-import org.commonjava.maven.atlas.ident.ref.ProjectRef;
 import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
 import org.commonjava.maven.atlas.ident.util.JoinString;
 import org.slf4j.Logger;
@@ -63,6 +66,12 @@ public class DefaultGraphAggregator
     @ExecutorConfig( daemon = true, named = "carto-aggregator", priority = 9, threads = 8 )
     private ExecutorService executor;
 
+    /**
+     * POM discoveries in flight across all aggregation runs, keyed by workspace, discovery source and GAV. Runs with
+     * overlapping roots share the discovery of their common frontier instead of each fetching the same POMs.
+     */
+    private final SingleFlight<String, DiscoveryResult> frontier = new SingleFlight<>();
+
     protected DefaultGraphAggregator()
     {
     }
@@ -84,15 +93,27 @@ public class DefaultGraphAggregator
             logger.debug( "Loading existing cycle participants..." );
             //            final Set<ProjectVersionRef> cycleParticipants = loadExistingCycleParticipants( net );
 
-            final Map<ProjectVersionRef, Set<ProjectRef>> seen = new HashMap<>();
+            final Map<ProjectVersionRef, ExclusionSet> seen = new HashMap<>();
+            final ExclusionSetInterner exclusions = new ExclusionSetInterner();
 
             logger.debug( "Loading initial set of GAVs to be resolved..." );
-            final List<DiscoveryTodo> pending = loadInitialPending( graph, seen );
+            final List<DiscoveryTodo> pending = loadInitialPending( graph, seen, exclusions );
             final HashSet<DiscoveryTodo> done = new HashSet<DiscoveryTodo>();
 
+            final DiscoveryProgress progress =
+                    new DiscoveryProgress( config.getProgressListener(), graph.getWorkspaceId() );
+            progress.report( ProgressEventType.DISCOVERY_STARTED, null, pending.size(), missing.size() );
+
             int pass = 0;
             while ( !pending.isEmpty() )
             {
+                if ( Thread.currentThread()
+                           .isInterrupted() )
+                {
+                    throw new CartoDataException( "Discovery interrupted after {} passes; {} still pending.", pass,
+                                                  pending.size() );
+                }
+
                 //                final HashSet<DiscoveryTodo> current = new HashSet<DiscoveryTodo>( pending );
                 //                pending.clear();
 
@@ -104,10 +125,12 @@ public class DefaultGraphAggregator
 
                 done.addAll( current );
 
+                progress.passStarted( pass, current.size(), pending.size() );
+
                 logger.debug( "{}. {} in next batch of TODOs:\n  {}", pass, current.size(), new JoinString( "\n  ",
                                                                                                             current ) );
                 final Set<DiscoveryTodo> newTodos =
-                    discover( current, config, /*cycleParticipants,*/missing, seen, pass );
+                    discover( current, config, /*cycleParticipants,*/missing, seen, exclusions, pass, progress );
 
                 if ( newTodos != null )
                 {
@@ -123,17 +146,21 @@ public class DefaultGraphAggregator
                     }
                 }
 
+                progress.report( ProgressEventType.PASS_FINISHED, pass, pending.size(), missing.size() );
                 pass++;
             }
 
-            logger.info( "Discovery complete. {} seen, {} missing in {} passes.", seen.size(), missing.size(), pass );
+            logger.info( "Discovery complete. {} seen, {} missing in {} passes ({} distinct exclusion sets).",
+                         seen.size(), missing.size(), pass, exclusions.size() );
+            progress.report( ProgressEventType.DISCOVERY_FINISHED, pass, 0, missing.size() );
         }
     }
 
     private Set<DiscoveryTodo> discover( final Set<DiscoveryTodo> todos, final AggregationOptions config,
                                          final Set<ProjectVersionRef> missing,
-                                         final Map<ProjectVersionRef, Set<ProjectRef>> seen,
-                                         final int pass )
+                                         final Map<ProjectVersionRef, ExclusionSet> seen,
+                                         final ExclusionSetInterner exclusions, final int pass,
+                                         final DiscoveryProgress progress )
         throws CartoDataException
     {
         logger.info( "Starting pass: {}", pass );
@@ -141,7 +168,7 @@ public class DefaultGraphAggregator
                       todos.size(), new JoinString( "\n  ", todos ) );
 
         final Set<DiscoveryRunnable> runnables =
-            executeTodoBatch( todos, config, missing, seen, /*cycleParticipants,*/pass );
+            executeTodoBatch( todos, config, missing, seen, exclusions, /*cycleParticipants,*/pass );
 
         logger.debug( "{}. Accounting for discovery results. Before discovery, these were missing:\n\n  {}\n\n", pass,
                       new JoinString( "\n  ", missing ) );
@@ -150,7 +177,8 @@ public class DefaultGraphAggregator
 
         for ( final DiscoveryRunnable r : runnables )
         {
-            if ( !processDiscoveryOutput( r, nextTodos, config.getDiscoveryConfig(), seen, pass ) )
+            progress.discovered( r, pass );
+            if ( !processDiscoveryOutput( r, nextTodos, config.getDiscoveryConfig(), seen, exclusions, pass ) )
             {
                 markMissing( r, missing, pass );
             }
@@ -177,6 +205,7 @@ public class DefaultGraphAggregator
      * that have yet to be discovered)
      * @param seen map of seen projects pointing at the set of dependency exclusions
      * used by the filter
+     * @param exclusions interner used to compare exclusion sets for this discovery run
      * @param pass For diagnostic/logging purposes, the number of discovery passes
      * since discovery was initiated by the caller (part of the graph may have been
      * pre-existing)
@@ -185,8 +214,10 @@ public class DefaultGraphAggregator
      */
     private Set<DiscoveryRunnable> executeTodoBatch( final Set<DiscoveryTodo> todos, final AggregationOptions config,
                                                      final Set<ProjectVersionRef> missing,
-                                                     final Map<ProjectVersionRef, Set<ProjectRef>> seen,
+                                                     final Map<ProjectVersionRef, ExclusionSet> seen,
+                                                     final ExclusionSetInterner exclusions,
                                                      /*final Set<ProjectVersionRef> cycleParticipants,*/final int pass )
+        throws CartoDataException
     {
         final Set<DiscoveryRunnable> runnables = new HashSet<DiscoveryRunnable>( todos.size() );
 
@@ -207,14 +238,15 @@ public class DefaultGraphAggregator
             //                continue;
             //            }
             // WAS: net.containsProject(todoRef) ...this is pretty expensive, since it requires traversal. Instead, we track as we go.
-            else if ( seen.containsKey( todoRef ) && todo.getDepExcludes().containsAll( seen.get( todoRef ) ) )
+            else if ( isSeen( todoRef, todo.getDepExcludes(), seen, exclusions ) )
             {
                 logger.info( "{}.{}. Skipping already-discovered reference: {}", pass, idx++, todoRef );
                 continue;
             }
 
             //            logger.info( "DISCOVER += {}", todo );
-            final DiscoveryRunnable runnable = new DiscoveryRunnable( todo, config, roMissing, discoverer, pass, idx );
+            final DiscoveryRunnable runnable =
+                new DiscoveryRunnable( todo, config, roMissing, discoverer, frontier, pass, idx );
             runnables.add( runnable );
             idx++;
         }
@@ -236,7 +268,9 @@ public class DefaultGraphAggregator
             catch ( final InterruptedException e )
             {
                 logger.error( "Interrupted on subgraph discovery." );
-                return null;
+                Thread.currentThread()
+                      .interrupt();
+                throw new CartoDataException( "Interrupted on subgraph discovery, pass: {}", e, pass );
             }
         }
 
@@ -259,6 +293,7 @@ public class DefaultGraphAggregator
      * MAY be augmented by output from this discovery runnable
      * @param config Configuration for how discovery should proceed
      * @param seen map of seen projects pointing at the set of dependency exclusions used by the filter
+     * @param exclusions interner used to combine and compare exclusion sets for this discovery run
      * @param pass For diagnostic/logging purposes, the number of discovery passes
      * since discovery was initiated by the caller (part of the graph may have been pre-existing)
      * @return true if output contained a valid result, or false to indicate the
@@ -268,8 +303,8 @@ public class DefaultGraphAggregator
     private boolean processDiscoveryOutput( final DiscoveryRunnable r,
                                             final Map<ProjectVersionRef, DiscoveryTodo> nextTodos,
                                             final DiscoveryConfig config,
-                                            final Map<ProjectVersionRef, Set<ProjectRef>> seen,
-                                            final int pass )
+                                            final Map<ProjectVersionRef, ExclusionSet> seen,
+                                            final ExclusionSetInterner exclusions, final int pass )
         throws CartoDataException
     {
         final DiscoveryTodo todo = r.getTodo();
@@ -317,14 +352,7 @@ public class DefaultGraphAggregator
             {
                 final Map<GraphPath<?>, GraphPathInfo> parentPathMap = todo.getParentPathMap();
 
-                if ( seen.containsKey( todo.getRef() ) )
-                {
-                    seen.get( todo.getRef() ).retainAll( todo.getDepExcludes() );
-                }
-                else
-                {
-                    seen.put( todo.getRef(), todo.getDepExcludes() );
-                }
+                markSeen( todo.getRef(), todo.getDepExcludes(), seen, exclusions );
 
                 final int index = r.getIndex();
 
@@ -341,17 +369,17 @@ public class DefaultGraphAggregator
                 {
                     final ProjectVersionRef relTarget = rel.getTarget()
                                                            .asProjectVersionRef();
-                    Set<ProjectRef> currentExc;
+                    ExclusionSet currentExc;
                     if ( rel instanceof DependencyRelationship )
                     {
-                        currentExc = new HashSet<>( todo.getDepExcludes() );
-                        currentExc.addAll( ( (DependencyRelationship) rel ).getExcludes() );
+                        currentExc = exclusions.union( todo.getDepExcludes(),
+                                                       ( (DependencyRelationship) rel ).getExcludes() );
                     }
                     else
                     {
                         currentExc = todo.getDepExcludes();
                     }
-                    if ( !seen.containsKey( relTarget ) || !currentExc.containsAll( seen.get( relTarget ) ) )
+                    if ( !isSeen( relTarget, currentExc, seen, exclusions ) )
                     {
                         for ( final Entry<GraphPath<?>, GraphPathInfo> entry : parentPathMap.entrySet() )
                         {
@@ -367,9 +395,10 @@ public class DefaultGraphAggregator
                             final ProjectVersionRef selectedTarget = selected.getTarget()
                                                                              .asProjectVersionRef();
                             pathInfo = pathInfo.getChildPathInfo( selected );
-                            Set<ProjectRef> exc = getDepExcludes( pathInfo );
+                            final ExclusionSet exc = exclusions.intern( pathInfo.getFilter()
+                                                                                .getDepExcludes() );
 
-                            if ( seen.containsKey( selectedTarget ) && exc.containsAll( seen.get( selectedTarget ) ) )
+                            if ( isSeen( selectedTarget, exc, seen, exclusions ) )
                             {
                                 continue;
                             }
@@ -394,7 +423,9 @@ public class DefaultGraphAggregator
                             else
                             {
                                 nextTodo.addParentPath( path, pathInfo );
-                                nextTodo.getDepExcludes().retainAll( exc );
+                                nextTodo = nextTodo.withDepExcludes(
+                                        exclusions.intersect( nextTodo.getDepExcludes(), exc ) );
+                                nextTodos.put( selectedTarget, nextTodo );
                             }
                         }
 
@@ -454,14 +485,22 @@ public class DefaultGraphAggregator
         }
     }
 
-    private Set<ProjectRef> getDepExcludes( final GraphPathInfo pathInfo )
+    /**
+     * A project counts as already seen when it was discovered under an exclusion context that is a subset of the
+     * current one, since anything reachable with the current exclusions was also reachable then.
+     */
+    private boolean isSeen( final ProjectVersionRef ref, final ExclusionSet excludes,
+                            final Map<ProjectVersionRef, ExclusionSet> seen, final ExclusionSetInterner exclusions )
     {
-        Set<ProjectRef> exc = pathInfo.getFilter().getDepExcludes();
-        if ( exc == null )
-        {
-            exc = new HashSet<>();
-        }
-        return exc;
+        final ExclusionSet seenExcludes = seen.get( ref );
+        return seenExcludes != null && exclusions.containsAll( excludes, seenExcludes );
+    }
+
+    private void markSeen( final ProjectVersionRef ref, final ExclusionSet excludes,
+                           final Map<ProjectVersionRef, ExclusionSet> seen, final ExclusionSetInterner exclusions )
+    {
+        final ExclusionSet seenExcludes = seen.get( ref );
+        seen.put( ref, seenExcludes == null ? excludes : exclusions.intersect( seenExcludes, excludes ) );
     }
 
     //    private void addToCycleParticipants( final Set<ProjectRelationship<?>> rejectedRelationships, final Set<ProjectVersionRef> cycleParticipants )
@@ -511,7 +550,8 @@ public class DefaultGraphAggregator
     //    }
 
     private List<DiscoveryTodo> loadInitialPending( final RelationshipGraph graph,
-                                                    final Map<ProjectVersionRef, Set<ProjectRef>> seen )
+                                                    final Map<ProjectVersionRef, ExclusionSet> seen,
+                                                    final ExclusionSetInterner exclusions )
     {
         logger.info( "Using root-level mutator: {}", graph.getMutator() );
 
@@ -551,24 +591,17 @@ public class DefaultGraphAggregator
             if ( todo == null )
             {
                 List<ProjectRelationship<?, ?>> relationships = graph.getRelationships( path );
-                Set<ProjectRef> excludes = new HashSet<>();
+                ExclusionSet excludes = exclusions.empty();
                 for ( ProjectRelationship<?, ?> relationship : relationships )
                 {
                     if ( relationship instanceof DependencyRelationship )
                     {
-                        excludes.addAll( ( ( DependencyRelationship ) relationship ).getExcludes() );
+                        excludes = exclusions.union( excludes, ( (DependencyRelationship) relationship ).getExcludes() );
                     }
                     if ( relationship != relationships.get( relationships.size() - 1 ) )
                     {
                         ProjectVersionRef relTarget = relationship.getTarget().asProjectVersionRef();
-                        if ( seen.containsKey( relTarget ) )
-                        {
-                            seen.get( relTarget ).retainAll( excludes );
-                        }
-                        else
-                        {
-                            seen.put( relTarget, new HashSet<>( excludes ) );
-                        }
+                        markSeen( relTarget, excludes, seen, exclusions );
                     }
                 }
 
@@ -588,4 +621,78 @@ public class DefaultGraphAggregator
 
         return new ArrayList<DiscoveryTodo>( initialPending.values() );
     }
+
+    /**
+     * Running totals for one {@link #connectIncomplete(RelationshipGraph, AggregationOptions)} call, reported to the
+     * request's {@link ProgressListener}. A failing listener is logged and otherwise ignored.
+     */
+    private final class DiscoveryProgress
+    {
+        private final ProgressListener listener;
+
+        private final String workspaceId;
+
+        private int fetched;
+
+        private int errors;
+
+        DiscoveryProgress( final ProgressListener listener, final String workspaceId )
+        {
+            this.listener = listener;
+            this.workspaceId = workspaceId;
+        }
+
+        void passStarted( final int pass, final int batch, final int frontier )
+        {
+            final ProgressEvent event = event( ProgressEventType.PASS_STARTED, pass, frontier );
+            event.setBatch( batch );
+            send( event );
+        }
+
+        void discovered( final DiscoveryRunnable r, final int pass )
+        {
+            if ( r.getError() != null )
+            {
+                errors++;
+
+                final ProgressEvent event = event( ProgressEventType.PROJECT_ERROR, pass, null );
+                event.setProject( r.getTodo().getRef() );
+                event.setMessage( r.getError().getMessage() );
+                send( event );
+            }
+            else if ( r.getResult() != null )
+            {
+                fetched++;
+            }
+        }
+
+        void report( final ProgressEventType type, final Integer pass, final int frontier, final int missing )
+        {
+            final ProgressEvent event = event( type, pass, frontier );
+            event.setMissing( missing );
+            send( event );
+        }
+
+        private ProgressEvent event( final ProgressEventType type, final Integer pass, final Integer frontier )
+        {
+            final ProgressEvent event = new ProgressEvent( type, workspaceId );
+            event.setPass( pass );
+            event.setFrontier( frontier );
+            event.setFetched( fetched );
+            event.setErrors( errors );
+            return event;
+        }
+
+        private void send( final ProgressEvent event )
+        {
+            try
+            {
+                listener.onProgress( event );
+            }
+            catch ( final RuntimeException e )
+            {
+                logger.warn( "Progress listener failed for: {}. Reason: {}", event, e.getMessage() );
+            }
+        }
+    }
 }
@@ -18,8 +18,13 @@ package org.commonjava.cartographer.INTERNAL.graph.agg;
 import org.commonjava.cartographer.CartoDataException;
 import org.commonjava.cartographer.graph.agg.AggregationOptions;
 import org.commonjava.cartographer.graph.discover.DiscoveryConfig;
+import org.commonjava.cartographer.graph.RelationshipGraph;
+import org.commonjava.cartographer.graph.RelationshipGraphException;
 import org.commonjava.cartographer.graph.discover.DiscoveryResult;
+import org.commonjava.cartographer.graph.util.DiscoveryFlightKeys;
+import org.commonjava.cartographer.graph.util.SingleFlight;
 import org.commonjava.cartographer.spi.graph.discover.ProjectRelationshipDiscoverer;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
 import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
 import org.commonjava.maven.atlas.ident.version.InvalidVersionSpecificationException;
 import org.slf4j.Logger;
@@ -50,13 +55,28 @@ public class DiscoveryRunnable
 
     private final int idx;
 
+    private final SingleFlight<String, DiscoveryResult> frontier;
+
     private Throwable error;
 
     public DiscoveryRunnable( final DiscoveryTodo todo, final AggregationOptions config,
                               final Set<ProjectVersionRef> missing, final ProjectRelationshipDiscoverer discoverer,
                               final int pass, final int idx )
+    {
+        this( todo, config, missing, discoverer, null, pass, idx );
+    }
+
+    /**
+     * @param frontier discoveries in flight across concurrent aggregation runs. If another run in the same workspace
+     * is already discovering this project with the same settings (see {@link #flightKey}), wait for its result instead
+     * of fetching the POM again.
+     */
+    public DiscoveryRunnable( final DiscoveryTodo todo, final AggregationOptions config,
+                              final Set<ProjectVersionRef> missing, final ProjectRelationshipDiscoverer discoverer,
+                              final SingleFlight<String, DiscoveryResult> frontier, final int pass, final int idx )
     {
         this.todo = todo;
+        this.frontier = frontier;
         this.config = config;
         this.roMissing = missing;
         this.discoverer = discoverer;
@@ -77,7 +97,7 @@ public class DiscoveryRunnable
 
             if ( discoverer != null && !roMissing.contains( ref ) )
             {
-                result = discoverer.discoverRelationships( ref, todo.getGraph(), discoveryConfig );
+                result = discover( ref, discoveryConfig );
             }
             else if ( roMissing.contains( ref ) )
             {
@@ -109,6 +129,53 @@ public class DiscoveryRunnable
         }
     }
 
+    private DiscoveryResult discover( final ProjectVersionRef ref, final DiscoveryConfig discoveryConfig )
+        throws CartoDataException
+    {
+        final RelationshipGraph graph = todo.getGraph();
+        if ( frontier == null )
+        {
+            return discoverer.discoverRelationships( ref, graph, discoveryConfig );
+        }
+
+        final boolean[] ran = { false };
+        final String key = flightKey( graph.getWorkspaceId(), ref, discoveryConfig );
+        final DiscoveryResult shared = frontier.execute( key, () -> {
+            ran[0] = true;
+            return discoverer.discoverRelationships( ref, graph, discoveryConfig );
+        } );
+
+        if ( !ran[0] && shared != null && discoveryConfig.isStoreRelationships() )
+        {
+            // the other run stored these in the workspace already; store them through this graph too, so its
+            // listeners and cached subgraph summaries see them.
+            logger.debug( "{}.{}. SHARED: Reusing in-flight discovery of: {}", pass, idx, ref );
+            final Set<ProjectRelationship<?, ?>> accepted = shared.getAcceptedRelationships();
+            if ( accepted != null && !accepted.isEmpty() )
+            {
+                try
+                {
+                    graph.storeRelationships( accepted );
+                }
+                catch ( final RelationshipGraphException e )
+                {
+                    throw new CartoDataException( "Failed to store relationships for: {}. Reason: {}", e, ref,
+                                                  e.getMessage() );
+                }
+            }
+        }
+
+        return shared;
+    }
+
+    /**
+     * @see DiscoveryFlightKeys#forProject(String, ProjectVersionRef, DiscoveryConfig)
+     */
+    static String flightKey( final String workspaceId, final ProjectVersionRef ref, final DiscoveryConfig config )
+    {
+        return DiscoveryFlightKeys.forProject( workspaceId, ref, config );
+    }
+
     public Throwable getError()
     {
         return error;
@@ -18,13 +18,10 @@ package org.commonjava.cartographer.INTERNAL.graph.agg;
 import org.commonjava.cartographer.graph.RelationshipGraph;
 import org.commonjava.cartographer.graph.model.GraphPath;
 import org.commonjava.cartographer.graph.model.GraphPathInfo;
-import org.commonjava.maven.atlas.ident.ref.ProjectRef;
 import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 
 final class DiscoveryTodo
 {
@@ -34,15 +31,16 @@ final class DiscoveryTodo
 
     private RelationshipGraph graph;
 
-    private Set<ProjectRef> depExcludes;
+    private final ExclusionSet depExcludes;
 
     public DiscoveryTodo( final ProjectVersionRef ref )
     {
         this.ref = ref;
+        this.depExcludes = ExclusionSet.EMPTY;
     }
 
     public DiscoveryTodo( final ProjectVersionRef ref, final GraphPath<?> path, final GraphPathInfo pathInfo,
-                          final RelationshipGraph graph, final Set<ProjectRef> depExcludes )
+                          final RelationshipGraph graph, final ExclusionSet depExcludes )
     {
         this.ref = ref;
         this.graph = graph;
@@ -51,6 +49,15 @@ final class DiscoveryTodo
         parentPaths.put( path, pathInfo );
     }
 
+    private DiscoveryTodo( final DiscoveryTodo todo, final ExclusionSet depExcludes )
+    {
+        this.ref = todo.ref;
+        this.graph = todo.graph;
+        this.parentPaths =
+                todo.parentPaths == null ? null : new HashMap<GraphPath<?>, GraphPathInfo>( todo.parentPaths );
+        this.depExcludes = depExcludes;
+    }
+
     public RelationshipGraph getGraph()
     {
         return graph;
@@ -139,9 +146,18 @@ final class DiscoveryTodo
         parentPaths.put( path, pathInfo );
     }
 
-    public Set<ProjectRef> getDepExcludes()
+    public ExclusionSet getDepExcludes()
+    {
+        return depExcludes;
+    }
+
+    /**
+     * Copy this TODO with different exclusions, for narrowing them when a new parent path is added. The exclusions
+     * participate in {@link #hashCode()}, so they're never changed in place.
+     */
+    public DiscoveryTodo withDepExcludes( final ExclusionSet depExcludes )
     {
-        return depExcludes == null ? Collections.emptySet() : depExcludes;
+        return depExcludes == this.depExcludes ? this : new DiscoveryTodo( this, depExcludes );
     }
 
 }
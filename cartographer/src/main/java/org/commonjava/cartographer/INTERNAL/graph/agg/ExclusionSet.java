@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.INTERNAL.graph.agg;
+
+import org.commonjava.maven.atlas.ident.ref.ProjectRef;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Immutable, interned set of dependency exclusions. Instances are only created by {@link ExclusionSetInterner}, which
+ * guarantees that two sets with the same contents share the same instance (and id), so equality and hashing are O(1).
+ */
+final class ExclusionSet
+{
+
+    /**
+     * The empty set. Every {@link ExclusionSetInterner} interns this instance, so it compares equal across interners.
+     */
+    static final ExclusionSet EMPTY = new ExclusionSet( 0, Collections.<ProjectRef> emptySet() );
+
+    private final int id;
+
+    private final Set<ProjectRef> refs;
+
+    ExclusionSet( final int id, final Set<ProjectRef> refs )
+    {
+        this.id = id;
+        this.refs = refs;
+    }
+
+    public int getId()
+    {
+        return id;
+    }
+
+    public Set<ProjectRef> getRefs()
+    {
+        return refs;
+    }
+
+    public boolean isEmpty()
+    {
+        return refs.isEmpty();
+    }
+
+    public int size()
+    {
+        return refs.size();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return id;
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        return this == obj;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format( "ExclusionSet [id=%s, refs=%s]", id, refs );
+    }
+
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.INTERNAL.graph.agg;
+
+import org.commonjava.maven.atlas.ident.ref.ProjectRef;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hash-conses {@link ExclusionSet} instances for a single discovery run, and memoizes the set algebra the aggregator
+ * performs on them (union, intersection, subset). Equal exclusion contexts are stored once, and repeated comparisons
+ * between the same pair of contexts are answered from the memo tables.
+ *
+ * NOTE: Not thread-safe. The aggregator only touches exclusion sets from the thread driving
+ * {@link DefaultGraphAggregator#connectIncomplete}, so each call gets its own instance.
+ */
+final class ExclusionSetInterner
+{
+
+    private final Map<Set<ProjectRef>, ExclusionSet> byContents = new HashMap<>();
+
+    private final Map<Long, Boolean> containsAllMemo = new HashMap<>();
+
+    private final Map<Long, ExclusionSet> intersectMemo = new HashMap<>();
+
+    private final Map<Long, ExclusionSet> unionMemo = new HashMap<>();
+
+    private final ExclusionSet empty;
+
+    ExclusionSetInterner()
+    {
+        empty = ExclusionSet.EMPTY;
+        byContents.put( empty.getRefs(), empty );
+    }
+
+    public ExclusionSet empty()
+    {
+        return empty;
+    }
+
+    public ExclusionSet intern( final Collection<ProjectRef> refs )
+    {
+        if ( refs == null || refs.isEmpty() )
+        {
+            return empty;
+        }
+
+        final Set<ProjectRef> key = refs instanceof Set ? (Set<ProjectRef>) refs : new HashSet<>( refs );
+        ExclusionSet set = byContents.get( key );
+        if ( set == null )
+        {
+            final Set<ProjectRef> copy = Collections.unmodifiableSet( new HashSet<>( refs ) );
+            set = new ExclusionSet( byContents.size(), copy );
+            byContents.put( copy, set );
+        }
+
+        return set;
+    }
+
+    /**
+     * @return true if every exclusion in subset is also present in superset.
+     */
+    public boolean containsAll( final ExclusionSet superset, final ExclusionSet subset )
+    {
+        if ( superset == subset || subset.isEmpty() )
+        {
+            return true;
+        }
+        else if ( superset.size() < subset.size() )
+        {
+            return false;
+        }
+
+        final Long key = pairKey( superset, subset );
+        Boolean result = containsAllMemo.get( key );
+        if ( result == null )
+        {
+            result = superset.getRefs()
+                             .containsAll( subset.getRefs() );
+            containsAllMemo.put( key, result );
+        }
+
+        return result;
+    }
+
+    public ExclusionSet intersect( final ExclusionSet first, final ExclusionSet second )
+    {
+        if ( first == second )
+        {
+            return first;
+        }
+        else if ( first.isEmpty() || second.isEmpty() )
+        {
+            return empty;
+        }
+
+        // intersection is symmetric, so normalize the key ordering.
+        final Long key = first.getId() < second.getId() ? pairKey( first, second ) : pairKey( second, first );
+        ExclusionSet result = intersectMemo.get( key );
+        if ( result == null )
+        {
+            final Set<ProjectRef> refs = new HashSet<>( first.getRefs() );
+            refs.retainAll( second.getRefs() );
+            result = intern( refs );
+            intersectMemo.put( key, result );
+        }
+
+        return result;
+    }
+
+    public ExclusionSet union( final ExclusionSet base, final Collection<ProjectRef> additions )
+    {
+        if ( additions == null || additions.isEmpty() )
+        {
+            return base;
+        }
+
+        return union( base, intern( additions ) );
+    }
+
+    public ExclusionSet union( final ExclusionSet first, final ExclusionSet second )
+    {
+        if ( first == second || second.isEmpty() )
+        {
+            return first;
+        }
+        else if ( first.isEmpty() )
+        {
+            return second;
+        }
+
+        final Long key = first.getId() < second.getId() ? pairKey( first, second ) : pairKey( second, first );
+        ExclusionSet result = unionMemo.get( key );
+        if ( result == null )
+        {
+            final Set<ProjectRef> refs = new HashSet<>( first.getRefs() );
+            refs.addAll( second.getRefs() );
+            result = intern( refs );
+            unionMemo.put( key, result );
+        }
+
+        return result;
+    }
+
+    public int size()
+    {
+        return byContents.size();
+    }
+
+    private static Long pairKey( final ExclusionSet first, final ExclusionSet second )
+    {
+        return ( (long) first.getId() << 32 ) | ( second.getId() & 0xFFFFFFFFL );
+    }
+
+}
@@ -16,13 +16,18 @@
 package org.commonjava.cartographer.INTERNAL.ops;
 
 import org.apache.commons.lang.StringUtils;
+import org.commonjava.cdi.util.weft.ExecutorConfig;
+import org.commonjava.cdi.util.weft.WeftManaged;
 import org.commonjava.cartographer.CartoDataException;
 import org.commonjava.cartographer.CartoRequestException;
 import org.commonjava.cartographer.graph.GraphResolver;
+import org.commonjava.cartographer.graph.fn.GraphExportWriter;
 import org.commonjava.cartographer.graph.fn.GraphFunction;
 import org.commonjava.cartographer.graph.fn.MatchingProjectFunction;
 import org.commonjava.cartographer.graph.fn.MultiGraphFunction;
+import org.commonjava.cartographer.graph.fn.ProjectBatchWriter;
 import org.commonjava.cartographer.graph.fn.ProjectCollector;
+import org.commonjava.cartographer.graph.fn.ProjectPathsWriter;
 import org.commonjava.cartographer.graph.fn.ProjectProjector;
 import org.commonjava.cartographer.graph.fn.ProjectSelector;
 import org.commonjava.cartographer.graph.fn.ValueHolder;
@@ -30,6 +35,8 @@ import org.commonjava.cartographer.graph.util.CartoGraphUtils;
 import org.commonjava.cartographer.ops.GraphOps;
 import org.commonjava.cartographer.request.GraphDescription;
 import org.commonjava.cartographer.request.PathsRequest;
+import org.commonjava.cartographer.request.ProjectBatchQuery;
+import org.commonjava.cartographer.request.ProjectBatchRequest;
 import org.commonjava.cartographer.request.ProjectGraphRelationshipsRequest;
 import org.commonjava.cartographer.request.ProjectGraphRequest;
 import org.commonjava.cartographer.request.SingleGraphRequest;
@@ -39,6 +46,7 @@ import org.commonjava.cartographer.result.MappedProjectRelationshipsResult;
 import org.commonjava.cartographer.result.MappedProjectResult;
 import org.commonjava.cartographer.result.MappedProjects;
 import org.commonjava.cartographer.result.MappedProjectsResult;
+import org.commonjava.cartographer.result.ProjectBatchEntry;
 import org.commonjava.cartographer.result.ProjectError;
 import org.commonjava.cartographer.result.ProjectErrors;
 import org.commonjava.cartographer.result.ProjectListResult;
@@ -52,41 +60,58 @@ import org.commonjava.cartographer.graph.filter.ProjectRelationshipFilter;
 import org.commonjava.maven.atlas.graph.model.EProjectCycle;
 import org.commonjava.maven.atlas.graph.rel.ParentRelationship;
 import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.graph.rel.RelationshipType;
 import org.commonjava.cartographer.graph.spi.RelationshipGraphConnectionException;
 import org.commonjava.cartographer.graph.spi.neo4j.io.Conversions;
 import org.commonjava.cartographer.graph.traverse.BuildOrderTraversal;
-import org.commonjava.cartographer.graph.traverse.PathsTraversal;
+import org.commonjava.cartographer.graph.traverse.PathSearch;
 import org.commonjava.cartographer.graph.traverse.TraversalType;
 import org.commonjava.cartographer.graph.traverse.model.BuildOrder;
+import org.commonjava.maven.atlas.ident.ref.ProjectRef;
 import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
 
 @ApplicationScoped
 public class GraphOpsImpl
                 implements GraphOps
 {
 
+    private static final int PATH_PAGE_SIZE = 1000;
+
     private final Logger logger = LoggerFactory.getLogger( getClass() );
 
     @Inject
     private GraphResolver resolver;
 
+    @Inject
+    @WeftManaged
+    @ExecutorConfig( daemon = true, named = "carto-graph-extract", priority = 8, threads = 8 )
+    private ExecutorService extractExecutor;
+
     protected GraphOpsImpl()
     {
     }
 
-    public GraphOpsImpl( final GraphResolver resolver )
+    public GraphOpsImpl( final GraphResolver resolver, final ExecutorService extractExecutor )
     {
         this.resolver = resolver;
+        this.extractExecutor = extractExecutor;
     }
 
     @Override
@@ -113,57 +138,123 @@ public class GraphOpsImpl
     public ProjectPathsResult getPaths( final PathsRequest recipe )
                     throws CartoDataException, CartoRequestException
     {
-        //        Collections.sort( paths, RelationshipPathComparator.INSTANCE );
+        final ProjectPathsResult result = new ProjectPathsResult();
+        getPaths( recipe, ( target, path ) -> result.addPath( target, path ) );
+
+        return result;
+    }
+
+    /**
+     * Searches each target version separately, so all of its paths reach the writer together. Matches are pulled from
+     * the {@link PathSearch} in pages of {@link #PATH_PAGE_SIZE}, and detached and written before the next page is
+     * taken.
+     */
+    @Override
+    public void getPaths( final PathsRequest recipe, final ProjectPathsWriter writer )
+                    throws CartoDataException, CartoRequestException
+    {
+        final ValueHolder<Long> offset = new ValueHolder<>();
+        offset.set( recipe.getOffset() == null ? 0L : recipe.getOffset() );
 
-        ProjectPathsResult result = new ProjectPathsResult();
+        final ValueHolder<Integer> limit = new ValueHolder<>();
+        limit.set( recipe.getLimit() == null ? PathSearch.UNLIMITED : recipe.getLimit() );
+
+        // like the PathsTraversal this replaced, match any version of each target GA.
+        final Set<ProjectRef> targets = new HashSet<>();
+        if ( recipe.getTargets() != null )
+        {
+            for ( final ProjectRef target : recipe.getTargets() )
+            {
+                targets.add( target.asProjectRef() );
+            }
+        }
 
         final MultiGraphFunction<Set<ProjectRelationship<?, ?>>> extractor = ( allRels, graphMap ) -> {
+            final Map<ProjectVersionRef, List<PathSearch>> searches =
+                            new TreeMap<>( Comparator.comparing( ProjectVersionRef::toString ) );
+
             for ( final GraphDescription desc : graphMap.keySet() )
             {
                 final RelationshipGraph graph = graphMap.get( desc );
-                final ProjectRelationshipFilter filter = desc.filter();
-
-                final PathsTraversal paths = new PathsTraversal( recipe.buildFilter( filter ), recipe.getTargets() );
-                try
-                {
-                    graph.traverse( paths, TraversalType.depth_first );
-                }
-                catch ( final RelationshipGraphException ex )
+                final ProjectRelationshipFilter filter = recipe.buildFilter( desc.filter() );
+                for ( final ProjectRef target : targets )
                 {
-                    throw new CartoDataException(
-                                    "Failed to open / traverse the graph (for paths operation): " + ex.getMessage(),
-                                    ex );
+                    for ( final ProjectVersionRef ref : graph.getProjectsMatching( target ) )
+                    {
+                        searches.computeIfAbsent( ref, k -> new ArrayList<>() )
+                                .add( graph.searchPaths( filter, Collections.singleton( ref ) ) );
+                    }
                 }
+            }
 
-                final Set<List<ProjectRelationship<?, ?>>> discoveredPaths = paths.getDiscoveredPaths();
-
-                for ( final List<ProjectRelationship<?, ?>> path : discoveredPaths )
+            for ( final Map.Entry<ProjectVersionRef, List<PathSearch>> entry : searches.entrySet() )
+            {
+                for ( final PathSearch search : entry.getValue() )
                 {
-                    if ( path == null || path.isEmpty() )
+                    if ( limit.get() == 0 )
                     {
-                        continue;
+                        return;
                     }
 
-                    for ( final ProjectRelationship<?, ?> rel : path )
+                    if ( offset.get() > 0 )
                     {
-                        if ( !allRels.contains( rel ) )
+                        // skip whole searches where the offset covers them.
+                        final long count = search.countPaths();
+                        if ( count <= offset.get() )
                         {
-                            // continue to the next path...
-                            break;
+                            offset.set( offset.get() - count );
+                            continue;
                         }
                     }
 
-                    List<ProjectRelationship<?, ?>> detachedPath = Conversions.convertToDetachedRelationships( path );
-                    final ProjectVersionRef ref = detachedPath.get( path.size() - 1 ).getTarget();
-                    result.addPath( ref, new ProjectPath( detachedPath ) );
+                    writePaths( entry.getKey(), search, offset, limit, writer );
                 }
             }
         };
 
         resolver.resolveAndExtractMultiGraph( AnyFilter.INSTANCE, recipe,
                                                 ( allProjects, allRels, roots ) -> allRels.get(), extractor );
+    }
 
-        return result;
+    private void writePaths( final ProjectVersionRef target, final PathSearch search, final ValueHolder<Long> offset,
+                             final ValueHolder<Integer> limit, final ProjectPathsWriter writer )
+                    throws CartoDataException
+    {
+        long start = offset.get();
+        offset.set( 0L );
+
+        while ( limit.get() != 0 )
+        {
+            final int pageSize = limit.get() == PathSearch.UNLIMITED ? PATH_PAGE_SIZE
+                            : Math.min( PATH_PAGE_SIZE, limit.get() );
+
+            final List<PathSearch.Match> matches = search.findPaths( start, pageSize );
+            start += matches.size();
+            if ( limit.get() != PathSearch.UNLIMITED )
+            {
+                limit.set( limit.get() - matches.size() );
+            }
+
+            for ( final PathSearch.Match match : matches )
+            {
+                final List<ProjectRelationship<?, ?>> path =
+                                Conversions.convertToDetachedRelationships( match.getRelationships() );
+                try
+                {
+                    writer.write( target, new ProjectPath( path ) );
+                }
+                catch ( final IOException e )
+                {
+                    throw new CartoDataException( "Failed to write paths for: {}. Reason: {}", e, target,
+                                                  e.getMessage() );
+                }
+            }
+
+            if ( matches.size() < pageSize )
+            {
+                break;
+            }
+        }
     }
 
     @Override
@@ -379,7 +470,8 @@ public class GraphOpsImpl
                         ( ref, mapped ) -> result.addProject( new MappedProjects( ref, mapped ) );
 
         resolver.resolveAndExtractSingleGraph( AnyFilter.INSTANCE, recipe,
-                                                 new MatchingProjectFunction<>( recipe, extractor, consumer ) );
+                                                 new MatchingProjectFunction<>( recipe, extractor, consumer ).inParallel(
+                                                                 extractExecutor ) );
 
         return result;
     }
@@ -388,30 +480,30 @@ public class GraphOpsImpl
     public BuildOrder getBuildOrder( final ProjectGraphRequest recipe )
                     throws CartoDataException, CartoRequestException
     {
+        // pick out the matching roots first, then walk them concurrently. Each root gets its own fork of the traversal,
+        // and forks share the graph's memoized subgraph summaries, so a subgraph common to several roots is only
+        // expanded once.
+        final Set<ProjectVersionRef> roots = new LinkedHashSet<>();
+        final ProjectProjector<ProjectVersionRef> extractor = ( ref, graph ) -> ref;
+        final ProjectCollector<ProjectVersionRef> consumer = ( ref, ref2 ) -> roots.add( ref );
+        final ProjectSelector supplier = RelationshipGraph::getRoots;
+        final MatchingProjectFunction<ProjectVersionRef> matching =
+                        new MatchingProjectFunction<>( recipe, extractor, consumer, supplier );
+
         final BuildOrderTraversal traversal = new BuildOrderTraversal();
-        final ProjectProjector<ProjectVersionRef> extractor = ( ref, graph ) -> {
+        resolver.resolveAndExtractSingleGraph( AnyFilter.INSTANCE, recipe, ( graph ) -> {
+            matching.extract( graph );
             try
             {
-                graph.traverse( ref, traversal, TraversalType.breadth_first );
-                return ref;
+                graph.traverseInParallel( roots, traversal, TraversalType.breadth_first, extractExecutor );
             }
             catch ( final RelationshipGraphException e )
             {
                 logger.error( String.format( "Failed to traverse graph: %s to discover build order for: %s",
-                                             recipe.getWorkspaceId(), ref ), e );
+                                             recipe.getWorkspaceId(), roots ), e );
             }
+        } );
 
-            return null;
-        };
-
-        final ProjectCollector<ProjectVersionRef> consumer = ( ref, ref2 ) -> {
-        };
-
-        final ProjectSelector supplier = RelationshipGraph::getRoots;
-
-        resolver.resolveAndExtractSingleGraph( AnyFilter.INSTANCE, recipe,
-                                                 new MatchingProjectFunction<>( recipe, extractor, consumer,
-                                                                                supplier ) );
         return traversal.getBuildOrder();
     }
 
@@ -421,29 +513,138 @@ public class GraphOpsImpl
     {
         final ValueHolder<GraphExport> holder = new ValueHolder<>();
         final GraphFunction extractor = ( graph ) -> {
-            final Set<ProjectRelationship<?, ?>> rels = graph.getAllRelationships();
-            final Set<ProjectVersionRef> missing = graph.getAllIncompleteSubgraphs();
+            final GraphExport export = exportSummary( graph );
+            export.setRelationships( graph.getAllRelationships() );
+
+            holder.consumer().accept( export );
+        };
+
+        resolver.resolveAndExtractSingleGraph( AnyFilter.INSTANCE, recipe, extractor );
+        return holder.get();
+    }
 
-            if ( missing != null && missing.containsAll( recipe.getGraph().getRoots() ) )
+    @Override
+    public void exportGraph( final SingleGraphRequest recipe, final GraphExportWriter writer )
+                    throws CartoDataException, CartoRequestException
+    {
+        final GraphFunction extractor = ( graph ) -> {
+            final GraphExport summary = exportSummary( graph );
+            try (Stream<ProjectRelationship<?, ?>> relationships = graph.streamAllRelationships())
+            {
+                writer.write( summary, relationships );
+            }
+            catch ( final IOException e )
             {
-                holder.consumer().accept( null );
+                throw new CartoDataException( "Failed to write graph export for: {}. Reason: {}", e, recipe,
+                                              e.getMessage() );
             }
+        };
+
+        resolver.resolveAndExtractSingleGraph( AnyFilter.INSTANCE, recipe, extractor );
+    }
+
+    @Override
+    public void batchQuery( final ProjectBatchRequest recipe, final ProjectBatchWriter writer )
+                    throws CartoDataException, CartoRequestException
+    {
+        final List<ProjectVersionRef> projects = recipe.getProjects();
+        if ( projects == null || projects.isEmpty() )
+        {
+            throw new CartoRequestException( "No projects given for batch query: {}", recipe );
+        }
 
-            final Set<ProjectVersionRef> variable = graph.getAllVariableSubgraphs();
-            final Set<EProjectCycle> cycles = graph.getCycles();
+        final Set<ProjectBatchQuery> queries = recipe.getEffectiveQueries();
+        final Set<String> metadataKeys = recipe.getMetadataKeys();
+        final RelationshipType[] types = recipe.toTypeArray();
 
-            final Map<ProjectVersionRef, String> errorMap = graph.getAllProjectErrors();
-            ProjectErrors errors = new ProjectErrors();
-            for ( ProjectVersionRef key : errorMap.keySet() )
+        final GraphFunction extractor = ( graph ) -> {
+            for ( final ProjectVersionRef ref : projects )
             {
-                errors.addProject( new ProjectError( key, errorMap.get( key ) ) );
-            }
+                final ProjectBatchEntry entry = new ProjectBatchEntry( ref, graph.containsGraph( ref ) );
+                if ( entry.isPresent() )
+                {
+                    if ( queries.contains( ProjectBatchQuery.DECLARED ) )
+                    {
+                        entry.setDeclared( nonEmpty( graph.findDirectRelationshipsFrom( ref, recipe.isManagedIncluded(),
+                                                                                        recipe.isConcreteIncluded(),
+                                                                                        types ) ) );
+                    }
+
+                    if ( queries.contains( ProjectBatchQuery.TARGETING ) )
+                    {
+                        entry.setTargeting( nonEmpty( graph.findDirectRelationshipsTo( ref, recipe.isManagedIncluded(),
+                                                                                       recipe.isConcreteIncluded(),
+                                                                                       types ) ) );
+                    }
+
+                    if ( queries.contains( ProjectBatchQuery.PARENT ) )
+                    {
+                        entry.setParent( findParent( ref, graph ) );
+                    }
+
+                    if ( queries.contains( ProjectBatchQuery.METADATA ) )
+                    {
+                        entry.setMetadata( metadataKeys == null || metadataKeys.isEmpty() ? graph.getMetadata( ref )
+                                                           : graph.getMetadata( ref, metadataKeys ) );
+                    }
+                }
 
-            holder.consumer().accept( new GraphExport( rels, missing, variable, errors, cycles ) );
+                try
+                {
+                    writer.write( entry );
+                }
+                catch ( final IOException e )
+                {
+                    throw new CartoDataException( "Failed to write batch query results for: {}. Reason: {}", e, ref,
+                                                  e.getMessage() );
+                }
+            }
         };
 
+        // types are applied per lookup, so parents and metadata stay visible regardless of the relationship filter.
         resolver.resolveAndExtractSingleGraph( AnyFilter.INSTANCE, recipe, extractor );
-        return holder.get();
+    }
+
+    private ProjectVersionRef findParent( final ProjectVersionRef ref, final RelationshipGraph graph )
+    {
+        final Set<ProjectRelationship<?, ?>> rels =
+                        graph.findDirectRelationshipsFrom( ref, false, RelationshipType.PARENT );
+        if ( rels != null )
+        {
+            for ( final ProjectRelationship<?, ?> rel : rels )
+            {
+                if ( rel instanceof ParentRelationship && !( (ParentRelationship) rel ).isTerminus() )
+                {
+                    return rel.getTarget();
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private Set<ProjectRelationship<?, ?>> nonEmpty( final Set<ProjectRelationship<?, ?>> rels )
+    {
+        return rels == null || rels.isEmpty() ? null : new HashSet<>( rels );
+    }
+
+    /**
+     * Everything in the graph export except the relationships.
+     */
+    private GraphExport exportSummary( final RelationshipGraph graph )
+    {
+        final Set<ProjectVersionRef> missing = graph.getAllIncompleteSubgraphs();
+        final Set<ProjectVersionRef> variable = graph.getAllVariableSubgraphs();
+        final Set<EProjectCycle> cycles = graph.getCycles();
+
+        final Map<ProjectVersionRef, String> errorMap = graph.getAllProjectErrors();
+        ProjectErrors errors = new ProjectErrors();
+        for ( ProjectVersionRef key : errorMap.keySet() )
+        {
+            errors.addProject( new ProjectError( key, errorMap.get( key ) ) );
+        }
+
+        return new GraphExport( null, missing, variable, errors, cycles );
     }
 
 }
@@ -52,6 +52,7 @@ import org.slf4j.LoggerFactory;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.*;
 
 import static org.commonjava.cartographer.INTERNAL.graph.agg.AggregationUtils.collectProjectReferences;
@@ -382,53 +383,70 @@ public class GraphRenderingOpsImpl
     public String dotfile( final MultiRenderRequest recipe )
                     throws CartoDataException, CartoRequestException
     {
-        final StringBuilder sb = new StringBuilder();
+        final StringWriter sw = new StringWriter();
+        dotfile( recipe, new PrintWriter( sw ) );
+        return sw.toString();
+    }
+
+    @Override
+    public void dotfile( final MultiRenderRequest recipe, final PrintWriter writer )
+                    throws CartoDataException, CartoRequestException
+    {
         final MultiGraphFunction<MultiGraphAllInput> extractor = ( input, graphMap ) -> {
             final Set<ProjectVersionRef> refs = new HashSet<>( input.getAllProjects() );
             final Collection<ProjectRelationship<?, ?>> rels = input.getAllRelationships();
 
             final Map<ProjectVersionRef, String> aliases = new HashMap<>();
 
+            // each statement is built here, then written out, so the whole file never sits in memory.
+            final StringBuilder sb = new StringBuilder();
             sb.append( "digraph " )
               .append( cleanDotName( recipe.getRenderParamWithPrecedingDefault( "Unknown Graph", "name", "coord" ) ) )
               .append( " {" );
 
             sb.append( "\nsize=\"300,20\"; resolution=72;\n" );
+            writer.append( sb );
 
+            final Set<String> usedAliases = new HashSet<>();
             for ( final ProjectVersionRef r : refs )
             {
                 final String aliasBase = cleanDotName( r.toString() );
 
                 String alias = aliasBase;
                 int idx = 2;
-                while ( aliases.containsValue( alias ) )
+                while ( usedAliases.contains( alias ) )
                 {
                     alias = aliasBase + idx++;
                 }
 
                 aliases.put( r, alias );
+                usedAliases.add( alias );
 
+                sb.setLength( 0 );
                 sb.append( "\n" ).append( alias ).append( " [label=\"" ).append( r ).append( "\"];" );
+                writer.append( sb );
             }
 
-            sb.append( "\n" );
+            writer.append( "\n" );
 
             for ( final ProjectRelationship<?, ?> rel : rels )
             {
                 final String da = aliases.get( rel.getDeclaring() );
                 final String ta = aliases.get( rel.getTarget().asProjectVersionRef() );
 
+                sb.setLength( 0 );
                 sb.append( "\n" ).append( da ).append( " -> " ).append( ta );
 
                 appendRelationshipInfo( rel, sb );
                 sb.append( ";" );
+                writer.append( sb );
             }
 
-            sb.append( "\n\n}\n" );
+            writer.append( "\n\n}\n" );
+            writer.flush();
         };
 
         resolver.resolveAndExtractMultiGraph( AnyFilter.INSTANCE, recipe, new MultiGraphAllInputSelector(), extractor );
-        return sb.toString();
     }
 
     private String cleanDotName( final String src )
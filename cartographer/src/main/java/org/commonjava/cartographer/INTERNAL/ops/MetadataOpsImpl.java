@@ -15,11 +15,15 @@
  */
 package org.commonjava.cartographer.INTERNAL.ops;
 
+import static org.commonjava.cartographer.request.MetadataRescanRequest.RESCAN_ID_METADATA;
+
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
@@ -39,11 +43,14 @@ import org.commonjava.cartographer.graph.fn.ProjectProjector;
 import org.commonjava.cartographer.request.MetadataCollationRequest;
 import org.commonjava.cartographer.request.MetadataExtractionRequest;
 import org.commonjava.cartographer.request.MetadataUpdateRequest;
-import org.commonjava.cartographer.request.ProjectGraphRequest;
 import org.commonjava.cartographer.result.MetadataEntry;
 import org.commonjava.cartographer.result.MetadataResult;
 import org.commonjava.cartographer.result.ProjectListResult;
 import org.commonjava.cartographer.graph.RecipeResolver;
+import org.commonjava.cartographer.request.MetadataRescanRequest;
+import org.commonjava.cartographer.result.MetadataRescanResult;
+import org.commonjava.cdi.util.weft.ExecutorConfig;
+import org.commonjava.cdi.util.weft.WeftManaged;
 import org.commonjava.maven.galley.TransferException;
 import org.commonjava.maven.galley.maven.ArtifactManager;
 import org.commonjava.maven.galley.maven.GalleyMavenException;
@@ -59,6 +66,11 @@ public class MetadataOpsImpl
                 implements MetadataOps
 {
 
+    /**
+     * Threads in the metadata rescan executor; a rescan keeps this many POMs in flight.
+     */
+    public static final int RESCAN_THREADS = 16;
+
     private final Logger logger = LoggerFactory.getLogger( getClass() );
 
     @Inject
@@ -76,14 +88,20 @@ public class MetadataOpsImpl
     @Inject
     private GraphResolver resolver;
 
+    @Inject
+    @WeftManaged
+    @ExecutorConfig( daemon = true, named = "carto-metadata-rescan", priority = 4, threads = RESCAN_THREADS )
+    private ExecutorService rescanExecutor;
+
     protected MetadataOpsImpl()
     {
     }
 
     public MetadataOpsImpl( final ArtifactManager artifacts, final MavenPomReader pomReader,
                             final MetadataScannerSupport scannerSupport, final GraphResolver resolver,
-                            final RecipeResolver dtoResolver )
+                            final RecipeResolver dtoResolver, final ExecutorService rescanExecutor )
     {
+        this.rescanExecutor = rescanExecutor;
         this.artifacts = artifacts;
         this.pomReader = pomReader;
         this.scannerSupport = scannerSupport;
@@ -160,11 +178,21 @@ public class MetadataOpsImpl
     }
 
     @Override
-    public ProjectListResult rescanMetadata( final ProjectGraphRequest recipe )
+    public MetadataRescanResult rescanMetadata( final MetadataRescanRequest recipe )
                     throws CartoDataException, CartoRequestException
     {
         recipe.setResolve( false );
-        final ProjectListResult result = new ProjectListResult();
+        if ( recipe.isResume() && recipe.getRescanId() == null )
+        {
+            throw new CartoRequestException( "Cannot resume a metadata rescan without the rescanId of the run." );
+        }
+        else if ( recipe.getRescanId() == null )
+        {
+            recipe.setRescanId( UUID.randomUUID().toString() );
+        }
+
+        final MetadataRescanResult result = new MetadataRescanResult();
+        result.setRescanId( recipe.getRescanId() );
 
         recipeResolver.resolve( recipe );
         final List<? extends Location> locations = recipe.getDiscoveryConfig().getLocations();
@@ -175,66 +203,48 @@ public class MetadataOpsImpl
             return result;
         }
 
-        final ProjectProjector<ProjectVersionRef> projector = ( ref, graph ) -> {
-            Transfer transfer = null;
-            MavenPomView pomView = null;
-            try
-            {
-                transfer = artifacts.retrieveFirst( locations, ref.asPomArtifact() );
-                if ( transfer == null )
-                {
-                    logger.error( "Cannot find POM: {} in locations: {}. Skipping for metadata scanning...",
-                                  ref.asPomArtifact(), locations );
-                }
-                else
-                {
-                    pomView = pomReader.read( ref, transfer, locations );
-                }
-            }
-            catch ( final TransferException e )
-            {
-                logger.error( String.format( "Cannot read: %s from locations: %s. Reason: %s", ref.asPomArtifact(),
-                                             locations, e.getMessage() ), e );
-            }
-            catch ( final GalleyMavenException e )
-            {
-                logger.error( String.format( "Cannot build POM view for: %s. Reason: %s", ref.asPomArtifact(),
-                                             e.getMessage() ), e );
-            }
+        final Set<ProjectVersionRef> matches = new HashSet<>();
+        final ProjectProjector<ProjectVersionRef> projector = ( ref, graph ) -> ref;
+        final ProjectCollector<ProjectVersionRef> collector = ( ref, unused ) -> matches.add( ref );
 
-            if ( pomView == null )
+        resolver.resolveAndExtractSingleGraph( AnyFilter.INSTANCE, recipe, ( graph ) -> {
+            new MatchingProjectFunction<>( recipe, projector, collector ).extract( graph );
+
+            if ( recipe.isResume() )
             {
-                return null;
+                final Set<ProjectVersionRef> done =
+                                graph.getProjectsWithMetadata( RESCAN_ID_METADATA, recipe.getRescanId() );
+                final int before = matches.size();
+                matches.removeAll( done );
+                result.setSkipped( before - matches.size() );
             }
 
-            final Map<String, String> allMeta = scannerSupport.scan( ref, locations, pomView, transfer );
+            new MetadataRescan( graph, recipe, result, rescanExecutor ).run( matches,
+                                                                             ( ref ) -> scanPom( ref, locations ) );
+        } );
 
-            if ( allMeta != null && !allMeta.isEmpty() )
-            {
-                try
-                {
-                    graph.addMetadata( ref, allMeta );
-                }
-                catch ( final RelationshipGraphException e )
-                {
-                    logger.error( String.format( "Failed to update metadata for: %s in: %s. Reason: %s", ref, graph,
-                                                 e.getMessage() ), e );
-                }
-            }
+        return result;
+    }
 
-            return ref;
-        };
+    /**
+     * Fetch, read and scan one POM for {@link #rescanMetadata(MetadataRescanRequest)}. Returns null if the POM can't
+     * be found.
+     */
+    private Map<String, String> scanPom( final ProjectVersionRef ref, final List<? extends Location> locations )
+                    throws TransferException, GalleyMavenException
+    {
+        final Transfer transfer = artifacts.retrieveFirst( locations, ref.asPomArtifact() );
+        if ( transfer == null )
+        {
+            logger.error( "Cannot find POM: {} in locations: {}. Skipping for metadata scanning...",
+                          ref.asPomArtifact(), locations );
+            return null;
+        }
 
-        final ProjectCollector<ProjectVersionRef> collector = ( unused, ref ) -> {
-            if ( ref != null )
-            {
-                result.addProject( ref );
-            }
-        };
+        final MavenPomView pomView = pomReader.read( ref, transfer, locations );
+        final Map<String, String> allMeta = scannerSupport.scan( ref, locations, pomView, transfer );
 
-        resolver.resolveAndExtractSingleGraph( AnyFilter.INSTANCE, recipe,
-                                               new MatchingProjectFunction<>( recipe, projector, collector ) );
-        return result;
+        return allMeta == null ? new HashMap<>() : allMeta;
     }
 
     @Override
@@ -249,27 +259,24 @@ public class MetadataOpsImpl
             return new MetadataCollationResult( result );
         }
 
-        final ProjectProjector<Map<String, String>> projector = ( ref, graph ) -> {
-            final Map<String, String> metadata = graph.getMetadata( ref, keys );
-            keys.stream().filter( key -> !metadata.containsKey( key ) ).forEach( key -> {
-                metadata.put( key, null );
-            } );
-            return metadata;
-        };
+        final Set<ProjectVersionRef> matches = new HashSet<>();
+        final ProjectProjector<ProjectVersionRef> projector = ( ref, graph ) -> ref;
+        final ProjectCollector<ProjectVersionRef> collector = ( ref, unused ) -> matches.add( ref );
 
-        final ProjectCollector<Map<String, String>> collector = ( ref, metadata ) -> {
-            Set<ProjectVersionRef> collated = result.get( metadata );
-            if ( collated == null )
-            {
-                collated = new HashSet<>();
-                result.put( metadata, collated );
-            }
+        resolver.resolveAndExtractSingleGraph( AnyFilter.INSTANCE, recipe, ( graph ) -> {
+            new MatchingProjectFunction<>( recipe, projector, collector ).extract( graph );
 
-            collated.add( ref );
-        };
+            // one pass over the workspace's metadata columns, rather than a metadata read per project.
+            graph.collateByMetadata( matches, keys ).forEach( ( found, projects ) -> {
+                final Map<String, String> metadata = new HashMap<>( found );
+                keys.stream().filter( key -> !metadata.containsKey( key ) ).forEach( key -> {
+                    metadata.put( key, null );
+                } );
+
+                result.computeIfAbsent( metadata, ( k ) -> new HashSet<>() ).addAll( projects );
+            } );
+        } );
 
-        resolver.resolveAndExtractSingleGraph( AnyFilter.INSTANCE, recipe,
-                                               new MatchingProjectFunction<>( recipe, projector, collector ) );
         return new MetadataCollationResult( result );
     }
 }
@@ -0,0 +1,254 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.INTERNAL.ops;
+
+import static org.commonjava.cartographer.request.MetadataRescanRequest.RESCAN_ID_METADATA;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.commonjava.cartographer.CartoDataException;
+import org.commonjava.cartographer.graph.RelationshipGraph;
+import org.commonjava.cartographer.graph.RelationshipGraphException;
+import org.commonjava.cartographer.request.MetadataRescanRequest;
+import org.commonjava.cartographer.rest.dto.ProgressEvent;
+import org.commonjava.cartographer.rest.dto.ProgressEventType;
+import org.commonjava.cartographer.result.MetadataRescanResult;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One run of {@link MetadataOpsImpl#rescanMetadata(MetadataRescanRequest)}. POMs are fetched and scanned on the
+ * rescan executor, at most {@link #FETCH_AHEAD} at a time, while the calling thread stores the results in batches of
+ * {@link #BATCH_SIZE}. Each project is marked with the run's rescanId in the same write as its metadata; that marker
+ * is the checkpoint a resumed run skips, so a project is only ever recorded as done once its metadata is stored.
+ */
+final class MetadataRescan
+{
+
+    static final int FETCH_AHEAD = MetadataOpsImpl.RESCAN_THREADS;
+
+    static final int BATCH_SIZE = 200;
+
+    /**
+     * Fetch, read and scan one project's POM. Returns null if the POM can't be found.
+     */
+    @FunctionalInterface
+    interface PomScanner
+    {
+        Map<String, String> scan( ProjectVersionRef ref )
+                        throws Exception;
+    }
+
+    private final Logger logger = LoggerFactory.getLogger( getClass() );
+
+    private final RelationshipGraph graph;
+
+    private final MetadataRescanRequest recipe;
+
+    private final MetadataRescanResult result;
+
+    private final CompletionService<Map<String, String>> completion;
+
+    private final Map<ProjectVersionRef, Map<String, String>> batch = new HashMap<>();
+
+    private final List<ProjectVersionRef> batchFound = new ArrayList<>();
+
+    private final long started = System.currentTimeMillis();
+
+    private int total;
+
+    private int completed;
+
+    private int batches;
+
+    private int scanned;
+
+    private int missing;
+
+    private int failed;
+
+    MetadataRescan( final RelationshipGraph graph, final MetadataRescanRequest recipe,
+                    final MetadataRescanResult result, final ExecutorService executor )
+    {
+        this.graph = graph;
+        this.recipe = recipe;
+        this.result = result;
+        this.completion = new ExecutorCompletionService<>( executor );
+    }
+
+    void run( final Collection<ProjectVersionRef> projects, final PomScanner scanner )
+                    throws CartoDataException
+    {
+        total = projects.size();
+        progress( ProgressEventType.RESCAN_STARTED );
+
+        final Iterator<ProjectVersionRef> toScan = projects.iterator();
+        final Map<Future<Map<String, String>>, ProjectVersionRef> pending = new HashMap<>();
+        try
+        {
+            while ( pending.size() < FETCH_AHEAD && toScan.hasNext() )
+            {
+                submit( toScan.next(), scanner, pending );
+            }
+
+            while ( !pending.isEmpty() )
+            {
+                final Future<Map<String, String>> done = completion.take();
+                final ProjectVersionRef ref = pending.remove( done );
+                if ( toScan.hasNext() )
+                {
+                    submit( toScan.next(), scanner, pending );
+                }
+
+                collect( ref, done );
+                if ( batch.size() >= BATCH_SIZE )
+                {
+                    flush();
+                }
+            }
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new CartoDataException( "Interrupted while rescanning metadata in: {}. Resume with rescanId: {}", e,
+                                          graph.getWorkspaceId(), recipe.getRescanId() );
+        }
+        finally
+        {
+            pending.keySet().forEach( ( future ) -> future.cancel( true ) );
+
+            // store what has been scanned so far, so it counts toward the checkpoint even if the run was cut short.
+            flush();
+            finish();
+        }
+    }
+
+    private void submit( final ProjectVersionRef ref, final PomScanner scanner,
+                         final Map<Future<Map<String, String>>, ProjectVersionRef> pending )
+    {
+        pending.put( completion.submit( () -> scanner.scan( ref ) ), ref );
+    }
+
+    private void collect( final ProjectVersionRef ref, final Future<Map<String, String>> done )
+                    throws InterruptedException
+    {
+        completed++;
+        try
+        {
+            final Map<String, String> metadata = done.get();
+            final Map<String, String> stored = new HashMap<>();
+            if ( metadata != null )
+            {
+                stored.putAll( metadata );
+                batchFound.add( ref );
+            }
+
+            stored.put( RESCAN_ID_METADATA, recipe.getRescanId() );
+            batch.put( ref, stored );
+        }
+        catch ( final ExecutionException e )
+        {
+            final Throwable cause = e.getCause();
+            logger.error( String.format( "Failed to rescan metadata for: %s. Reason: %s", ref, cause.getMessage() ),
+                          cause );
+            failed++;
+        }
+    }
+
+    private void flush()
+    {
+        if ( batch.isEmpty() )
+        {
+            return;
+        }
+
+        try
+        {
+            graph.addMetadata( batch );
+            scanned += batchFound.size();
+            missing += batch.size() - batchFound.size();
+            batchFound.forEach( result::addProject );
+        }
+        catch ( final RelationshipGraphException | RuntimeException e )
+        {
+            // driver failures (a write deadlock that outlasted its retries, say) surface as runtime exceptions.
+            logger.error( String.format( "Failed to store metadata for %d projects in: %s. Reason: %s", batch.size(),
+                                         graph, e.getMessage() ), e );
+            failed += batch.size();
+        }
+        finally
+        {
+            batch.clear();
+            batchFound.clear();
+        }
+
+        batches++;
+        progress( ProgressEventType.RESCAN_BATCH );
+    }
+
+    private void finish()
+    {
+        final long elapsed = System.currentTimeMillis() - started;
+
+        result.setScanned( scanned );
+        result.setMissing( missing );
+        result.setFailed( failed );
+        result.setElapsedMillis( elapsed );
+        result.setProjectsPerSecond( rate() );
+
+        logger.info( "Metadata rescan {} of: {} stored {} projects ({} missing, {} failed, {} skipped) in {}ms; "
+                                     + "{} projects/s.", recipe.getRescanId(), graph.getWorkspaceId(), scanned,
+                     missing, failed, result.getSkipped(), elapsed, String.format( "%.1f", rate() ) );
+
+        progress( ProgressEventType.RESCAN_FINISHED );
+    }
+
+    private double rate()
+    {
+        return completed * 1000.0 / Math.max( 1, System.currentTimeMillis() - started );
+    }
+
+    private void progress( final ProgressEventType type )
+    {
+        final ProgressEvent event = new ProgressEvent( type, graph.getWorkspaceId() );
+        event.setBatch( batches );
+        event.setFrontier( total - completed );
+        event.setFetched( scanned + missing );
+        event.setMissing( missing );
+        event.setErrors( failed );
+        event.setMessage( String.format( "rescan %s: %.1f projects/s", recipe.getRescanId(), rate() ) );
+
+        try
+        {
+            recipe.getProgressListener().onProgress( event );
+        }
+        catch ( final RuntimeException e )
+        {
+            logger.warn( "Progress listener failed for: {}. Reason: {}", type, e.getMessage() );
+        }
+    }
+}
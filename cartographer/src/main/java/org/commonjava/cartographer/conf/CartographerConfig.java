@@ -47,6 +47,30 @@ public class CartographerConfig
 
     private static final String DEFAULT_WEBFILTER_PRESET_VALUE = "build-requires";
 
+    public static final String RESULT_CACHE_ENTRIES_CONFIG = "result.cache.entries";
+
+    public static final String RESULT_CACHE_TTL_SECONDS_CONFIG = "result.cache.ttl.seconds";
+
+    public static final String RESULT_CACHE_MAX_ENTRY_SIZE_CONFIG = "result.cache.max.entry.size";
+
+    public static final String RESULT_CACHE_MAX_SIZE_CONFIG = "result.cache.max.size";
+
+    public static final String JOB_WORKSPACE_CONCURRENCY_CONFIG = "job.workspace.concurrency";
+
+    public static final String JOB_RESULT_TTL_SECONDS_CONFIG = "job.result.ttl.seconds";
+
+    private static final int DEFAULT_RESULT_CACHE_ENTRIES = 256;
+
+    private static final int DEFAULT_RESULT_CACHE_TTL_SECONDS = 600;
+
+    private static final int DEFAULT_RESULT_CACHE_MAX_ENTRY_SIZE = 4 * 1024 * 1024;
+
+    private static final long DEFAULT_RESULT_CACHE_MAX_SIZE = 64 * 1024 * 1024;
+
+    private static final int DEFAULT_JOB_WORKSPACE_CONCURRENCY = 1;
+
+    private static final int DEFAULT_JOB_RESULT_TTL_SECONDS = 3600;
+
     private final Logger logger = LoggerFactory.getLogger( getClass() );
 
     private String defaultWebFilterPreset;
@@ -61,6 +85,18 @@ public class CartographerConfig
 
     private boolean configured;
 
+    private Integer resultCacheEntries;
+
+    private Integer resultCacheTtlSeconds;
+
+    private Integer resultCacheMaxEntrySize;
+
+    private Long resultCacheMaxSize;
+
+    private Integer jobWorkspaceConcurrency;
+
+    private Integer jobResultTtlSeconds;
+
     private File homeDir;
 
     public File getDataBasedir()
@@ -107,6 +143,88 @@ public class CartographerConfig
         this.defaultWebFilterPreset = preset;
     }
 
+    /**
+     * Maximum number of responses kept in the REST result cache. Set to 0 to disable the cache.
+     */
+    public int getResultCacheEntries()
+    {
+        return resultCacheEntries == null ? DEFAULT_RESULT_CACHE_ENTRIES : resultCacheEntries;
+    }
+
+    @ConfigName( CartographerConfig.RESULT_CACHE_ENTRIES_CONFIG )
+    public void setResultCacheEntries( final Integer resultCacheEntries )
+    {
+        this.resultCacheEntries = resultCacheEntries;
+    }
+
+    public int getResultCacheTtlSeconds()
+    {
+        return resultCacheTtlSeconds == null ? DEFAULT_RESULT_CACHE_TTL_SECONDS : resultCacheTtlSeconds;
+    }
+
+    @ConfigName( CartographerConfig.RESULT_CACHE_TTL_SECONDS_CONFIG )
+    public void setResultCacheTtlSeconds( final Integer resultCacheTtlSeconds )
+    {
+        this.resultCacheTtlSeconds = resultCacheTtlSeconds;
+    }
+
+    /**
+     * Largest response body (in bytes) the REST result cache will keep. Larger responses are streamed as usual, but
+     * not cached.
+     */
+    public int getResultCacheMaxEntrySize()
+    {
+        return resultCacheMaxEntrySize == null ? DEFAULT_RESULT_CACHE_MAX_ENTRY_SIZE : resultCacheMaxEntrySize;
+    }
+
+    @ConfigName( CartographerConfig.RESULT_CACHE_MAX_ENTRY_SIZE_CONFIG )
+    public void setResultCacheMaxEntrySize( final Integer resultCacheMaxEntrySize )
+    {
+        this.resultCacheMaxEntrySize = resultCacheMaxEntrySize;
+    }
+
+    /**
+     * Total size (in bytes) of the response bodies kept in the REST result cache.
+     */
+    public long getResultCacheMaxSize()
+    {
+        return resultCacheMaxSize == null ? DEFAULT_RESULT_CACHE_MAX_SIZE : resultCacheMaxSize;
+    }
+
+    @ConfigName( CartographerConfig.RESULT_CACHE_MAX_SIZE_CONFIG )
+    public void setResultCacheMaxSize( final Long resultCacheMaxSize )
+    {
+        this.resultCacheMaxSize = resultCacheMaxSize;
+    }
+
+    /**
+     * How many asynchronous jobs may run against the same workspace at once.
+     */
+    public int getJobWorkspaceConcurrency()
+    {
+        return jobWorkspaceConcurrency == null ? DEFAULT_JOB_WORKSPACE_CONCURRENCY : jobWorkspaceConcurrency;
+    }
+
+    @ConfigName( CartographerConfig.JOB_WORKSPACE_CONCURRENCY_CONFIG )
+    public void setJobWorkspaceConcurrency( final Integer jobWorkspaceConcurrency )
+    {
+        this.jobWorkspaceConcurrency = jobWorkspaceConcurrency;
+    }
+
+    /**
+     * How long the result of a finished asynchronous job is kept on disk.
+     */
+    public int getJobResultTtlSeconds()
+    {
+        return jobResultTtlSeconds == null ? DEFAULT_JOB_RESULT_TTL_SECONDS : jobResultTtlSeconds;
+    }
+
+    @ConfigName( CartographerConfig.JOB_RESULT_TTL_SECONDS_CONFIG )
+    public void setJobResultTtlSeconds( final Integer jobResultTtlSeconds )
+    {
+        this.jobResultTtlSeconds = jobResultTtlSeconds;
+    }
+
     public File getConfigDir()
     {
         return getDir( configDir, "etc/cartographer" );
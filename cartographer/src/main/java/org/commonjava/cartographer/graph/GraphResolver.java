@@ -24,7 +24,11 @@ import org.commonjava.cartographer.graph.discover.DiscoveryResult;
 import org.commonjava.cartographer.graph.fn.FunctionInputSelector;
 import org.commonjava.cartographer.graph.fn.GraphFunction;
 import org.commonjava.cartographer.graph.fn.MultiGraphFunction;
+import org.commonjava.cartographer.graph.util.DiscoveryFlightKeys;
+import org.commonjava.cartographer.graph.util.SingleFlight;
 import org.commonjava.cartographer.request.*;
+import org.commonjava.cartographer.rest.dto.ProgressEvent;
+import org.commonjava.cartographer.rest.dto.ProgressEventType;
 import org.commonjava.cartographer.spi.graph.agg.GraphAggregator;
 import org.commonjava.cartographer.spi.graph.discover.DiscoverySourceManager;
 import org.commonjava.cartographer.spi.graph.discover.ProjectRelationshipDiscoverer;
@@ -83,6 +87,13 @@ public class GraphResolver
     @WeftManaged
     private ExecutorService executor;
 
+    /**
+     * Discovery runs in flight, keyed by {@link DiscoveryFlightKeys#forView}, so concurrent requests for the same
+     * graph with the same discovery settings share one discovery pass rather than racing each other through the same
+     * POMs.
+     */
+    private final SingleFlight<String, Void> discoveries = new SingleFlight<>();
+
     protected GraphResolver()
     {
     }
@@ -119,7 +130,10 @@ public class GraphResolver
         {
             final GraphDescription original = recipe.getGraph();
             final RelationshipGraph graph = graphMap.get( original );
+
+            progress( recipe, ProgressEventType.TRAVERSAL_STARTED );
             extractor.extract( graph );
+            progress( recipe, ProgressEventType.TRAVERSAL_FINISHED );
         }
         finally
         {
@@ -178,8 +192,10 @@ public class GraphResolver
                 roots = calcResult::getResultingRoots;
             }
 
+            progress( recipe, ProgressEventType.TRAVERSAL_STARTED );
             final T result = selector.select( allProjects, allRels, roots );
             extractor.extract( result, graphMap );
+            progress( recipe, ProgressEventType.TRAVERSAL_FINISHED );
         }
         finally
         {
@@ -346,37 +362,18 @@ public class GraphResolver
         try
         {
             final RelationshipGraph graph = graphFactory.open( params, true );
-            for ( final ProjectVersionRef root : specifics )
-            {
-                if ( !graph.containsGraph( root ) || graph.hasProjectError( root ) )
-                {
-                    try
-                    {
-                        graph.clearProjectError( root );
-                    }
-                    catch ( final RelationshipGraphException e )
-                    {
-                        logger.error( String.format( "Cannot clear project error for: %s in graph: %s. Reason: %s",
-                                                     root, graph, e.getMessage() ), e );
-                        continue;
-                    }
-
-                    if ( !aggOptions.isDiscoveryEnabled() )
-                    {
-                        logger.info( "Resolving direct relationships for root: {}", root );
-                        final DiscoveryResult result = discoverer.discoverRelationships( root, graph, discoveryConfig );
-                        logger.info( "Result: {} relationships",
-                                     ( result == null ? 0 : result.getAcceptedRelationships().size() ) );
-                    }
-                }
-            }
 
-            if ( aggOptions.isDiscoveryEnabled() )
+            final String key = DiscoveryFlightKeys.forView( params, aggOptions, discoveryConfig );
+            if ( discoveries.isInFlight( key ) )
             {
-                logger.info( "Performing graph discovery for: {}", specifics );
-                aggregator.connectIncomplete( graph, aggOptions );
+                logger.info( "Joining in-flight resolution of: {}", specifics );
             }
 
+            discoveries.execute( key, () -> {
+                discover( graph, specifics, aggOptions, discoveryConfig );
+                return null;
+            } );
+
             consumer.accept( graph );
         }
         catch ( final RelationshipGraphException e )
@@ -385,6 +382,42 @@ public class GraphResolver
         }
     }
 
+    private void discover( final RelationshipGraph graph, final List<ProjectVersionRef> specifics,
+                           final AggregationOptions aggOptions, final DiscoveryConfig discoveryConfig )
+                    throws CartoDataException
+    {
+        for ( final ProjectVersionRef root : specifics )
+        {
+            if ( !graph.containsGraph( root ) || graph.hasProjectError( root ) )
+            {
+                try
+                {
+                    graph.clearProjectError( root );
+                }
+                catch ( final RelationshipGraphException e )
+                {
+                    logger.error( String.format( "Cannot clear project error for: %s in graph: %s. Reason: %s",
+                                                 root, graph, e.getMessage() ), e );
+                    continue;
+                }
+
+                if ( !aggOptions.isDiscoveryEnabled() )
+                {
+                    logger.info( "Resolving direct relationships for root: {}", root );
+                    final DiscoveryResult result = discoverer.discoverRelationships( root, graph, discoveryConfig );
+                    logger.info( "Result: {} relationships",
+                                 ( result == null ? 0 : result.getAcceptedRelationships().size() ) );
+                }
+            }
+        }
+
+        if ( aggOptions.isDiscoveryEnabled() )
+        {
+            logger.info( "Performing graph discovery for: {}", specifics );
+            aggregator.connectIncomplete( graph, aggOptions );
+        }
+    }
+
     private AggregationOptions createAggregationOptions( final AbstractGraphRequest recipe,
                                                          final ProjectRelationshipFilter baseFilter )
                     throws CartoDataException, CartoRequestException
@@ -397,8 +430,21 @@ public class GraphResolver
 
         options.setProcessIncompleteSubgraphs( true );
         options.setProcessVariableSubgraphs( true );
+        options.setProgressListener( recipe.getProgressListener() );
 
         return options;
     }
 
+    private void progress( final AbstractGraphRequest recipe, final ProgressEventType type )
+    {
+        try
+        {
+            recipe.getProgressListener().onProgress( new ProgressEvent( type, recipe.getWorkspaceId() ) );
+        }
+        catch ( final RuntimeException e )
+        {
+            logger.warn( "Progress listener failed for: {}. Reason: {}", type, e.getMessage() );
+        }
+    }
+
 }
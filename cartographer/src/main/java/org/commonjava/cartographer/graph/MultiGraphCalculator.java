@@ -29,6 +29,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Created by jdcasey on 8/11/15.
@@ -98,7 +99,8 @@ public class MultiGraphCalculator
 
             if ( result == null )
             {
-                result = new HashSet<>( graph.getAllRelationships() );
+                result = new HashSet<>();
+                addAll( graph, result );
                 roots = new HashSet<>( graph.getRoots() );
             }
             else
@@ -107,7 +109,7 @@ public class MultiGraphCalculator
                 {
                     case SUBTRACT:
                     {
-                        result.removeAll( graph.getAllRelationships() );
+                        removeAll( graph, result );
 
                         if ( result.isEmpty() )
                         {
@@ -118,7 +120,7 @@ public class MultiGraphCalculator
                     }
                     case ADD:
                     {
-                        result.addAll( graph.getAllRelationships() );
+                        addAll( graph, result );
                         roots.addAll( graph.getRoots() );
                         break;
                     }
@@ -141,4 +143,21 @@ public class MultiGraphCalculator
         return new GraphCalculation( composition.getCalculation(), composition.getGraphs(), roots, result );
     }
 
+    // stream relationships straight into the result, rather than copying each graph into an intermediate set.
+    private void addAll( final RelationshipGraph graph, final Set<ProjectRelationship<?, ?>> result )
+    {
+        try (Stream<ProjectRelationship<?, ?>> rels = graph.streamAllRelationships())
+        {
+            rels.forEach( result::add );
+        }
+    }
+
+    private void removeAll( final RelationshipGraph graph, final Set<ProjectRelationship<?, ?>> result )
+    {
+        try (Stream<ProjectRelationship<?, ?>> rels = graph.streamAllRelationships())
+        {
+            rels.forEach( result::remove );
+        }
+    }
+
 }
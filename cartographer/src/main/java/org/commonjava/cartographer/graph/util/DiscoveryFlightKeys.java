@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.util;
+
+import java.util.List;
+
+import org.commonjava.cartographer.graph.ViewParams;
+import org.commonjava.cartographer.graph.agg.AggregationOptions;
+import org.commonjava.cartographer.graph.discover.DiscoveryConfig;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.galley.model.Location;
+
+/**
+ * Builds {@link SingleFlight} keys for discovery work. Two callers may only share a discovery if everything that shapes
+ * its result matches: the workspace, what's being discovered, the discovery source, the locations POMs are read from,
+ * and the patchers and model sections applied to them.
+ */
+public final class DiscoveryFlightKeys
+{
+
+    private DiscoveryFlightKeys()
+    {
+    }
+
+    /**
+     * Key for discovering the direct relationships of one project.
+     */
+    public static String forProject( final String workspaceId, final ProjectVersionRef ref,
+                                     final DiscoveryConfig config )
+    {
+        final StringBuilder sb = new StringBuilder();
+        sb.append( workspaceId )
+          .append( ':' )
+          .append( config.getDiscoverySource() )
+          .append( ':' )
+          .append( ref );
+
+        appendSettings( sb, config );
+
+        return sb.toString();
+    }
+
+    /**
+     * Key for resolving a whole view: its roots, filter, mutator and selections (via {@link ViewParams#getShortId()}),
+     * plus whether the aggregator walks the graph beyond the roots.
+     */
+    public static String forView( final ViewParams params, final AggregationOptions options,
+                                  final DiscoveryConfig config )
+    {
+        final StringBuilder sb = new StringBuilder();
+        sb.append( params.getWorkspaceId() )
+          .append( ':' )
+          .append( config.getDiscoverySource() )
+          .append( ':' )
+          .append( params.getShortId() );
+
+        sb.append( "|discovery=" )
+          .append( options.isDiscoveryEnabled() )
+          .append( "|incomplete=" )
+          .append( options.processIncompleteSubgraphs() )
+          .append( "|variable=" )
+          .append( options.processVariableSubgraphs() );
+
+        appendSettings( sb, config );
+
+        return sb.toString();
+    }
+
+    private static void appendSettings( final StringBuilder sb, final DiscoveryConfig config )
+    {
+        sb.append( "|locations=" );
+        final List<? extends Location> locations = config.getLocations();
+        if ( locations != null )
+        {
+            for ( final Location location : locations )
+            {
+                sb.append( location.getUri() )
+                  .append( ',' );
+            }
+        }
+
+        sb.append( "|patchers=" )
+          .append( config.getEnabledPatchers() );
+
+        sb.append( "|build=" )
+          .append( config.isIncludeBuildSection() )
+          .append( "|managedDeps=" )
+          .append( config.isIncludeManagedDependencies() )
+          .append( "|managedPlugins=" )
+          .append( config.isIncludeManagedPlugins() );
+    }
+
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.util;
+
+import org.commonjava.cartographer.CartoDataException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces concurrent calls for the same key. The first caller for a key (the leader) runs its call; anyone asking
+ * for the same key while that's in flight waits for it and shares its result (or failure) instead of repeating the
+ * work. Once the leader finishes, the key is released, so later calls run afresh.
+ */
+public final class SingleFlight<K, V>
+{
+
+    @FunctionalInterface
+    public interface Call<V>
+    {
+        V call()
+                throws CartoDataException;
+    }
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V execute( final K key, final Call<V> call )
+            throws CartoDataException
+    {
+        final CompletableFuture<V> mine = new CompletableFuture<>();
+        final CompletableFuture<V> existing = inFlight.putIfAbsent( key, mine );
+        if ( existing != null )
+        {
+            return await( key, existing );
+        }
+
+        try
+        {
+            final V result = call.call();
+            mine.complete( result );
+            return result;
+        }
+        catch ( final CartoDataException | RuntimeException e )
+        {
+            mine.completeExceptionally( e );
+            throw e;
+        }
+        finally
+        {
+            if ( !mine.isDone() )
+            {
+                mine.completeExceptionally( new CartoDataException( "Call for: {} was aborted.", key ) );
+            }
+
+            inFlight.remove( key, mine );
+        }
+    }
+
+    public boolean isInFlight( final K key )
+    {
+        return inFlight.containsKey( key );
+    }
+
+    public int size()
+    {
+        return inFlight.size();
+    }
+
+    private V await( final K key, final CompletableFuture<V> future )
+            throws CartoDataException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new CartoDataException( "Interrupted while waiting for in-flight call: {}", e, key );
+        }
+        catch ( final ExecutionException e )
+        {
+            final Throwable cause = e.getCause();
+            if ( cause instanceof RuntimeException )
+            {
+                throw (RuntimeException) cause;
+            }
+
+            throw new CartoDataException( "In-flight call: {} failed. Reason: {}", cause, key, cause.getMessage() );
+        }
+    }
+
+}
@@ -23,6 +23,8 @@ import java.net.URI;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.commonjava.cartographer.graph.RelationshipGraph;
 import org.commonjava.cartographer.graph.ViewParams;
@@ -33,6 +35,8 @@ import org.commonjava.maven.atlas.ident.DependencyScope;
 import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
 import org.commonjava.cartographer.graph.discover.DiscoveryResult;
 import org.commonjava.cartographer.graph.agg.AggregationOptions;
+import org.commonjava.cartographer.rest.dto.ProgressEvent;
+import org.commonjava.cartographer.rest.dto.ProgressEventType;
 import org.commonjava.cartographer.testutil.CartoFixture;
 import org.commonjava.cartographer.testutil.GroupIdFilter;
 import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
@@ -135,4 +139,60 @@ public class DefaultGraphAggregatorTest
         assertThat( fixture.getDiscoverer()
                            .sawDiscovery( gc3 ), equalTo( false ) );
     }
+
+    @Test
+    public void connectIncompleteWithDiscovery_ReportsProgress()
+        throws Exception
+    {
+        final URI src = new URI( "test:source" );
+        final String baseG = "org.foo";
+
+        final ProjectVersionRef root = new SimpleProjectVersionRef( baseG, "root", "1" );
+        final ProjectVersionRef c1 = new SimpleProjectVersionRef( baseG, "child-1", "1.0" );
+        final ProjectVersionRef gc1 = new SimpleProjectVersionRef( baseG, "grandchild-1", "1.0" );
+
+        final RelationshipGraph rootless =
+            fixture.openGraph( new ViewParams( System.currentTimeMillis() + ".db" ), true );
+        rootless.addActiveSource( src );
+
+        /* @formatter:off */
+        rootless.storeRelationships( Arrays.<ProjectRelationship<?, ?>>asList(
+            new SimpleDependencyRelationship( src, root, c1.asArtifactRef( "jar", null ), DependencyScope.compile, 0, false, false, false ),
+            new SimpleDependencyRelationship( src, c1, gc1.asArtifactRef( "jar", null ), DependencyScope.compile, 0, false, false, false )
+        ) );
+
+        fixture.getDiscoverer().mapResult( gc1, new DiscoveryResult(
+            src,
+            gc1,
+            new HashSet<ProjectRelationship<?, ?>>( Collections.singletonList( new SimpleParentRelationship( src, gc1 ) ) ),
+            new HashSet<ProjectRelationship<?, ?>>()
+        ) );
+        /* @formatter:on */
+
+        final List<ProgressEvent> events = new CopyOnWriteArrayList<>();
+        final AggregationOptions options = new AggregationOptions().setDiscoveryEnabled( true )
+                                                                   .setDiscoverySource( src )
+                                                                   .setFilter( new GroupIdFilter( baseG ) )
+                                                                   .setDiscoveryTimeoutMillis( 10 )
+                                                                   .setProgressListener( events::add );
+
+        final RelationshipGraph graph =
+            fixture.openGraph( new ViewParams.Builder( rootless.getParams() ).withFilter( new GroupIdFilter( baseG ) )
+                                                                             .withRoots( root )
+                                                                             .build(), false );
+
+        fixture.getAggregator()
+               .connectIncomplete( graph, options );
+
+        assertThat( events.isEmpty(), equalTo( false ) );
+        assertThat( events.get( 0 ).getType(), equalTo( ProgressEventType.DISCOVERY_STARTED ) );
+        assertThat( events.get( 1 ).getType(), equalTo( ProgressEventType.PASS_STARTED ) );
+        assertThat( events.get( 1 ).getPass(), equalTo( 0 ) );
+
+        final ProgressEvent last = events.get( events.size() - 1 );
+        assertThat( last.getType(), equalTo( ProgressEventType.DISCOVERY_FINISHED ) );
+        assertThat( last.getFetched() > 0, equalTo( true ) );
+        assertThat( last.getErrors(), equalTo( 0 ) );
+        assertThat( last.getWorkspaceId(), equalTo( graph.getWorkspaceId() ) );
+    }
 }
@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.INTERNAL.graph.agg;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.commonjava.cartographer.graph.discover.DiscoveryConfig;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.commonjava.maven.galley.model.SimpleLocation;
+import org.junit.Test;
+
+public class DiscoveryRunnableTest
+{
+
+    private final ProjectVersionRef ref = new SimpleProjectVersionRef( "org.foo", "bar", "1" );
+
+    @Test
+    public void flightKeyMatchesForEquivalentConfigs()
+        throws Exception
+    {
+        assertThat( DiscoveryRunnable.flightKey( "ws", ref, config() ),
+                    equalTo( DiscoveryRunnable.flightKey( "ws", ref, config() ) ) );
+    }
+
+    @Test
+    public void flightKeyDiffersWhenPatchersDiffer()
+        throws Exception
+    {
+        final DiscoveryConfig other = config();
+        other.setEnabledPatchers( Collections.singletonList( "dist-pom" ) );
+
+        assertThat( DiscoveryRunnable.flightKey( "ws", ref, other ),
+                    not( equalTo( DiscoveryRunnable.flightKey( "ws", ref, config() ) ) ) );
+    }
+
+    @Test
+    public void flightKeyDiffersWhenLocationsDiffer()
+        throws Exception
+    {
+        final DiscoveryConfig other = config();
+        other.setLocations( Arrays.asList( new SimpleLocation( "central", "http://repo.example.com/central" ),
+                                           new SimpleLocation( "extra", "http://repo.example.com/extra" ) ) );
+
+        assertThat( DiscoveryRunnable.flightKey( "ws", ref, other ),
+                    not( equalTo( DiscoveryRunnable.flightKey( "ws", ref, config() ) ) ) );
+    }
+
+    @Test
+    public void flightKeyDiffersWhenModelSectionsDiffer()
+        throws Exception
+    {
+        final DiscoveryConfig other = config();
+        other.setIncludeManagedPlugins( true );
+
+        assertThat( DiscoveryRunnable.flightKey( "ws", ref, other ),
+                    not( equalTo( DiscoveryRunnable.flightKey( "ws", ref, config() ) ) ) );
+    }
+
+    private DiscoveryConfig config()
+        throws Exception
+    {
+        final DiscoveryConfig config = new DiscoveryConfig( new URI( "http://repo.example.com/central" ) );
+        config.setLocations( Collections.singletonList( new SimpleLocation( "central",
+                                                                             "http://repo.example.com/central" ) ) );
+        return config;
+    }
+
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.INTERNAL.graph.agg;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.commonjava.maven.atlas.ident.ref.ProjectRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectRef;
+import org.junit.Test;
+
+public class ExclusionSetInternerTest
+{
+
+    private final ProjectRef a = new SimpleProjectRef( "org.foo", "a" );
+
+    private final ProjectRef b = new SimpleProjectRef( "org.foo", "b" );
+
+    private final ProjectRef c = new SimpleProjectRef( "org.foo", "c" );
+
+    @Test
+    public void equalContentsShareInstance()
+    {
+        final ExclusionSetInterner interner = new ExclusionSetInterner();
+
+        final ExclusionSet first = interner.intern( new HashSet<>( Arrays.asList( a, b ) ) );
+        final ExclusionSet second = interner.intern( Arrays.asList( b, a ) );
+
+        assertThat( second, sameInstance( first ) );
+        assertThat( interner.intern( Collections.<ProjectRef> emptySet() ), sameInstance( interner.empty() ) );
+        assertThat( interner.size(), equalTo( 2 ) );
+    }
+
+    @Test
+    public void unionAndIntersectionAreInterned()
+    {
+        final ExclusionSetInterner interner = new ExclusionSetInterner();
+
+        final ExclusionSet ab = interner.intern( Arrays.asList( a, b ) );
+        final ExclusionSet bc = interner.intern( Arrays.asList( b, c ) );
+
+        assertThat( interner.intersect( ab, bc ), sameInstance( interner.intern( Collections.singleton( b ) ) ) );
+        assertThat( interner.intersect( bc, ab ), sameInstance( interner.intersect( ab, bc ) ) );
+        assertThat( interner.union( ab, bc ), sameInstance( interner.intern( Arrays.asList( a, b, c ) ) ) );
+        assertThat( interner.union( ab, Collections.<ProjectRef> emptySet() ), sameInstance( ab ) );
+    }
+
+    @Test
+    public void containsAll()
+    {
+        final ExclusionSetInterner interner = new ExclusionSetInterner();
+
+        final ExclusionSet ab = interner.intern( Arrays.asList( a, b ) );
+        final ExclusionSet abc = interner.intern( Arrays.asList( a, b, c ) );
+
+        assertThat( interner.containsAll( abc, ab ), equalTo( true ) );
+        assertThat( interner.containsAll( ab, abc ), equalTo( false ) );
+        assertThat( interner.containsAll( ab, interner.empty() ), equalTo( true ) );
+        assertThat( interner.containsAll( ab, ab ), equalTo( true ) );
+    }
+
+}
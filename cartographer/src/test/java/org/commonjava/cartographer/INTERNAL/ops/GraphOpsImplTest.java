@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.INTERNAL.ops;
+
+import org.commonjava.cartographer.graph.RelationshipGraph;
+import org.commonjava.cartographer.graph.ViewParams;
+import org.commonjava.cartographer.graph.filter.AnyFilter;
+import org.commonjava.cartographer.request.GraphDescription;
+import org.commonjava.cartographer.request.ProjectBatchRequest;
+import org.commonjava.cartographer.result.ProjectBatchEntry;
+import org.commonjava.cartographer.testutil.CartoFixture;
+import org.commonjava.maven.atlas.graph.rel.DependencyRelationship;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.maven.atlas.graph.rel.SimpleParentRelationship;
+import org.commonjava.maven.atlas.ident.DependencyScope;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleArtifactRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.commonjava.maven.galley.model.Location;
+import org.commonjava.maven.galley.model.SimpleLocation;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class GraphOpsImplTest
+{
+
+    @Rule
+    public CartoFixture fixture = new CartoFixture();
+
+    @Test
+    public void batchQueryAnswersEachProjectInRequestOrder()
+        throws Exception
+    {
+        final URI src = new URI( "http://nowhere.com/path/to/repo" );
+        final Location location = new SimpleLocation( "test", src.toString(), false, true, true, false, true );
+
+        final ProjectVersionRef child = new SimpleProjectVersionRef( "group.id", "child", "1.0" );
+        final ProjectVersionRef parent = new SimpleProjectVersionRef( "group.id", "parent", "1" );
+        final ProjectVersionRef dep = new SimpleProjectVersionRef( "group.id", "dep", "1.0" );
+        final ProjectVersionRef unknown = new SimpleProjectVersionRef( "group.id", "unknown", "1.0" );
+
+        final DependencyRelationship depRel =
+            new SimpleDependencyRelationship( src, child, new SimpleArtifactRef( dep, null, null ),
+                                              DependencyScope.compile, 0, false, false, false );
+
+        final List<ProjectRelationship<?, ?>> rels = new ArrayList<ProjectRelationship<?, ?>>();
+        rels.add( new SimpleParentRelationship( src, child, parent ) );
+        rels.add( new SimpleParentRelationship( parent ) );
+        rels.add( new SimpleParentRelationship( dep ) );
+        rels.add( depRel );
+
+        final RelationshipGraph graph =
+            fixture.openGraph( new ViewParams( System.currentTimeMillis() + ".db" ), true );
+        graph.storeRelationships( rels );
+
+        final ProjectBatchRequest recipe = new ProjectBatchRequest();
+        recipe.setGraph( new GraphDescription( AnyFilter.INSTANCE, null, child ) );
+        recipe.setProjects( Arrays.asList( child, dep, unknown ) );
+        recipe.setResolve( false );
+        recipe.setSourceLocation( location );
+        recipe.setWorkspaceId( graph.getWorkspaceId() );
+
+        final List<ProjectBatchEntry> entries = new ArrayList<>();
+        fixture.cartographer().getGrapher().batchQuery( recipe, entries::add );
+
+        assertThat( entries.size(), equalTo( 3 ) );
+
+        final ProjectBatchEntry childEntry = entries.get( 0 );
+        assertThat( childEntry.getProject(), equalTo( child ) );
+        assertThat( childEntry.isPresent(), equalTo( true ) );
+        assertThat( childEntry.getParent(), equalTo( parent ) );
+        assertThat( childEntry.getDeclared().contains( depRel ), equalTo( true ) );
+
+        final ProjectBatchEntry depEntry = entries.get( 1 );
+        assertThat( depEntry.getProject(), equalTo( dep ) );
+        assertThat( depEntry.getTargeting().contains( depRel ), equalTo( true ) );
+        assertThat( depEntry.getParent(), nullValue() );
+
+        final ProjectBatchEntry unknownEntry = entries.get( 2 );
+        assertThat( unknownEntry.getProject(), equalTo( unknown ) );
+        assertThat( unknownEntry.isPresent(), equalTo( false ) );
+        assertThat( unknownEntry.getDeclared(), nullValue() );
+    }
+
+}
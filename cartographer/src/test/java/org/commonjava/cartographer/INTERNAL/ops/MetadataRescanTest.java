@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.INTERNAL.ops;
+
+import org.commonjava.cartographer.graph.RelationshipGraph;
+import org.commonjava.cartographer.graph.ViewParams;
+import org.commonjava.cartographer.request.MetadataRescanRequest;
+import org.commonjava.cartographer.rest.dto.ProgressEvent;
+import org.commonjava.cartographer.rest.dto.ProgressEventType;
+import org.commonjava.cartographer.result.MetadataRescanResult;
+import org.commonjava.cartographer.testutil.CartoFixture;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.graph.rel.SimpleParentRelationship;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.commonjava.maven.galley.TransferException;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.commonjava.cartographer.request.MetadataRescanRequest.RESCAN_ID_METADATA;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class MetadataRescanTest
+{
+
+    @Rule
+    public CartoFixture fixture = new CartoFixture();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool( 4 );
+
+    @After
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void storesScannedMetadataAndCheckpointsOnlyCompletedProjects()
+        throws Exception
+    {
+        final List<ProjectVersionRef> projects = new ArrayList<>();
+        final List<ProjectRelationship<?, ?>> rels = new ArrayList<>();
+        for ( int i = 0; i < MetadataRescan.BATCH_SIZE + 10; i++ )
+        {
+            final ProjectVersionRef ref = new SimpleProjectVersionRef( "group.id", "project-" + i, "1.0" );
+            projects.add( ref );
+            rels.add( new SimpleParentRelationship( ref ) );
+        }
+
+        final RelationshipGraph graph =
+            fixture.openGraph( new ViewParams( System.currentTimeMillis() + ".db" ), true );
+        graph.storeRelationships( rels );
+
+        final ProjectVersionRef missing = projects.get( 1 );
+        final ProjectVersionRef failing = projects.get( 2 );
+
+        final List<ProgressEventType> events = Collections.synchronizedList( new ArrayList<>() );
+        final MetadataRescanRequest recipe = new MetadataRescanRequest();
+        recipe.setRescanId( "run-1" );
+        recipe.setProgressListener( ( ProgressEvent event ) -> events.add( event.getType() ) );
+
+        final MetadataRescanResult result = new MetadataRescanResult();
+        new MetadataRescan( graph, recipe, result, executor ).run( projects, ( ref ) -> {
+            if ( ref.equals( missing ) )
+            {
+                return null;
+            }
+            else if ( ref.equals( failing ) )
+            {
+                throw new TransferException( "Cannot read: {}", ref );
+            }
+
+            return Collections.singletonMap( "scm-url", "http://scm/" + ref.getArtifactId() );
+        } );
+
+        assertThat( result.getScanned(), equalTo( projects.size() - 2 ) );
+        assertThat( result.getMissing(), equalTo( 1 ) );
+        assertThat( result.getFailed(), equalTo( 1 ) );
+        assertThat( result.getProjects().size(), equalTo( projects.size() - 2 ) );
+
+        final ProjectVersionRef first = projects.get( 0 );
+        assertThat( graph.getMetadata( first ).get( "scm-url" ), equalTo( "http://scm/project-0" ) );
+        assertThat( graph.getMetadata( first ).containsKey( RESCAN_ID_METADATA ), equalTo( false ) );
+
+        final Set<ProjectVersionRef> expected = new HashSet<>( projects );
+        expected.remove( failing );
+        assertThat( graph.getProjectsWithMetadata( RESCAN_ID_METADATA, "run-1" ), equalTo( expected ) );
+
+        assertThat( events.get( 0 ), equalTo( ProgressEventType.RESCAN_STARTED ) );
+        assertThat( events.subList( 1, events.size() - 1 ),
+                    equalTo( Arrays.asList( ProgressEventType.RESCAN_BATCH, ProgressEventType.RESCAN_BATCH ) ) );
+        assertThat( events.get( events.size() - 1 ), equalTo( ProgressEventType.RESCAN_FINISHED ) );
+    }
+
+}
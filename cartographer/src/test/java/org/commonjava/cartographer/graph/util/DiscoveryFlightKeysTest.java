@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.util;
+
+import org.commonjava.cartographer.graph.ViewParams;
+import org.commonjava.cartographer.graph.agg.AggregationOptions;
+import org.commonjava.cartographer.graph.discover.DiscoveryConfig;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+public class DiscoveryFlightKeysTest
+{
+
+    private final ViewParams params =
+                    new ViewParams( "ws", new SimpleProjectVersionRef( "org.foo", "bar", "1" ) );
+
+    @Test
+    public void viewKeyMatchesForEquivalentSettings()
+            throws Exception
+    {
+        assertThat( DiscoveryFlightKeys.forView( params, options( true ), config( "http://repo.example.com/a" ) ),
+                    equalTo( DiscoveryFlightKeys.forView( params, options( true ),
+                                                          config( "http://repo.example.com/a" ) ) ) );
+    }
+
+    @Test
+    public void viewKeyDiffersWhenDiscoveryIsDisabled()
+            throws Exception
+    {
+        final DiscoveryConfig config = config( "http://repo.example.com/a" );
+
+        assertThat( DiscoveryFlightKeys.forView( params, options( false ), config ),
+                    not( equalTo( DiscoveryFlightKeys.forView( params, options( true ), config ) ) ) );
+    }
+
+    @Test
+    public void viewKeyDiffersWhenSourceDiffers()
+            throws Exception
+    {
+        assertThat( DiscoveryFlightKeys.forView( params, options( true ), config( "http://repo.example.com/a" ) ),
+                    not( equalTo( DiscoveryFlightKeys.forView( params, options( true ),
+                                                               config( "http://repo.example.com/b" ) ) ) ) );
+    }
+
+    @Test
+    public void viewKeyDiffersWhenPatchersDiffer()
+            throws Exception
+    {
+        final DiscoveryConfig other = config( "http://repo.example.com/a" );
+        other.setEnabledPatchers( Collections.singleton( "dist-pom" ) );
+
+        assertThat( DiscoveryFlightKeys.forView( params, options( true ), other ),
+                    not( equalTo( DiscoveryFlightKeys.forView( params, options( true ),
+                                                               config( "http://repo.example.com/a" ) ) ) ) );
+    }
+
+    private AggregationOptions options( final boolean discovery )
+    {
+        return new AggregationOptions().setDiscoveryEnabled( discovery );
+    }
+
+    private DiscoveryConfig config( final String source )
+            throws Exception
+    {
+        return new DiscoveryConfig( new URI( source ) );
+    }
+
+}
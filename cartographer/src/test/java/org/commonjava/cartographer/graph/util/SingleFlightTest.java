@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.util;
+
+import org.commonjava.cartographer.CartoDataException;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest
+{
+
+    @Test
+    public void concurrentCallersShareOneCall()
+            throws Exception
+    {
+        final SingleFlight<String, String> flight = new SingleFlight<>();
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch( 1 );
+        final CountDownLatch release = new CountDownLatch( 1 );
+
+        final ExecutorService exec = Executors.newFixedThreadPool( 2 );
+        try
+        {
+            final Future<String> leader = exec.submit( () -> flight.execute( "key", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch ( final InterruptedException e )
+                {
+                    throw new CartoDataException( "Interrupted" );
+                }
+                return "result";
+            } ) );
+
+            started.await( 5, TimeUnit.SECONDS );
+            assertThat( flight.isInFlight( "key" ), equalTo( true ) );
+
+            final Future<String> follower = exec.submit( () -> flight.execute( "key", () -> {
+                calls.incrementAndGet();
+                return "other";
+            } ) );
+
+            // give the follower a chance to attach before the leader finishes.
+            Thread.sleep( 200 );
+            release.countDown();
+
+            assertThat( leader.get( 5, TimeUnit.SECONDS ), equalTo( "result" ) );
+            assertThat( follower.get( 5, TimeUnit.SECONDS ), equalTo( "result" ) );
+            assertThat( calls.get(), equalTo( 1 ) );
+            assertThat( flight.size(), equalTo( 0 ) );
+        }
+        finally
+        {
+            exec.shutdownNow();
+        }
+    }
+
+    @Test
+    public void keyIsReleasedAfterFailure()
+            throws Exception
+    {
+        final SingleFlight<String, String> flight = new SingleFlight<>();
+        try
+        {
+            flight.execute( "key", () -> {
+                throw new CartoDataException( "failed" );
+            } );
+            fail( "Expected failure to propagate" );
+        }
+        catch ( final CartoDataException e )
+        {
+            assertThat( e.getMessage(), equalTo( "failed" ) );
+        }
+
+        assertThat( flight.execute( "key", () -> "retried" ), equalTo( "retried" ) );
+    }
+
+}
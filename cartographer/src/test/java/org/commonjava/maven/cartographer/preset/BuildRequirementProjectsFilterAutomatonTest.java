@@ -0,0 +1,172 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.maven.cartographer.preset;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.commonjava.cartographer.graph.filter.FilterAutomaton;
+import org.commonjava.cartographer.graph.filter.ProjectRelationshipFilter;
+import org.commonjava.cartographer.graph.preset.BuildRequirementProjectsFilter;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.maven.atlas.graph.rel.SimpleExtensionRelationship;
+import org.commonjava.maven.atlas.graph.rel.SimpleParentRelationship;
+import org.commonjava.maven.atlas.graph.rel.SimplePluginRelationship;
+import org.commonjava.maven.atlas.ident.DependencyScope;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that the compiled {@link FilterAutomaton} for the build-requires preset walks through the same filters as
+ * calling {@link ProjectRelationshipFilter#getChildFilter(ProjectRelationship)} directly over a set of random paths,
+ * and that walking the same paths again only reuses the transitions it already built.
+ */
+public class BuildRequirementProjectsFilterAutomatonTest
+{
+
+    private static final int PATHS = 2000;
+
+    private static final int DEPTH = 12;
+
+    private URI from;
+
+    private List<List<ProjectRelationship<?, ?>>> paths;
+
+    @Before
+    public void setup()
+        throws Exception
+    {
+        from = new URI( "test:source" );
+
+        final Random rand = new Random( 42 );
+        final DependencyScope[] scopes = DependencyScope.values();
+
+        paths = new ArrayList<List<ProjectRelationship<?, ?>>>( PATHS );
+        for ( int p = 0; p < PATHS; p++ )
+        {
+            final List<ProjectRelationship<?, ?>> path = new ArrayList<ProjectRelationship<?, ?>>( DEPTH );
+            ProjectVersionRef declaring = new SimpleProjectVersionRef( "org.test", "root-" + p, "1" );
+            for ( int d = 0; d < DEPTH; d++ )
+            {
+                final ProjectVersionRef target =
+                    new SimpleProjectVersionRef( "org.test." + rand.nextInt( 20 ), "project-" + rand.nextInt( 500 ),
+                                                 "1." + rand.nextInt( 5 ) );
+
+                final int kind = rand.nextInt( 20 );
+                if ( kind == 0 )
+                {
+                    path.add( new SimplePluginRelationship( from, declaring, target, d, false, false ) );
+                }
+                else if ( kind == 1 )
+                {
+                    path.add( new SimpleExtensionRelationship( from, declaring, target, d, false ) );
+                }
+                else if ( kind == 2 )
+                {
+                    path.add( new SimpleParentRelationship( from, declaring, target ) );
+                }
+                else if ( kind == 3 )
+                {
+                    path.add( new SimpleDependencyRelationship( from, declaring, target.asJarArtifact(),
+                                                                scopes[rand.nextInt( scopes.length )], d, false,
+                                                                false, false,
+                                                                new SimpleProjectRef( "org.excluded",
+                                                                                      "ex-" + rand.nextInt( 3 ) ) ) );
+                }
+                else
+                {
+                    path.add( new SimpleDependencyRelationship( from, declaring, target.asJarArtifact(),
+                                                                scopes[rand.nextInt( scopes.length )], d, false,
+                                                                false, false ) );
+                }
+
+                declaring = target;
+            }
+
+            paths.add( path );
+        }
+    }
+
+    @Test
+    public void automatonMatchesDirectChildFilters()
+    {
+        final ProjectRelationshipFilter root = new BuildRequirementProjectsFilter();
+        final FilterAutomaton automaton = FilterAutomaton.compile( root );
+
+        for ( final List<ProjectRelationship<?, ?>> path : paths )
+        {
+            ProjectRelationshipFilter filter = root;
+            int state = automaton.getInitialState();
+            for ( final ProjectRelationship<?, ?> rel : path )
+            {
+                assertThat( automaton.accept( state, rel ), equalTo( filter.accept( rel ) ) );
+
+                filter = filter.getChildFilter( rel );
+                state = automaton.next( state, rel );
+
+                assertThat( automaton.getFilter( state ), equalTo( filter ) );
+            }
+        }
+
+        assertTrue( "Too many states: " + automaton.getStateCount(), automaton.getStateCount() < 100 );
+    }
+
+    @Test
+    public void transitionsAreMemoized()
+    {
+        final FilterAutomaton automaton = FilterAutomaton.compile( new BuildRequirementProjectsFilter() );
+
+        final List<Integer> first = walk( automaton );
+        final int states = automaton.getStateCount();
+        final int transitions = automaton.getTransitionCount();
+
+        final List<Integer> second = walk( automaton );
+
+        assertThat( second, equalTo( first ) );
+        assertThat( automaton.getStateCount(), equalTo( states ) );
+        assertThat( automaton.getTransitionCount(), equalTo( transitions ) );
+    }
+
+    /**
+     * @return the state reached after each relationship of each path, in order.
+     */
+    private List<Integer> walk( final FilterAutomaton automaton )
+    {
+        final List<Integer> reached = new ArrayList<Integer>();
+        for ( final List<ProjectRelationship<?, ?>> path : paths )
+        {
+            int state = automaton.getInitialState();
+            for ( final ProjectRelationship<?, ?> rel : path )
+            {
+                state = automaton.next( state, rel );
+                reached.add( state );
+            }
+        }
+
+        return reached;
+    }
+
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Binary (Smile) encoding for graph payloads, negotiated with {@link #APPLICATION_SMILE}. Values go through the same
+ * {@link com.fasterxml.jackson.databind.ObjectMapper} (and serializer modules) as the JSON format; only the stream
+ * encoding differs.
+ * <br/>
+ * Shared string values are enabled, so the generator keeps a string table and writes repeated GAVs, scopes and
+ * short URIs as back-references instead of repeating them for every relationship.
+ */
+public final class CartoWireFormat
+{
+
+    public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+    private static final SmileFactory SMILE_FACTORY = newSmileFactory();
+
+    private CartoWireFormat()
+    {
+    }
+
+    public static SmileFactory newSmileFactory()
+    {
+        final SmileFactory factory = new SmileFactory();
+        factory.enable( SmileGenerator.Feature.CHECK_SHARED_NAMES );
+        factory.enable( SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES );
+        return factory;
+    }
+
+    /**
+     * Open a Smile generator on the stream. Closing the generator won't close the stream.
+     */
+    public static JsonGenerator openSmileGenerator( final OutputStream out )
+            throws IOException
+    {
+        final JsonGenerator generator = SMILE_FACTORY.createGenerator( out );
+        generator.disable( JsonGenerator.Feature.AUTO_CLOSE_TARGET );
+        return generator;
+    }
+
+    public static JsonParser openSmileParser( final InputStream in )
+            throws IOException
+    {
+        return SMILE_FACTORY.createParser( in );
+    }
+
+}
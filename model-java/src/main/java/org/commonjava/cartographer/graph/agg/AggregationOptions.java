@@ -44,6 +44,8 @@ public class AggregationOptions
 
     private DiscoveryConfig dc;
 
+    private ProgressListener progressListener;
+
     public AggregationOptions()
     {
         this.filter = new ScopedProjectFilter();
@@ -58,6 +60,7 @@ public class AggregationOptions
         this.discoverySource = options.getDiscoverySource();
         this.discoveryTimeoutMillis = options.getDiscoveryTimeoutMillis();
         this.dc = options.getDiscoveryConfig();
+        this.progressListener = options.progressListener;
     }
 
     public AggregationOptions setFilter( final ProjectRelationshipFilter filter )
@@ -96,6 +99,12 @@ public class AggregationOptions
         return this;
     }
 
+    public AggregationOptions setProgressListener( final ProgressListener progressListener )
+    {
+        this.progressListener = progressListener;
+        return this;
+    }
+
     public ProjectRelationshipFilter getFilter()
     {
         return filter == null ? AnyFilter.INSTANCE : filter;
@@ -133,6 +142,11 @@ public class AggregationOptions
         return discoverySource;
     }
 
+    public ProgressListener getProgressListener()
+    {
+        return progressListener == null ? ProgressListener.NONE : progressListener;
+    }
+
     @Override
     public String toString()
     {
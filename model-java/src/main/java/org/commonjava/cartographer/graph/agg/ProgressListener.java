@@ -0,0 +1,32 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.agg;
+
+import org.commonjava.cartographer.rest.dto.ProgressEvent;
+
+/**
+ * Receives progress reports from a running graph request. On the server this is called from discovery and traversal
+ * threads, so implementations must be thread-safe and must not block.
+ */
+@FunctionalInterface
+public interface ProgressListener
+{
+
+    ProgressListener NONE = ( event ) -> {
+    };
+
+    void onProgress( ProgressEvent event );
+}
@@ -24,6 +24,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import org.apache.commons.codec.digest.DigestUtils;
+import org.commonjava.cartographer.graph.filter.KindDrivenFilter;
 import org.commonjava.cartographer.graph.filter.ProjectRelationshipFilter;
 import org.commonjava.cartographer.graph.filter.StructuralRelationshipsFilter;
 import org.commonjava.maven.atlas.graph.rel.DependencyRelationship;
@@ -35,7 +36,7 @@ import org.commonjava.maven.atlas.ident.util.JoinString;
 
 //TODO: Find a way to store selections appropriately in depgraph. BUT, they have to be isolately appropriately to classloader...
 public class BuildRequirementProjectsFilter
-    implements ProjectRelationshipFilter
+    implements KindDrivenFilter
 {
 
     private static final long serialVersionUID = 1L;
@@ -26,6 +26,7 @@ import org.apache.commons.codec.digest.DigestUtils;
 import org.commonjava.cartographer.graph.filter.DependencyFilter;
 import org.commonjava.cartographer.graph.filter.NoneFilter;
 import org.commonjava.cartographer.graph.filter.OrFilter;
+import org.commonjava.cartographer.graph.filter.KindDrivenFilter;
 import org.commonjava.cartographer.graph.filter.ProjectRelationshipFilter;
 import org.commonjava.cartographer.graph.filter.StructuralRelationshipsFilter;
 import org.commonjava.maven.atlas.graph.rel.DependencyRelationship;
@@ -39,7 +40,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class ScopeWithEmbeddedProjectsFilter
-    implements ProjectRelationshipFilter
+    implements KindDrivenFilter
 {
 
     private final Logger logger = LoggerFactory.getLogger( getClass() );
@@ -237,6 +238,7 @@ public class ScopeWithEmbeddedProjectsFilter
         int result = 1;
         result = prime * result + ( acceptManaged ? 1231 : 1237 );
         result = prime * result + filter.hashCode();
+        result = prime * result + ( ( excludes == null || excludes.isEmpty() ) ? 0 : excludes.hashCode() );
         return result;
     }
 
@@ -260,6 +262,17 @@ public class ScopeWithEmbeddedProjectsFilter
         {
             return false;
         }
+        if ( excludes == null || excludes.isEmpty() )
+        {
+            if ( other.excludes != null && !other.excludes.isEmpty() )
+            {
+                return false;
+            }
+        }
+        else if ( !excludes.equals( other.excludes ) )
+        {
+            return false;
+        }
         return filter.equals( other.filter );
     }
 
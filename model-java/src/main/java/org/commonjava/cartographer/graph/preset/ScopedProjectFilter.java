@@ -24,6 +24,7 @@ import java.util.Set;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.commonjava.cartographer.graph.filter.DependencyFilter;
+import org.commonjava.cartographer.graph.filter.KindDrivenFilter;
 import org.commonjava.cartographer.graph.filter.ProjectRelationshipFilter;
 import org.commonjava.cartographer.graph.filter.StructuralRelationshipsFilter;
 import org.commonjava.maven.atlas.graph.rel.DependencyRelationship;
@@ -35,7 +36,7 @@ import org.commonjava.maven.atlas.ident.ref.ProjectRef;
 import org.commonjava.maven.atlas.ident.util.JoinString;
 
 public class ScopedProjectFilter
-    implements ProjectRelationshipFilter
+    implements KindDrivenFilter
 {
 
     private static final long serialVersionUID = 1L;
@@ -212,6 +213,7 @@ public class ScopedProjectFilter
         int result = 1;
         result = prime * result + ( acceptManaged ? 1231 : 1237 );
         result = prime * result + filter.hashCode();
+        result = prime * result + ( ( excludes == null || excludes.isEmpty() ) ? 0 : excludes.hashCode() );
         return result;
     }
 
@@ -235,6 +237,17 @@ public class ScopedProjectFilter
         {
             return false;
         }
+        if ( excludes == null || excludes.isEmpty() )
+        {
+            if ( other.excludes != null && !other.excludes.isEmpty() )
+            {
+                return false;
+            }
+        }
+        else if ( !excludes.equals( other.excludes ) )
+        {
+            return false;
+        }
         return filter.equals( other.filter );
     }
 
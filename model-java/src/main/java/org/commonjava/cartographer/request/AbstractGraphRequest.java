@@ -16,6 +16,7 @@
 package org.commonjava.cartographer.request;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.commonjava.cartographer.graph.agg.ProgressListener;
 import org.commonjava.cartographer.graph.filter.ExcludingFilter;
 import org.commonjava.cartographer.graph.filter.ProjectRelationshipFilter;
 import org.commonjava.maven.atlas.ident.ref.ProjectRef;
@@ -53,6 +54,11 @@ public abstract class AbstractGraphRequest
     @JsonIgnore
     private transient DiscoveryConfig discoveryConfig;
 
+    protected String progressId;
+
+    @JsonIgnore
+    private transient ProgressListener progressListener;
+
     public String getSource()
     {
         return source;
@@ -99,6 +105,30 @@ public abstract class AbstractGraphRequest
         return discoveryConfig;
     }
 
+    /**
+     * Name of the progress channel this request reports to. Clients choose it, and can watch it while the request
+     * runs. It doesn't affect the result.
+     */
+    public String getProgressId()
+    {
+        return progressId;
+    }
+
+    public void setProgressId( final String progressId )
+    {
+        this.progressId = progressId;
+    }
+
+    public ProgressListener getProgressListener()
+    {
+        return progressListener == null ? ProgressListener.NONE : progressListener;
+    }
+
+    public void setProgressListener( final ProgressListener progressListener )
+    {
+        this.progressListener = progressListener;
+    }
+
     public Integer getTimeoutSecs()
     {
         return timeoutSecs == null ? 10 : timeoutSecs;
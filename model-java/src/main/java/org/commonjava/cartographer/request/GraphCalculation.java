@@ -20,6 +20,7 @@ import static org.commonjava.cartographer.graph.util.RelationshipUtils.targets;
 import java.util.List;
 import java.util.Set;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
 import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
 
@@ -30,6 +31,7 @@ public class GraphCalculation
 
     private Set<ProjectRelationship<?, ?>> result;
 
+    @JsonProperty( "resultingRoots" )
     private Set<ProjectVersionRef> roots;
 
     private List<GraphDescription> graphs;
@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.request;
+
+import org.commonjava.cartographer.graph.RelationshipGraph;
+
+/**
+ * Rescans project POMs for metadata. Each project's scanned metadata is stored along with a
+ * {@link #RESCAN_ID_METADATA} marker naming the run, so a run that was interrupted can be resumed by resubmitting it
+ * with the same rescanId and resume set; projects already carrying that marker are skipped.
+ */
+public class MetadataRescanRequest
+    extends ProjectGraphRequest
+{
+
+    /**
+     * Metadata key recording which rescan run last stored a project's metadata. It is reserved, so it never shows up
+     * in the project metadata returned to callers.
+     */
+    public static final String RESCAN_ID_METADATA = RelationshipGraph.RESERVED_METADATA_PREFIX + "rescan-id";
+
+    private String rescanId;
+
+    private boolean resume;
+
+    /**
+     * Names this run in the workspace checkpoint. If not given, one is generated and returned in the result.
+     */
+    public String getRescanId()
+    {
+        return rescanId;
+    }
+
+    public void setRescanId( final String rescanId )
+    {
+        this.rescanId = rescanId;
+    }
+
+    /**
+     * Skip projects already rescanned by the run named by rescanId.
+     */
+    public boolean isResume()
+    {
+        return resume;
+    }
+
+    public void setResume( final boolean resume )
+    {
+        this.resume = resume;
+    }
+
+}
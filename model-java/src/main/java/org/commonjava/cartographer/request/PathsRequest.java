@@ -25,6 +25,10 @@ public class PathsRequest
 
     private Set<ProjectRef> targets;
 
+    private Long offset;
+
+    private Integer limit;
+
     public Set<ProjectRef> getTargets()
     {
         return targets;
@@ -35,4 +39,30 @@ public class PathsRequest
         this.targets = targets;
     }
 
+    /**
+     * Number of paths to skip before collecting results, for paging through large result sets. Defaults to zero.
+     */
+    public Long getOffset()
+    {
+        return offset;
+    }
+
+    public void setOffset( final Long offset )
+    {
+        this.offset = offset;
+    }
+
+    /**
+     * Maximum number of paths to return. If unset, all paths are returned.
+     */
+    public Integer getLimit()
+    {
+        return limit;
+    }
+
+    public void setLimit( final Integer limit )
+    {
+        this.limit = limit;
+    }
+
 }
@@ -0,0 +1,34 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.request;
+
+/**
+ * The lookups a {@link ProjectBatchRequest} can perform for each of its projects.
+ */
+public enum ProjectBatchQuery
+{
+    /** Direct relationships declared by the project. */
+    DECLARED,
+
+    /** Direct relationships targeting the project. */
+    TARGETING,
+
+    /** The project's parent, if it has one (other than the terminal parent). */
+    PARENT,
+
+    /** The project's metadata. */
+    METADATA
+}
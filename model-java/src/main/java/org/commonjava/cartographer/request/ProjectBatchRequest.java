@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.request;
+
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Answers several lookups for a list of projects against one graph, which is resolved and opened once for the whole
+ * batch. The relationship options inherited from {@link ProjectGraphRelationshipsRequest} apply to the
+ * {@link ProjectBatchQuery#DECLARED} and {@link ProjectBatchQuery#TARGETING} lookups.
+ */
+public class ProjectBatchRequest
+    extends ProjectGraphRelationshipsRequest
+{
+
+    private List<ProjectVersionRef> projects;
+
+    private Set<ProjectBatchQuery> queries;
+
+    private Set<String> metadataKeys;
+
+    public List<ProjectVersionRef> getProjects()
+    {
+        return projects;
+    }
+
+    public void setProjects( final List<ProjectVersionRef> projects )
+    {
+        this.projects = projects;
+    }
+
+    /**
+     * The lookups to perform. If empty, all of them are performed.
+     */
+    public Set<ProjectBatchQuery> getQueries()
+    {
+        return queries;
+    }
+
+    public void setQueries( final Set<ProjectBatchQuery> queries )
+    {
+        this.queries = queries;
+    }
+
+    /**
+     * Metadata keys to return for the {@link ProjectBatchQuery#METADATA} lookup. If empty, all keys are returned.
+     */
+    public Set<String> getMetadataKeys()
+    {
+        return metadataKeys;
+    }
+
+    public void setMetadataKeys( final Set<String> metadataKeys )
+    {
+        this.metadataKeys = metadataKeys;
+    }
+
+    public boolean isQueried( final ProjectBatchQuery query )
+    {
+        return queries == null || queries.isEmpty() || queries.contains( query );
+    }
+
+    public Set<ProjectBatchQuery> getEffectiveQueries()
+    {
+        return queries == null || queries.isEmpty() ? EnumSet.allOf( ProjectBatchQuery.class )
+                        : EnumSet.copyOf( queries );
+    }
+
+}
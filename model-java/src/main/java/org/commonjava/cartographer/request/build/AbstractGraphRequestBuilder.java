@@ -38,6 +38,8 @@ public abstract class AbstractGraphRequestBuilder<T extends AbstractGraphRequest
 
     protected Integer timeoutSecs;
 
+    protected String progressId;
+
     protected String source;
 
     protected boolean resolve;
@@ -107,6 +109,17 @@ public abstract class AbstractGraphRequestBuilder<T extends AbstractGraphRequest
         return self;
     }
 
+    public String getProgressId()
+    {
+        return progressId;
+    }
+
+    public T withProgressId( final String progressId )
+    {
+        this.progressId = progressId;
+        return self;
+    }
+
     public Collection<String> getPatcherIds()
     {
         return patcherIds;
@@ -178,6 +191,7 @@ public abstract class AbstractGraphRequestBuilder<T extends AbstractGraphRequest
         recipe.setSource( source );
         recipe.setSourceLocation( sourceLocation );
         recipe.setTimeoutSecs( timeoutSecs );
+        recipe.setProgressId( progressId );
         recipe.setVersionSelections( versionSelections );
         recipe.setWorkspaceId( workspaceId );
     }
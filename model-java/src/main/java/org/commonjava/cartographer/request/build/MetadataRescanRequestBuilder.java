@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.request.build;
+
+import org.commonjava.cartographer.request.MetadataRescanRequest;
+
+public class MetadataRescanRequestBuilder<T extends MetadataRescanRequestBuilder<T, R>, R extends MetadataRescanRequest>
+    extends ProjectGraphRequestBuilder<T, R>
+{
+
+    public static final class StandaloneRescan
+        extends MetadataRescanRequestBuilder<StandaloneRescan, MetadataRescanRequest>
+    {
+    }
+
+    public static StandaloneRescan newMetadataRescanRequestBuilder()
+    {
+        return new StandaloneRescan();
+    }
+
+    private String rescanId;
+
+    private boolean resume;
+
+    public T withRescanId( final String rescanId )
+    {
+        this.rescanId = rescanId;
+        return self;
+    }
+
+    /**
+     * Resume the run named by rescanId, skipping the projects it already rescanned.
+     */
+    public T withResume( final String rescanId )
+    {
+        this.rescanId = rescanId;
+        this.resume = true;
+        return self;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    @Override
+    public R build()
+    {
+        final R recipe = (R) new MetadataRescanRequest();
+        configure( recipe );
+
+        return recipe;
+    }
+
+    @Override
+    protected void configure( final R recipe )
+    {
+        super.configure( recipe );
+        recipe.setRescanId( rescanId );
+        recipe.setResume( resume );
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.request.build;
+
+import org.commonjava.cartographer.request.ProjectBatchQuery;
+import org.commonjava.cartographer.request.ProjectBatchRequest;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+
+public class ProjectBatchRequestBuilder<T extends ProjectBatchRequestBuilder<T, R>, R extends ProjectBatchRequest>
+    extends ProjectGraphRelationshipsRequestBuilder<T, R>
+{
+
+    public static final class StandaloneProjectBatch
+        extends ProjectBatchRequestBuilder<StandaloneProjectBatch, ProjectBatchRequest>
+    {
+    }
+
+    public static StandaloneProjectBatch newProjectBatchRequestBuilder()
+    {
+        return new StandaloneProjectBatch();
+    }
+
+    private Collection<ProjectVersionRef> projects;
+
+    private Collection<ProjectBatchQuery> queries;
+
+    private Collection<String> metadataKeys;
+
+    public T withProjects( final Collection<ProjectVersionRef> projects )
+    {
+        this.projects = projects;
+        return self;
+    }
+
+    public T withProjects( final ProjectVersionRef... projects )
+    {
+        return withProjects( Arrays.asList( projects ) );
+    }
+
+    public T withQueries( final ProjectBatchQuery... queries )
+    {
+        this.queries = Arrays.asList( queries );
+        return self;
+    }
+
+    public T withMetadataKeys( final Collection<String> metadataKeys )
+    {
+        this.metadataKeys = metadataKeys;
+        return self;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    @Override
+    public R build()
+    {
+        final R recipe = (R) new ProjectBatchRequest();
+        configure( recipe );
+
+        return recipe;
+    }
+
+    protected void configure( final R recipe )
+    {
+        super.configure( recipe );
+        recipe.setProjects( projects == null ? null : new ArrayList<>( projects ) );
+        recipe.setQueries( queries == null || queries.isEmpty() ? null : EnumSet.copyOf( queries ) );
+        recipe.setMetadataKeys( metadataKeys == null ? null : new HashSet<>( metadataKeys ) );
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.rest.dto;
+
+/**
+ * Status of an asynchronous job. Once the state is {@link JobState#SUCCEEDED}, the result can be retrieved from
+ * {@link #getResultPath()} (relative to the REST API base URL) until it expires.
+ */
+public class JobStatus
+{
+
+    private String id;
+
+    private String type;
+
+    private String workspaceId;
+
+    private JobState state;
+
+    private int priority;
+
+    private long submitted;
+
+    private Long started;
+
+    private Long finished;
+
+    private Long expires;
+
+    private String contentType;
+
+    private String resultPath;
+
+    private String error;
+
+    public JobStatus()
+    {
+    }
+
+    public JobStatus( final String id, final String type, final String workspaceId, final int priority,
+                      final String contentType )
+    {
+        this.id = id;
+        this.type = type;
+        this.workspaceId = workspaceId;
+        this.priority = priority;
+        this.contentType = contentType;
+        this.state = JobState.QUEUED;
+        this.submitted = System.currentTimeMillis();
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public void setId( final String id )
+    {
+        this.id = id;
+    }
+
+    public String getType()
+    {
+        return type;
+    }
+
+    public void setType( final String type )
+    {
+        this.type = type;
+    }
+
+    public String getWorkspaceId()
+    {
+        return workspaceId;
+    }
+
+    public void setWorkspaceId( final String workspaceId )
+    {
+        this.workspaceId = workspaceId;
+    }
+
+    public JobState getState()
+    {
+        return state;
+    }
+
+    public void setState( final JobState state )
+    {
+        this.state = state;
+    }
+
+    public int getPriority()
+    {
+        return priority;
+    }
+
+    public void setPriority( final int priority )
+    {
+        this.priority = priority;
+    }
+
+    public long getSubmitted()
+    {
+        return submitted;
+    }
+
+    public void setSubmitted( final long submitted )
+    {
+        this.submitted = submitted;
+    }
+
+    public Long getStarted()
+    {
+        return started;
+    }
+
+    public void setStarted( final Long started )
+    {
+        this.started = started;
+    }
+
+    public Long getFinished()
+    {
+        return finished;
+    }
+
+    public void setFinished( final Long finished )
+    {
+        this.finished = finished;
+    }
+
+    public Long getExpires()
+    {
+        return expires;
+    }
+
+    public void setExpires( final Long expires )
+    {
+        this.expires = expires;
+    }
+
+    public String getContentType()
+    {
+        return contentType;
+    }
+
+    public void setContentType( final String contentType )
+    {
+        this.contentType = contentType;
+    }
+
+    public String getResultPath()
+    {
+        return resultPath;
+    }
+
+    public void setResultPath( final String resultPath )
+    {
+        this.resultPath = resultPath;
+    }
+
+    public String getError()
+    {
+        return error;
+    }
+
+    public void setError( final String error )
+    {
+        this.error = error;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format( "JobStatus [%s: %s (%s)]", id, type, state );
+    }
+}
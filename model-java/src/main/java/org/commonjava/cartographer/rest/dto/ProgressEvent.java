@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.rest.dto;
+
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+
+/**
+ * One progress report from a running graph request, as streamed from the progress channel named by the request's
+ * progressId (or the job id, for asynchronous jobs).
+ * <br/>
+ * Discovery events carry the pass number and running totals: frontier is the number of projects still waiting to be
+ * discovered, fetched the number of POMs processed and errors the number that failed. Metadata rescan events use the
+ * same counts, with frontier as the number of projects left to rescan; their message gives the throughput. Counts
+ * that don't apply to the event type are null.
+ */
+public class ProgressEvent
+{
+
+    private long seq;
+
+    private ProgressEventType type;
+
+    private long timestamp;
+
+    private String workspaceId;
+
+    private Integer pass;
+
+    private Integer batch;
+
+    private Integer frontier;
+
+    private Integer fetched;
+
+    private Integer errors;
+
+    private Integer missing;
+
+    private ProjectVersionRef project;
+
+    private String message;
+
+    public ProgressEvent()
+    {
+    }
+
+    public ProgressEvent( final ProgressEventType type, final String workspaceId )
+    {
+        this.type = type;
+        this.workspaceId = workspaceId;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public long getSeq()
+    {
+        return seq;
+    }
+
+    public void setSeq( final long seq )
+    {
+        this.seq = seq;
+    }
+
+    public ProgressEventType getType()
+    {
+        return type;
+    }
+
+    public void setType( final ProgressEventType type )
+    {
+        this.type = type;
+    }
+
+    public long getTimestamp()
+    {
+        return timestamp;
+    }
+
+    public void setTimestamp( final long timestamp )
+    {
+        this.timestamp = timestamp;
+    }
+
+    public String getWorkspaceId()
+    {
+        return workspaceId;
+    }
+
+    public void setWorkspaceId( final String workspaceId )
+    {
+        this.workspaceId = workspaceId;
+    }
+
+    public Integer getPass()
+    {
+        return pass;
+    }
+
+    public void setPass( final Integer pass )
+    {
+        this.pass = pass;
+    }
+
+    public Integer getBatch()
+    {
+        return batch;
+    }
+
+    public void setBatch( final Integer batch )
+    {
+        this.batch = batch;
+    }
+
+    public Integer getFrontier()
+    {
+        return frontier;
+    }
+
+    public void setFrontier( final Integer frontier )
+    {
+        this.frontier = frontier;
+    }
+
+    public Integer getFetched()
+    {
+        return fetched;
+    }
+
+    public void setFetched( final Integer fetched )
+    {
+        this.fetched = fetched;
+    }
+
+    public Integer getErrors()
+    {
+        return errors;
+    }
+
+    public void setErrors( final Integer errors )
+    {
+        this.errors = errors;
+    }
+
+    public Integer getMissing()
+    {
+        return missing;
+    }
+
+    public void setMissing( final Integer missing )
+    {
+        this.missing = missing;
+    }
+
+    public ProjectVersionRef getProject()
+    {
+        return project;
+    }
+
+    public void setProject( final ProjectVersionRef project )
+    {
+        this.project = project;
+    }
+
+    public String getMessage()
+    {
+        return message;
+    }
+
+    public void setMessage( final String message )
+    {
+        this.message = message;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format( "ProgressEvent [%s #%s, workspace: %s, pass: %s, frontier: %s, fetched: %s, errors: %s]",
+                              type, seq, workspaceId, pass, frontier, fetched, errors );
+    }
+}
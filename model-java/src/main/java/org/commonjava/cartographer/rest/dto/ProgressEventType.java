@@ -0,0 +1,39 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.rest.dto;
+
+/**
+ * Kinds of {@link ProgressEvent}. COMPLETE is final: nothing more will be sent on that progress channel.
+ */
+public enum ProgressEventType
+{
+    DISCOVERY_STARTED,
+    PASS_STARTED,
+    PROJECT_ERROR,
+    PASS_FINISHED,
+    DISCOVERY_FINISHED,
+    TRAVERSAL_STARTED,
+    TRAVERSAL_FINISHED,
+    RESCAN_STARTED,
+    RESCAN_BATCH,
+    RESCAN_FINISHED,
+    COMPLETE;
+
+    public boolean isFinal()
+    {
+        return this == COMPLETE;
+    }
+}
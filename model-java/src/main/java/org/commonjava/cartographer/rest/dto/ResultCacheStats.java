@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.rest.dto;
+
+/**
+ * Counters for the server-side result cache. Hits include conditional requests answered with 304 (Not Modified).
+ */
+public class ResultCacheStats
+{
+
+    private long hits;
+
+    private long notModified;
+
+    private long misses;
+
+    private long stores;
+
+    private long evictions;
+
+    private int entries;
+
+    private long bytes;
+
+    public ResultCacheStats()
+    {
+    }
+
+    public ResultCacheStats( final long hits, final long notModified, final long misses, final long stores,
+                             final long evictions, final int entries, final long bytes )
+    {
+        this.hits = hits;
+        this.notModified = notModified;
+        this.misses = misses;
+        this.stores = stores;
+        this.evictions = evictions;
+        this.entries = entries;
+        this.bytes = bytes;
+    }
+
+    public double getHitRate()
+    {
+        final long total = hits + notModified + misses;
+        return total == 0 ? 0 : ( (double) ( hits + notModified ) ) / total;
+    }
+
+    public void setHitRate( final double hitRate )
+    {
+        // derived; accepted so the DTO round-trips through JSON.
+    }
+
+    public long getHits()
+    {
+        return hits;
+    }
+
+    public void setHits( final long hits )
+    {
+        this.hits = hits;
+    }
+
+    public long getNotModified()
+    {
+        return notModified;
+    }
+
+    public void setNotModified( final long notModified )
+    {
+        this.notModified = notModified;
+    }
+
+    public long getMisses()
+    {
+        return misses;
+    }
+
+    public void setMisses( final long misses )
+    {
+        this.misses = misses;
+    }
+
+    public long getStores()
+    {
+        return stores;
+    }
+
+    public void setStores( final long stores )
+    {
+        this.stores = stores;
+    }
+
+    public long getEvictions()
+    {
+        return evictions;
+    }
+
+    public void setEvictions( final long evictions )
+    {
+        this.evictions = evictions;
+    }
+
+    public int getEntries()
+    {
+        return entries;
+    }
+
+    public void setEntries( final int entries )
+    {
+        this.entries = entries;
+    }
+
+    public long getBytes()
+    {
+        return bytes;
+    }
+
+    public void setBytes( final long bytes )
+    {
+        this.bytes = bytes;
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.result;
+
+/**
+ * Outcome of a metadata rescan. The project list holds the projects rescanned by this call; the counts report the
+ * rest of the run, including projects skipped because a resumed run had already rescanned them.
+ */
+public class MetadataRescanResult
+    extends ProjectListResult
+{
+
+    private String rescanId;
+
+    private int scanned;
+
+    private int skipped;
+
+    private int missing;
+
+    private int failed;
+
+    private long elapsedMillis;
+
+    private double projectsPerSecond;
+
+    public String getRescanId()
+    {
+        return rescanId;
+    }
+
+    public void setRescanId( final String rescanId )
+    {
+        this.rescanId = rescanId;
+    }
+
+    public int getScanned()
+    {
+        return scanned;
+    }
+
+    public void setScanned( final int scanned )
+    {
+        this.scanned = scanned;
+    }
+
+    public int getSkipped()
+    {
+        return skipped;
+    }
+
+    public void setSkipped( final int skipped )
+    {
+        this.skipped = skipped;
+    }
+
+    /**
+     * Projects whose POM couldn't be found in the source locations.
+     */
+    public int getMissing()
+    {
+        return missing;
+    }
+
+    public void setMissing( final int missing )
+    {
+        this.missing = missing;
+    }
+
+    /**
+     * Projects whose POM couldn't be read or whose metadata couldn't be stored. These are retried on resume.
+     */
+    public int getFailed()
+    {
+        return failed;
+    }
+
+    public void setFailed( final int failed )
+    {
+        this.failed = failed;
+    }
+
+    public long getElapsedMillis()
+    {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis( final long elapsedMillis )
+    {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getProjectsPerSecond()
+    {
+        return projectsPerSecond;
+    }
+
+    public void setProjectsPerSecond( final double projectsPerSecond )
+    {
+        this.projectsPerSecond = projectsPerSecond;
+    }
+}
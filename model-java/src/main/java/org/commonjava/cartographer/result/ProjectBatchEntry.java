@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.result;
+
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Answers to a batch of lookups for one project. Lookups that weren't requested are left null.
+ */
+public class ProjectBatchEntry
+{
+
+    private ProjectVersionRef project;
+
+    private boolean present;
+
+    private ProjectVersionRef parent;
+
+    private Set<ProjectRelationship<?, ?>> declared;
+
+    private Set<ProjectRelationship<?, ?>> targeting;
+
+    private Map<String, String> metadata;
+
+    public ProjectBatchEntry()
+    {
+    }
+
+    public ProjectBatchEntry( final ProjectVersionRef project, final boolean present )
+    {
+        this.project = project;
+        this.present = present;
+    }
+
+    public ProjectVersionRef getProject()
+    {
+        return project;
+    }
+
+    public void setProject( final ProjectVersionRef project )
+    {
+        this.project = project;
+    }
+
+    /**
+     * Whether the project is in the graph at all.
+     */
+    public boolean isPresent()
+    {
+        return present;
+    }
+
+    public void setPresent( final boolean present )
+    {
+        this.present = present;
+    }
+
+    public ProjectVersionRef getParent()
+    {
+        return parent;
+    }
+
+    public void setParent( final ProjectVersionRef parent )
+    {
+        this.parent = parent;
+    }
+
+    public Set<ProjectRelationship<?, ?>> getDeclared()
+    {
+        return declared;
+    }
+
+    public void setDeclared( final Set<ProjectRelationship<?, ?>> declared )
+    {
+        this.declared = declared;
+    }
+
+    public Set<ProjectRelationship<?, ?>> getTargeting()
+    {
+        return targeting;
+    }
+
+    public void setTargeting( final Set<ProjectRelationship<?, ?>> targeting )
+    {
+        this.targeting = targeting;
+    }
+
+    public Map<String, String> getMetadata()
+    {
+        return metadata;
+    }
+
+    public void setMetadata( final Map<String, String> metadata )
+    {
+        this.metadata = metadata;
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.result;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Answers to a {@link org.commonjava.cartographer.request.ProjectBatchRequest}, one entry per requested project, in
+ * request order.
+ */
+public class ProjectBatchResult
+{
+
+    private List<ProjectBatchEntry> projects;
+
+    public ProjectBatchResult()
+    {
+    }
+
+    public ProjectBatchResult( final List<ProjectBatchEntry> projects )
+    {
+        this.projects = projects;
+    }
+
+    public List<ProjectBatchEntry> getProjects()
+    {
+        return projects;
+    }
+
+    public void setProjects( final List<ProjectBatchEntry> projects )
+    {
+        this.projects = projects;
+    }
+
+    public synchronized void addProject( final ProjectBatchEntry entry )
+    {
+        if ( projects == null )
+        {
+            projects = new ArrayList<>();
+        }
+
+        projects.add( entry );
+    }
+}
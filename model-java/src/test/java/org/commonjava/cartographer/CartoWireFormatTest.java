@@ -0,0 +1,277 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.commonjava.cartographer.request.GraphCalculation;
+import org.commonjava.cartographer.request.GraphCalculationType;
+import org.commonjava.cartographer.request.GraphDescription;
+import org.commonjava.cartographer.result.GraphDifference;
+import org.commonjava.cartographer.result.GraphExport;
+import org.commonjava.cartographer.result.MappedProjectRelationships;
+import org.commonjava.cartographer.result.MappedProjectRelationshipsResult;
+import org.commonjava.cartographer.result.ProjectPath;
+import org.commonjava.cartographer.result.ProjectPathsResult;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.maven.atlas.graph.rel.SimpleParentRelationship;
+import org.commonjava.maven.atlas.ident.DependencyScope;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.ANY;
+import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.NONE;
+import static com.fasterxml.jackson.annotation.PropertyAccessor.ALL;
+import static com.fasterxml.jackson.annotation.PropertyAccessor.FIELD;
+import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class CartoWireFormatTest
+{
+
+    private static final URI SOURCE = URI.create( "http://repo.maven.apache.org/maven2/" );
+
+    private static final ProjectVersionRef ROOT = new SimpleProjectVersionRef( "org.foo", "root", "1.0" );
+
+    @Test
+    public void smileRoundTripIsSmallerThanJson()
+            throws Exception
+    {
+        final ProjectPathsResult in = new ProjectPathsResult();
+        for ( int i = 0; i < 20; i++ )
+        {
+            final ProjectVersionRef target = new SimpleProjectVersionRef( "org.foo", "target-" + i, "1.0" );
+            final List<ProjectRelationship<?, ?>> parts = new ArrayList<>();
+            ProjectVersionRef child = target;
+            for ( int j = 0; j < 5; j++ )
+            {
+                final ProjectVersionRef parent = new SimpleProjectVersionRef( "org.foo", "parent-" + j, "1.0" );
+                parts.add( new SimpleParentRelationship( SOURCE, child, parent ) );
+                child = parent;
+            }
+            in.addPath( target, new ProjectPath( parts ) );
+        }
+
+        final ObjectMapper mapper = serverMapper();
+        final byte[] json = mapper.writeValueAsBytes( in );
+        final byte[] smile = toSmile( mapper, in );
+
+        assertTrue( "Smile payload: " + smile.length + " bytes, JSON payload: " + json.length + " bytes",
+                    smile.length < json.length );
+
+        final ProjectPathsResult result = fromSmile( smile, new TypeReference<ProjectPathsResult>()
+        {
+        } );
+        assertThat( result.getProjects().keySet(), equalTo( in.getProjects().keySet() ) );
+    }
+
+    @Test
+    public void graphExportRoundTrip()
+            throws Exception
+    {
+        final GraphExport in = new GraphExport( dependencies( ROOT, 10 ), refs( "missing-", 3 ),
+                                                refs( "variable-", 2 ), null, null );
+
+        final GraphExport out = roundTrip( in, new TypeReference<GraphExport>()
+        {
+        } );
+
+        assertThat( out.getRelationships(), equalTo( in.getRelationships() ) );
+        assertThat( out.getMissing(), equalTo( in.getMissing() ) );
+        assertThat( out.getVariable(), equalTo( in.getVariable() ) );
+        assertThat( out.getErrors(), nullValue() );
+        assertThat( out.getCycles(), nullValue() );
+    }
+
+    @Test
+    public void graphDifferenceRoundTrip()
+            throws Exception
+    {
+        final Set<ProjectRelationship<?, ?>> added = dependencies( ROOT, 4 );
+        final Set<ProjectRelationship<?, ?>> removed =
+                dependencies( new SimpleProjectVersionRef( "org.foo", "root", "0.9" ), 3 );
+        final GraphDifference<ProjectRelationship<?, ?>> in =
+                new GraphDifference<ProjectRelationship<?, ?>>( null, null, added, removed );
+
+        final GraphDifference<ProjectRelationship<?, ?>> out =
+                roundTrip( in, new TypeReference<GraphDifference<ProjectRelationship<?, ?>>>()
+                {
+                } );
+
+        assertThat( out.getAdded(), equalTo( in.getAdded() ) );
+        assertThat( out.getRemoved(), equalTo( in.getRemoved() ) );
+        assertThat( out.getFromGraph(), nullValue() );
+        assertThat( out.getToGraph(), nullValue() );
+    }
+
+    @Test
+    public void graphCalculationRoundTrip()
+            throws Exception
+    {
+        final GraphDescription desc = new GraphDescription( "requires", null, null, ROOT );
+        final GraphCalculation in =
+                new GraphCalculation( GraphCalculationType.ADD, Collections.singletonList( desc ),
+                                      Collections.singleton( ROOT ), dependencies( ROOT, 5 ) );
+
+        final GraphCalculation out = roundTrip( in, new TypeReference<GraphCalculation>()
+        {
+        } );
+
+        assertThat( out.getOperation(), equalTo( in.getOperation() ) );
+        assertThat( out.getResult(), equalTo( in.getResult() ) );
+        assertThat( out.getResultingRoots(), equalTo( in.getResultingRoots() ) );
+        assertThat( out.getGraphs(), equalTo( in.getGraphs() ) );
+        assertThat( out.getResultingProjects(), equalTo( in.getResultingProjects() ) );
+    }
+
+    @Test
+    public void mappedProjectRelationshipsRoundTrip()
+            throws Exception
+    {
+        final MappedProjectRelationshipsResult in = new MappedProjectRelationshipsResult();
+        for ( int i = 0; i < 3; i++ )
+        {
+            final ProjectVersionRef project = new SimpleProjectVersionRef( "org.foo", "project-" + i, "1.0" );
+            in.addProject( new MappedProjectRelationships( project, dependencies( project, i + 1 ) ) );
+        }
+
+        final MappedProjectRelationshipsResult out =
+                roundTrip( in, new TypeReference<MappedProjectRelationshipsResult>()
+                {
+                } );
+
+        assertThat( byProject( out ), equalTo( byProject( in ) ) );
+    }
+
+    /**
+     * Encode with the server's mapper and decode with the client's, once as JSON and once as Smile, and check both
+     * decode to the same thing.
+     */
+    private <T> T roundTrip( final Object in, final TypeReference<T> type )
+            throws Exception
+    {
+        final ObjectMapper server = serverMapper();
+
+        final T fromJson = clientMapper().readValue( server.writeValueAsBytes( in ), type );
+        final T fromSmile = fromSmile( toSmile( server, in ), type );
+
+        assertThat( clientMapper().writeValueAsString( fromSmile ),
+                    equalTo( clientMapper().writeValueAsString( fromJson ) ) );
+
+        return fromSmile;
+    }
+
+    private byte[] toSmile( final ObjectMapper mapper, final Object in )
+            throws Exception
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = CartoWireFormat.openSmileGenerator( out ))
+        {
+            mapper.writeValue( generator, in );
+        }
+
+        return out.toByteArray();
+    }
+
+    private <T> T fromSmile( final byte[] smile, final TypeReference<T> type )
+            throws Exception
+    {
+        try (JsonParser parser = CartoWireFormat.openSmileParser( new ByteArrayInputStream( smile ) ))
+        {
+            return clientMapper().readValue( parser, type );
+        }
+    }
+
+    /**
+     * Configured like the default mapper in CartographerCoreBuilder.
+     */
+    private ObjectMapper serverMapper()
+    {
+        final ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModules( new CartoAPIObjectMapperModules().getSerializerModules() );
+        mapper.setSerializationInclusion( JsonInclude.Include.NON_NULL );
+        return mapper;
+    }
+
+    /**
+     * Configured like the mapper in CartographerRESTClient, which reads fields only.
+     */
+    private ObjectMapper clientMapper()
+    {
+        final ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModules( new CartoAPIObjectMapperModules().getSerializerModules() );
+        mapper.setVisibility( ALL, NONE );
+        mapper.setVisibility( FIELD, ANY );
+        mapper.configure( FAIL_ON_UNKNOWN_PROPERTIES, false );
+        return mapper;
+    }
+
+    private Set<ProjectRelationship<?, ?>> dependencies( final ProjectVersionRef from, final int count )
+    {
+        final Set<ProjectRelationship<?, ?>> rels = new HashSet<>();
+        for ( int i = 0; i < count; i++ )
+        {
+            final ProjectVersionRef to = new SimpleProjectVersionRef( "org.dep", "dep-" + i, "1." + i );
+            rels.add( new SimpleDependencyRelationship( SOURCE, from, to.asArtifactRef( "jar", null ),
+                                                        DependencyScope.compile, i, false, false, false ) );
+        }
+
+        return rels;
+    }
+
+    private Set<ProjectVersionRef> refs( final String prefix, final int count )
+    {
+        final Set<ProjectVersionRef> refs = new HashSet<>();
+        for ( int i = 0; i < count; i++ )
+        {
+            refs.add( new SimpleProjectVersionRef( "org.foo", prefix + i, "1.0" ) );
+        }
+
+        return refs;
+    }
+
+    private Map<ProjectVersionRef, Set<ProjectRelationship<?, ?>>> byProject(
+            final MappedProjectRelationshipsResult result )
+    {
+        final Map<ProjectVersionRef, Set<ProjectRelationship<?, ?>>> mapped = new HashMap<>();
+        for ( final MappedProjectRelationships project : result.getProjects() )
+        {
+            mapped.put( project.getProject(), project.getRelationships() );
+        }
+
+        return mapped;
+    }
+
+}
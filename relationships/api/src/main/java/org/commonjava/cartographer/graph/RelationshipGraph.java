@@ -25,7 +25,14 @@ import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
 import org.commonjava.maven.atlas.graph.rel.RelationshipType;
 import org.commonjava.cartographer.graph.spi.RelationshipGraphConnection;
 import org.commonjava.cartographer.graph.spi.RelationshipGraphConnectionException;
+import org.commonjava.cartographer.graph.traverse.ForkableTraversal;
+import org.commonjava.cartographer.graph.traverse.ImpactSearch;
+import org.commonjava.cartographer.graph.traverse.PathSearch;
 import org.commonjava.cartographer.graph.traverse.RelationshipGraphTraversal;
+import org.commonjava.cartographer.graph.traverse.SubgraphSummaryCache;
+import org.commonjava.cartographer.graph.util.MetadataColumns;
+import org.commonjava.cartographer.graph.util.ProjectGavIndex;
+import org.commonjava.cartographer.graph.util.ProjectRefInterner;
 import org.commonjava.cartographer.graph.traverse.TraversalType;
 import org.commonjava.maven.atlas.ident.ref.ProjectRef;
 import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
@@ -36,6 +43,10 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import static org.apache.commons.lang.StringUtils.join;
 
@@ -45,6 +56,13 @@ public final class RelationshipGraph
 
     private final Logger logger = LoggerFactory.getLogger( getClass() );
 
+    /**
+     * Metadata keys starting with this are kept for Cartographer's own bookkeeping (such as metadata rescan
+     * checkpoints). They are left out of every getMetadata variant and of {@link #collateByMetadata}, and can only be
+     * looked up through getProjectsWithMetadata.
+     */
+    public static final String RESERVED_METADATA_PREFIX = "_carto:";
+
     private static final String GROUP_ID = "groupId";
 
     private static final String ARTIFACT_ID = "artifactId";
@@ -57,13 +75,35 @@ public final class RelationshipGraph
 
     private RelationshipGraphConnection connection;
 
+    private final ProjectRefInterner refInterner;
+
+    private final MetadataColumns metadataColumns;
+
+    private volatile ProjectGavIndex gavIndex;
+
+    private volatile SubgraphSummaryCache summaries;
+
     // if we didn't have a user, we wouldn't have constructed this thing!
     private int userCount = 1;
 
     RelationshipGraph( final ViewParams params, final RelationshipGraphConnection driver )
+    {
+        this( params, driver, new ProjectRefInterner() );
+    }
+
+    RelationshipGraph( final ViewParams params, final RelationshipGraphConnection driver,
+                       final ProjectRefInterner refInterner )
+    {
+        this( params, driver, refInterner, new MetadataColumns( driver, refInterner ) );
+    }
+
+    RelationshipGraph( final ViewParams params, final RelationshipGraphConnection driver,
+                       final ProjectRefInterner refInterner, final MetadataColumns metadataColumns )
     {
         this.params = params;
         this.connection = driver;
+        this.refInterner = refInterner;
+        this.metadataColumns = metadataColumns;
 
         getConnectionInternal().registerView( params );
     }
@@ -220,6 +260,14 @@ public final class RelationshipGraph
         return new HashSet<ProjectRelationship<?, ?>>( getConnectionInternal().getAllRelationships( params ) );
     }
 
+    /**
+     * Stream the relationships in this graph without collecting them first. Close the stream when finished.
+     */
+    public Stream<ProjectRelationship<?, ?>> streamAllRelationships()
+    {
+        return getConnectionInternal().streamAllRelationships( params );
+    }
+
     public boolean isComplete()
     {
         return !getConnectionInternal().hasMissingProjects( params );
@@ -329,6 +377,188 @@ public final class RelationshipGraph
         traverse( traversal, TraversalType.breadth_first );
     }
 
+    /**
+     * Traverse breadth-first from the given project, like
+     * {@link #traverse(ProjectVersionRef, RelationshipGraphTraversal)}, but over this graph's
+     * {@link SubgraphSummaryCache}. Subgraphs already expanded in the same context, by an earlier start or an earlier
+     * call, are not read from the connection again. Graphs are shared per view, so the summaries are reused across
+     * requests until the workspace's modification stamp moves.
+     */
+    public void traverseMemoized( final ProjectVersionRef start, final RelationshipGraphTraversal traversal )
+            throws RelationshipGraphException
+    {
+        traversal.startTraverse( this );
+        getSubgraphSummaries().traverse( traversal, start );
+        traversal.endTraverse( this );
+    }
+
+    /**
+     * Traverse breadth-first from each root over this graph's {@link SubgraphSummaryCache}.
+     *
+     * @see #traverseMemoized(ProjectVersionRef, RelationshipGraphTraversal)
+     */
+    public void traverseMemoized( final RelationshipGraphTraversal traversal )
+            throws RelationshipGraphException
+    {
+        for ( final ProjectVersionRef root : params.getRoots() )
+        {
+            traverseMemoized( root, traversal );
+        }
+    }
+
+    public SubgraphSummaryCache getSubgraphSummaries()
+    {
+        SubgraphSummaryCache result = summaries;
+        if ( result == null )
+        {
+            synchronized ( this )
+            {
+                result = summaries;
+                if ( result == null )
+                {
+                    result = new SubgraphSummaryCache( getConnectionInternal(), params );
+                    summaries = result;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Retrieve the GAV / GA id table shared by all views of this graph's workspace, for use with
+     * {@link org.commonjava.cartographer.graph.util.IntObjectMap} and
+     * {@link org.commonjava.cartographer.graph.util.IntSet}.
+     */
+    public ProjectRefInterner getRefInterner()
+    {
+        return refInterner;
+    }
+
+    /**
+     * @see RelationshipGraphConnection#getModificationStamp()
+     */
+    public long getModificationStamp()
+    {
+        return getConnection().getModificationStamp();
+    }
+
+    /**
+     * This graph's projects indexed by GAV string. Graphs are shared per view, so the index is reused across requests
+     * until the workspace's modification stamp moves.
+     */
+    public ProjectGavIndex getProjectGavIndex()
+    {
+        final long stamp = getModificationStamp();
+        ProjectGavIndex result = gavIndex;
+        if ( result == null || result.getStamp() != stamp )
+        {
+            result = new ProjectGavIndex( stamp, getAllProjects() );
+            gavIndex = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Traverse from each root of this graph concurrently on the given pool.
+     *
+     * @see #traverseInParallel(Collection, ForkableTraversal, TraversalType, ExecutorService)
+     */
+    public void traverseInParallel( final ForkableTraversal traversal, final TraversalType type,
+                                    final ExecutorService pool )
+            throws RelationshipGraphException
+    {
+        traverseInParallel( params.getRoots(), traversal, type, pool );
+    }
+
+    /**
+     * Traverse from each of the given projects concurrently on the given pool, using one
+     * {@link ForkableTraversal#fork()} per project. Once all forks finish, they are joined back into the given
+     * traversal in the given order. With fewer than two projects, this just traverses on the calling thread.
+     * Breadth-first forks walk this graph's shared {@link SubgraphSummaryCache}, as
+     * {@link #traverseMemoized(ProjectVersionRef, RelationshipGraphTraversal)} does, so a subgraph one fork has
+     * expanded isn't read from the connection again by the others.
+     * <br/>
+     * Forks don't see what the others have visited, so a traversal that prunes based on earlier roots may collect more
+     * here than {@link #traverse(RelationshipGraphTraversal, TraversalType)} would. The pool runs blocking driver
+     * calls; don't pass the common {@link java.util.concurrent.ForkJoinPool}.
+     */
+    public void traverseInParallel( final Collection<ProjectVersionRef> starts, final ForkableTraversal traversal,
+                                    final TraversalType type, final ExecutorService pool )
+            throws RelationshipGraphException
+    {
+        final List<ProjectVersionRef> roots = new ArrayList<ProjectVersionRef>( starts );
+        if ( roots.size() < 2 )
+        {
+            for ( final ProjectVersionRef root : roots )
+            {
+                traverseFrom( root, traversal, type );
+            }
+
+            return;
+        }
+
+        final List<Future<ForkableTraversal>> tasks = new ArrayList<Future<ForkableTraversal>>( roots.size() );
+        for ( final ProjectVersionRef root : roots )
+        {
+            final ForkableTraversal fork = traversal.fork();
+            tasks.add( pool.submit( () -> {
+                traverseFrom( root, fork, type );
+                return fork;
+            } ) );
+        }
+
+        RelationshipGraphException error = null;
+        for ( int i = 0; i < tasks.size(); i++ )
+        {
+            try
+            {
+                final ForkableTraversal fork = tasks.get( i )
+                                                    .get();
+                if ( error == null )
+                {
+                    traversal.join( fork );
+                }
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread()
+                      .interrupt();
+                throw new RelationshipGraphException( "Interrupted while traversing from: %s", e, roots.get( i ) );
+            }
+            catch ( final ExecutionException e )
+            {
+                if ( error == null )
+                {
+                    final Throwable cause = e.getCause();
+                    error = cause instanceof RelationshipGraphException ? (RelationshipGraphException) cause
+                                    : new RelationshipGraphException( "Failed to traverse from: %s. Reason: %s",
+                                                                      cause, roots.get( i ), cause.getMessage() );
+                }
+            }
+        }
+
+        if ( error != null )
+        {
+            throw error;
+        }
+    }
+
+    private void traverseFrom( final ProjectVersionRef root, final RelationshipGraphTraversal traversal,
+                               final TraversalType type )
+            throws RelationshipGraphException
+    {
+        if ( type == TraversalType.breadth_first )
+        {
+            traverseMemoized( root, traversal );
+        }
+        else
+        {
+            traverse( root, traversal, type );
+        }
+    }
+
     public Set<ProjectRelationship<?, ?>> getUserRelationships( final ProjectVersionRef ref )
     {
         if ( !getConnectionInternal().containsProject( params, ref ) )
@@ -406,12 +636,24 @@ public final class RelationshipGraph
             throws RelationshipGraphException
     {
         getConnectionInternal().addMetadata( ref, name, value );
+        metadataColumns.invalidate( ref );
     }
 
     public void addMetadata( final ProjectVersionRef ref, final Map<String, String> metadata )
             throws RelationshipGraphException
     {
         getConnectionInternal().setMetadata( ref, metadata );
+        metadataColumns.invalidate( ref );
+    }
+
+    /**
+     * Store metadata for several projects in one write, where the driver supports it.
+     */
+    public void addMetadata( final Map<ProjectVersionRef, Map<String, String>> metadata )
+            throws RelationshipGraphException
+    {
+        getConnectionInternal().setMetadata( metadata );
+        metadata.keySet().forEach( metadataColumns::invalidate );
     }
 
     public Set<ProjectVersionRef> getProjectsWithMetadata( final String key )
@@ -419,6 +661,15 @@ public final class RelationshipGraph
         return getConnectionInternal().getProjectsWithMetadata( params, key );
     }
 
+    /**
+     * Select the projects in this graph whose metadata has the given value for the key, using the driver's value index
+     * where it keeps one.
+     */
+    public Set<ProjectVersionRef> getProjectsWithMetadata( final String key, final String value )
+    {
+        return getConnectionInternal().getProjectsWithMetadata( params, key, value );
+    }
+
     public void reindex()
             throws RelationshipGraphException
     {
@@ -436,6 +687,37 @@ public final class RelationshipGraph
         return getConnectionInternal().getAllPathsTo( params, projectVersionRefs );
     }
 
+    /**
+     * Stream the paths from this graph's roots to the given projects. The paths are all found before this returns; see
+     * {@link RelationshipGraphConnection#streamPathsTo(ViewParams, ProjectVersionRef...)}. Close the stream when
+     * finished.
+     */
+    public Stream<List<ProjectRelationship<?, ?>>> streamPathsTo( final ProjectVersionRef... projectVersionRefs )
+    {
+        return getConnectionInternal().streamPathsTo( params, projectVersionRefs );
+    }
+
+    /**
+     * Prepare a search for the paths from this graph's roots to the given projects, optionally restricted by an extra
+     * filter. Paths continue past a target, in case further targets lie beyond it.
+     *
+     * @see PathSearch
+     */
+    public PathSearch searchPaths( final ProjectRelationshipFilter filter, final Set<? extends ProjectRef> targets )
+    {
+        return new PathSearch( getConnectionInternal(), params, targets, filter, false );
+    }
+
+    /**
+     * Prepare a reverse (dependents-first) impact search over this graph's view.
+     *
+     * @see ImpactSearch
+     */
+    public ImpactSearch searchImpact( final boolean includeManagedInfo )
+    {
+        return new ImpactSearch( getConnectionInternal(), params, includeManagedInfo );
+    }
+
     public boolean introducesCycle( final ProjectRelationship<?, ?> rel )
     {
         return getConnectionInternal().introducesCycle( params, rel );
@@ -599,7 +881,13 @@ public final class RelationshipGraph
         final Map<String, String> metadata = getConnectionInternal().getMetadata( ref );
         if ( metadata != null )
         {
-            result.putAll( metadata );
+            for ( final Map.Entry<String, String> entry : metadata.entrySet() )
+            {
+                if ( !isReservedMetadata( entry.getKey() ) )
+                {
+                    result.put( entry.getKey(), entry.getValue() );
+                }
+            }
         }
 
         result.put( GROUP_ID, ref.getGroupId() );
@@ -612,7 +900,7 @@ public final class RelationshipGraph
     public Map<String, String> getMetadata( final ProjectVersionRef ref, final Set<String> keys )
     {
         final Map<String, String> result = new HashMap<String, String>();
-        final Map<String, String> metadata = getConnectionInternal().getMetadata( ref, keys );
+        final Map<String, String> metadata = getConnectionInternal().getMetadata( ref, withoutReserved( keys ) );
         if ( metadata != null )
         {
             result.putAll( metadata );
@@ -636,22 +924,39 @@ public final class RelationshipGraph
         return result;
     }
 
+    /**
+     * Group the given projects by their values for the given keys, in one pass over the workspace's
+     * {@link MetadataColumns}. Projects not seen by an earlier collation have their metadata read once.
+     */
     public Map<Map<String, String>, Set<ProjectVersionRef>> collateByMetadata( final Set<ProjectVersionRef> refs,
                                                                                final Set<String> keys )
     {
-        final Map<Map<String, String>, Set<ProjectVersionRef>> result =
-                new HashMap<Map<String, String>, Set<ProjectVersionRef>>();
-        for ( final ProjectVersionRef ref : refs )
+        return metadataColumns.collate( refs, withoutReserved( keys ) );
+    }
+
+    /**
+     * True if the metadata key is one Cartographer keeps for its own bookkeeping; see
+     * {@link #RESERVED_METADATA_PREFIX}.
+     */
+    public static boolean isReservedMetadata( final String key )
+    {
+        return key != null && key.startsWith( RESERVED_METADATA_PREFIX );
+    }
+
+    private static Set<String> withoutReserved( final Set<String> keys )
+    {
+        if ( keys == null )
         {
-            final Map<String, String> metadata = getMetadata( ref, keys );
-            Set<ProjectVersionRef> collated = result.get( metadata );
-            if ( collated == null )
+            return null;
+        }
+
+        final Set<String> result = new HashSet<String>( keys.size() );
+        for ( final String key : keys )
+        {
+            if ( !isReservedMetadata( key ) )
             {
-                collated = new HashSet<ProjectVersionRef>();
-                result.put( metadata, collated );
+                result.add( key );
             }
-
-            collated.add( ref );
         }
 
         return result;
@@ -661,6 +966,7 @@ public final class RelationshipGraph
             throws RelationshipGraphException
     {
         getConnectionInternal().setMetadata( project, metadata );
+        metadataColumns.invalidate( project );
     }
 
     public void deleteRelationshipsDeclaredBy( final ProjectVersionRef ref )
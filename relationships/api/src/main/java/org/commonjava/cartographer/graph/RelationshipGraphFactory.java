@@ -25,10 +25,13 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.StringUtils;
 import org.commonjava.cartographer.graph.spi.RelationshipGraphConnection;
 import org.commonjava.cartographer.graph.spi.RelationshipGraphConnectionFactory;
+import org.commonjava.cartographer.graph.util.MetadataColumns;
+import org.commonjava.cartographer.graph.util.ProjectRefInterner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,6 +45,13 @@ public final class RelationshipGraphFactory
 
     private final Map<String, ConnectionCache> connectionCaches = new HashMap<String, ConnectionCache>();
 
+    /**
+     * Last modification stamp of each workspace whose connection has been closed. Reopening a workspace creates a new
+     * connection (with a new stamp), but its content hasn't changed; until it's modified again, we keep reporting the
+     * old stamp.
+     */
+    private final Map<String, Long> closedStamps = new ConcurrentHashMap<String, Long>();
+
     private final Set<RelationshipGraphListenerFactory> listenerFactories =
         new HashSet<RelationshipGraphListenerFactory>();
 
@@ -71,7 +81,7 @@ public final class RelationshipGraphFactory
             final RelationshipGraphConnection connection =
                 connectionManager.openConnection( params.getWorkspaceId(), create );
 
-            cache = new ConnectionCache( timer, connectionCaches, connection, wsid );
+            cache = new ConnectionCache( timer, connectionCaches, closedStamps, connection, wsid );
             connectionCaches.put( wsid, cache );
 
             //            logger.info( "Created new connection to graph db: {}\nVia:\n  {}", params.getWorkspaceId(),
@@ -89,7 +99,8 @@ public final class RelationshipGraphFactory
 
         if ( graph == null )
         {
-            graph = new RelationshipGraph( params, cache.getConnection() );
+            graph = new RelationshipGraph( params, cache.getConnection(), cache.getRefInterner(),
+                                           cache.getMetadataColumns() );
             graph.addListener( cache );
             cache.registerGraph( params, graph );
         }
@@ -101,6 +112,33 @@ public final class RelationshipGraphFactory
         return graph;
     }
 
+    /**
+     * Retrieve the modification stamp for the workspace (see {@link RelationshipGraphConnection#getModificationStamp()}).
+     * The stamp survives the workspace connection being closed and reopened, as long as the content isn't modified.
+     *
+     * @return the stamp, or -1 if the workspace hasn't been opened since this factory was created.
+     */
+    public long getModificationStamp( final String workspaceId )
+    {
+        final ConnectionCache cache;
+        synchronized ( this )
+        {
+            cache = connectionCaches.get( workspaceId );
+        }
+
+        if ( cache != null )
+        {
+            final long stamp = cache.getModificationStamp();
+            if ( stamp > -1 )
+            {
+                return stamp;
+            }
+        }
+
+        final Long closed = closedStamps.get( workspaceId );
+        return closed == null ? -1 : closed;
+    }
+
     public Set<String> listWorkspaces()
     {
         return connectionManager.listWorkspaces();
@@ -140,6 +178,8 @@ public final class RelationshipGraphFactory
                     logger.error( "Unexpected error when trying to close connection cache: {}", ex );
                 }
             }
+
+            closedStamps.remove( workspaceId );
         }
         return result;
     }
@@ -188,19 +228,54 @@ public final class RelationshipGraphFactory
         
         private final Map<ViewParams, RelationshipGraph> graphs = new HashMap<ViewParams, RelationshipGraph>();
 
+        private final ProjectRefInterner refInterner = new ProjectRefInterner();
+
+        private final MetadataColumns metadataColumns;
+
         private final Timer timer;
 
         private TimerTask closeTimer;
 
         private final Map<String, ConnectionCache> mapOfCaches;
 
+        private final Map<String, Long> closedStamps;
+
+        private final long openStamp;
+
+        private final Long previousStamp;
+
         ConnectionCache( final Timer timer, final Map<String, ConnectionCache> mapOfCaches,
-                         final RelationshipGraphConnection connection, final String wsid )
+                         final Map<String, Long> closedStamps, final RelationshipGraphConnection connection,
+                         final String wsid )
         {
             this.timer = timer;
             this.mapOfCaches = mapOfCaches;
+            this.closedStamps = closedStamps;
             this.connection = connection;
             this.wsid = wsid;
+            this.metadataColumns = new MetadataColumns( connection, refInterner );
+            this.openStamp = connection.getModificationStamp();
+            this.previousStamp = closedStamps.get( wsid );
+        }
+
+        /**
+         * The connection's stamp, unless nothing has been modified since it was opened, in which case it's the stamp
+         * the workspace had when its last connection closed. Returns -1 if this cache is closed.
+         */
+        synchronized long getModificationStamp()
+        {
+            if ( connection == null )
+            {
+                return -1;
+            }
+
+            final long current = connection.getModificationStamp();
+            if ( current == openStamp && previousStamp != null )
+            {
+                return previousStamp;
+            }
+
+            return current;
         }
 
         public synchronized void closeNow()
@@ -208,6 +283,11 @@ public final class RelationshipGraphFactory
         {
             mapOfCaches.remove( wsid );
 
+            if ( connection != null )
+            {
+                closedStamps.put( wsid, getModificationStamp() );
+            }
+
             graphs.clear();
 
             final RelationshipGraphConnection conn = connection;
@@ -291,6 +371,16 @@ public final class RelationshipGraphFactory
             return connection;
         }
 
+        ProjectRefInterner getRefInterner()
+        {
+            return refInterner;
+        }
+
+        MetadataColumns getMetadataColumns()
+        {
+            return metadataColumns;
+        }
+
         synchronized void registerGraph( final ViewParams params, final RelationshipGraph graph )
         {
             logger.info( "Registering new connection to: {}", params.getWorkspaceId() );
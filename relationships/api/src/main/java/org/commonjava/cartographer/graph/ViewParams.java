@@ -17,6 +17,7 @@ package org.commonjava.cartographer.graph;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.commonjava.cartographer.graph.filter.AnyFilter;
+import org.commonjava.cartographer.graph.filter.FilterAutomaton;
 import org.commonjava.cartographer.graph.filter.ProjectRelationshipFilter;
 import org.commonjava.cartographer.graph.mutate.GraphMutator;
 import org.commonjava.cartographer.graph.mutate.ManagedDependencyMutator;
@@ -84,6 +85,8 @@ public class ViewParams
 
     private transient String shortId;
 
+    private transient volatile FilterAutomaton filterAutomaton;
+
     private final String workspaceId;
 
     public ViewParams( final String workspaceId, final ProjectRelationshipFilter filter, final GraphMutator mutator,
@@ -165,6 +168,29 @@ public class ViewParams
         return filter == null ? AnyFilter.INSTANCE : filter;
     }
 
+    /**
+     * Retrieve the compiled form of {@link #getFilter()}, shared by all traversals using this view so child-filter
+     * transitions are only computed once per relationship kind.
+     */
+    public FilterAutomaton getFilterAutomaton()
+    {
+        FilterAutomaton automaton = filterAutomaton;
+        if ( automaton == null )
+        {
+            synchronized ( this )
+            {
+                automaton = filterAutomaton;
+                if ( automaton == null )
+                {
+                    automaton = FilterAutomaton.compile( getFilter() );
+                    filterAutomaton = automaton;
+                }
+            }
+        }
+
+        return automaton;
+    }
+
     public Set<ProjectVersionRef> getRoots()
     {
         return roots;
@@ -28,6 +28,10 @@ import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
 import org.commonjava.maven.atlas.graph.rel.RelationshipType;
 import org.commonjava.maven.atlas.ident.ref.ProjectRef;
 
+/**
+ * Base for filters that select relationships by type. Subclasses aren't {@link KindDrivenFilter}s just by extending
+ * this; each one opts in only if its child filter depends on nothing but the parent relationship's kind.
+ */
 public abstract class AbstractTypedFilter
     implements ProjectRelationshipFilter
 {
@@ -24,7 +24,7 @@ import org.commonjava.maven.atlas.graph.rel.RelationshipType;
 import org.commonjava.maven.atlas.ident.ref.ProjectRef;
 
 public class AnyFilter
-    implements ProjectRelationshipFilter
+    implements KindDrivenFilter
 {
 
     /**
@@ -20,6 +20,7 @@ import org.commonjava.maven.atlas.graph.rel.RelationshipType;
 
 public class BomFilter
     extends AbstractTypedFilter
+    implements KindDrivenFilter
 {
 
     private static final long serialVersionUID = 1L;
@@ -28,6 +28,7 @@ import org.commonjava.maven.atlas.ident.ref.ProjectRef;
 
 public class DependencyFilter
     extends AbstractTypedFilter
+    implements KindDrivenFilter
 {
 
     /**
@@ -26,6 +26,7 @@ import org.commonjava.maven.atlas.ident.DependencyScope;
 
 public class DependencyOnlyFilter
     extends AbstractTypedFilter
+    implements KindDrivenFilter
 {
 
     /**
@@ -74,6 +74,11 @@ public class ExcludingFilter
         return filter.getDepExcludes();
     }
 
+    public ProjectRelationshipFilter getFilter()
+    {
+        return filter;
+    }
+
     @Override
     public String getLongId()
     {
@@ -23,6 +23,7 @@ import org.commonjava.maven.atlas.ident.DependencyScope;
 // TODO: Do we need to consider excludes in the extensions?
 public class ExtensionFilter
     extends AbstractTypedFilter
+    implements KindDrivenFilter
 {
 
     /**
@@ -20,6 +20,7 @@ import org.commonjava.maven.atlas.graph.rel.RelationshipType;
 
 public class ExtensionOnlyFilter
     extends AbstractTypedFilter
+    implements KindDrivenFilter
 {
 
     /**
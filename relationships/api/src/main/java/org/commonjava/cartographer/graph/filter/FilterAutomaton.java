@@ -0,0 +1,310 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.filter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.commonjava.maven.atlas.graph.rel.DependencyRelationship;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.graph.rel.RelationshipType;
+import org.commonjava.maven.atlas.ident.DependencyScope;
+import org.commonjava.maven.atlas.ident.ref.ProjectRef;
+
+/**
+ * Compiled form of a {@link ProjectRelationshipFilter} tree. Each distinct filter (by {@link Object#equals(Object)})
+ * reachable from the root via {@link ProjectRelationshipFilter#getChildFilter(ProjectRelationship)} is interned as a
+ * small int state, and the transition (state, {@link RelationshipKind}) -&gt; next state is memoized. Traversals can
+ * then carry an int per path instead of a chain of freshly allocated child filters, and equal filters reached along
+ * different paths collapse into one instance (with its ids computed once).
+ *
+ * Transitions are only shared between relationships of the same kind when every filter in the state's tree is a
+ * {@link KindDrivenFilter} (see {@link #isKindDriven(ProjectRelationshipFilter)}). Otherwise, the child filter is
+ * computed per relationship and only the resulting state is interned.
+ *
+ * Instances are thread-safe.
+ *
+ * @author jdcasey
+ */
+public final class FilterAutomaton
+{
+
+    public static final int NO_STATE = -1;
+
+    private final List<State> states = new CopyOnWriteArrayList<State>();
+
+    private final Map<ProjectRelationshipFilter, Integer> stateIds = new HashMap<ProjectRelationshipFilter, Integer>();
+
+    private final int initialState;
+
+    private FilterAutomaton( final ProjectRelationshipFilter root )
+    {
+        initialState = stateOf( root );
+    }
+
+    public static FilterAutomaton compile( final ProjectRelationshipFilter root )
+    {
+        return new FilterAutomaton( root == null ? AnyFilter.INSTANCE : root );
+    }
+
+    public int getInitialState()
+    {
+        return initialState;
+    }
+
+    /**
+     * Intern the given filter, returning the state that represents it. Equal filters always map to the same state.
+     */
+    public int stateOf( final ProjectRelationshipFilter filter )
+    {
+        synchronized ( stateIds )
+        {
+            Integer id = stateIds.get( filter );
+            if ( id == null )
+            {
+                id = states.size();
+                states.add( new State( filter, isKindDriven( filter ) ) );
+                stateIds.put( filter, id );
+            }
+
+            return id;
+        }
+    }
+
+    /**
+     * Retrieve the canonical filter instance for the given state.
+     */
+    public ProjectRelationshipFilter getFilter( final int state )
+    {
+        return states.get( state ).filter;
+    }
+
+    public boolean accept( final int state, final ProjectRelationship<?, ?> rel )
+    {
+        return states.get( state ).filter.accept( rel );
+    }
+
+    /**
+     * Compute (or look up) the state that applies to relationships following the given one.
+     */
+    public int next( final int state, final ProjectRelationship<?, ?> rel )
+    {
+        final State current = states.get( state );
+        if ( !current.kindDriven )
+        {
+            return childStateOf( state, current, rel );
+        }
+
+        final RelationshipKind kind = new RelationshipKind( rel );
+        Integer next = current.transitions.get( kind );
+        if ( next == null )
+        {
+            next = childStateOf( state, current, rel );
+            current.transitions.putIfAbsent( kind.detach(), next );
+        }
+
+        return next;
+    }
+
+    public int getStateCount()
+    {
+        return states.size();
+    }
+
+    public int getTransitionCount()
+    {
+        int count = 0;
+        for ( final State state : states )
+        {
+            count += state.transitions.size();
+        }
+
+        return count;
+    }
+
+    private int childStateOf( final int state, final State current, final ProjectRelationship<?, ?> rel )
+    {
+        final ProjectRelationshipFilter child = current.filter.getChildFilter( rel );
+        if ( child == current.filter )
+        {
+            return state;
+        }
+
+        return stateOf( child );
+    }
+
+    /**
+     * Determine whether transitions out of this filter can be shared between relationships of the same
+     * {@link RelationshipKind}. Aggregating and excluding filters are inspected recursively.
+     */
+    public static boolean isKindDriven( final ProjectRelationshipFilter filter )
+    {
+        if ( filter instanceof AbstractAggregatingFilter )
+        {
+            for ( final ProjectRelationshipFilter child : ( (AbstractAggregatingFilter) filter ).getFilters() )
+            {
+                if ( !isKindDriven( child ) )
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+        else if ( filter instanceof ExcludingFilter )
+        {
+            return isKindDriven( ( (ExcludingFilter) filter ).getFilter() );
+        }
+
+        return filter instanceof KindDrivenFilter;
+    }
+
+    private static final class State
+    {
+        private final ProjectRelationshipFilter filter;
+
+        private final boolean kindDriven;
+
+        private final ConcurrentMap<RelationshipKind, Integer> transitions =
+            new ConcurrentHashMap<RelationshipKind, Integer>();
+
+        State( final ProjectRelationshipFilter filter, final boolean kindDriven )
+        {
+            this.filter = filter;
+            this.kindDriven = kindDriven;
+        }
+    }
+
+    /**
+     * The parts of a relationship that {@link KindDrivenFilter} implementations may use to select a child filter.
+     * Plugin relationships also carry their target, since plugin-dependency filters are scoped to a single plugin.
+     */
+    public static final class RelationshipKind
+    {
+        private final Class<?> relClass;
+
+        private final RelationshipType type;
+
+        private final boolean managed;
+
+        private final DependencyScope scope;
+
+        private final Set<ProjectRef> excludes;
+
+        private final ProjectRef plugin;
+
+        private final int hashCode;
+
+        RelationshipKind( final ProjectRelationship<?, ?> rel )
+        {
+            this( rel.getClass(), rel.getType(), rel.isManaged(),
+                  rel instanceof DependencyRelationship ? ( (DependencyRelationship) rel ).getScope() : null,
+                  rel instanceof DependencyRelationship ? ( (DependencyRelationship) rel ).getExcludes() : null,
+                  rel.getType() == RelationshipType.PLUGIN ? rel.getTarget()
+                                                                 .asProjectRef() : null );
+        }
+
+        private RelationshipKind( final Class<?> relClass, final RelationshipType type, final boolean managed,
+                                  final DependencyScope scope, final Set<ProjectRef> excludes,
+                                  final ProjectRef plugin )
+        {
+            this.relClass = relClass;
+            this.type = type;
+            this.managed = managed;
+            this.scope = scope;
+            this.excludes = excludes == null || excludes.isEmpty() ? Collections.<ProjectRef> emptySet() : excludes;
+            this.plugin = plugin;
+
+            final int prime = 31;
+            int result = relClass.hashCode();
+            result = prime * result + type.hashCode();
+            result = prime * result + ( managed ? 1231 : 1237 );
+            result = prime * result + ( ( scope == null ) ? 0 : scope.hashCode() );
+            result = prime * result + this.excludes.hashCode();
+            result = prime * result + ( ( plugin == null ) ? 0 : plugin.hashCode() );
+            this.hashCode = result;
+        }
+
+        /**
+         * Copy the exclusions so a key stored in the transition table doesn't share mutable state with the
+         * relationship it was derived from.
+         */
+        RelationshipKind detach()
+        {
+            if ( excludes.isEmpty() )
+            {
+                return this;
+            }
+
+            return new RelationshipKind( relClass, type, managed, scope,
+                                         Collections.unmodifiableSet( new HashSet<ProjectRef>( excludes ) ), plugin );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals( final Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( obj == null || getClass() != obj.getClass() )
+            {
+                return false;
+            }
+
+            final RelationshipKind other = (RelationshipKind) obj;
+            if ( hashCode != other.hashCode || relClass != other.relClass || type != other.type
+                || managed != other.managed || scope != other.scope )
+            {
+                return false;
+            }
+            if ( plugin == null )
+            {
+                if ( other.plugin != null )
+                {
+                    return false;
+                }
+            }
+            else if ( !plugin.equals( other.plugin ) )
+            {
+                return false;
+            }
+
+            return excludes.equals( other.excludes );
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format( "RelationshipKind [type=%s, class=%s, managed=%s, scope=%s, excludes=%s, plugin=%s]",
+                                  type, relClass.getSimpleName(), managed, scope, excludes, plugin );
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.filter;
+
+/**
+ * Marker for filters whose {@link #getChildFilter(org.commonjava.maven.atlas.graph.rel.ProjectRelationship)} result
+ * depends only on the {@link FilterAutomaton.RelationshipKind} of the parent relationship (its implementation class,
+ * type, managed flag and, for dependencies, scope and exclusions), and never on the identity of the declaring or target
+ * project. This includes any filters wrapped by the implementation.
+ *
+ * {@link FilterAutomaton} uses this to share one memoized transition between all relationships of the same kind.
+ * Filters that don't implement it are still supported, but their transitions are computed for every relationship.
+ *
+ * @author jdcasey
+ */
+public interface KindDrivenFilter
+    extends ProjectRelationshipFilter
+{
+
+}
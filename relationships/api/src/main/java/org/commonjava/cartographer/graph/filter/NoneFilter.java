@@ -23,7 +23,7 @@ import org.commonjava.maven.atlas.graph.rel.RelationshipType;
 import org.commonjava.maven.atlas.ident.ref.ProjectRef;
 
 public class NoneFilter
-    implements ProjectRelationshipFilter
+    implements KindDrivenFilter
 {
 
     /**
@@ -21,6 +21,7 @@ import org.commonjava.maven.atlas.graph.rel.RelationshipType;
 
 public class ParentFilter
     extends AbstractTypedFilter
+    implements KindDrivenFilter
 {
 
     /**
@@ -25,6 +25,7 @@ import org.commonjava.maven.atlas.ident.ref.ProjectRef;
 // TODO: Do we need to consider excludes in the direct plugin-level dependency?
 public class PluginDependencyFilter
     extends AbstractTypedFilter
+    implements KindDrivenFilter
 {
 
     /**
@@ -23,6 +23,7 @@ import org.commonjava.maven.atlas.ident.ref.ProjectRef;
 
 public class PluginDependencyOnlyFilter
     extends AbstractTypedFilter
+    implements KindDrivenFilter
 {
 
     /**
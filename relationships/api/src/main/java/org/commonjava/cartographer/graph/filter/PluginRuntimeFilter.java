@@ -26,7 +26,7 @@ import org.commonjava.maven.atlas.ident.DependencyScope;
 import org.commonjava.maven.atlas.ident.ref.ProjectRef;
 
 public class PluginRuntimeFilter
-    implements ProjectRelationshipFilter
+    implements KindDrivenFilter
 {
 
     /**
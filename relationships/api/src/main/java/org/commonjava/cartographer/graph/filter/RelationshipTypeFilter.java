@@ -23,6 +23,7 @@ import org.commonjava.maven.atlas.graph.rel.RelationshipType;
 
 public class RelationshipTypeFilter
     extends AbstractTypedFilter
+    implements KindDrivenFilter
 {
 
     private static final long serialVersionUID = 1L;
@@ -27,6 +27,7 @@ import org.commonjava.maven.atlas.graph.rel.RelationshipType;
 
 public final class StructuralRelationshipsFilter
     extends AbstractTypedFilter
+    implements KindDrivenFilter
 {
 
     private static final Collection<RelationshipType> TYPES =
@@ -18,6 +18,7 @@ package org.commonjava.cartographer.graph.model;
 import java.io.Serializable;
 
 import org.commonjava.cartographer.graph.ViewParams;
+import org.commonjava.cartographer.graph.filter.FilterAutomaton;
 import org.commonjava.cartographer.graph.filter.ProjectRelationshipFilter;
 import org.commonjava.cartographer.graph.mutate.GraphMutator;
 import org.commonjava.cartographer.graph.mutate.VersionManagerMutator;
@@ -38,11 +39,17 @@ public final class GraphPathInfo
 
     private transient ViewParams params;
 
+    private transient int filterState = FilterAutomaton.NO_STATE;
+
+    private transient GraphPathInfoInterner interner;
+
     public GraphPathInfo( final RelationshipGraphConnection connection, final ViewParams params )
     {
         this.connection = connection;
         this.params = params;
-        filter = params.getFilter();
+        final FilterAutomaton automaton = params.getFilterAutomaton();
+        filterState = automaton.getInitialState();
+        filter = automaton.getFilter( filterState );
         mutator = params.getMutator() == null ? new VersionManagerMutator() : params.getMutator();
     }
 
@@ -55,6 +62,21 @@ public final class GraphPathInfo
         this.mutator = mutator;
     }
 
+    private GraphPathInfo( final int filterState, final ProjectRelationshipFilter filter, final GraphMutator mutator,
+                           final RelationshipGraphConnection connection, final ViewParams params )
+    {
+        this( filter, mutator, connection, params );
+        this.filterState = filterState;
+    }
+
+    GraphPathInfo( final GraphPathInfoInterner interner, final int filterState,
+                   final ProjectRelationshipFilter filter, final GraphMutator mutator,
+                   final RelationshipGraphConnection connection, final ViewParams params )
+    {
+        this( filterState, filter, mutator, connection, params );
+        this.interner = interner;
+    }
+
     public ProjectRelationshipFilter getFilter()
     {
         return filter;
@@ -82,14 +104,52 @@ public final class GraphPathInfo
 
     public GraphPathInfo getChildPathInfo( final ProjectRelationship<?, ?> rel )
     {
-        final ProjectRelationshipFilter nextFilter = filter == null ? null : filter.getChildFilter( rel );
+        int nextState = FilterAutomaton.NO_STATE;
+        final ProjectRelationshipFilter nextFilter;
+        if ( filter == null )
+        {
+            nextFilter = null;
+        }
+        else if ( params == null )
+        {
+            // detached (deserialized) instance; we have no automaton to consult.
+            nextFilter = filter.getChildFilter( rel );
+        }
+        else
+        {
+            final FilterAutomaton automaton = params.getFilterAutomaton();
+            if ( filterState == FilterAutomaton.NO_STATE )
+            {
+                filterState = automaton.stateOf( filter );
+            }
+
+            nextState = automaton.next( filterState, rel );
+            nextFilter = automaton.getFilter( nextState );
+        }
+
         final GraphMutator nextMutator = mutator == null ? null : mutator.getMutatorFor( rel, connection, params );
-        if ( nextFilter == filter && nextMutator == mutator )
+        final boolean sameFilter =
+            nextFilter == filter || ( nextState != FilterAutomaton.NO_STATE && nextState == filterState );
+        if ( sameFilter && nextMutator == mutator )
         {
             return this;
         }
 
-        return new GraphPathInfo( nextFilter, nextMutator, connection, params );
+        if ( interner != null )
+        {
+            return interner.intern( nextState, nextFilter, nextMutator );
+        }
+
+        return new GraphPathInfo( nextState, nextFilter, nextMutator, connection, params );
+    }
+
+    /**
+     * Retrieve the {@link FilterAutomaton} state for this path's filter, or {@link FilterAutomaton#NO_STATE} if it
+     * hasn't been resolved against the view yet.
+     */
+    public int getFilterState()
+    {
+        return filterState;
     }
 
     @Override
@@ -153,6 +213,8 @@ public final class GraphPathInfo
     {
         this.connection = connection;
         this.params = params;
+        this.filterState = FilterAutomaton.NO_STATE;
+        this.interner = null;
     }
 
     @Override
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.commonjava.cartographer.graph.ViewParams;
+import org.commonjava.cartographer.graph.filter.FilterAutomaton;
+import org.commonjava.cartographer.graph.filter.ProjectRelationshipFilter;
+import org.commonjava.cartographer.graph.mutate.GraphMutator;
+import org.commonjava.cartographer.graph.spi.RelationshipGraphConnection;
+
+/**
+ * Hash-conses {@link GraphPathInfo} instances for one connection and view. Each distinct (filter state, mutator) pair
+ * maps to exactly one instance, so deep traversals reuse a handful of path-info objects instead of allocating one per
+ * path. Path info created from {@link #getRootPathInfo()} keeps a reference to this interner, and its
+ * {@link GraphPathInfo#getChildPathInfo(org.commonjava.maven.atlas.graph.rel.ProjectRelationship)} results are interned
+ * as well.
+ *
+ * Filter states come from the view's {@link FilterAutomaton}; mutators are interned by
+ * {@link Object#equals(Object)}.
+ *
+ * @author jdcasey
+ */
+public final class GraphPathInfoInterner
+{
+
+    private final RelationshipGraphConnection connection;
+
+    private final ViewParams params;
+
+    private final FilterAutomaton automaton;
+
+    private final Map<GraphMutator, Integer> mutatorIds = new HashMap<GraphMutator, Integer>();
+
+    private final ConcurrentMap<Long, GraphPathInfo> infos = new ConcurrentHashMap<Long, GraphPathInfo>();
+
+    private final GraphPathInfo root;
+
+    public GraphPathInfoInterner( final RelationshipGraphConnection connection, final ViewParams params )
+    {
+        this.connection = connection;
+        this.params = params;
+        this.automaton = params.getFilterAutomaton();
+
+        final GraphPathInfo info = new GraphPathInfo( connection, params );
+        this.root = intern( info.getFilterState(), info.getFilter(), info.getMutator() );
+    }
+
+    public GraphPathInfo getRootPathInfo()
+    {
+        return root;
+    }
+
+    /**
+     * Retrieve the canonical instance for the given path info, which may have been created outside this interner.
+     */
+    public GraphPathInfo intern( final GraphPathInfo info )
+    {
+        if ( info == null )
+        {
+            return null;
+        }
+
+        int state = info.getFilterState();
+        if ( state == FilterAutomaton.NO_STATE && info.getFilter() != null )
+        {
+            state = automaton.stateOf( info.getFilter() );
+        }
+
+        return intern( state, info.getFilter(), info.getMutator() );
+    }
+
+    GraphPathInfo intern( final int filterState, final ProjectRelationshipFilter filter, final GraphMutator mutator )
+    {
+        final Long key = ( (long) filterState << 32 ) | ( mutatorId( mutator ) & 0xFFFFFFFFL );
+        GraphPathInfo info = infos.get( key );
+        if ( info == null )
+        {
+            final ProjectRelationshipFilter canonical =
+                filterState == FilterAutomaton.NO_STATE ? filter : automaton.getFilter( filterState );
+
+            info = new GraphPathInfo( this, filterState, canonical, mutator, connection, params );
+            final GraphPathInfo existing = infos.putIfAbsent( key, info );
+            if ( existing != null )
+            {
+                info = existing;
+            }
+        }
+
+        return info;
+    }
+
+    public int size()
+    {
+        return infos.size();
+    }
+
+    public RelationshipGraphConnection getConnection()
+    {
+        return connection;
+    }
+
+    public ViewParams getParams()
+    {
+        return params;
+    }
+
+    private int mutatorId( final GraphMutator mutator )
+    {
+        if ( mutator == null )
+        {
+            return -1;
+        }
+
+        synchronized ( mutatorIds )
+        {
+            Integer id = mutatorIds.get( mutator );
+            if ( id == null )
+            {
+                id = mutatorIds.size();
+                mutatorIds.put( mutator, id );
+            }
+
+            return id;
+        }
+    }
+
+}
@@ -15,13 +15,28 @@
  */
 package org.commonjava.cartographer.graph.mutate;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.commonjava.cartographer.graph.ViewParams;
 import org.commonjava.cartographer.graph.model.GraphPath;
 import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
 import org.commonjava.maven.atlas.graph.rel.RelationshipType;
 import org.commonjava.cartographer.graph.spi.RelationshipGraphConnection;
+import org.commonjava.maven.atlas.ident.ref.ProjectRef;
 import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
 
+/**
+ * Selects managed dependency versions declared by projects along the current path, with declarations closer to the
+ * root taking precedence.
+ * 
+ * Child instances created via {@link #getMutatorFor(ProjectRelationship, RelationshipGraphConnection, ViewParams)}
+ * carry an immutable GA -&gt; version overlay of everything managed along the path so far, inherited from the parent
+ * instance and extended with the managed dependencies of each declaring project. Looking up a managed version is then
+ * a single map probe, regardless of path depth. The shared {@link #INSTANCE} has no overlay and falls back to
+ * {@link RelationshipGraphConnection#getManagedTargetFor(ProjectVersionRef, GraphPath, RelationshipType)}.
+ */
 public class ManagedDependencyMutator
         extends VersionManagerMutator
         implements GraphMutator
@@ -31,11 +46,27 @@ public class ManagedDependencyMutator
 
     private static final long serialVersionUID = 1L;
 
+    private static final ManagedDependencyMutator NOTHING_MANAGED =
+        new ManagedDependencyMutator( Collections.<ProjectRef, ProjectVersionRef> emptyMap() );
+
+    private final transient Map<ProjectRef, ProjectVersionRef> managed;
+
+    private final transient int overlayHashCode;
+
+    private transient volatile ChildMutator lastChild;
+
     /**
      * Hidden constructor.
      */
     private ManagedDependencyMutator()
     {
+        this( null );
+    }
+
+    private ManagedDependencyMutator( final Map<ProjectRef, ProjectVersionRef> managed )
+    {
+        this.managed = managed;
+        this.overlayHashCode = managed == null ? 0 : managed.hashCode();
     }
 
     @Override
@@ -51,14 +82,144 @@ public class ManagedDependencyMutator
         ProjectRelationship<?, ?> mutated = super.selectFor( rel, path, connection, params );
         if ( mutated == null || mutated == rel )
         {
-            final ProjectVersionRef managed =
-                    connection.getManagedTargetFor( rel.getTarget(), path, RelationshipType.DEPENDENCY );
+            final ProjectVersionRef managedTarget;
             if ( managed != null )
             {
-                mutated = rel.selectTarget( managed );
+                managedTarget = path == null ? null : managed.get( rel.getTarget()
+                                                                      .asProjectRef() );
+            }
+            else
+            {
+                managedTarget = connection.getManagedTargetFor( rel.getTarget(), path, RelationshipType.DEPENDENCY );
+            }
+
+            if ( managedTarget != null )
+            {
+                mutated = rel.selectTarget( managedTarget );
             }
         }
 
         return mutated == null ? rel : mutated;
     }
+
+    @Override
+    public GraphMutator getMutatorFor( final ProjectRelationship<?, ?> rel, final RelationshipGraphConnection connection,
+                                       final ViewParams params )
+    {
+        if ( connection == null )
+        {
+            return this;
+        }
+
+        final ProjectVersionRef declaring = rel.getDeclaring();
+        final String workspaceId = connection.getWorkspaceId();
+        final long stamp = connection.getModificationStamp();
+
+        // siblings share a declaring project, so they can share the extended overlay too. This instance may be shared
+        // between workspaces (INSTANCE is the default mutator), and the graph may gain managed dependencies later, so
+        // the cached overlay only applies to the same workspace at the same modification stamp.
+        final ChildMutator last = lastChild;
+        if ( last != null && last.matches( declaring, workspaceId, stamp ) )
+        {
+            return last.mutator;
+        }
+
+        final ManagedDependencyMutator child =
+            extend( connection.getManagedTargets( declaring, RelationshipType.DEPENDENCY ) );
+        lastChild = new ChildMutator( declaring, workspaceId, stamp, child );
+
+        return child;
+    }
+
+    /**
+     * Retrieve the managed versions accumulated along the path, or null if this instance doesn't track them.
+     */
+    public Map<ProjectRef, ProjectVersionRef> getManagedVersions()
+    {
+        return managed;
+    }
+
+    private ManagedDependencyMutator extend( final Map<ProjectRef, ProjectVersionRef> declared )
+    {
+        if ( declared == null || declared.isEmpty() )
+        {
+            return managed == null ? NOTHING_MANAGED : this;
+        }
+
+        if ( managed != null && managed.keySet()
+                                       .containsAll( declared.keySet() ) )
+        {
+            // everything declared here is already managed closer to the root.
+            return this;
+        }
+
+        final Map<ProjectRef, ProjectVersionRef> overlay = new HashMap<ProjectRef, ProjectVersionRef>( declared );
+        if ( managed != null )
+        {
+            overlay.putAll( managed );
+        }
+
+        return new ManagedDependencyMutator( Collections.unmodifiableMap( overlay ) );
+    }
+
+    /**
+     * Overlay instances hash and compare by their managed versions, so interned path info doesn't conflate different
+     * management contexts. Ids are left alone on purpose, since traversal seen-tracking keys on them.
+     */
+    @Override
+    public int hashCode()
+    {
+        return super.hashCode() + 31 * overlayHashCode + ( managed == null ? 0 : 1 );
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        if ( !super.equals( obj ) )
+        {
+            return false;
+        }
+
+        final ManagedDependencyMutator other = (ManagedDependencyMutator) obj;
+        if ( managed == null )
+        {
+            return other.managed == null;
+        }
+
+        return other.managed != null && overlayHashCode == other.overlayHashCode && managed.equals( other.managed );
+    }
+
+    /**
+     * The overlay isn't serialized, so deserialized instances fall back to path-based lookups.
+     */
+    private Object readResolve()
+    {
+        return INSTANCE;
+    }
+
+    private static final class ChildMutator
+    {
+        private final ProjectVersionRef declaring;
+
+        private final String workspaceId;
+
+        private final long stamp;
+
+        private final ManagedDependencyMutator mutator;
+
+        ChildMutator( final ProjectVersionRef declaring, final String workspaceId, final long stamp,
+                      final ManagedDependencyMutator mutator )
+        {
+            this.declaring = declaring;
+            this.workspaceId = workspaceId;
+            this.stamp = stamp;
+            this.mutator = mutator;
+        }
+
+        boolean matches( final ProjectVersionRef declaring, final String workspaceId, final long stamp )
+        {
+            return this.stamp == stamp && this.declaring.equals( declaring )
+                && ( this.workspaceId == null ? workspaceId == null : this.workspaceId.equals( workspaceId ) );
+        }
+    }
 }
@@ -0,0 +1,40 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.spi;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JVM-wide sequence backing {@link RelationshipGraphConnection#getModificationStamp()}. Since every connection draws
+ * from the same sequence, a stamp is never handed out twice, even across connections to the same workspace.
+ *
+ * @author jdcasey
+ */
+public final class ModificationStamps
+{
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private ModificationStamps()
+    {
+    }
+
+    public static long next()
+    {
+        return SEQUENCE.incrementAndGet();
+    }
+
+}
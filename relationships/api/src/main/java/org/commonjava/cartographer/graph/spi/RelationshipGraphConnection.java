@@ -20,6 +20,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import org.commonjava.cartographer.graph.RelationshipGraph;
 import org.commonjava.cartographer.graph.ViewParams;
@@ -55,6 +56,13 @@ public interface RelationshipGraphConnection
     void setMetadata( ProjectVersionRef ref, Map<String, String> metadata )
         throws RelationshipGraphConnectionException;
 
+    /**
+     * Batch form of {@link #setMetadata(ProjectVersionRef, Map)}, applied as a single write where the driver supports
+     * it. Projects not in the graph are skipped.
+     */
+    void setMetadata( Map<ProjectVersionRef, Map<String, String>> metadata )
+        throws RelationshipGraphConnectionException;
+
     void deleteRelationshipsDeclaredBy( ProjectVersionRef root )
         throws RelationshipGraphConnectionException;
 
@@ -95,10 +103,33 @@ public interface RelationshipGraphConnection
 
     Collection<? extends ProjectRelationship<?, ?>> getRelationshipsTargeting( ViewParams params, ProjectVersionRef root );
 
+    /**
+     * Reverse-adjacency lookup by GA: retrieve the relationships targeting any version of the given project, with the
+     * view's selections applied (so a relationship re-targeted by a selection is returned with its selected target).
+     * Implementations should answer this from an index, in time proportional to the result.
+     */
+    Collection<? extends ProjectRelationship<?, ?>> getRelationshipsTargetingGA( ViewParams params, ProjectRef ga );
+
     Collection<ProjectRelationship<?, ?>> getAllRelationships( ViewParams params );
 
+    /**
+     * Lazy form of {@link #getAllRelationships(ViewParams)}. Relationships are read from storage and converted as the
+     * stream is consumed, so callers can process very large graphs without holding the converted relationships in
+     * memory. Drivers that keep the graph in memory may take a snapshot of the edge references up front, so the stream
+     * isn't broken by concurrent additions. The stream should be closed when the caller is finished with it, to
+     * release storage resources.
+     */
+    Stream<ProjectRelationship<?, ?>> streamAllRelationships( ViewParams params );
+
     Set<List<ProjectRelationship<?, ?>>> getAllPathsTo( ViewParams params, ProjectVersionRef... projectVersionRefs );
 
+    /**
+     * Stream form of {@link #getAllPathsTo(ViewParams, ProjectVersionRef...)}. Finding the paths takes a full traversal
+     * from the roots, which completes before this returns, so the paths themselves are held in memory (as compactly as
+     * the driver can manage). Only converting them into relationship lists is deferred until the stream is consumed.
+     */
+    Stream<List<ProjectRelationship<?, ?>>> streamPathsTo( ViewParams params, ProjectVersionRef... projectVersionRefs );
+
     boolean introducesCycle( ViewParams params, ProjectRelationship<?, ?> rel );
 
     Set<ProjectVersionRef> getAllProjects( ViewParams params );
@@ -135,6 +166,11 @@ public interface RelationshipGraphConnection
 
     Set<ProjectVersionRef> getProjectsWithMetadata( ViewParams params, String key );
 
+    /**
+     * Select the projects whose metadata has the given value for the key.
+     */
+    Set<ProjectVersionRef> getProjectsWithMetadata( ViewParams params, String key, String value );
+
     @Deprecated
     Set<ProjectRelationship<?, ?>> getDirectRelationshipsFrom( ViewParams params, ProjectVersionRef from,
                                                             boolean includeManagedInfo, RelationshipType... types );
@@ -157,6 +193,14 @@ public interface RelationshipGraphConnection
 
     ProjectVersionRef getManagedTargetFor( ProjectVersionRef target, GraphPath<?> path, RelationshipType type );
 
+    /**
+     * Retrieve the managed (dependencyManagement-style) targets declared directly by the given project for the given
+     * relationship type, keyed by target GA. If a GA is managed more than once, the first declaration wins.
+     * 
+     * @return NEVER null, but may be empty.
+     */
+    Map<ProjectRef, ProjectVersionRef> getManagedTargets( ProjectVersionRef declaring, RelationshipType type );
+
     GraphPath<?> createPath( ProjectRelationship<?, ?>... relationships );
 
     GraphPath<?> createPath( GraphPath<?> parent, ProjectRelationship<?, ?> relationship );
@@ -177,4 +221,11 @@ public interface RelationshipGraphConnection
 
     String getWorkspaceId();
 
+    /**
+     * Stamp that changes whenever this connection modifies the graph: relationships, metadata, cycles, errors, indexes
+     * or view selections. Stamps are drawn from {@link ModificationStamps}, so a new connection starts with a stamp
+     * that no earlier connection has used.
+     */
+    long getModificationStamp();
+
 }
@@ -29,6 +29,12 @@ public class AncestryTraversal
         super( ParentFilter.EXCLUDE_TERMINAL_PARENTS, true );
     }
 
+    @Override
+    public AncestryTraversal fork()
+    {
+        return new AncestryTraversal();
+    }
+
     public List<ProjectVersionRef> getAncestry()
     {
         return getCapturedProjects( true );
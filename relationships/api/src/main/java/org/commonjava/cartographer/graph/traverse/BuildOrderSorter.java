@@ -0,0 +1,302 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.traverse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.commonjava.maven.atlas.graph.model.EProjectCycle;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.ident.ref.ProjectRef;
+
+/**
+ * Computes a build order over GA-collapsed projects, using Tarjan's strongly-connected-components algorithm. Tarjan
+ * emits components in reverse topological order of the declaring -&gt; target edges, which is exactly build order:
+ * every project comes after the projects it references. Projects in the same component (a cycle once versions are
+ * collapsed) are emitted together, in the order they were first seen, and the component is reported as a cycle.
+ * 
+ * Sorting is O(V + E). Nodes are visited and edges followed in the order they were added, so results are
+ * deterministic.
+ * 
+ * @author jdcasey
+ */
+final class BuildOrderSorter
+{
+
+    private final Map<ProjectRef, Integer> ids = new HashMap<ProjectRef, Integer>();
+
+    private final List<ProjectRef> nodes = new ArrayList<ProjectRef>();
+
+    private final List<List<Integer>> targets = new ArrayList<List<Integer>>();
+
+    // first relationship seen for each edge, used to describe cycles.
+    private final Map<Long, ProjectRelationship<?, ?>> edgeRels = new HashMap<Long, ProjectRelationship<?, ?>>();
+
+    // edges in the order they were added, so they can be replayed into another sorter.
+    private final List<int[]> edgeOrder = new ArrayList<int[]>();
+
+    private List<ProjectRef> order;
+
+    private Set<EProjectCycle> cycles;
+
+    /**
+     * Record that declaring depends on target, so target has to be built first. Self-references (eg. a project using
+     * another version of itself) are ignored.
+     * 
+     * @return true if the edge was new
+     */
+    boolean addEdge( final ProjectRef declaring, final ProjectRef target, final ProjectRelationship<?, ?> rel )
+    {
+        final int from = idOf( declaring );
+        final int to = idOf( target );
+        if ( from == to )
+        {
+            return false;
+        }
+
+        final long key = edgeKey( from, to );
+        if ( edgeRels.containsKey( key ) )
+        {
+            return false;
+        }
+
+        edgeRels.put( key, rel );
+        edgeOrder.add( new int[] { from, to } );
+        targets.get( from )
+               .add( to );
+
+        order = null;
+        cycles = null;
+        return true;
+    }
+
+    /**
+     * Replay the edges of the other sorter into this one, in the order they were added there.
+     */
+    void addAll( final BuildOrderSorter other )
+    {
+        for ( final int[] edge : other.edgeOrder )
+        {
+            final int from = edge[0];
+            final int to = edge[1];
+            addEdge( other.nodes.get( from ), other.nodes.get( to ), other.edgeRels.get( edgeKey( from, to ) ) );
+        }
+    }
+
+    int getProjectCount()
+    {
+        return nodes.size();
+    }
+
+    List<ProjectRef> getOrder()
+    {
+        sort();
+        return order;
+    }
+
+    /**
+     * Retrieve the cycles among GA-collapsed projects: one per strongly connected component with more than one
+     * project.
+     */
+    Set<EProjectCycle> getCycles()
+    {
+        sort();
+        return cycles;
+    }
+
+    private int idOf( final ProjectRef ref )
+    {
+        Integer id = ids.get( ref );
+        if ( id == null )
+        {
+            id = nodes.size();
+            ids.put( ref, id );
+            nodes.add( ref );
+            targets.add( new ArrayList<Integer>( 4 ) );
+        }
+
+        return id;
+    }
+
+    private static long edgeKey( final int from, final int to )
+    {
+        return ( (long) from << 32 ) | ( to & 0xFFFFFFFFL );
+    }
+
+    private void sort()
+    {
+        if ( order != null )
+        {
+            return;
+        }
+
+        final int size = nodes.size();
+        final List<ProjectRef> result = new ArrayList<ProjectRef>( size );
+        final Set<EProjectCycle> foundCycles = new LinkedHashSet<EProjectCycle>();
+
+        final int[] index = new int[size];
+        final int[] low = new int[size];
+        final boolean[] onStack = new boolean[size];
+        Arrays.fill( index, -1 );
+
+        final int[] stack = new int[size];
+        int stackTop = 0;
+
+        // explicit call stack of (node, next-edge) pairs, so deep graphs don't overflow the thread stack.
+        final int[] callNode = new int[size];
+        final int[] callEdge = new int[size];
+
+        int counter = 0;
+        for ( int start = 0; start < size; start++ )
+        {
+            if ( index[start] > -1 )
+            {
+                continue;
+            }
+
+            int depth = 0;
+            callNode[0] = start;
+            callEdge[0] = 0;
+            index[start] = low[start] = counter++;
+            stack[stackTop++] = start;
+            onStack[start] = true;
+
+            while ( depth > -1 )
+            {
+                final int v = callNode[depth];
+                final List<Integer> out = targets.get( v );
+                if ( callEdge[depth] < out.size() )
+                {
+                    final int w = out.get( callEdge[depth]++ );
+                    if ( index[w] < 0 )
+                    {
+                        index[w] = low[w] = counter++;
+                        stack[stackTop++] = w;
+                        onStack[w] = true;
+
+                        depth++;
+                        callNode[depth] = w;
+                        callEdge[depth] = 0;
+                    }
+                    else if ( onStack[w] && index[w] < low[v] )
+                    {
+                        low[v] = index[w];
+                    }
+
+                    continue;
+                }
+
+                if ( low[v] == index[v] )
+                {
+                    final List<Integer> component = new ArrayList<Integer>();
+                    int w;
+                    do
+                    {
+                        w = stack[--stackTop];
+                        onStack[w] = false;
+                        component.add( w );
+                    }
+                    while ( w != v );
+
+                    if ( component.size() > 1 )
+                    {
+                        Collections.sort( component );
+                        foundCycles.add( describeCycle( component ) );
+                    }
+
+                    for ( final int member : component )
+                    {
+                        result.add( nodes.get( member ) );
+                    }
+                }
+
+                depth--;
+                if ( depth > -1 )
+                {
+                    final int parent = callNode[depth];
+                    if ( low[v] < low[parent] )
+                    {
+                        low[parent] = low[v];
+                    }
+                }
+            }
+        }
+
+        order = result;
+        cycles = foundCycles;
+    }
+
+    /**
+     * Find one concrete cycle through the first member of the component (breadth-first, staying inside it), and
+     * describe it using the relationships that introduced its edges.
+     */
+    private EProjectCycle describeCycle( final List<Integer> component )
+    {
+        final Set<Integer> members = new LinkedHashSet<Integer>( component );
+        final int start = component.get( 0 );
+
+        final Map<Integer, Integer> parents = new HashMap<Integer, Integer>();
+        final Deque<Integer> queue = new ArrayDeque<Integer>();
+        queue.add( start );
+
+        int last = -1;
+        search: while ( !queue.isEmpty() )
+        {
+            final int v = queue.removeFirst();
+            for ( final int w : targets.get( v ) )
+            {
+                if ( w == start )
+                {
+                    last = v;
+                    break search;
+                }
+
+                if ( members.contains( w ) && !parents.containsKey( w ) )
+                {
+                    parents.put( w, v );
+                    queue.addLast( w );
+                }
+            }
+        }
+
+        final List<ProjectRelationship<?, ?>> rels = new ArrayList<ProjectRelationship<?, ?>>();
+        int to = start;
+        int from = last;
+        while ( true )
+        {
+            rels.add( edgeRels.get( edgeKey( from, to ) ) );
+            if ( from == start )
+            {
+                break;
+            }
+
+            to = from;
+            from = parents.get( from );
+        }
+
+        Collections.reverse( rels );
+        return new EProjectCycle( rels );
+    }
+
+}
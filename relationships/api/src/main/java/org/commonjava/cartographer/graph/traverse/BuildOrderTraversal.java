@@ -33,9 +33,10 @@ import org.commonjava.maven.atlas.ident.ref.*;
 
 public class BuildOrderTraversal
     extends AbstractFilteringTraversal
+    implements ForkableTraversal
 {
 
-    private final List<ProjectRef> order = new ArrayList<ProjectRef>();
+    private final BuildOrderSorter sorter = new BuildOrderSorter();
 
     private Set<EProjectCycle> cycles;
 
@@ -55,9 +56,54 @@ public class BuildOrderTraversal
         this.allowedProjects = allowedProjects;
     }
 
+    private BuildOrderTraversal( final ProjectRelationshipFilter rootFilter, final Set<ProjectVersionRef> allowedProjects )
+    {
+        super( rootFilter );
+        this.allowedProjects = allowedProjects;
+    }
+
+    /**
+     * Sort the GA-collapsed projects seen so far so that each comes after everything it references. Besides the
+     * graph's own cycles, this reports cycles that only appear once versions are collapsed.
+     */
     public BuildOrder getBuildOrder()
     {
-        return new BuildOrder( order, cycles );
+        final List<ProjectRef> order = new ArrayList<ProjectRef>( sorter.getOrder() );
+
+        Set<EProjectCycle> allCycles = cycles;
+        final Set<EProjectCycle> gaCycles = sorter.getCycles();
+        if ( !gaCycles.isEmpty() )
+        {
+            allCycles = cycles == null ? new HashSet<EProjectCycle>() : new HashSet<EProjectCycle>( cycles );
+
+            final Set<Set<ProjectRef>> known = new HashSet<Set<ProjectRef>>();
+            for ( final EProjectCycle cycle : allCycles )
+            {
+                known.add( toGAs( cycle ) );
+            }
+
+            for ( final EProjectCycle cycle : gaCycles )
+            {
+                if ( known.add( toGAs( cycle ) ) )
+                {
+                    allCycles.add( cycle );
+                }
+            }
+        }
+
+        return new BuildOrder( order, allCycles );
+    }
+
+    private Set<ProjectRef> toGAs( final EProjectCycle cycle )
+    {
+        final Set<ProjectRef> gas = new HashSet<ProjectRef>();
+        for ( final ProjectRelationship<?, ?> rel : cycle )
+        {
+            gas.add( rel.getDeclaring()
+                        .asProjectRef() );
+        }
+
+        return gas;
     }
 
     @Override
@@ -80,20 +126,34 @@ public class BuildOrderTraversal
         final ProjectRef baseDecl = new SimpleProjectRef( decl.getGroupId(), decl.getArtifactId() );
         final ProjectRef baseTgt = new SimpleProjectRef( target.getGroupId(), target.getArtifactId() );
 
-        int declIdx = order.indexOf( baseDecl );
-        final int tgtIdx = order.indexOf( baseTgt );
-        if ( declIdx < 0 )
-        {
-            declIdx = order.size();
-            order.add( baseDecl );
-        }
+        sorter.addEdge( baseDecl, baseTgt, relationship );
+
+        return true;
+    }
+
+    @Override
+    public BuildOrderTraversal fork()
+    {
+        return new BuildOrderTraversal( getRootFilter(), allowedProjects );
+    }
 
-        if ( tgtIdx < 0 )
+    @Override
+    public void join( final ForkableTraversal other )
+    {
+        final BuildOrderTraversal o = (BuildOrderTraversal) other;
+        sorter.addAll( o.sorter );
+
+        if ( o.cycles != null )
         {
-            order.add( declIdx, baseTgt );
+            if ( cycles == null )
+            {
+                cycles = new HashSet<EProjectCycle>( o.cycles );
+            }
+            else
+            {
+                cycles.addAll( o.cycles );
+            }
         }
-
-        return true;
     }
 
     private boolean verifyProjectsAllowed( final ProjectRelationship<?, ?> relationship,
@@ -24,6 +24,7 @@ import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
 
 public class FilteringTraversal
     extends AbstractFilteringTraversal
+    implements ForkableTraversal
 {
 
     private final List<ProjectRelationship<?, ?>> captured = new ArrayList<ProjectRelationship<?, ?>>();
@@ -69,6 +70,18 @@ public class FilteringTraversal
         return refs;
     }
 
+    @Override
+    public FilteringTraversal fork()
+    {
+        return new FilteringTraversal( getRootFilter(), doCapture );
+    }
+
+    @Override
+    public void join( final ForkableTraversal other )
+    {
+        captured.addAll( ( (FilteringTraversal) other ).captured );
+    }
+
     @Override
     protected boolean shouldTraverseEdge( final ProjectRelationship<?, ?> relationship,
                                           final List<ProjectRelationship<?, ?>> path )
@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.traverse;
+
+/**
+ * {@link RelationshipGraphTraversal} that can be split across several roots and traversed concurrently. Each root gets
+ * its own {@link #fork()}, which is traversed on its own thread, and the forks are then merged back into the original
+ * via {@link #join(ForkableTraversal)}, in root order.
+ * 
+ * Forks must not share mutable state with the instance they came from. Since each fork starts empty, it can't prune
+ * based on what another root's fork has already visited; the joined result is the union of the per-root results, and
+ * may hold more than traversing the roots one after another with a single instance would collect.
+ * 
+ * @see org.commonjava.cartographer.graph.RelationshipGraph#traverseInParallel(ForkableTraversal, TraversalType,
+ *      java.util.concurrent.ExecutorService)
+ * 
+ * @author jdcasey
+ */
+public interface ForkableTraversal
+    extends RelationshipGraphTraversal
+{
+
+    /**
+     * Create an empty traversal with the same configuration as this one.
+     */
+    ForkableTraversal fork();
+
+    /**
+     * Merge the results of the given traversal (normally a fork of this one, which has finished) into this one.
+     */
+    void join( ForkableTraversal other );
+
+}
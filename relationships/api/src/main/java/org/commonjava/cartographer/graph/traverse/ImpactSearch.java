@@ -0,0 +1,246 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.traverse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.commonjava.cartographer.graph.ViewParams;
+import org.commonjava.cartographer.graph.spi.RelationshipGraphConnection;
+import org.commonjava.maven.atlas.graph.rel.ParentRelationship;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.ident.ref.ProjectRef;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+
+/**
+ * Answers "what is affected if these projects change" by walking backward from the changed projects over the
+ * connection's reverse-adjacency index ({@link RelationshipGraphConnection#getRelationshipsTargetingGA(ViewParams,
+ * ProjectRef)}). The work is proportional to the affected part of the graph rather than to everything reachable from
+ * the roots. {@link ImpactTraversal} uses it to confine its walk from the roots to the projects that can reach its
+ * targets.
+ *
+ * The view's source, pom-location and version selections are respected. Its filter and mutator are not, since they
+ * depend on the path from a root, which a backward walk doesn't have. Results may therefore include dependents that a
+ * filtered traversal would have skipped.
+ *
+ * Index lookups are cached per GA, so one instance can answer many queries against the same view cheaply. Instances are
+ * not thread-safe.
+ *
+ * @author jdcasey
+ */
+public final class ImpactSearch
+{
+
+    private final RelationshipGraphConnection connection;
+
+    private final ViewParams params;
+
+    private final boolean includeManagedInfo;
+
+    private final Map<ProjectRef, Map<ProjectVersionRef, List<ProjectRelationship<?, ?>>>> targetingByGA =
+        new HashMap<ProjectRef, Map<ProjectVersionRef, List<ProjectRelationship<?, ?>>>>();
+
+    public ImpactSearch( final RelationshipGraphConnection connection, final ViewParams params,
+                         final boolean includeManagedInfo )
+    {
+        this.connection = connection;
+        this.params = params;
+        this.includeManagedInfo = includeManagedInfo;
+    }
+
+    /**
+     * Find every relationship through which a change to the given project propagates, i.e. the subgraph above it.
+     */
+    public Set<ProjectRelationship<?, ?>> findImpactingRelationships( final ProjectVersionRef target )
+    {
+        final Set<ProjectRelationship<?, ?>> result = new HashSet<ProjectRelationship<?, ?>>();
+
+        final Set<ProjectVersionRef> seen = new HashSet<ProjectVersionRef>();
+        final Deque<ProjectVersionRef> todo = new ArrayDeque<ProjectVersionRef>();
+        seen.add( target.asProjectVersionRef() );
+        todo.add( target.asProjectVersionRef() );
+
+        while ( !todo.isEmpty() )
+        {
+            final ProjectVersionRef ref = todo.removeFirst();
+            for ( final ProjectRelationship<?, ?> rel : getRelationshipsTargeting( ref ) )
+            {
+                result.add( rel );
+
+                final ProjectVersionRef declaring = rel.getDeclaring()
+                                                       .asProjectVersionRef();
+                if ( seen.add( declaring ) )
+                {
+                    todo.add( declaring );
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Find every project that depends on the given one, directly or transitively.
+     */
+    public Set<ProjectVersionRef> findImpactedProjects( final ProjectVersionRef target )
+    {
+        final Set<ProjectVersionRef> result = new HashSet<ProjectVersionRef>();
+        for ( final ProjectRelationship<?, ?> rel : findImpactingRelationships( target ) )
+        {
+            result.add( rel.getDeclaring()
+                           .asProjectVersionRef() );
+        }
+
+        return result;
+    }
+
+    /**
+     * For each target, find the view's roots that are affected by a change to it (including a root that is itself a
+     * target). Targets that affect no root are omitted.
+     */
+    public Map<ProjectVersionRef, Set<ProjectVersionRef>> findImpactedRoots(
+                                                                         final Collection<ProjectVersionRef> targets )
+    {
+        final Set<ProjectVersionRef> roots = new HashSet<ProjectVersionRef>();
+        if ( params.getRoots() != null )
+        {
+            for ( final ProjectVersionRef root : params.getRoots() )
+            {
+                roots.add( root.asProjectVersionRef() );
+            }
+        }
+
+        final Map<ProjectVersionRef, Set<ProjectVersionRef>> result =
+            new LinkedHashMap<ProjectVersionRef, Set<ProjectVersionRef>>();
+        if ( roots.isEmpty() )
+        {
+            return result;
+        }
+
+        for ( final ProjectVersionRef target : targets )
+        {
+            final Set<ProjectVersionRef> impacted = findImpactedProjects( target );
+            impacted.add( target.asProjectVersionRef() );
+            impacted.retainAll( roots );
+
+            if ( !impacted.isEmpty() )
+            {
+                result.put( target, impacted );
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Find every project that declares a relationship leading, directly or transitively, to any version of the given
+     * projects. The walk goes by GA rather than GAV, so it also covers relationships that a mutator re-targets to
+     * another version along a path (a managed version, for instance). That makes the result a superset of the projects
+     * a filtered, mutated traversal from the roots could reach the targets through.
+     */
+    public Set<ProjectVersionRef> findProjectsReaching( final Collection<? extends ProjectRef> targets )
+    {
+        final Set<ProjectVersionRef> result = new HashSet<ProjectVersionRef>();
+
+        final Set<ProjectRef> seen = new HashSet<ProjectRef>();
+        final Deque<ProjectRef> todo = new ArrayDeque<ProjectRef>();
+        for ( final ProjectRef target : targets )
+        {
+            final ProjectRef ga = target.asProjectRef();
+            if ( seen.add( ga ) )
+            {
+                todo.add( ga );
+            }
+        }
+
+        while ( !todo.isEmpty() )
+        {
+            final ProjectRef next = todo.removeFirst();
+            for ( final List<ProjectRelationship<?, ?>> rels : getRelationshipsTargeting( next ).values() )
+            {
+                for ( final ProjectRelationship<?, ?> rel : rels )
+                {
+                    final ProjectVersionRef declaring = rel.getDeclaring()
+                                                           .asProjectVersionRef();
+                    result.add( declaring );
+
+                    final ProjectRef ga = declaring.asProjectRef();
+                    if ( seen.add( ga ) )
+                    {
+                        todo.add( ga );
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private List<ProjectRelationship<?, ?>> getRelationshipsTargeting( final ProjectVersionRef ref )
+    {
+        final List<ProjectRelationship<?, ?>> result = getRelationshipsTargeting( ref.asProjectRef() ).get( ref );
+        return result == null ? Collections.<ProjectRelationship<?, ?>> emptyList() : result;
+    }
+
+    private Map<ProjectVersionRef, List<ProjectRelationship<?, ?>>> getRelationshipsTargeting( final ProjectRef ga )
+    {
+        Map<ProjectVersionRef, List<ProjectRelationship<?, ?>>> byTarget = targetingByGA.get( ga );
+        if ( byTarget == null )
+        {
+            // one index lookup per GA; the relationships are bucketed by their selected target version.
+            byTarget = new HashMap<ProjectVersionRef, List<ProjectRelationship<?, ?>>>();
+
+            final Collection<? extends ProjectRelationship<?, ?>> rels =
+                connection.getRelationshipsTargetingGA( params, ga );
+            if ( rels != null )
+            {
+                for ( final ProjectRelationship<?, ?> rel : rels )
+                {
+                    if ( ( !includeManagedInfo && rel.isManaged() )
+                        || ( rel instanceof ParentRelationship && ( (ParentRelationship) rel ).isTerminus() ) )
+                    {
+                        continue;
+                    }
+
+                    final ProjectVersionRef target = rel.getTarget()
+                                                        .asProjectVersionRef();
+                    List<ProjectRelationship<?, ?>> bucket = byTarget.get( target );
+                    if ( bucket == null )
+                    {
+                        bucket = new ArrayList<ProjectRelationship<?, ?>>();
+                        byTarget.put( target, bucket );
+                    }
+
+                    bucket.add( rel );
+                }
+            }
+
+            targetingByGA.put( ga, byTarget );
+        }
+
+        return byTarget;
+    }
+
+}
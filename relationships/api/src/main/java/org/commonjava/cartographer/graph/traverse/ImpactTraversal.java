@@ -22,11 +22,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.commonjava.cartographer.graph.RelationshipGraph;
+import org.commonjava.cartographer.graph.spi.RelationshipGraphConnectionException;
 import org.commonjava.maven.atlas.graph.rel.DependencyRelationship;
 import org.commonjava.maven.atlas.graph.rel.PluginRelationship;
 import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
 import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
 
+/**
+ * Collects the paths from the roots to a set of target projects. Before walking forward from the roots, it asks the
+ * graph's {@link ImpactSearch} which projects can reach a target at all, using the connection's reverse-adjacency
+ * index. Only relationships into those projects are followed, so the walk covers the affected part of the graph
+ * instead of everything reachable from the roots.
+ */
 public class ImpactTraversal
     extends AbstractTraversal
 {
@@ -36,6 +44,8 @@ public class ImpactTraversal
 
     private final boolean includeManagedInfo;
 
+    private Set<ProjectVersionRef> reaching;
+
     public ImpactTraversal( final ProjectVersionRef... targets )
     {
         this( false, targets );
@@ -69,6 +79,17 @@ public class ImpactTraversal
         return impactedPaths;
     }
 
+    @Override
+    public void startTraverse( final RelationshipGraph graph )
+        throws RelationshipGraphConnectionException
+    {
+        if ( reaching == null )
+        {
+            reaching = graph.searchImpact( includeManagedInfo )
+                            .findProjectsReaching( impactedPaths.keySet() );
+        }
+    }
+
     @Override
     public boolean traverseEdge( final ProjectRelationship<?, ?> relationship, final List<ProjectRelationship<?, ?>> path )
     {
@@ -80,13 +101,16 @@ public class ImpactTraversal
         final ProjectVersionRef target = relationship.getTarget()
                                                      .asProjectVersionRef();
         final Set<List<ProjectRelationship<?, ?>>> paths = impactedPaths.get( target );
-        final ArrayList<ProjectRelationship<?, ?>> p = new ArrayList<ProjectRelationship<?, ?>>( path );
-        p.add( relationship );
+        if ( paths != null )
+        {
+            final ArrayList<ProjectRelationship<?, ?>> p = new ArrayList<ProjectRelationship<?, ?>>( path );
+            p.add( relationship );
 
-        paths.add( p );
+            paths.add( p );
+        }
 
-        // we may yet encounter the impact targets, so allow this traverse to proceed.
-        return true;
+        // only keep going where another target may still be reached.
+        return reaching == null || reaching.contains( target );
     }
 
     @Override
@@ -106,10 +130,9 @@ public class ImpactTraversal
             }
         }
 
-        final Set<List<ProjectRelationship<?, ?>>> paths = impactedPaths.get( relationship.getTarget()
-                                                                                       .asProjectVersionRef() );
-        return !( paths != null && paths.isEmpty() );
-
+        final ProjectVersionRef target = relationship.getTarget()
+                                                     .asProjectVersionRef();
+        return reaching == null || reaching.contains( target ) || impactedPaths.containsKey( target );
     }
 
 }
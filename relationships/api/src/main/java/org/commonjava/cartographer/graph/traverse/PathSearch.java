@@ -0,0 +1,683 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.traverse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.commonjava.cartographer.graph.ViewParams;
+import org.commonjava.cartographer.graph.filter.FilterAutomaton;
+import org.commonjava.cartographer.graph.filter.ProjectRelationshipFilter;
+import org.commonjava.cartographer.graph.model.GraphPath;
+import org.commonjava.cartographer.graph.model.GraphPathInfo;
+import org.commonjava.cartographer.graph.model.GraphPathInfoInterner;
+import org.commonjava.cartographer.graph.spi.RelationshipGraphConnection;
+import org.commonjava.maven.atlas.graph.rel.ParentRelationship;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.graph.rel.RelationshipComparator;
+import org.commonjava.maven.atlas.ident.ref.ProjectRef;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+
+/**
+ * Finds the paths from a view's roots to a set of target projects without enumerating every path in the graph. The
+ * search works from both ends: it first walks backward from the targets to collect the GAs that can reach one, then
+ * expands forward from the roots only through those GAs. The number of matching paths below each (project, path info,
+ * filter state) is memoized, so shared subgraphs are counted once and whole subtrees can be skipped when paging.
+ *
+ * Forward expansion applies the view's selections, filter and mutator through {@link GraphPathInfo}, plus an optional
+ * extra filter, exactly as a traversal would. Paths never revisit a project, so the paths below a project depend on
+ * which projects are already on the path leading into it. Each memoized count therefore records the projects its
+ * subtree touched, and is only reused on paths that contain none of them. A count is not memoized at all if its
+ * subtree cut off a cycle through a project above it.
+ *
+ * Targets given as {@link ProjectVersionRef} match that version only; plain {@link ProjectRef} targets match any
+ * version of the GA.
+ *
+ * Instances are not thread-safe.
+ *
+ * @author jdcasey
+ */
+public final class PathSearch
+{
+
+    public static final int UNLIMITED = -1;
+
+    private static final Comparator<ProjectVersionRef> ROOT_ORDER = new Comparator<ProjectVersionRef>()
+    {
+        @Override
+        public int compare( final ProjectVersionRef first, final ProjectVersionRef second )
+        {
+            return first.toString()
+                        .compareTo( second.toString() );
+        }
+    };
+
+    private final RelationshipGraphConnection connection;
+
+    private final ViewParams params;
+
+    private final Set<ProjectRef> anyVersionTargets = new HashSet<ProjectRef>();
+
+    private final Set<ProjectVersionRef> exactTargets = new HashSet<ProjectVersionRef>();
+
+    private final FilterAutomaton automaton;
+
+    private final boolean stopAtTargets;
+
+    private final GraphPathInfoInterner pathInfos;
+
+    private final Map<SearchState, Suffix> suffixes = new HashMap<SearchState, Suffix>();
+
+    private Set<ProjectRef> relevant;
+
+    /**
+     * @param filter applied on top of the view's own filter, or null
+     * @param stopAtTargets whether to stop expanding a path once it reaches a target, rather than looking for further
+     * targets beyond it
+     */
+    public PathSearch( final RelationshipGraphConnection connection, final ViewParams params,
+                       final Set<? extends ProjectRef> targets, final ProjectRelationshipFilter filter,
+                       final boolean stopAtTargets )
+    {
+        this.connection = connection;
+        this.params = params;
+        this.automaton = filter == null ? null : FilterAutomaton.compile( filter );
+        this.stopAtTargets = stopAtTargets;
+        this.pathInfos = new GraphPathInfoInterner( connection, params );
+
+        if ( targets != null )
+        {
+            for ( final ProjectRef target : targets )
+            {
+                if ( target instanceof ProjectVersionRef )
+                {
+                    exactTargets.add( ( (ProjectVersionRef) target ).asProjectVersionRef() );
+                }
+                else
+                {
+                    anyVersionTargets.add( target.asProjectRef() );
+                }
+            }
+        }
+    }
+
+    /**
+     * Count the paths from the view's roots to the targets. This memoizes the per-subtree counts used by
+     * {@link #findPaths(long, int)}.
+     */
+    public long countPaths()
+    {
+        long total = 0;
+        for ( final ProjectVersionRef root : getRoots() )
+        {
+            total += countBelow( rootState( root ) );
+        }
+
+        return total;
+    }
+
+    public List<Match> findPaths()
+    {
+        return findPaths( 0, UNLIMITED );
+    }
+
+    /**
+     * Retrieve one page of the paths from the view's roots to the targets. Paths are enumerated in a stable order
+     * (roots by GAV, then relationships in {@link RelationshipComparator} order), so consecutive pages don't overlap.
+     * 
+     * @param offset number of paths to skip
+     * @param limit maximum number of paths to return, or {@link #UNLIMITED}
+     */
+    public List<Match> findPaths( final long offset, final int limit )
+    {
+        final Page page = new Page( offset, limit );
+        if ( page.isFull() )
+        {
+            return page.matches;
+        }
+
+        // fills in the suffix counts, so empty or skipped subtrees are never expanded below.
+        countPaths();
+
+        for ( final ProjectVersionRef root : getRoots() )
+        {
+            final SearchState state = rootState( root );
+            final Suffix suffix = suffixes.get( state );
+            if ( suffix != null && suffix.count <= page.skip )
+            {
+                page.skip -= suffix.count;
+                continue;
+            }
+
+            if ( !collect( state, page ) )
+            {
+                break;
+            }
+        }
+
+        return page.matches;
+    }
+
+    /**
+     * Count the paths from the given root state to the targets, memoizing the count below each state whose subtree
+     * didn't cut off a cycle through a project above it. Walks with an explicit stack, since dependency chains can be
+     * deeper than the thread's stack allows.
+     */
+    private long countBelow( final SearchState root )
+    {
+        final Suffix known = suffixes.get( root );
+        if ( known != null )
+        {
+            return known.count;
+        }
+
+        final Map<ProjectVersionRef, Integer> onPath = new HashMap<ProjectVersionRef, Integer>();
+        final Deque<Frame> stack = new ArrayDeque<Frame>();
+        stack.push( enter( root, null, onPath ) );
+
+        long total = 0;
+        while ( !stack.isEmpty() )
+        {
+            final Frame frame = stack.peek();
+            if ( frame.next < frame.steps.size() )
+            {
+                final Step step = frame.steps.get( frame.next++ );
+                frame.reach.add( step.state.ref );
+
+                final Integer cutDepth = onPath.get( step.state.ref );
+                if ( cutDepth != null )
+                {
+                    frame.minCutDepth = Math.min( frame.minCutDepth, cutDepth );
+                    continue;
+                }
+
+                if ( isTarget( step.state.ref ) )
+                {
+                    frame.count++;
+                    if ( stopAtTargets )
+                    {
+                        continue;
+                    }
+                }
+
+                final Suffix suffix = reusableSuffix( step.state, onPath.keySet() );
+                if ( suffix != null )
+                {
+                    frame.count += suffix.count;
+                    frame.reach.addAll( suffix.reach );
+                    continue;
+                }
+
+                stack.push( enter( step.state, step.path, onPath ) );
+                continue;
+            }
+
+            stack.pop();
+            onPath.remove( frame.state.ref );
+
+            // cycles cut off at this project or below it don't depend on the path leading here; those cut off at a
+            // project above it do.
+            if ( frame.minCutDepth >= frame.depth )
+            {
+                suffixes.put( frame.state, new Suffix( frame.count, frame.reach ) );
+            }
+
+            if ( stack.isEmpty() )
+            {
+                total = frame.count;
+            }
+            else
+            {
+                final Frame parent = stack.peek();
+                parent.count += frame.count;
+                parent.reach.addAll( frame.reach );
+                parent.minCutDepth = Math.min( parent.minCutDepth, frame.minCutDepth );
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Add the paths from the given root state to the page, skipping whole subtrees whose memoized count is within the
+     * page's offset. Walks with an explicit stack, like {@link #countBelow(SearchState)}.
+     *
+     * @return false once the page is full
+     */
+    private boolean collect( final SearchState root, final Page page )
+    {
+        final Map<ProjectVersionRef, Integer> onPath = new HashMap<ProjectVersionRef, Integer>();
+        final List<ProjectRelationship<?, ?>> rels = new ArrayList<ProjectRelationship<?, ?>>();
+        final Deque<Frame> stack = new ArrayDeque<Frame>();
+        stack.push( enter( root, null, onPath ) );
+
+        while ( !stack.isEmpty() )
+        {
+            final Frame frame = stack.peek();
+            if ( frame.next >= frame.steps.size() )
+            {
+                stack.pop();
+                onPath.remove( frame.state.ref );
+                if ( !stack.isEmpty() )
+                {
+                    // the relationship that led into this frame.
+                    rels.remove( rels.size() - 1 );
+                }
+
+                continue;
+            }
+
+            final Step step = frame.steps.get( frame.next++ );
+            if ( onPath.containsKey( step.state.ref ) )
+            {
+                continue;
+            }
+
+            rels.add( step.rel );
+            if ( isTarget( step.state.ref ) )
+            {
+                if ( page.skip > 0 )
+                {
+                    page.skip--;
+                }
+                else
+                {
+                    page.matches.add( new Match( step.path, step.state.info, rels ) );
+                    if ( page.isFull() )
+                    {
+                        return false;
+                    }
+                }
+
+                if ( stopAtTargets )
+                {
+                    rels.remove( rels.size() - 1 );
+                    continue;
+                }
+            }
+
+            final Suffix suffix = reusableSuffix( step.state, onPath.keySet() );
+            if ( suffix != null && suffix.count <= page.skip )
+            {
+                page.skip -= suffix.count;
+                rels.remove( rels.size() - 1 );
+                continue;
+            }
+
+            stack.push( enter( step.state, step.path, onPath ) );
+        }
+
+        return true;
+    }
+
+    private Frame enter( final SearchState state, final GraphPath<?> path,
+                         final Map<ProjectVersionRef, Integer> onPath )
+    {
+        final int depth = onPath.size();
+        onPath.put( state.ref, depth );
+        return new Frame( state, expand( state, path ), depth );
+    }
+
+    /**
+     * Retrieve the memoized count below the given state, unless a project its subtree touched is already on the path.
+     * That project would be cut off here, so the count wouldn't hold.
+     */
+    private Suffix reusableSuffix( final SearchState state, final Set<ProjectVersionRef> onPath )
+    {
+        final Suffix suffix = suffixes.get( state );
+        if ( suffix == null )
+        {
+            return null;
+        }
+
+        final boolean pathSmaller = onPath.size() < suffix.reach.size();
+        final Set<ProjectVersionRef> iterate = pathSmaller ? onPath : suffix.reach;
+        final Set<ProjectVersionRef> probe = pathSmaller ? suffix.reach : onPath;
+        for ( final ProjectVersionRef ref : iterate )
+        {
+            if ( probe.contains( ref ) )
+            {
+                return null;
+            }
+        }
+
+        return suffix;
+    }
+
+    private List<Step> expand( final SearchState state, final GraphPath<?> path )
+    {
+        final Collection<? extends ProjectRelationship<?, ?>> declared =
+            connection.getRelationshipsDeclaredBy( params, state.ref );
+        if ( declared == null || declared.isEmpty() )
+        {
+            return Collections.emptyList();
+        }
+
+        final List<ProjectRelationship<?, ?>> sorted = new ArrayList<ProjectRelationship<?, ?>>( declared );
+        Collections.sort( sorted, RelationshipComparator.INSTANCE );
+
+        final Set<ProjectRef> relevant = getRelevantProjects();
+        final List<Step> steps = new ArrayList<Step>( sorted.size() );
+        for ( final ProjectRelationship<?, ?> rel : sorted )
+        {
+            if ( rel instanceof ParentRelationship && ( (ParentRelationship) rel ).isTerminus() )
+            {
+                continue;
+            }
+
+            final ProjectRelationship<?, ?> selected = state.info.selectRelationship( rel, path );
+            if ( selected == null )
+            {
+                continue;
+            }
+
+            final ProjectVersionRef target = selected.getTarget()
+                                                     .asProjectVersionRef();
+            if ( !relevant.contains( target.asProjectRef() ) )
+            {
+                continue;
+            }
+
+            int nextFilterState = FilterAutomaton.NO_STATE;
+            if ( automaton != null )
+            {
+                if ( !automaton.accept( state.filterState, selected ) )
+                {
+                    continue;
+                }
+
+                nextFilterState = automaton.next( state.filterState, selected );
+            }
+
+            final GraphPath<?> next =
+                path == null ? connection.createPath( selected ) : connection.createPath( path, selected );
+            if ( next == null )
+            {
+                continue;
+            }
+
+            steps.add( new Step( selected, next, new SearchState( target, state.info.getChildPathInfo( selected ),
+                                                                  nextFilterState ) ) );
+        }
+
+        return steps;
+    }
+
+    /**
+     * Walk backward from the targets to find every GA that has some version from which a target can be reached. Only
+     * relationships targeting these GAs need to be followed forward from the roots. GAs (rather than GAVs) are used so
+     * that mutators selecting a different version of a project can't hide a path.
+     */
+    private Set<ProjectRef> getRelevantProjects()
+    {
+        if ( relevant != null )
+        {
+            return relevant;
+        }
+
+        relevant = new HashSet<ProjectRef>();
+        final Deque<ProjectRef> todo = new ArrayDeque<ProjectRef>();
+        for ( final ProjectRef ga : anyVersionTargets )
+        {
+            if ( relevant.add( ga ) )
+            {
+                todo.add( ga );
+            }
+        }
+
+        for ( final ProjectVersionRef ref : exactTargets )
+        {
+            if ( relevant.add( ref.asProjectRef() ) )
+            {
+                todo.add( ref.asProjectRef() );
+            }
+        }
+
+        while ( !todo.isEmpty() )
+        {
+            final ProjectRef ga = todo.removeFirst();
+            final Collection<? extends ProjectRelationship<?, ?>> targeting =
+                connection.getRelationshipsTargetingGA( params, ga );
+            if ( targeting == null )
+            {
+                continue;
+            }
+
+            for ( final ProjectRelationship<?, ?> rel : targeting )
+            {
+                final ProjectRef declaring = rel.getDeclaring()
+                                                .asProjectRef();
+                if ( relevant.add( declaring ) )
+                {
+                    todo.add( declaring );
+                }
+            }
+        }
+
+        return relevant;
+    }
+
+    private boolean isTarget( final ProjectVersionRef ref )
+    {
+        return anyVersionTargets.contains( ref.asProjectRef() ) || exactTargets.contains( ref );
+    }
+
+    private List<ProjectVersionRef> getRoots()
+    {
+        final Set<ProjectVersionRef> roots = params.getRoots();
+        if ( roots == null || roots.isEmpty() )
+        {
+            return Collections.emptyList();
+        }
+
+        final List<ProjectVersionRef> sorted = new ArrayList<ProjectVersionRef>( roots.size() );
+        for ( final ProjectVersionRef root : roots )
+        {
+            sorted.add( root.asProjectVersionRef() );
+        }
+
+        Collections.sort( sorted, ROOT_ORDER );
+        return sorted;
+    }
+
+    private SearchState rootState( final ProjectVersionRef root )
+    {
+        return new SearchState( root, pathInfos.getRootPathInfo(),
+                                automaton == null ? FilterAutomaton.NO_STATE : automaton.getInitialState() );
+    }
+
+    /**
+     * One path from a root to a target.
+     */
+    public static final class Match
+    {
+        private final GraphPath<?> path;
+
+        private final GraphPathInfo pathInfo;
+
+        private final List<ProjectRelationship<?, ?>> relationships;
+
+        Match( final GraphPath<?> path, final GraphPathInfo pathInfo, final List<ProjectRelationship<?, ?>> rels )
+        {
+            this.path = path;
+            this.pathInfo = pathInfo;
+            this.relationships = Collections.unmodifiableList( new ArrayList<ProjectRelationship<?, ?>>( rels ) );
+        }
+
+        public GraphPath<?> getPath()
+        {
+            return path;
+        }
+
+        /**
+         * The path info that applies to relationships following this path.
+         */
+        public GraphPathInfo getPathInfo()
+        {
+            return pathInfo;
+        }
+
+        public List<ProjectRelationship<?, ?>> getRelationships()
+        {
+            return relationships;
+        }
+
+        public ProjectVersionRef getTarget()
+        {
+            return relationships.get( relationships.size() - 1 )
+                                .getTarget()
+                                .asProjectVersionRef();
+        }
+    }
+
+    private static final class Page
+    {
+        private long skip;
+
+        private final int limit;
+
+        private final List<Match> matches = new ArrayList<Match>();
+
+        Page( final long offset, final int limit )
+        {
+            this.skip = Math.max( 0, offset );
+            this.limit = limit;
+        }
+
+        boolean isFull()
+        {
+            return limit != UNLIMITED && matches.size() >= limit;
+        }
+    }
+
+    /**
+     * One project on the current path of a walk: its expansion and how far through it the walk is. When counting, it
+     * also holds the paths counted below it so far, the projects its subtree touched, and the shallowest depth at
+     * which its subtree cut off a cycle.
+     */
+    private static final class Frame
+    {
+        private final SearchState state;
+
+        private final List<Step> steps;
+
+        private final int depth;
+
+        private final Set<ProjectVersionRef> reach = new HashSet<ProjectVersionRef>();
+
+        private int minCutDepth = Integer.MAX_VALUE;
+
+        private int next;
+
+        private long count;
+
+        Frame( final SearchState state, final List<Step> steps, final int depth )
+        {
+            this.state = state;
+            this.steps = steps;
+            this.depth = depth;
+            reach.add( state.ref );
+        }
+    }
+
+    /**
+     * The memoized number of paths below a state, and the projects that walk touched.
+     */
+    private static final class Suffix
+    {
+        private final long count;
+
+        private final Set<ProjectVersionRef> reach;
+
+        Suffix( final long count, final Set<ProjectVersionRef> reach )
+        {
+            this.count = count;
+            this.reach = reach;
+        }
+    }
+
+    private static final class Step
+    {
+        private final ProjectRelationship<?, ?> rel;
+
+        private final GraphPath<?> path;
+
+        private final SearchState state;
+
+        Step( final ProjectRelationship<?, ?> rel, final GraphPath<?> path, final SearchState state )
+        {
+            this.rel = rel;
+            this.path = path;
+            this.state = state;
+        }
+    }
+
+    /**
+     * Everything that determines which paths continue below a project. Path info comes from a
+     * {@link GraphPathInfoInterner}, so it's compared by identity.
+     */
+    private static final class SearchState
+    {
+        private final ProjectVersionRef ref;
+
+        private final GraphPathInfo info;
+
+        private final int filterState;
+
+        private final int hashCode;
+
+        SearchState( final ProjectVersionRef ref, final GraphPathInfo info, final int filterState )
+        {
+            this.ref = ref;
+            this.info = info;
+            this.filterState = filterState;
+            this.hashCode = 31 * ( 31 * ref.hashCode() + System.identityHashCode( info ) ) + filterState;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals( final Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( !( obj instanceof SearchState ) )
+            {
+                return false;
+            }
+
+            final SearchState other = (SearchState) obj;
+            return hashCode == other.hashCode && info == other.info && filterState == other.filterState
+                && ref.equals( other.ref );
+        }
+    }
+
+}
@@ -37,6 +37,7 @@ import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
  */
 public class PathsTraversal
 extends AbstractTraversal
+implements ForkableTraversal
 {
 
     private final ProjectRelationshipFilter rootFilter;
@@ -123,6 +124,37 @@ extends AbstractTraversal
         return false;
     }
 
+    @Override
+    public PathsTraversal fork()
+    {
+        return new PathsTraversal( rootFilter, to );
+    }
+
+    @Override
+    public void join( final ForkableTraversal other )
+    {
+        final PathsTraversal o = (PathsTraversal) other;
+        paths.addAll( o.paths );
+
+        for ( final Map.Entry<ProjectRef, OrFilter> entry : o.cache.entrySet() )
+        {
+            final OrFilter mine = cache.get( entry.getKey() );
+            if ( mine == null )
+            {
+                cache.put( entry.getKey(), entry.getValue() );
+            }
+            else
+            {
+                final Set<ProjectRelationshipFilter> filters = new HashSet<ProjectRelationshipFilter>( mine.getFilters() );
+                if ( filters.addAll( entry.getValue()
+                                          .getFilters() ) )
+                {
+                    cache.put( entry.getKey(), new OrFilter( filters ) );
+                }
+            }
+        }
+    }
+
     public Set<List<ProjectRelationship<?, ?>>> getDiscoveredPaths()
     {
         return paths;
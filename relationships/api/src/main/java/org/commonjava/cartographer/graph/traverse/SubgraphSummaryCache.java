@@ -0,0 +1,319 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.traverse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.commonjava.cartographer.graph.ViewParams;
+import org.commonjava.cartographer.graph.model.GraphPath;
+import org.commonjava.cartographer.graph.model.GraphPathInfo;
+import org.commonjava.cartographer.graph.model.GraphPathInfoInterner;
+import org.commonjava.cartographer.graph.spi.RelationshipGraphConnection;
+import org.commonjava.maven.atlas.graph.rel.ParentRelationship;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.graph.rel.RelationshipComparator;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+
+/**
+ * Memoizes how a view expands each project, per (project, {@link GraphPathInfo}). A path info combines the view
+ * filter's state and the mutator's state, so when a node is reached again in the same context its summary is reused,
+ * instead of re-reading its relationships and re-applying selection, filtering and mutation. A summary holds the
+ * selected relationships out of the node, in {@link RelationshipComparator} order, along with the path info for each
+ * child. Chained together, summaries form the node's whole transitive subgraph for that context, so a subgraph shared
+ * by many roots (or many queries) is only expanded once.
+ *
+ * {@link #traverse(RelationshipGraphTraversal, ProjectVersionRef)} walks these summaries breadth-first, making the same
+ * calls on the traversal as a driver's breadth-first traversal would.
+ *
+ * Summaries are only reused while the connection's modification stamp stays put. Once it moves, the next traversal
+ * starts over with fresh path info, since managed versions stored anywhere flow into the path info below their
+ * declaring project. This relies on the mutator's selections depending only on its own state, as the built-in
+ * mutators' do, and not on the path it's given.
+ *
+ * Instances are thread-safe.
+ *
+ * @author jdcasey
+ */
+public final class SubgraphSummaryCache
+{
+
+    private final RelationshipGraphConnection connection;
+
+    private final ViewParams params;
+
+    private volatile Generation current;
+
+    public SubgraphSummaryCache( final RelationshipGraphConnection connection, final ViewParams params )
+    {
+        this.connection = connection;
+        this.params = params;
+    }
+
+    /**
+     * Traverse breadth-first from the given root over the memoized summaries, computing any that are missing.
+     */
+    public void traverse( final RelationshipGraphTraversal traversal, final ProjectVersionRef root )
+    {
+        // a traversal sticks to the summaries it started with, even if the graph changes under it.
+        final Generation generation = getGeneration();
+        final ProjectVersionRef start = root.asProjectVersionRef();
+
+        final List<ProjectRelationship<?, ?>> none = Collections.emptyList();
+        List<Frontier> layer =
+            Collections.singletonList( new Frontier( start, generation.pathInfos.getRootPathInfo(), null, none ) );
+        while ( !layer.isEmpty() )
+        {
+            final List<Frontier> next = new ArrayList<Frontier>();
+            for ( final Frontier frontier : layer )
+            {
+                for ( final Step step : generation.getSummary( frontier.ref, frontier.info, frontier.path ) )
+                {
+                    // call traverseEdge no matter what, to allow traversal to "see" all relationships.
+                    if ( traversal.traverseEdge( step.rel, frontier.elements ) )
+                    {
+                        final ProjectVersionRef target = step.rel.getTarget()
+                                                                 .asProjectVersionRef();
+                        if ( start.equals( target ) || containsTarget( frontier.elements, target ) )
+                        {
+                            continue;
+                        }
+
+                        final List<ProjectRelationship<?, ?>> elements =
+                            new ArrayList<ProjectRelationship<?, ?>>( frontier.elements.size() + 1 );
+                        elements.addAll( frontier.elements );
+                        elements.add( step.rel );
+
+                        next.add( new Frontier( target, step.info, step.path, elements ) );
+
+                        traversal.edgeTraversed( step.rel, frontier.elements );
+                    }
+                }
+            }
+
+            layer = next;
+        }
+    }
+
+    /**
+     * Retrieve the selected relationships out of the given project, in the given path context.
+     *
+     * @param info path info from {@link #getRootPathInfo()} or one of the steps returned here.
+     * @param path any path that reaches the project with this path info, or null for a root. It's only used when the
+     * summary has to be computed.
+     */
+    public List<Step> getSummary( final ProjectVersionRef ref, final GraphPathInfo info, final GraphPath<?> path )
+    {
+        return getGeneration().getSummary( ref, info, path );
+    }
+
+    public GraphPathInfo getRootPathInfo()
+    {
+        return getGeneration().pathInfos.getRootPathInfo();
+    }
+
+    public void clear()
+    {
+        current = null;
+    }
+
+    public int size()
+    {
+        final Generation generation = current;
+        if ( generation == null )
+        {
+            return 0;
+        }
+
+        int size = 0;
+        for ( final ConcurrentMap<GraphPathInfo, List<Step>> byInfo : generation.summaries.values() )
+        {
+            size += byInfo.size();
+        }
+
+        return size;
+    }
+
+    private Generation getGeneration()
+    {
+        final long stamp = connection.getModificationStamp();
+        Generation generation = current;
+        if ( generation == null || generation.stamp != stamp )
+        {
+            // start over with fresh path info, so mutators don't keep what they derived from the old relationships.
+            generation = new Generation( stamp, new GraphPathInfoInterner( connection, params ) );
+            current = generation;
+        }
+
+        return generation;
+    }
+
+    private List<Step> summarize( final ProjectVersionRef ref, final GraphPathInfo info, final GraphPath<?> path )
+    {
+        final Collection<? extends ProjectRelationship<?, ?>> declared =
+            connection.getRelationshipsDeclaredBy( params, ref );
+        if ( declared == null || declared.isEmpty() )
+        {
+            return Collections.emptyList();
+        }
+
+        final List<ProjectRelationship<?, ?>> sorted = new ArrayList<ProjectRelationship<?, ?>>( declared );
+        Collections.sort( sorted, RelationshipComparator.INSTANCE );
+
+        final List<Step> steps = new ArrayList<Step>( sorted.size() );
+        for ( final ProjectRelationship<?, ?> rel : sorted )
+        {
+            if ( rel instanceof ParentRelationship && ( (ParentRelationship) rel ).isTerminus() )
+            {
+                continue;
+            }
+
+            final ProjectRelationship<?, ?> selected = info.selectRelationship( rel, path );
+            if ( selected == null )
+            {
+                continue;
+            }
+
+            final GraphPath<?> childPath =
+                path == null ? connection.createPath( selected ) : connection.createPath( path, selected );
+
+            steps.add( new Step( selected, info.getChildPathInfo( selected ), childPath ) );
+        }
+
+        return Collections.unmodifiableList( steps );
+    }
+
+    private static boolean containsTarget( final List<ProjectRelationship<?, ?>> elements, final ProjectVersionRef ref )
+    {
+        for ( final ProjectRelationship<?, ?> rel : elements )
+        {
+            if ( ref.equals( rel.getTarget()
+                                .asProjectVersionRef() ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * One selected relationship out of a summarized project.
+     */
+    public static final class Step
+    {
+        private final ProjectRelationship<?, ?> rel;
+
+        private final GraphPathInfo info;
+
+        private final GraphPath<?> path;
+
+        Step( final ProjectRelationship<?, ?> rel, final GraphPathInfo info, final GraphPath<?> path )
+        {
+            this.rel = rel;
+            this.info = info;
+            this.path = path;
+        }
+
+        public ProjectRelationship<?, ?> getRelationship()
+        {
+            return rel;
+        }
+
+        /**
+         * The path info that applies below this relationship's target.
+         */
+        public GraphPathInfo getPathInfo()
+        {
+            return info;
+        }
+
+        /**
+         * The path this relationship was first summarized under.
+         */
+        public GraphPath<?> getPath()
+        {
+            return path;
+        }
+    }
+
+    /**
+     * Summaries computed while the connection was at one modification stamp.
+     */
+    private final class Generation
+    {
+        private final long stamp;
+
+        private final GraphPathInfoInterner pathInfos;
+
+        private final ConcurrentMap<ProjectVersionRef, ConcurrentMap<GraphPathInfo, List<Step>>> summaries =
+            new ConcurrentHashMap<ProjectVersionRef, ConcurrentMap<GraphPathInfo, List<Step>>>();
+
+        Generation( final long stamp, final GraphPathInfoInterner pathInfos )
+        {
+            this.stamp = stamp;
+            this.pathInfos = pathInfos;
+        }
+
+        List<Step> getSummary( final ProjectVersionRef ref, final GraphPathInfo info, final GraphPath<?> path )
+        {
+            ConcurrentMap<GraphPathInfo, List<Step>> byInfo = summaries.get( ref );
+            if ( byInfo == null )
+            {
+                byInfo = new ConcurrentHashMap<GraphPathInfo, List<Step>>();
+                final ConcurrentMap<GraphPathInfo, List<Step>> existing = summaries.putIfAbsent( ref, byInfo );
+                if ( existing != null )
+                {
+                    byInfo = existing;
+                }
+            }
+
+            List<Step> steps = byInfo.get( info );
+            if ( steps == null )
+            {
+                steps = summarize( ref, info, path );
+                byInfo.put( info, steps );
+            }
+
+            return steps;
+        }
+    }
+
+    private static final class Frontier
+    {
+        private final ProjectVersionRef ref;
+
+        private final GraphPathInfo info;
+
+        private final GraphPath<?> path;
+
+        private final List<ProjectRelationship<?, ?>> elements;
+
+        Frontier( final ProjectVersionRef ref, final GraphPathInfo info, final GraphPath<?> path,
+                  final List<ProjectRelationship<?, ?>> elements )
+        {
+            this.ref = ref;
+            this.info = info;
+            this.path = path;
+            this.elements = elements;
+        }
+    }
+
+}
@@ -31,6 +31,7 @@ import java.util.*;
 
 public class TransitiveDependencyTraversal
     extends AbstractFilteringTraversal
+    implements ForkableTraversal
 {
 
     private final Logger logger = LoggerFactory.getLogger( getClass() );
@@ -59,6 +60,34 @@ public class TransitiveDependencyTraversal
         return Collections.unmodifiableList( new ArrayList<ArtifactRef>( artifacts.values() ) );
     }
 
+    @Override
+    public TransitiveDependencyTraversal fork()
+    {
+        return new TransitiveDependencyTraversal( getRootFilter() );
+    }
+
+    /**
+     * Keep the nearest occurrence of each versionless artifact; on a tie, the artifact already in this traversal wins.
+     * The other traversal may hold artifacts it reached under a subtree this one would have pruned, so this is not
+     * equivalent to traversing the other root afterward with this instance.
+     */
+    @Override
+    public void join( final ForkableTraversal other )
+    {
+        final TransitiveDependencyTraversal o = (TransitiveDependencyTraversal) other;
+        for ( final Map.Entry<VersionlessArtifactRef, ArtifactRef> entry : o.artifacts.entrySet() )
+        {
+            final VersionlessArtifactRef key = entry.getKey();
+            final Integer otherDistance = o.seenArtifacts.get( key );
+            final Integer distance = seenArtifacts.get( key );
+            if ( distance == null || ( otherDistance != null && distance > otherDistance ) )
+            {
+                artifacts.put( key, entry.getValue() );
+                seenArtifacts.put( key, otherDistance );
+            }
+        }
+    }
+
     @Override
     public boolean shouldTraverseEdge( final ProjectRelationship<?, ?> relationship,
                                        final List<ProjectRelationship<?, ?>> path )
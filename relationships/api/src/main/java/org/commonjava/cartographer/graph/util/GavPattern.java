@@ -0,0 +1,251 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.util;
+
+import java.util.BitSet;
+import java.util.regex.Pattern;
+
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+
+/**
+ * A compiled project GAV pattern: a regex matched against the whole {@code groupId:artifactId:version} string of a
+ * project. The regex is compiled once. Its leading literal run (where an unescaped '.' matches any one character) is
+ * checked against a project's groupId and artifactId before the GAV string is built and the regex is run, so most
+ * projects that can't match cost a few character comparisons.
+ */
+public final class GavPattern
+{
+
+    private static final GavPattern ALL = new GavPattern( null, "", new BitSet() );
+
+    private static final String META_CHARS = "[](){}*+?|^$";
+
+    private static final String QUANTIFIERS = "*+?{";
+
+    private final Pattern pattern;
+
+    private final String prefix;
+
+    private final BitSet wildcards;
+
+    private GavPattern( final Pattern pattern, final String prefix, final BitSet wildcards )
+    {
+        this.pattern = pattern;
+        this.prefix = prefix;
+        this.wildcards = wildcards;
+    }
+
+    /**
+     * @param regex The pattern, or null / empty to match every project.
+     * @throws java.util.regex.PatternSyntaxException if the regex is invalid.
+     */
+    public static GavPattern compile( final String regex )
+    {
+        if ( regex == null || regex.isEmpty() )
+        {
+            return ALL;
+        }
+
+        final Pattern pattern = Pattern.compile( regex );
+        final StringBuilder prefix = new StringBuilder();
+        final BitSet wildcards = new BitSet();
+        if ( !hasTopLevelAlternation( regex ) )
+        {
+            readPrefix( regex, prefix, wildcards );
+        }
+
+        return new GavPattern( pattern, prefix.toString(), wildcards );
+    }
+
+    public boolean matchesAll()
+    {
+        return pattern == null;
+    }
+
+    /**
+     * The start of the prefix up to its first wildcard. Every matching project's GAV string starts with this, so it
+     * can be used for a range lookup in a {@link ProjectGavIndex}.
+     */
+    public String getLiteralPrefix()
+    {
+        final int firstWildcard = wildcards.nextSetBit( 0 );
+        return firstWildcard < 0 ? prefix : prefix.substring( 0, firstWildcard );
+    }
+
+    public boolean matches( final ProjectVersionRef ref )
+    {
+        if ( pattern == null )
+        {
+            return true;
+        }
+
+        return prefixMatches( ref ) && pattern.matcher( ref.toString() ).matches();
+    }
+
+    /**
+     * Check the prefix against groupId and artifactId. Any part of the prefix that reaches into the version is left
+     * to the regex.
+     */
+    private boolean prefixMatches( final ProjectVersionRef ref )
+    {
+        int pos = prefixMatches( ref.getGroupId(), 0 );
+        if ( pos < 0 || pos == prefix.length() )
+        {
+            return pos > -1;
+        }
+
+        if ( !charMatches( ':', pos++ ) )
+        {
+            return false;
+        }
+
+        pos = prefixMatches( ref.getArtifactId(), pos );
+        if ( pos < 0 || pos == prefix.length() )
+        {
+            return pos > -1;
+        }
+
+        return charMatches( ':', pos );
+    }
+
+    /**
+     * @return The prefix position after the segment, or -1 if the segment doesn't match.
+     */
+    private int prefixMatches( final String segment, final int start )
+    {
+        int pos = start;
+        for ( int i = 0; i < segment.length() && pos < prefix.length(); i++, pos++ )
+        {
+            if ( !charMatches( segment.charAt( i ), pos ) )
+            {
+                return -1;
+            }
+        }
+
+        return pos;
+    }
+
+    private boolean charMatches( final char c, final int pos )
+    {
+        return wildcards.get( pos ) || prefix.charAt( pos ) == c;
+    }
+
+    /**
+     * Read the single characters (or unescaped '.') the regex starts with, stopping at anything that could match a
+     * variable number of characters, or at an escape we don't interpret.
+     */
+    private static void readPrefix( final String regex, final StringBuilder prefix, final BitSet wildcards )
+    {
+        int i = regex.startsWith( "^" ) ? 1 : 0;
+        while ( i < regex.length() )
+        {
+            final char c = regex.charAt( i );
+            final char literal;
+            boolean wildcard = false;
+            if ( c == '\\' )
+            {
+                if ( i + 1 >= regex.length() || Character.isLetterOrDigit( regex.charAt( i + 1 ) ) )
+                {
+                    return;
+                }
+
+                literal = regex.charAt( i + 1 );
+                i += 2;
+            }
+            else if ( c == '.' )
+            {
+                literal = '.';
+                wildcard = true;
+                i++;
+            }
+            else if ( META_CHARS.indexOf( c ) > -1 )
+            {
+                return;
+            }
+            else
+            {
+                literal = c;
+                i++;
+            }
+
+            if ( i < regex.length() && QUANTIFIERS.indexOf( regex.charAt( i ) ) > -1 )
+            {
+                // only '+' guarantees the character is there at least once.
+                if ( regex.charAt( i ) == '+' )
+                {
+                    append( literal, wildcard, prefix, wildcards );
+                }
+
+                return;
+            }
+
+            append( literal, wildcard, prefix, wildcards );
+        }
+    }
+
+    private static void append( final char c, final boolean wildcard, final StringBuilder prefix,
+                                final BitSet wildcards )
+    {
+        if ( wildcard )
+        {
+            wildcards.set( prefix.length() );
+        }
+
+        prefix.append( c );
+    }
+
+    private static boolean hasTopLevelAlternation( final String regex )
+    {
+        int depth = 0;
+        boolean inClass = false;
+        for ( int i = 0; i < regex.length(); i++ )
+        {
+            final char c = regex.charAt( i );
+            if ( c == '\\' )
+            {
+                i++;
+            }
+            else if ( inClass )
+            {
+                inClass = c != ']';
+            }
+            else if ( c == '[' )
+            {
+                inClass = true;
+            }
+            else if ( c == '(' )
+            {
+                depth++;
+            }
+            else if ( c == ')' )
+            {
+                depth--;
+            }
+            else if ( c == '|' && depth == 0 )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public String toString()
+    {
+        return pattern == null ? "GavPattern [*]" : String.format( "GavPattern [%s, prefix: %s]", pattern, prefix );
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from non-negative int keys (such as the ids handed out by {@link ProjectRefInterner}) to values,
+ * using linear probing and parallel key / value arrays, so there is no boxing and no entry allocation. Null values are
+ * not supported. Not thread-safe.
+ *
+ * @author jdcasey
+ */
+public final class IntObjectMap<V>
+{
+
+    private int[] keys;
+
+    private Object[] values;
+
+    private int size;
+
+    public IntObjectMap()
+    {
+        this( 16 );
+    }
+
+    public IntObjectMap( final int expectedSize )
+    {
+        allocate( IntSet.capacityFor( expectedSize ) );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    public V get( final int key )
+    {
+        if ( key < 0 )
+        {
+            return null;
+        }
+
+        final int mask = keys.length - 1;
+        int slot = IntSet.slot( key, mask );
+        int k;
+        while ( ( k = keys[slot] ) != IntSet.FREE )
+        {
+            if ( k == key )
+            {
+                return (V) values[slot];
+            }
+
+            slot = ( slot + 1 ) & mask;
+        }
+
+        return null;
+    }
+
+    public boolean containsKey( final int key )
+    {
+        return get( key ) != null;
+    }
+
+    /**
+     * @return the previous value for the key, or null if there wasn't one.
+     */
+    @SuppressWarnings( "unchecked" )
+    public V put( final int key, final V value )
+    {
+        IntSet.checkKey( key );
+        if ( value == null )
+        {
+            throw new NullPointerException( "Null values are not supported." );
+        }
+
+        final int mask = keys.length - 1;
+        int slot = IntSet.slot( key, mask );
+        int k;
+        while ( ( k = keys[slot] ) != IntSet.FREE )
+        {
+            if ( k == key )
+            {
+                final V old = (V) values[slot];
+                values[slot] = value;
+                return old;
+            }
+
+            slot = ( slot + 1 ) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        if ( ++size * 2 > keys.length )
+        {
+            rehash( keys.length * 2 );
+        }
+
+        return null;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Visit every entry, in no particular order. The map must not be modified while this runs.
+     */
+    @SuppressWarnings( "unchecked" )
+    public void forEach( final EntryConsumer<? super V> consumer )
+    {
+        for ( int slot = 0; slot < keys.length; slot++ )
+        {
+            if ( keys[slot] != IntSet.FREE )
+            {
+                consumer.accept( keys[slot], (V) values[slot] );
+            }
+        }
+    }
+
+    private void allocate( final int capacity )
+    {
+        keys = new int[capacity];
+        Arrays.fill( keys, IntSet.FREE );
+        values = new Object[capacity];
+    }
+
+    private void rehash( final int capacity )
+    {
+        final int[] oldKeys = keys;
+        final Object[] oldValues = values;
+        allocate( capacity );
+
+        final int mask = capacity - 1;
+        for ( int i = 0; i < oldKeys.length; i++ )
+        {
+            if ( oldKeys[i] != IntSet.FREE )
+            {
+                int slot = IntSet.slot( oldKeys[i], mask );
+                while ( keys[slot] != IntSet.FREE )
+                {
+                    slot = ( slot + 1 ) & mask;
+                }
+
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    public interface EntryConsumer<V>
+    {
+        void accept( int key, V value );
+    }
+
+}
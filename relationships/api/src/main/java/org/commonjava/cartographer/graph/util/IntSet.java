@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing set of non-negative ints (such as the ids handed out by {@link ProjectRefInterner}), using linear
+ * probing and no per-element allocation. Not thread-safe.
+ *
+ * @author jdcasey
+ */
+public final class IntSet
+{
+
+    static final int FREE = -1;
+
+    private int[] keys;
+
+    private int size;
+
+    public IntSet()
+    {
+        this( 16 );
+    }
+
+    public IntSet( final int expectedSize )
+    {
+        keys = newKeys( capacityFor( expectedSize ) );
+    }
+
+    /**
+     * @return true if the value wasn't already in the set.
+     */
+    public boolean add( final int value )
+    {
+        checkKey( value );
+
+        final int mask = keys.length - 1;
+        int slot = slot( value, mask );
+        int key;
+        while ( ( key = keys[slot] ) != FREE )
+        {
+            if ( key == value )
+            {
+                return false;
+            }
+
+            slot = ( slot + 1 ) & mask;
+        }
+
+        keys[slot] = value;
+        if ( ++size * 2 > keys.length )
+        {
+            rehash( keys.length * 2 );
+        }
+
+        return true;
+    }
+
+    public boolean contains( final int value )
+    {
+        if ( value < 0 )
+        {
+            return false;
+        }
+
+        final int mask = keys.length - 1;
+        int slot = slot( value, mask );
+        int key;
+        while ( ( key = keys[slot] ) != FREE )
+        {
+            if ( key == value )
+            {
+                return true;
+            }
+
+            slot = ( slot + 1 ) & mask;
+        }
+
+        return false;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * @return the values in this set, in no particular order.
+     */
+    public int[] toArray()
+    {
+        final int[] result = new int[size];
+        int i = 0;
+        for ( final int key : keys )
+        {
+            if ( key != FREE )
+            {
+                result[i++] = key;
+            }
+        }
+
+        return result;
+    }
+
+    private void rehash( final int capacity )
+    {
+        final int[] old = keys;
+        keys = newKeys( capacity );
+
+        final int mask = capacity - 1;
+        for ( final int key : old )
+        {
+            if ( key != FREE )
+            {
+                int slot = slot( key, mask );
+                while ( keys[slot] != FREE )
+                {
+                    slot = ( slot + 1 ) & mask;
+                }
+
+                keys[slot] = key;
+            }
+        }
+    }
+
+    /**
+     * Spread the key (ids are dense, so they'd otherwise cluster) and reduce it to a slot in a power-of-two table.
+     */
+    static int slot( final int key, final int mask )
+    {
+        final int h = key * 0x9E3779B9;
+        return ( h ^ ( h >>> 16 ) ) & mask;
+    }
+
+    /**
+     * Smallest power of two that keeps the given number of entries at or below half full.
+     */
+    static int capacityFor( final int expectedSize )
+    {
+        int capacity = 16;
+        while ( capacity < expectedSize * 2 && capacity < ( 1 << 30 ) )
+        {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+
+    static void checkKey( final int key )
+    {
+        if ( key < 0 )
+        {
+            throw new IllegalArgumentException( "Keys must be non-negative: " + key );
+        }
+    }
+
+    private static int[] newKeys( final int capacity )
+    {
+        final int[] keys = new int[capacity];
+        Arrays.fill( keys, FREE );
+        return keys;
+    }
+
+}
@@ -0,0 +1,531 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.util;
+
+import org.commonjava.cartographer.graph.spi.RelationshipGraphConnection;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Column-oriented copy of project metadata for one workspace, for queries that look at the same few keys across many
+ * projects (collation by license or SCM).
+ * <br/>
+ * Rows are the GAV ids handed out by the workspace's {@link ProjectRefInterner}. Each key has its own column: its
+ * values are dictionary-encoded, so a column is an int array of codes. Rows are loaded from the connection the first
+ * time a query needs them, with one metadata read per project covering every key the query needs; after that,
+ * group-by only touches the int columns.
+ * <br/>
+ * Metadata written through {@link org.commonjava.cartographer.graph.RelationshipGraph} unloads the project's row
+ * (see {@link #invalidate(ProjectVersionRef)}), so the next query rereads it. The groupId, artifactId and version
+ * pseudo-keys are taken from the GAV itself, as {@link org.commonjava.cartographer.graph.RelationshipGraph#getMetadata}
+ * does. Instances are thread-safe. Reads from the connection happen outside the instance lock, so a slow read doesn't
+ * hold up {@link #invalidate(ProjectVersionRef)}; a row invalidated while it was being read is used by the query that
+ * read it, then left unloaded.
+ *
+ * @author jdcasey
+ */
+public final class MetadataColumns
+{
+
+    private static final String GROUP_ID = "groupId";
+
+    private static final String ARTIFACT_ID = "artifactId";
+
+    private static final String VERSION = "version";
+
+    /**
+     * Largest number of distinct value combinations grouped with a dense count array rather than a hash map.
+     */
+    private static final int DENSE_GROUP_LIMIT = 1 << 20;
+
+    private final RelationshipGraphConnection connection;
+
+    private final ProjectRefInterner interner;
+
+    private final Map<String, Column> columns = new HashMap<String, Column>();
+
+    /**
+     * Number of {@link #collate} calls reading from the connection right now, and the rows invalidated while any of
+     * them were. Those rows aren't left loaded when the reads are published.
+     */
+    private int readsInFlight;
+
+    private final Set<Integer> invalidatedDuringRead = new HashSet<Integer>();
+
+    public MetadataColumns( final RelationshipGraphConnection connection, final ProjectRefInterner interner )
+    {
+        this.connection = connection;
+        this.interner = interner;
+    }
+
+    /**
+     * Group the given projects by their values for the given keys. Each group's map only holds the keys the projects
+     * have values for, as {@link org.commonjava.cartographer.graph.RelationshipGraph#getMetadata(ProjectVersionRef,
+     * Set)} would return.
+     */
+    public Map<Map<String, String>, Set<ProjectVersionRef>> collate( final Collection<ProjectVersionRef> refs,
+                                                                     final Set<String> keys )
+    {
+        if ( refs.isEmpty() )
+        {
+            return new HashMap<Map<String, String>, Set<ProjectVersionRef>>();
+        }
+
+        final ProjectVersionRef[] projects = refs.toArray( new ProjectVersionRef[refs.size()] );
+
+        final Load load;
+        synchronized ( this )
+        {
+            load = plan( projects, keys );
+            if ( load.isComplete() )
+            {
+                return group( projects, load.rows, load.cols );
+            }
+
+            readsInFlight++;
+        }
+
+        try
+        {
+            load.read( connection );
+            synchronized ( this )
+            {
+                publish( load );
+                return group( projects, load.rows, load.cols );
+            }
+        }
+        finally
+        {
+            synchronized ( this )
+            {
+                if ( --readsInFlight == 0 )
+                {
+                    invalidatedDuringRead.clear();
+                }
+            }
+        }
+    }
+
+    private Map<Map<String, String>, Set<ProjectVersionRef>> group( final ProjectVersionRef[] projects,
+                                                                     final int[] rows, final Column[] cols )
+    {
+        final Map<Map<String, String>, Set<ProjectVersionRef>> result =
+                new HashMap<Map<String, String>, Set<ProjectVersionRef>>();
+
+        // mixed-radix code of each row's value combination; code 0 in a column means "no value".
+        final long[] strides = new long[cols.length];
+        long combinations = 1;
+        for ( int i = 0; i < cols.length; i++ )
+        {
+            strides[i] = combinations;
+            try
+            {
+                combinations = Math.multiplyExact( combinations, cols[i].dictionary.size() + 1 );
+            }
+            catch ( final ArithmeticException e )
+            {
+                combinations = -1;
+                break;
+            }
+        }
+
+        if ( combinations < 0 )
+        {
+            // too many combinations to encode in a long; group on the code vectors instead.
+            final Map<List<Integer>, Set<ProjectVersionRef>> groups =
+                    new HashMap<List<Integer>, Set<ProjectVersionRef>>();
+            for ( int r = 0; r < rows.length; r++ )
+            {
+                final Integer[] codes = new Integer[cols.length];
+                for ( int i = 0; i < cols.length; i++ )
+                {
+                    codes[i] = cols[i].codeAt( rows[r] );
+                }
+
+                addToGroup( groups, Arrays.asList( codes ), projects[r] );
+            }
+
+            for ( final Map.Entry<List<Integer>, Set<ProjectVersionRef>> entry : groups.entrySet() )
+            {
+                final List<Integer> codes = entry.getKey();
+                final Map<String, String> metadata = new HashMap<String, String>();
+                for ( int i = 0; i < cols.length; i++ )
+                {
+                    putDecoded( metadata, cols[i], codes.get( i ) );
+                }
+
+                result.put( metadata, entry.getValue() );
+            }
+
+            return result;
+        }
+
+        final long[] combined = new long[rows.length];
+        for ( int i = 0; i < cols.length; i++ )
+        {
+            final Column col = cols[i];
+            final long stride = strides[i];
+            for ( int r = 0; r < rows.length; r++ )
+            {
+                combined[r] += col.codeAt( rows[r] ) * stride;
+            }
+        }
+
+        if ( combinations <= DENSE_GROUP_LIMIT )
+        {
+            final int[] counts = new int[(int) combinations];
+            for ( final long code : combined )
+            {
+                counts[(int) code]++;
+            }
+
+            @SuppressWarnings( "unchecked" )
+            final Set<ProjectVersionRef>[] groups = new Set[(int) combinations];
+            for ( int r = 0; r < rows.length; r++ )
+            {
+                final int code = (int) combined[r];
+                Set<ProjectVersionRef> group = groups[code];
+                if ( group == null )
+                {
+                    group = new HashSet<ProjectVersionRef>( Math.max( 16, counts[code] * 2 ) );
+                    groups[code] = group;
+                }
+
+                group.add( projects[r] );
+            }
+
+            for ( int code = 0; code < groups.length; code++ )
+            {
+                if ( groups[code] != null )
+                {
+                    result.put( decode( cols, strides, code ), groups[code] );
+                }
+            }
+        }
+        else
+        {
+            final Map<Long, Set<ProjectVersionRef>> groups = new HashMap<Long, Set<ProjectVersionRef>>();
+            for ( int r = 0; r < rows.length; r++ )
+            {
+                addToGroup( groups, combined[r], projects[r] );
+            }
+
+            for ( final Map.Entry<Long, Set<ProjectVersionRef>> entry : groups.entrySet() )
+            {
+                result.put( decode( cols, strides, entry.getKey() ), entry.getValue() );
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Unload the project's row in every column, so it's reread on next use.
+     */
+    public synchronized void invalidate( final ProjectVersionRef ref )
+    {
+        final int row = interner.versionId( ref );
+        for ( final Column col : columns.values() )
+        {
+            col.unload( row );
+        }
+
+        if ( readsInFlight > 0 )
+        {
+            invalidatedDuringRead.add( row );
+        }
+    }
+
+    public synchronized void clear()
+    {
+        columns.clear();
+    }
+
+    /**
+     * Find the projects' row ids and, for each project, which keys have to be read from the connection. Pseudo-keys
+     * are filled in here, since they don't need a read.
+     */
+    private Load plan( final ProjectVersionRef[] projects, final Set<String> keys )
+    {
+        final Column[] cols = new Column[keys.size()];
+        int c = 0;
+        for ( final String key : keys )
+        {
+            Column col = columns.get( key );
+            if ( col == null )
+            {
+                col = new Column( key );
+                columns.put( key, col );
+            }
+
+            cols[c++] = col;
+        }
+
+        final Load load = new Load( projects, cols );
+        for ( int r = 0; r < projects.length; r++ )
+        {
+            final ProjectVersionRef ref = projects[r];
+            final int row = interner.versionId( ref );
+            load.rows[r] = row;
+
+            Set<String> missing = null;
+            for ( final Column col : cols )
+            {
+                if ( col.isLoaded( row ) )
+                {
+                    continue;
+                }
+
+                if ( isPseudoKey( col.key ) )
+                {
+                    col.set( row, pseudoValue( ref, col.key ) );
+                }
+                else
+                {
+                    if ( missing == null )
+                    {
+                        missing = new HashSet<String>();
+                    }
+
+                    missing.add( col.key );
+                }
+            }
+
+            load.missing[r] = missing;
+        }
+
+        return load;
+    }
+
+    /**
+     * Store what the load read. Rows invalidated while it was reading are stored (the calling query still uses them)
+     * and then unloaded again, so the next query rereads them.
+     */
+    private void publish( final Load load )
+    {
+        for ( int r = 0; r < load.rows.length; r++ )
+        {
+            final Set<String> missing = load.missing[r];
+            if ( missing == null )
+            {
+                continue;
+            }
+
+            final int row = load.rows[r];
+            final Map<String, String> metadata = load.values[r];
+            final boolean stale = invalidatedDuringRead.contains( row );
+            for ( final Column col : load.cols )
+            {
+                if ( missing.contains( col.key ) )
+                {
+                    col.set( row, metadata == null ? null : metadata.get( col.key ) );
+                    if ( stale )
+                    {
+                        col.unload( row );
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isPseudoKey( final String key )
+    {
+        return GROUP_ID.equals( key ) || ARTIFACT_ID.equals( key ) || VERSION.equals( key );
+    }
+
+    private static String pseudoValue( final ProjectVersionRef ref, final String key )
+    {
+        if ( GROUP_ID.equals( key ) )
+        {
+            return ref.getGroupId();
+        }
+
+        return ARTIFACT_ID.equals( key ) ? ref.getArtifactId() : ref.getVersionString();
+    }
+
+    private static Map<String, String> decode( final Column[] cols, final long[] strides, final long combined )
+    {
+        final Map<String, String> metadata = new HashMap<String, String>();
+        long rest = combined;
+        for ( int i = cols.length - 1; i >= 0; i-- )
+        {
+            final int code = (int) ( rest / strides[i] );
+            rest -= code * strides[i];
+            putDecoded( metadata, cols[i], code );
+        }
+
+        return metadata;
+    }
+
+    private static void putDecoded( final Map<String, String> metadata, final Column col, final int code )
+    {
+        if ( code > 0 )
+        {
+            metadata.put( col.key, col.dictionary.get( code - 1 ) );
+        }
+    }
+
+    private static <K> void addToGroup( final Map<K, Set<ProjectVersionRef>> groups, final K key,
+                                        final ProjectVersionRef ref )
+    {
+        Set<ProjectVersionRef> group = groups.get( key );
+        if ( group == null )
+        {
+            group = new HashSet<ProjectVersionRef>();
+            groups.put( key, group );
+        }
+
+        group.add( ref );
+    }
+
+    /**
+     * The rows one {@link #collate} call needs, the keys it has to read for each project (null if none) and, once
+     * read, what the connection returned.
+     */
+    private static final class Load
+    {
+        private final ProjectVersionRef[] projects;
+
+        private final Column[] cols;
+
+        private final int[] rows;
+
+        private final Set<String>[] missing;
+
+        private Map<String, String>[] values;
+
+        @SuppressWarnings( "unchecked" )
+        Load( final ProjectVersionRef[] projects, final Column[] cols )
+        {
+            this.projects = projects;
+            this.cols = cols;
+            this.rows = new int[projects.length];
+            this.missing = new Set[projects.length];
+        }
+
+        boolean isComplete()
+        {
+            for ( final Set<String> keys : missing )
+            {
+                if ( keys != null )
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * One metadata read per project that's missing any keys. Called without holding the instance lock.
+         */
+        @SuppressWarnings( "unchecked" )
+        void read( final RelationshipGraphConnection connection )
+        {
+            final Map<String, String>[] read = new Map[projects.length];
+            for ( int r = 0; r < projects.length; r++ )
+            {
+                if ( missing[r] != null )
+                {
+                    read[r] = connection.getMetadata( projects[r], missing[r] );
+                }
+            }
+
+            values = read;
+        }
+    }
+
+    /**
+     * One key's values: codes by row (0 for no value, otherwise dictionary index + 1) and which rows are loaded.
+     */
+    private static final class Column
+    {
+        private final String key;
+
+        private final List<String> dictionary = new ArrayList<String>();
+
+        private final Map<String, Integer> codes = new HashMap<String, Integer>();
+
+        private int[] values = new int[64];
+
+        private long[] loaded = new long[1];
+
+        Column( final String key )
+        {
+            this.key = key;
+        }
+
+        int codeAt( final int row )
+        {
+            return row < values.length ? values[row] : 0;
+        }
+
+        boolean isLoaded( final int row )
+        {
+            final int word = row >>> 6;
+            return word < loaded.length && ( loaded[word] & ( 1L << row ) ) != 0;
+        }
+
+        void set( final int row, final String value )
+        {
+            if ( row >= values.length )
+            {
+                values = Arrays.copyOf( values, Math.max( values.length * 2, row + 1 ) );
+            }
+
+            final int word = row >>> 6;
+            if ( word >= loaded.length )
+            {
+                loaded = Arrays.copyOf( loaded, Math.max( loaded.length * 2, word + 1 ) );
+            }
+
+            loaded[word] |= 1L << row;
+
+            if ( value == null )
+            {
+                values[row] = 0;
+                return;
+            }
+
+            Integer code = codes.get( value );
+            if ( code == null )
+            {
+                dictionary.add( value );
+                code = dictionary.size();
+                codes.put( value, code );
+            }
+
+            values[row] = code;
+        }
+
+        void unload( final int row )
+        {
+            final int word = row >>> 6;
+            if ( word < loaded.length )
+            {
+                loaded[word] &= ~( 1L << row );
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+
+/**
+ * A graph's projects, sorted by GAV string so that the projects whose GAV starts with a given prefix are a contiguous
+ * range, found with a binary search. Built from one read of the graph's projects and tagged with the workspace
+ * modification stamp it was read at, so the graph can tell when it needs rebuilding.
+ */
+public final class ProjectGavIndex
+{
+
+    private final long stamp;
+
+    private final String[] gavs;
+
+    private final ProjectVersionRef[] projects;
+
+    public ProjectGavIndex( final long stamp, final Collection<ProjectVersionRef> refs )
+    {
+        this.stamp = stamp;
+
+        final ProjectVersionRef[] unsorted = refs.toArray( new ProjectVersionRef[refs.size()] );
+        final String[] keys = new String[unsorted.length];
+        final Integer[] order = new Integer[unsorted.length];
+        for ( int i = 0; i < unsorted.length; i++ )
+        {
+            keys[i] = unsorted[i].toString();
+            order[i] = i;
+        }
+
+        Arrays.sort( order, ( a, b ) -> keys[a].compareTo( keys[b] ) );
+
+        gavs = new String[order.length];
+        projects = new ProjectVersionRef[order.length];
+        for ( int i = 0; i < order.length; i++ )
+        {
+            gavs[i] = keys[order[i]];
+            projects[i] = unsorted[order[i]];
+        }
+    }
+
+    public long getStamp()
+    {
+        return stamp;
+    }
+
+    public int size()
+    {
+        return projects.length;
+    }
+
+    /**
+     * The projects whose GAV string starts with the given prefix, in GAV string order.
+     */
+    public List<ProjectVersionRef> withPrefix( final String prefix )
+    {
+        if ( prefix == null || prefix.isEmpty() )
+        {
+            return Collections.unmodifiableList( Arrays.asList( projects ) );
+        }
+
+        int from = Arrays.binarySearch( gavs, prefix );
+        if ( from < 0 )
+        {
+            from = -from - 1;
+        }
+
+        int to = from;
+        while ( to < gavs.length && gavs[to].startsWith( prefix ) )
+        {
+            to++;
+        }
+
+        return Collections.unmodifiableList( Arrays.asList( projects ).subList( from, to ) );
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.commonjava.maven.atlas.ident.ref.ProjectRef;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+
+/**
+ * Assigns small, stable int ids to the GAVs and GAs it sees, so whole-graph operations can key their intermediate
+ * state with {@link IntObjectMap} / {@link IntSet} instead of hashing {@link ProjectVersionRef}s (whose equals() and
+ * hashCode() go through version parsing) over and over.
+ *
+ * Lookups only hash and compare the groupId, artifactId and version strings. That means two refs whose version strings
+ * differ but parse to equal versions (eg. 1.0 and 1.0.0) get different ids; callers that hand results back out keyed
+ * by ref have to merge those, just as a {@link java.util.HashMap} would have.
+ *
+ * GAV ids and GA ids are allocated independently, starting from 0. Instances are thread-safe. One is kept per
+ * workspace (see {@link org.commonjava.cartographer.graph.RelationshipGraph#getRefInterner()}), and the static
+ * utilities create a throwaway one when they aren't given one.
+ *
+ * @author jdcasey
+ */
+public final class ProjectRefInterner
+{
+
+    private final Table versions = new Table();
+
+    private final Table projects = new Table();
+
+    /**
+     * Retrieve the id of the given GAV, allocating one if it's new. Any subclass (eg. an artifact) maps to the id of
+     * its GAV.
+     */
+    public synchronized int versionId( final ProjectVersionRef ref )
+    {
+        return versions.idOf( ref.getGroupId(), ref.getArtifactId(), ref.getVersionString(), ref );
+    }
+
+    /**
+     * Retrieve the id of the given GA, allocating one if it's new. Versioned refs map to the id of their GA.
+     */
+    public synchronized int projectId( final ProjectRef ref )
+    {
+        return projects.idOf( ref.getGroupId(), ref.getArtifactId(), null, ref );
+    }
+
+    /**
+     * Retrieve the GAV with the given id, as a plain {@link ProjectVersionRef}.
+     */
+    public synchronized ProjectVersionRef getVersionRef( final int id )
+    {
+        return (ProjectVersionRef) versions.refs.get( id );
+    }
+
+    /**
+     * Retrieve the GA with the given id, as a plain {@link ProjectRef}.
+     */
+    public synchronized ProjectRef getProjectRef( final int id )
+    {
+        return projects.refs.get( id );
+    }
+
+    public synchronized int getVersionCount()
+    {
+        return versions.refs.size();
+    }
+
+    public synchronized int getProjectCount()
+    {
+        return projects.refs.size();
+    }
+
+    /**
+     * Open-addressing table from (groupId, artifactId, version) to id. Slots hold ids; the refs and their hashes are
+     * stored by id.
+     */
+    private static final class Table
+    {
+        private static final int FREE = -1;
+
+        private final List<ProjectRef> refs = new ArrayList<ProjectRef>();
+
+        private int[] hashes = new int[16];
+
+        private int[] slots = newSlots( 32 );
+
+        int idOf( final String groupId, final String artifactId, final String version, final ProjectRef ref )
+        {
+            final int hash = hash( groupId, artifactId, version );
+            final int mask = slots.length - 1;
+
+            int slot = IntSet.slot( hash, mask );
+            int id;
+            while ( ( id = slots[slot] ) != FREE )
+            {
+                if ( hashes[id] == hash && matches( refs.get( id ), groupId, artifactId, version ) )
+                {
+                    return id;
+                }
+
+                slot = ( slot + 1 ) & mask;
+            }
+
+            id = refs.size();
+            refs.add( version == null ? ref.asProjectRef() : ( (ProjectVersionRef) ref ).asProjectVersionRef() );
+            if ( id == hashes.length )
+            {
+                hashes = Arrays.copyOf( hashes, id * 2 );
+            }
+
+            hashes[id] = hash;
+            slots[slot] = id;
+
+            // keep the load factor at or below 1/2.
+            if ( refs.size() * 2 > slots.length )
+            {
+                rehash( slots.length * 2 );
+            }
+
+            return id;
+        }
+
+        private void rehash( final int capacity )
+        {
+            slots = newSlots( capacity );
+
+            final int mask = capacity - 1;
+            for ( int id = 0; id < refs.size(); id++ )
+            {
+                int slot = IntSet.slot( hashes[id], mask );
+                while ( slots[slot] != FREE )
+                {
+                    slot = ( slot + 1 ) & mask;
+                }
+
+                slots[slot] = id;
+            }
+        }
+
+        private static boolean matches( final ProjectRef stored, final String groupId, final String artifactId,
+                                        final String version )
+        {
+            if ( !stored.getArtifactId()
+                        .equals( artifactId ) || !stored.getGroupId()
+                                                        .equals( groupId ) )
+            {
+                return false;
+            }
+
+            return version == null || version.equals( ( (ProjectVersionRef) stored ).getVersionString() );
+        }
+
+        private static int hash( final String groupId, final String artifactId, final String version )
+        {
+            final int prime = 31;
+            int result = groupId.hashCode();
+            result = prime * result + artifactId.hashCode();
+            result = prime * result + ( version == null ? 0 : version.hashCode() );
+            return result;
+        }
+
+        private static int[] newSlots( final int capacity )
+        {
+            final int[] slots = new int[capacity];
+            Arrays.fill( slots, FREE );
+            return slots;
+        }
+    }
+
+}
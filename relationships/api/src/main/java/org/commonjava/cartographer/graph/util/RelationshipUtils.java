@@ -75,18 +75,29 @@ public final class RelationshipUtils
     }
 
     public static Map<ProjectVersionRef, List<ProjectRelationship<?, ?>>> mapByDeclaring( final Collection<? extends ProjectRelationship<?, ?>> relationships )
+    {
+        return mapByDeclaring( relationships, new ProjectRefInterner() );
+    }
+
+    /**
+     * Group the relationships by declaring GAV. Grouping is done by the ids from the given interner, so each
+     * declaring ref is only hashed as a {@link ProjectVersionRef} once, when the result map is built.
+     */
+    public static Map<ProjectVersionRef, List<ProjectRelationship<?, ?>>> mapByDeclaring( final Collection<? extends ProjectRelationship<?, ?>> relationships,
+                                                                                          final ProjectRefInterner refIds )
     {
         final Logger logger = LoggerFactory.getLogger( RelationshipUtils.class );
         logger.debug( "Mapping {} relationships by declaring GAV:\n\n  {}\n\n", relationships.size(), new JoinString( "\n  ", relationships ) );
-        final Map<ProjectVersionRef, List<ProjectRelationship<?, ?>>> result = new HashMap<ProjectVersionRef, List<ProjectRelationship<?, ?>>>();
+
+        final IntObjectMap<List<ProjectRelationship<?, ?>>> byId = new IntObjectMap<List<ProjectRelationship<?, ?>>>();
         for ( final ProjectRelationship<?, ?> rel : relationships )
         {
-            final ProjectVersionRef declaring = rel.getDeclaring();
-            List<ProjectRelationship<?, ?>> outbound = result.get( declaring );
+            final int id = refIds.versionId( rel.getDeclaring() );
+            List<ProjectRelationship<?, ?>> outbound = byId.get( id );
             if ( outbound == null )
             {
                 outbound = new ArrayList<ProjectRelationship<?, ?>>();
-                result.put( rel.getDeclaring(), outbound );
+                byId.put( id, outbound );
             }
 
             if ( !outbound.contains( rel ) )
@@ -95,8 +106,28 @@ public final class RelationshipUtils
             }
         }
 
-        return result;
+        final Map<ProjectVersionRef, List<ProjectRelationship<?, ?>>> result =
+            new HashMap<ProjectVersionRef, List<ProjectRelationship<?, ?>>>( byId.size() * 2 );
+
+        byId.forEach( ( id, outbound ) -> {
+            final ProjectVersionRef declaring = outbound.get( 0 )
+                                                        .getDeclaring();
+
+            // version strings that differ but parse to the same version (1.0 vs. 1.0.0) land in the same entry.
+            final List<ProjectRelationship<?, ?>> existing = result.put( declaring, outbound );
+            if ( existing != null )
+            {
+                for ( final ProjectRelationship<?, ?> rel : existing )
+                {
+                    if ( !outbound.contains( rel ) )
+                    {
+                        outbound.add( rel );
+                    }
+                }
+            }
+        } );
 
+        return result;
     }
 
     public static URI profileLocation( final String profile )
@@ -181,10 +212,15 @@ public final class RelationshipUtils
 
     public static Set<ProjectVersionRef> declarers( final Collection<? extends ProjectRelationship<?, ?>> relationships )
     {
+        final ProjectRefInterner refIds = new ProjectRefInterner();
+        final IntSet seen = new IntSet( relationships.size() );
         final Set<ProjectVersionRef> results = new HashSet<ProjectVersionRef>();
         for ( final ProjectRelationship<?, ?> rel : relationships )
         {
-            results.add( rel.getDeclaring() );
+            if ( seen.add( refIds.versionId( rel.getDeclaring() ) ) )
+            {
+                results.add( rel.getDeclaring() );
+            }
         }
 
         return results;
@@ -218,14 +254,22 @@ public final class RelationshipUtils
 
     public static Set<ProjectVersionRef> gavs( final Collection<? extends ProjectRelationship<?, ?>> relationships )
     {
+        final ProjectRefInterner refIds = new ProjectRefInterner();
+        final IntSet seen = new IntSet( relationships.size() );
         final Set<ProjectVersionRef> results = new HashSet<ProjectVersionRef>();
         for ( final ProjectRelationship<?, ?> rel : relationships )
         {
-            results.add( rel.getDeclaring()
-                            .asProjectVersionRef() );
+            if ( seen.add( refIds.versionId( rel.getDeclaring() ) ) )
+            {
+                results.add( rel.getDeclaring()
+                                .asProjectVersionRef() );
+            }
 
-            results.add( rel.getTarget()
-                            .asProjectVersionRef() );
+            if ( seen.add( refIds.versionId( rel.getTarget() ) ) )
+            {
+                results.add( rel.getTarget()
+                                .asProjectVersionRef() );
+            }
         }
 
         return results;
@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.model;
+
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.net.URI;
+
+import org.commonjava.cartographer.graph.ViewParams;
+import org.commonjava.cartographer.graph.filter.DependencyFilter;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.maven.atlas.ident.DependencyScope;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.junit.Test;
+
+public class GraphPathInfoInternerTest
+{
+
+    @Test
+    public void childrenOfEqualKindShareInstance()
+        throws Exception
+    {
+        final URI source = new URI( "test:repo:childrenOfEqualKindShareInstance" );
+        final ProjectVersionRef root = new SimpleProjectVersionRef( "g", "root", "1" );
+        final ViewParams params =
+            new ViewParams( "test", new DependencyFilter( DependencyScope.runtime ), null, root );
+
+        final GraphPathInfoInterner interner = new GraphPathInfoInterner( null, params );
+
+        final ProjectRelationship<?, ?> first =
+            new SimpleDependencyRelationship( source, root, new SimpleProjectVersionRef( "g", "a", "1" ).asJarArtifact(),
+                                              DependencyScope.compile, 0, false, false, false );
+        final ProjectRelationship<?, ?> second =
+            new SimpleDependencyRelationship( source, root, new SimpleProjectVersionRef( "g", "b", "1" ).asJarArtifact(),
+                                              DependencyScope.compile, 1, false, false, false );
+
+        final GraphPathInfo rootInfo = interner.getRootPathInfo();
+        final GraphPathInfo a = rootInfo.getChildPathInfo( first );
+        final GraphPathInfo b = rootInfo.getChildPathInfo( second );
+
+        assertThat( b, sameInstance( a ) );
+        assertThat( a.getChildPathInfo( second ), sameInstance( b.getChildPathInfo( first ) ) );
+        assertThat( interner.intern( new GraphPathInfo( null, params ) ), sameInstance( rootInfo ) );
+    }
+
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.mutate;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.commonjava.cartographer.graph.spi.FakeGraphConnection;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.ident.ref.ProjectRef;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.junit.Test;
+
+public class ManagedDependencyMutatorTest
+{
+
+    private final ProjectVersionRef root = new SimpleProjectVersionRef( "org.foo", "root", "1" );
+
+    private final ProjectVersionRef dep = new SimpleProjectVersionRef( "org.foo", "dep", "1" );
+
+    @Test
+    public void sameDeclaringProjectInTwoWorkspaces()
+    {
+        final FakeGraphConnection first = new FakeGraphConnection( "first" );
+        final ProjectRelationship<?, ?> firstRel = first.dependency( root, dep );
+        first.managed( root, new SimpleProjectVersionRef( "org.foo", "dep", "2" ) );
+
+        final FakeGraphConnection second = new FakeGraphConnection( "second" );
+        final ProjectRelationship<?, ?> secondRel = second.dependency( root, dep );
+        second.managed( root, new SimpleProjectVersionRef( "org.foo", "dep", "3" ) );
+
+        final ManagedDependencyMutator mutator = ManagedDependencyMutator.INSTANCE;
+
+        assertThat( managedVersion( mutator.getMutatorFor( firstRel, first.getConnection(), null ) ),
+                    equalTo( "2" ) );
+        assertThat( managedVersion( mutator.getMutatorFor( secondRel, second.getConnection(), null ) ),
+                    equalTo( "3" ) );
+        assertThat( managedVersion( mutator.getMutatorFor( firstRel, first.getConnection(), null ) ),
+                    equalTo( "2" ) );
+    }
+
+    @Test
+    public void managementStoredAfterTheFirstLookupIsSeen()
+    {
+        final FakeGraphConnection fake = new FakeGraphConnection( "late" );
+        final ProjectRelationship<?, ?> rel = fake.dependency( root, dep );
+
+        final ManagedDependencyMutator mutator = ManagedDependencyMutator.INSTANCE;
+        assertThat( managedVersion( mutator.getMutatorFor( rel, fake.getConnection(), null ) ), nullValue() );
+
+        fake.managed( root, new SimpleProjectVersionRef( "org.foo", "dep", "2" ) );
+        assertThat( managedVersion( mutator.getMutatorFor( rel, fake.getConnection(), null ) ), equalTo( "2" ) );
+    }
+
+    private String managedVersion( final GraphMutator child )
+    {
+        final ProjectRef ga = dep.asProjectRef();
+        final ProjectVersionRef managed = ( (ManagedDependencyMutator) child ).getManagedVersions()
+                                                                              .get( ga );
+
+        return managed == null ? null : managed.getVersionString();
+    }
+
+}
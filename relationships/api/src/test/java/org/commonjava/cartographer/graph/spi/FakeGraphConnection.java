@@ -0,0 +1,358 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.spi;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.commonjava.cartographer.graph.model.GraphPath;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.maven.atlas.ident.DependencyScope;
+import org.commonjava.maven.atlas.ident.ref.ProjectRef;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+
+/**
+ * In-memory stand-in for a driver, for unit tests of code that only makes a few {@link RelationshipGraphConnection}
+ * calls: relationships declared by a project, relationships targeting a GA, managed dependencies, path creation,
+ * metadata reads, the workspace id and the modification stamp. Each change draws a new modification stamp. Any
+ * other call fails with {@link UnsupportedOperationException}. Records how many times each project was expanded
+ * and how many times its metadata was read.
+ *
+ * @author jdcasey
+ */
+public final class FakeGraphConnection
+    implements InvocationHandler
+{
+
+    private static final URI SOURCE;
+
+    static
+    {
+        try
+        {
+            SOURCE = new URI( "test:repo" );
+        }
+        catch ( final URISyntaxException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private final Map<ProjectVersionRef, List<ProjectRelationship<?, ?>>> declared =
+        new HashMap<ProjectVersionRef, List<ProjectRelationship<?, ?>>>();
+
+    private final Map<ProjectVersionRef, List<ProjectRelationship<?, ?>>> targeting =
+        new HashMap<ProjectVersionRef, List<ProjectRelationship<?, ?>>>();
+
+    private final Map<ProjectVersionRef, Map<String, String>> metadata =
+        new HashMap<ProjectVersionRef, Map<String, String>>();
+
+    private final Map<ProjectVersionRef, Map<ProjectRef, ProjectVersionRef>> managed =
+        new HashMap<ProjectVersionRef, Map<ProjectRef, ProjectVersionRef>>();
+
+    private final Map<ProjectVersionRef, Integer> metadataReads = new HashMap<ProjectVersionRef, Integer>();
+
+    private final Map<ProjectVersionRef, Integer> expanded = new HashMap<ProjectVersionRef, Integer>();
+
+    private final RelationshipGraphConnection connection;
+
+    private final String workspaceId;
+
+    private volatile long stamp = ModificationStamps.next();
+
+    private volatile Runnable metadataReadHook;
+
+    public FakeGraphConnection()
+    {
+        this( "fake" );
+    }
+
+    public FakeGraphConnection( final String workspaceId )
+    {
+        this.workspaceId = workspaceId;
+        final Class<?>[] types = { RelationshipGraphConnection.class };
+        connection = (RelationshipGraphConnection) Proxy.newProxyInstance( getClass().getClassLoader(), types, this );
+    }
+
+    public RelationshipGraphConnection getConnection()
+    {
+        return connection;
+    }
+
+    /**
+     * Add a compile-scoped dependency from one project to the other, with the given exclusions.
+     */
+    public ProjectRelationship<?, ?> dependency( final ProjectVersionRef from, final ProjectVersionRef to,
+                                                 final ProjectRef... excludes )
+    {
+        final ProjectRelationship<?, ?> rel =
+            new SimpleDependencyRelationship( SOURCE, from, to.asJarArtifact(), DependencyScope.compile, 0, false,
+                                              false, false, excludes );
+
+        add( declared, from, rel );
+        add( targeting, to, rel );
+        stamp = ModificationStamps.next();
+
+        return rel;
+    }
+
+    /**
+     * Record that the declaring project manages the given version of its GA.
+     */
+    public synchronized void managed( final ProjectVersionRef declaring, final ProjectVersionRef version )
+    {
+        Map<ProjectRef, ProjectVersionRef> versions = managed.get( declaring );
+        if ( versions == null )
+        {
+            versions = new HashMap<ProjectRef, ProjectVersionRef>();
+            managed.put( declaring, versions );
+        }
+
+        versions.put( version.asProjectRef(), version );
+        stamp = ModificationStamps.next();
+    }
+
+    /**
+     * Replace the project's metadata with the given key / value pairs.
+     */
+    public synchronized void metadata( final ProjectVersionRef ref, final String... pairs )
+    {
+        final Map<String, String> values = new HashMap<String, String>();
+        for ( int i = 0; i < pairs.length; i += 2 )
+        {
+            values.put( pairs[i], pairs[i + 1] );
+        }
+
+        metadata.put( ref, values );
+        stamp = ModificationStamps.next();
+    }
+
+    /**
+     * Run the hook during each metadata read, after the stored values have been looked up but before they're returned.
+     * Pass null to stop.
+     */
+    public void onMetadataRead( final Runnable hook )
+    {
+        this.metadataReadHook = hook;
+    }
+
+    public synchronized int getMetadataReads( final ProjectVersionRef ref )
+    {
+        final Integer count = metadataReads.get( ref );
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Projects whose declared relationships have been read.
+     */
+    public synchronized Set<ProjectVersionRef> getExpanded()
+    {
+        return new HashSet<ProjectVersionRef>( expanded.keySet() );
+    }
+
+    /**
+     * How many times the project's declared relationships have been read.
+     */
+    public synchronized int getExpansions( final ProjectVersionRef ref )
+    {
+        final Integer count = expanded.get( ref );
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public Object invoke( final Object proxy, final Method method, final Object[] args )
+    {
+        switch ( method.getName() )
+        {
+            case "getRelationshipsDeclaredBy":
+            {
+                synchronized ( this )
+                {
+                    final Integer count = expanded.get( args[1] );
+                    expanded.put( (ProjectVersionRef) args[1], count == null ? 1 : count + 1 );
+                    return declared.get( args[1] );
+                }
+            }
+            case "getRelationshipsTargetingGA":
+            {
+                return getRelationshipsTargetingGA( ( (ProjectRef) args[1] ).asProjectRef() );
+            }
+            case "createPath":
+            {
+                if ( args.length == 2 )
+                {
+                    return new FakePath( (FakePath) args[0], (ProjectRelationship<?, ?>) args[1] );
+                }
+
+                final ProjectRelationship<?, ?>[] rels = (ProjectRelationship<?, ?>[]) args[0];
+                return new FakePath( null, rels[0] );
+            }
+            case "getManagedTargets":
+            {
+                synchronized ( this )
+                {
+                    final Map<ProjectRef, ProjectVersionRef> versions = managed.get( args[0] );
+                    return versions == null ? new HashMap<ProjectRef, ProjectVersionRef>()
+                                    : new HashMap<ProjectRef, ProjectVersionRef>( versions );
+                }
+            }
+            case "getWorkspaceId":
+            {
+                return workspaceId;
+            }
+            case "getModificationStamp":
+            {
+                return stamp;
+            }
+            case "getMetadata":
+            {
+                @SuppressWarnings( "unchecked" )
+                final Set<String> keys = args.length > 1 ? (Set<String>) args[1] : null;
+                return getMetadata( (ProjectVersionRef) args[0], keys );
+            }
+            case "hashCode":
+            {
+                return System.identityHashCode( proxy );
+            }
+            case "equals":
+            {
+                return proxy == args[0];
+            }
+            case "toString":
+            {
+                return "FakeGraphConnection [" + workspaceId + "]";
+            }
+            default:
+            {
+                throw new UnsupportedOperationException( method.getName() );
+            }
+        }
+    }
+
+    private synchronized List<ProjectRelationship<?, ?>> getRelationshipsTargetingGA( final ProjectRef ga )
+    {
+        final List<ProjectRelationship<?, ?>> result = new ArrayList<ProjectRelationship<?, ?>>();
+        for ( final Map.Entry<ProjectVersionRef, List<ProjectRelationship<?, ?>>> entry : targeting.entrySet() )
+        {
+            if ( entry.getKey()
+                      .asProjectRef()
+                      .equals( ga ) )
+            {
+                result.addAll( entry.getValue() );
+            }
+        }
+
+        return result;
+    }
+
+    private Map<String, String> getMetadata( final ProjectVersionRef ref, final Set<String> keys )
+    {
+        final Map<String, String> stored;
+        synchronized ( this )
+        {
+            final Integer count = metadataReads.get( ref );
+            metadataReads.put( ref, count == null ? 1 : count + 1 );
+            stored = metadata.get( ref );
+        }
+
+        // not under the lock, so the hook can change metadata from another thread.
+        final Runnable hook = metadataReadHook;
+        if ( hook != null )
+        {
+            hook.run();
+        }
+
+        final Map<String, String> result = new HashMap<String, String>();
+        if ( stored != null )
+        {
+            for ( final Map.Entry<String, String> entry : stored.entrySet() )
+            {
+                if ( keys == null || keys.contains( entry.getKey() ) )
+                {
+                    result.put( entry.getKey(), entry.getValue() );
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private synchronized void add( final Map<ProjectVersionRef, List<ProjectRelationship<?, ?>>> index,
+                                   final ProjectVersionRef ref, final ProjectRelationship<?, ?> rel )
+    {
+        List<ProjectRelationship<?, ?>> rels = index.get( ref );
+        if ( rels == null )
+        {
+            rels = new ArrayList<ProjectRelationship<?, ?>>();
+            index.put( ref, rels );
+        }
+
+        rels.add( rel );
+    }
+
+    /**
+     * A path that's just its relationships, linked back to its parent path so deep paths don't copy their prefix.
+     */
+    private static final class FakePath
+        implements GraphPath<ProjectRelationship<?, ?>>
+    {
+        private final FakePath parent;
+
+        private final ProjectRelationship<?, ?> rel;
+
+        FakePath( final FakePath parent, final ProjectRelationship<?, ?> rel )
+        {
+            this.parent = parent;
+            this.rel = rel;
+        }
+
+        @Override
+        public Iterator<ProjectRelationship<?, ?>> iterator()
+        {
+            return getRelationships().iterator();
+        }
+
+        @Override
+        public String getKey()
+        {
+            return getRelationships().toString();
+        }
+
+        private List<ProjectRelationship<?, ?>> getRelationships()
+        {
+            final LinkedList<ProjectRelationship<?, ?>> rels = new LinkedList<ProjectRelationship<?, ?>>();
+            for ( FakePath path = this; path != null; path = path.parent )
+            {
+                rels.addFirst( path.rel );
+            }
+
+            return rels;
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.traverse;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.commonjava.maven.atlas.graph.model.EProjectCycle;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.maven.atlas.ident.DependencyScope;
+import org.commonjava.maven.atlas.ident.ref.ProjectRef;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.junit.Test;
+
+public class BuildOrderSorterTest
+{
+
+    private static final int PROJECTS = 20000;
+
+    private static final int EDGES_PER_PROJECT = 5;
+
+    @Test
+    public void cycleIsReportedAndOrderedTogether()
+        throws Exception
+    {
+        final ProjectVersionRef a = project( "a" );
+        final ProjectVersionRef b = project( "b" );
+        final ProjectVersionRef c = project( "c" );
+        final ProjectVersionRef d = project( "d" );
+
+        final BuildOrderSorter sorter = new BuildOrderSorter();
+        add( sorter, d, a );
+        add( sorter, a, b );
+        add( sorter, b, c );
+        add( sorter, c, a );
+
+        final List<ProjectRef> order = sorter.getOrder();
+        assertThat( order.size(), equalTo( 4 ) );
+        assertThat( order.get( 3 ), equalTo( d.asProjectRef() ) );
+
+        final Set<EProjectCycle> cycles = sorter.getCycles();
+        assertThat( cycles.size(), equalTo( 1 ) );
+
+        int size = 0;
+        for ( final ProjectRelationship<?, ?> rel : cycles.iterator()
+                                                          .next() )
+        {
+            assertTrue( rel + " is not part of the cycle", !rel.getDeclaring()
+                                                                .equals( d ) );
+            size++;
+        }
+        assertThat( size, equalTo( 3 ) );
+    }
+
+    @Test
+    public void deepGraphIsSortedTopologically()
+        throws Exception
+    {
+        final Random rand = new Random( 42 );
+        final List<ProjectVersionRef> projects = new ArrayList<ProjectVersionRef>( PROJECTS );
+        for ( int i = 0; i < PROJECTS; i++ )
+        {
+            projects.add( project( "project-" + i ) );
+        }
+
+        // only reference projects with a higher index, so the graph is acyclic. The chain through every project
+        // makes the graph far deeper than a recursive sort could handle.
+        final List<ProjectRelationship<?, ?>> rels = new ArrayList<ProjectRelationship<?, ?>>();
+        for ( int i = 0; i < PROJECTS - 1; i++ )
+        {
+            rels.add( dependency( projects.get( i ), projects.get( i + 1 ) ) );
+            for ( int e = 0; e < EDGES_PER_PROJECT; e++ )
+            {
+                final int target = i + 1 + rand.nextInt( Math.min( 200, PROJECTS - i - 1 ) );
+                rels.add( dependency( projects.get( i ), projects.get( target ) ) );
+            }
+        }
+
+        final BuildOrderSorter sorter = new BuildOrderSorter();
+        for ( final ProjectRelationship<?, ?> rel : rels )
+        {
+            sorter.addEdge( rel.getDeclaring()
+                               .asProjectRef(), rel.getTarget()
+                                                   .asProjectRef(), rel );
+        }
+
+        final List<ProjectRef> order = sorter.getOrder();
+
+        assertThat( order.size(), equalTo( PROJECTS ) );
+        assertThat( sorter.getCycles()
+                          .isEmpty(), equalTo( true ) );
+
+        final Map<ProjectRef, Integer> positions = new HashMap<ProjectRef, Integer>();
+        for ( int i = 0; i < order.size(); i++ )
+        {
+            positions.put( order.get( i ), i );
+        }
+
+        for ( final ProjectRelationship<?, ?> rel : rels )
+        {
+            assertTrue( rel + " is out of order", positions.get( rel.getTarget()
+                                                                    .asProjectRef() ) < positions.get( rel.getDeclaring()
+                                                                                                          .asProjectRef() ) );
+        }
+    }
+
+    private void add( final BuildOrderSorter sorter, final ProjectVersionRef from, final ProjectVersionRef to )
+        throws Exception
+    {
+        sorter.addEdge( from.asProjectRef(), to.asProjectRef(), dependency( from, to ) );
+    }
+
+    private ProjectVersionRef project( final String artifactId )
+    {
+        return new SimpleProjectVersionRef( "org.test", artifactId, "1" );
+    }
+
+    private ProjectRelationship<?, ?> dependency( final ProjectVersionRef from, final ProjectVersionRef to )
+        throws Exception
+    {
+        return new SimpleDependencyRelationship( new URI( "test:repo" ), from, to.asJarArtifact(),
+                                                 DependencyScope.compile, 0, false, false, false );
+    }
+
+}
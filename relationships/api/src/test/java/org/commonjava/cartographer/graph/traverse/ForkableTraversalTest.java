@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.traverse;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.maven.atlas.ident.DependencyScope;
+import org.commonjava.maven.atlas.ident.ref.ArtifactRef;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.junit.Test;
+
+public class ForkableTraversalTest
+{
+
+    private final ProjectVersionRef rootA = new SimpleProjectVersionRef( "org.foo", "root-a", "1" );
+
+    private final ProjectVersionRef rootB = new SimpleProjectVersionRef( "org.foo", "root-b", "1" );
+
+    private final ProjectVersionRef lib = new SimpleProjectVersionRef( "org.foo", "lib", "1" );
+
+    private final ProjectVersionRef util = new SimpleProjectVersionRef( "org.foo", "util", "1" );
+
+    @Test
+    public void joinedBuildOrderMatchesSequentialTraversal()
+        throws Exception
+    {
+        final List<List<ProjectRelationship<?, ?>>> fromA = Arrays.asList( path( dep( rootA, lib ) ),
+                                                                           path( dep( rootA, lib ), dep( lib, util ) ) );
+        final List<List<ProjectRelationship<?, ?>>> fromB = Arrays.asList( path( dep( rootB, util ) ) );
+
+        final BuildOrderTraversal sequential = new BuildOrderTraversal();
+        walk( sequential, fromA );
+        walk( sequential, fromB );
+
+        final BuildOrderTraversal joined = new BuildOrderTraversal();
+        final BuildOrderTraversal forkA = joined.fork();
+        final BuildOrderTraversal forkB = joined.fork();
+
+        // finish out of order, as forks on a pool might.
+        walk( forkB, fromB );
+        walk( forkA, fromA );
+
+        joined.join( forkA );
+        joined.join( forkB );
+
+        assertThat( joined.getBuildOrder()
+                          .getOrder(), equalTo( sequential.getBuildOrder()
+                                                          .getOrder() ) );
+    }
+
+    @Test
+    public void joinedTransitiveDependenciesKeepNearestVersion()
+        throws Exception
+    {
+        final ProjectVersionRef util2 = new SimpleProjectVersionRef( "org.foo", "util", "2" );
+
+        final TransitiveDependencyTraversal traversal = new TransitiveDependencyTraversal();
+        final TransitiveDependencyTraversal forkA = traversal.fork();
+        final TransitiveDependencyTraversal forkB = traversal.fork();
+
+        walk( forkA, Arrays.asList( path( dep( rootA, lib ) ), path( dep( rootA, lib ), dep( lib, util ) ) ) );
+        walk( forkB, Arrays.asList( path( dep( rootB, util2 ) ) ) );
+
+        traversal.join( forkA );
+        traversal.join( forkB );
+
+        final List<ArtifactRef> artifacts = traversal.getArtifacts();
+        assertThat( artifacts.size(), equalTo( 2 ) );
+        assertThat( artifacts.get( 1 )
+                             .getVersionString(), equalTo( "2" ) );
+    }
+
+    private void walk( final RelationshipGraphTraversal traversal, final List<List<ProjectRelationship<?, ?>>> paths )
+    {
+        for ( final List<ProjectRelationship<?, ?>> path : paths )
+        {
+            final List<ProjectRelationship<?, ?>> parent = new ArrayList<ProjectRelationship<?, ?>>( path );
+            final ProjectRelationship<?, ?> last = parent.remove( parent.size() - 1 );
+            if ( traversal.traverseEdge( last, parent ) )
+            {
+                traversal.edgeTraversed( last, parent );
+            }
+        }
+    }
+
+    private List<ProjectRelationship<?, ?>> path( final ProjectRelationship<?, ?>... rels )
+    {
+        final List<ProjectRelationship<?, ?>> path = new ArrayList<ProjectRelationship<?, ?>>();
+        Collections.addAll( path, rels );
+        return path;
+    }
+
+    private ProjectRelationship<?, ?> dep( final ProjectVersionRef from, final ProjectVersionRef to )
+        throws Exception
+    {
+        return new SimpleDependencyRelationship( new URI( "test:repo" ), from, to.asJarArtifact(),
+                                                 DependencyScope.compile, 0, false, false, false );
+    }
+
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.traverse;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.commonjava.cartographer.graph.ViewParams;
+import org.commonjava.cartographer.graph.spi.RelationshipGraphConnection;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.maven.atlas.ident.DependencyScope;
+import org.commonjava.maven.atlas.ident.ref.ProjectRef;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.junit.Test;
+
+public class ImpactSearchTest
+{
+
+    private final ProjectVersionRef root = new SimpleProjectVersionRef( "org.foo", "root", "1" );
+
+    private final ProjectVersionRef other = new SimpleProjectVersionRef( "org.foo", "other", "1" );
+
+    private final ProjectVersionRef app = new SimpleProjectVersionRef( "org.foo", "app", "1" );
+
+    private final ProjectVersionRef lib = new SimpleProjectVersionRef( "org.foo", "lib", "1" );
+
+    private final ProjectVersionRef lib2 = new SimpleProjectVersionRef( "org.foo", "lib", "2" );
+
+    private final List<ProjectRelationship<?, ?>> rels = new ArrayList<ProjectRelationship<?, ?>>();
+
+    @Test
+    public void findsDependentsOfChangedVersionOnly()
+        throws Exception
+    {
+        dep( root, app, false );
+        dep( app, lib, false );
+        dep( other, lib2, false );
+        dep( other, lib, true );
+
+        final ImpactSearch search = new ImpactSearch( newConnection(), new ViewParams( "test", root ), false );
+
+        final Set<ProjectVersionRef> libDependents = new HashSet<ProjectVersionRef>( Arrays.asList( root, app ) );
+        assertThat( search.findImpactedProjects( lib ), equalTo( libDependents ) );
+        assertThat( search.findImpactedProjects( lib2 ), equalTo( Collections.singleton( other ) ) );
+
+        final Map<ProjectVersionRef, Set<ProjectVersionRef>> roots =
+            search.findImpactedRoots( Arrays.asList( lib, lib2 ) );
+        assertThat( roots.size(), equalTo( 1 ) );
+        assertThat( roots.get( lib ), equalTo( Collections.singleton( root ) ) );
+    }
+
+    @Test
+    public void projectsReachingAnyVersionOfTheTarget()
+        throws Exception
+    {
+        final ProjectVersionRef unrelated = new SimpleProjectVersionRef( "org.foo", "unrelated", "1" );
+
+        dep( root, app, false );
+        dep( app, lib, false );
+        dep( other, lib2, false );
+        dep( unrelated, other, true );
+
+        final ImpactSearch search = new ImpactSearch( newConnection(), new ViewParams( "test", root ), false );
+
+        final Set<ProjectVersionRef> reaching = new HashSet<ProjectVersionRef>( Arrays.asList( root, app, other ) );
+        assertThat( search.findProjectsReaching( Collections.singleton( lib ) ), equalTo( reaching ) );
+    }
+
+    private RelationshipGraphConnection newConnection()
+    {
+        // ImpactSearch only calls getRelationshipsTargetingGA().
+        final Class<?>[] types = { RelationshipGraphConnection.class };
+        return (RelationshipGraphConnection) Proxy.newProxyInstance( getClass().getClassLoader(), types,
+                                                                     ( proxy, method, args ) -> targeting(
+                                                                                     (ProjectRef) args[1] ) );
+    }
+
+    private List<ProjectRelationship<?, ?>> targeting( final ProjectRef ga )
+    {
+        final List<ProjectRelationship<?, ?>> result = new ArrayList<ProjectRelationship<?, ?>>();
+        for ( final ProjectRelationship<?, ?> rel : rels )
+        {
+            if ( rel.getTarget()
+                    .asProjectRef()
+                    .equals( ga.asProjectRef() ) )
+            {
+                result.add( rel );
+            }
+        }
+
+        return result;
+    }
+
+    private void dep( final ProjectVersionRef from, final ProjectVersionRef to, final boolean managed )
+        throws Exception
+    {
+        rels.add( new SimpleDependencyRelationship( new URI( "test:repo" ), from, to.asJarArtifact(),
+                                                    DependencyScope.compile, 0, managed, false, false ) );
+    }
+
+}
@@ -0,0 +1,215 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.traverse;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.commonjava.cartographer.graph.ViewParams;
+import org.commonjava.cartographer.graph.filter.DependencyFilter;
+import org.commonjava.cartographer.graph.mutate.NoOpGraphMutator;
+import org.commonjava.cartographer.graph.spi.FakeGraphConnection;
+import org.commonjava.cartographer.graph.spi.RelationshipGraphConnection;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.ident.DependencyScope;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs {@link PathSearch} over a ladder of diamonds: each rung has two projects, both depending on both projects of the
+ * next rung, so the number of paths to the bottom doubles with every rung. A long dead-end chain hangs off the root
+ * and should never be expanded.
+ */
+public class PathSearchTest
+{
+
+    private static final int RUNGS = 20;
+
+    private static final int DEEP_CHAIN = 10000;
+
+    private final FakeGraphConnection fake = new FakeGraphConnection();
+
+    private final ProjectVersionRef root = new SimpleProjectVersionRef( "org.foo", "root", "1" );
+
+    private final ProjectVersionRef bottom = new SimpleProjectVersionRef( "org.foo", "bottom", "1" );
+
+    private RelationshipGraphConnection connection;
+
+    private ViewParams params;
+
+    @Before
+    public void setup()
+        throws Exception
+    {
+        List<ProjectVersionRef> rung = Collections.singletonList( root );
+        for ( int i = 0; i < RUNGS; i++ )
+        {
+            final List<ProjectVersionRef> next =
+                Arrays.<ProjectVersionRef> asList( new SimpleProjectVersionRef( "org.foo", "left-" + i, "1" ),
+                                                   new SimpleProjectVersionRef( "org.foo", "right-" + i, "1" ) );
+            for ( final ProjectVersionRef from : rung )
+            {
+                for ( final ProjectVersionRef to : next )
+                {
+                    fake.dependency( from, to );
+                }
+            }
+
+            rung = next;
+        }
+
+        for ( final ProjectVersionRef from : rung )
+        {
+            fake.dependency( from, bottom );
+        }
+
+        ProjectVersionRef from = root;
+        for ( int i = 0; i < 100; i++ )
+        {
+            final ProjectVersionRef to = new SimpleProjectVersionRef( "org.bar", "dead-end-" + i, "1" );
+            fake.dependency( from, to );
+            from = to;
+        }
+
+        connection = fake.getConnection();
+
+        params = new ViewParams( "test", null, NoOpGraphMutator.INSTANCE, root );
+    }
+
+    @Test
+    public void countsEveryPathWithoutExpandingDeadEnds()
+    {
+        final PathSearch search = new PathSearch( connection, params, Collections.singleton( bottom ), null, true );
+
+        final long count = search.countPaths();
+        final List<PathSearch.Match> page = search.findPaths( count - 3, 10 );
+
+        assertThat( count, equalTo( 1L << RUNGS ) );
+        assertThat( page.size(), equalTo( 3 ) );
+        assertThat( page.get( 2 )
+                        .getRelationships()
+                        .size(), equalTo( RUNGS + 1 ) );
+        assertThat( page.get( 2 )
+                        .getTarget(), equalTo( bottom ) );
+
+        for ( final ProjectVersionRef ref : fake.getExpanded() )
+        {
+            assertThat( ref.getGroupId(), equalTo( "org.foo" ) );
+        }
+    }
+
+    @Test
+    public void deepChainDoesNotOverflowTheStack()
+    {
+        final FakeGraphConnection chain = new FakeGraphConnection();
+        final ProjectVersionRef start = new SimpleProjectVersionRef( "org.deep", "project-0", "1" );
+
+        ProjectVersionRef from = start;
+        for ( int i = 1; i <= DEEP_CHAIN; i++ )
+        {
+            final ProjectVersionRef to = new SimpleProjectVersionRef( "org.deep", "project-" + i, "1" );
+            chain.dependency( from, to );
+            from = to;
+        }
+
+        final PathSearch search =
+            new PathSearch( chain.getConnection(), new ViewParams( "test", null, NoOpGraphMutator.INSTANCE, start ),
+                            Collections.singleton( from ), null, true );
+
+        assertThat( search.countPaths(), equalTo( 1L ) );
+
+        final List<PathSearch.Match> page = search.findPaths( 0, 10 );
+        assertThat( page.size(), equalTo( 1 ) );
+        assertThat( page.get( 0 )
+                        .getRelationships()
+                        .size(), equalTo( DEEP_CHAIN ) );
+    }
+
+    /**
+     * X is counted first, from the first root, where the dependency on Y excludes X again. So X's count (one path,
+     * through Y) is memoized without any cycle being cut. The second root reaches X through Y with no exclusions, in
+     * the same state, but Y is already on that path, so X's memoized count doesn't apply there.
+     */
+    @Test
+    public void memoizedCountIsNotReusedBelowAProjectItTouched()
+    {
+        final FakeGraphConnection cyclic = new FakeGraphConnection();
+        final ProjectVersionRef first = new SimpleProjectVersionRef( "org.cycle", "a-root", "1" );
+        final ProjectVersionRef second = new SimpleProjectVersionRef( "org.cycle", "b-root", "1" );
+        final ProjectVersionRef x = new SimpleProjectVersionRef( "org.cycle", "x", "1" );
+        final ProjectVersionRef y = new SimpleProjectVersionRef( "org.cycle", "y", "1" );
+        final ProjectVersionRef target = new SimpleProjectVersionRef( "org.cycle", "target", "1" );
+
+        cyclic.dependency( first, x );
+        cyclic.dependency( x, y, x.asProjectRef() );
+        cyclic.dependency( y, target );
+        cyclic.dependency( y, x );
+        cyclic.dependency( second, y );
+
+        final ViewParams twoRoots = new ViewParams( "test", null, NoOpGraphMutator.INSTANCE, first, second );
+        final PathSearch search =
+            new PathSearch( cyclic.getConnection(), twoRoots, Collections.singleton( target ),
+                            new DependencyFilter( DependencyScope.compile ), false );
+
+        // a-root > x > y > target, and b-root > y > target.
+        assertThat( search.countPaths(), equalTo( 2L ) );
+
+        final List<PathSearch.Match> all = search.findPaths();
+        assertThat( all.size(), equalTo( 2 ) );
+        assertThat( all.get( 1 )
+                       .getRelationships()
+                       .size(), equalTo( 2 ) );
+
+        assertThat( relationships( search.findPaths( 1, 10 ) ), equalTo( relationships( all.subList( 1, 2 ) ) ) );
+    }
+
+    @Test
+    public void pagesDontOverlap()
+    {
+        final PathSearch search = new PathSearch( connection, params, Collections.singleton( bottom ), null, true );
+
+        final List<List<ProjectRelationship<?, ?>>> all = relationships( search.findPaths( 0, 40 ) );
+
+        final List<List<ProjectRelationship<?, ?>>> paged = new ArrayList<List<ProjectRelationship<?, ?>>>();
+        for ( int offset = 0; offset < 40; offset += 7 )
+        {
+            paged.addAll( relationships( search.findPaths( offset, Math.min( 7, 40 - offset ) ) ) );
+        }
+
+        assertThat( paged, equalTo( all ) );
+        assertThat( new HashSet<List<ProjectRelationship<?, ?>>>( all ).size(), equalTo( 40 ) );
+    }
+
+    private List<List<ProjectRelationship<?, ?>>> relationships( final List<PathSearch.Match> matches )
+    {
+        final List<List<ProjectRelationship<?, ?>>> result = new ArrayList<List<ProjectRelationship<?, ?>>>();
+        for ( final PathSearch.Match match : matches )
+        {
+            result.add( match.getRelationships() );
+        }
+
+        return result;
+    }
+
+}
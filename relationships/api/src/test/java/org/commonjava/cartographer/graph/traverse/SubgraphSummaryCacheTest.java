@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.traverse;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.commonjava.cartographer.graph.ViewParams;
+import org.commonjava.cartographer.graph.mutate.NoOpGraphMutator;
+import org.commonjava.cartographer.graph.spi.FakeGraphConnection;
+import org.commonjava.maven.atlas.ident.ref.ArtifactRef;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.junit.Test;
+
+public class SubgraphSummaryCacheTest
+{
+
+    private final FakeGraphConnection fake = new FakeGraphConnection();
+
+    private final ProjectVersionRef productA = new SimpleProjectVersionRef( "org.foo", "product-a", "1" );
+
+    private final ProjectVersionRef productB = new SimpleProjectVersionRef( "org.foo", "product-b", "1" );
+
+    private final ProjectVersionRef framework = new SimpleProjectVersionRef( "org.foo", "framework", "1" );
+
+    private final ProjectVersionRef core = new SimpleProjectVersionRef( "org.foo", "core", "1" );
+
+    private final ProjectVersionRef util = new SimpleProjectVersionRef( "org.foo", "util", "1" );
+
+    @Test
+    public void sharedSubgraphIsExpandedOnce()
+    {
+        fake.dependency( productA, framework );
+        fake.dependency( productB, framework );
+        fake.dependency( framework, core );
+        fake.dependency( core, util );
+
+        final SubgraphSummaryCache cache = newCache();
+
+        final TransitiveDependencyTraversal first = new TransitiveDependencyTraversal();
+        cache.traverse( first, productA );
+
+        final TransitiveDependencyTraversal second = new TransitiveDependencyTraversal();
+        cache.traverse( second, productB );
+
+        assertThat( artifactIds( first.getArtifacts() ), equalTo( artifactIds( second.getArtifacts() ) ) );
+        assertThat( second.getArtifacts()
+                          .size(), equalTo( 3 ) );
+        assertThat( fake.getExpansions( framework ), equalTo( 1 ) );
+        assertThat( fake.getExpansions( core ), equalTo( 1 ) );
+    }
+
+    @Test
+    public void summariesAreDroppedWhenTheGraphChanges()
+    {
+        fake.dependency( productA, framework );
+        fake.dependency( framework, core );
+
+        final SubgraphSummaryCache cache = newCache();
+        cache.traverse( new TransitiveDependencyTraversal(), productA );
+
+        fake.dependency( framework, util );
+
+        final TransitiveDependencyTraversal traversal = new TransitiveDependencyTraversal();
+        cache.traverse( traversal, productA );
+
+        assertThat( traversal.getArtifacts()
+                             .size(), equalTo( 3 ) );
+        assertThat( fake.getExpansions( framework ), equalTo( 2 ) );
+    }
+
+    @Test
+    public void cycleIsNotFollowedBackToItsStart()
+    {
+        fake.dependency( productA, framework );
+        fake.dependency( framework, core );
+        fake.dependency( core, framework );
+        fake.dependency( core, productA );
+
+        final SubgraphSummaryCache cache = newCache();
+
+        final TransitiveDependencyTraversal traversal = new TransitiveDependencyTraversal();
+        cache.traverse( traversal, productA );
+
+        assertThat( artifactIds( traversal.getArtifacts() ).size(), equalTo( 3 ) );
+        assertThat( fake.getExpansions( framework ), equalTo( 1 ) );
+        assertThat( fake.getExpansions( core ), equalTo( 1 ) );
+    }
+
+    private SubgraphSummaryCache newCache()
+    {
+        return new SubgraphSummaryCache( fake.getConnection(),
+                                         new ViewParams( "test", null, NoOpGraphMutator.INSTANCE, productA,
+                                                         productB ) );
+    }
+
+    private List<String> artifactIds( final List<ArtifactRef> artifacts )
+    {
+        final List<String> result = new ArrayList<String>();
+        for ( final ArtifactRef artifact : artifacts )
+        {
+            result.add( artifact.getArtifactId() );
+        }
+
+        return result;
+    }
+
+}
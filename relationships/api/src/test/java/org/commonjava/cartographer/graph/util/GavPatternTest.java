@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.util;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.junit.Test;
+
+public class GavPatternTest
+{
+
+    private final ProjectVersionRef[] refs = { new SimpleProjectVersionRef( "org.foo", "bar", "1.0" ),
+        new SimpleProjectVersionRef( "org.foo", "bar-api", "1.1" ), new SimpleProjectVersionRef( "org", "foo", "2" ),
+        new SimpleProjectVersionRef( "org.foo.sub", "baz", "1.0-SNAPSHOT" ),
+        new SimpleProjectVersionRef( "com.other", "bar", "1.0" ) };
+
+    @Test
+    public void literalPrefixStopsAtWildcardsAndVariableParts()
+    {
+        assertThat( GavPattern.compile( "org\\.foo:bar:.*" ).getLiteralPrefix(), equalTo( "org.foo:bar:" ) );
+        assertThat( GavPattern.compile( "org.foo:bar:.*" ).getLiteralPrefix(), equalTo( "org" ) );
+        assertThat( GavPattern.compile( "^org\\.foo:ba+r.*" ).getLiteralPrefix(), equalTo( "org.foo:ba" ) );
+        assertThat( GavPattern.compile( "org\\.foo:bar?.*" ).getLiteralPrefix(), equalTo( "org.foo:ba" ) );
+        assertThat( GavPattern.compile( "org\\.foo\\w*:.*" ).getLiteralPrefix(), equalTo( "org.foo" ) );
+        assertThat( GavPattern.compile( "org\\.foo:bar:.*|com\\..*" ).getLiteralPrefix(), equalTo( "" ) );
+        assertThat( GavPattern.compile( "(?i)ORG.*" ).getLiteralPrefix(), equalTo( "" ) );
+        assertThat( GavPattern.compile( null ).matchesAll(), equalTo( true ) );
+    }
+
+    @Test
+    public void matchesLikeTheRegexOnTheGavString()
+    {
+        final String[] patterns = { "org\\.foo:bar:.*", "org.foo:bar.*", "org.foo.*", "org:foo:2", "org.foo:ba+r.*",
+            ".*:bar:1\\.0", "org\\.foo:bar:.*|com\\..*", "(?i)ORG\\.FOO:.*", "org.foo:b[a-z]+:1.*", "org" };
+
+        for ( final String regex : patterns )
+        {
+            final GavPattern pattern = GavPattern.compile( regex );
+            for ( final ProjectVersionRef ref : refs )
+            {
+                assertThat( regex + " vs " + ref, pattern.matches( ref ), equalTo( ref.toString().matches( regex ) ) );
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.util;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.commonjava.cartographer.graph.spi.FakeGraphConnection;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.junit.Test;
+
+public class MetadataColumnsTest
+{
+
+    private final ProjectVersionRef a = new SimpleProjectVersionRef( "org.foo", "a", "1" );
+
+    private final ProjectVersionRef b = new SimpleProjectVersionRef( "org.foo", "b", "1" );
+
+    private final ProjectVersionRef c = new SimpleProjectVersionRef( "org.bar", "c", "1" );
+
+    private final ProjectVersionRef d = new SimpleProjectVersionRef( "org.bar", "d", "1" );
+
+    private final FakeGraphConnection fake = new FakeGraphConnection();
+
+    @Test
+    public void collateGroupsByAllKeysAndReadsEachProjectOnce()
+        throws Exception
+    {
+        fake.metadata( a, "license", "ASL", "scm", "git" );
+        fake.metadata( b, "license", "ASL", "scm", "git" );
+        fake.metadata( c, "license", "ASL", "scm", "svn" );
+        fake.metadata( d, "scm", "git" );
+
+        final MetadataColumns columns = newColumns();
+        final Set<ProjectVersionRef> all = refs( a, b, c, d );
+        final Set<String> keys = new LinkedHashSet<String>( Arrays.asList( "license", "scm" ) );
+
+        final Map<Map<String, String>, Set<ProjectVersionRef>> result = columns.collate( all, keys );
+
+        assertThat( result.size(), equalTo( 3 ) );
+        assertThat( result.get( map( "license", "ASL", "scm", "git" ) ), equalTo( refs( a, b ) ) );
+        assertThat( result.get( map( "license", "ASL", "scm", "svn" ) ), equalTo( refs( c ) ) );
+        assertThat( result.get( map( "scm", "git" ) ), equalTo( refs( d ) ) );
+
+        columns.collate( all, keys );
+        assertThat( fake.getMetadataReads( a ), equalTo( 1 ) );
+        assertThat( fake.getMetadataReads( d ), equalTo( 1 ) );
+    }
+
+    @Test
+    public void collateByPseudoKeysDoesNotReadMetadata()
+        throws Exception
+    {
+        final MetadataColumns columns = newColumns();
+        final Map<Map<String, String>, Set<ProjectVersionRef>> result =
+            columns.collate( refs( a, b, c ), Collections.singleton( "groupId" ) );
+
+        assertThat( result.get( map( "groupId", "org.foo" ) ), equalTo( refs( a, b ) ) );
+        assertThat( result.get( map( "groupId", "org.bar" ) ), equalTo( refs( c ) ) );
+        assertThat( fake.getMetadataReads( a ), equalTo( 0 ) );
+    }
+
+    @Test
+    public void collateRereadsInvalidatedProject()
+        throws Exception
+    {
+        fake.metadata( a, "license", "ASL" );
+        fake.metadata( b, "license", "GPL" );
+        fake.metadata( c, "license", "ASL" );
+
+        final MetadataColumns columns = newColumns();
+        final Set<ProjectVersionRef> all = refs( a, b, c );
+        final Set<String> keys = Collections.singleton( "license" );
+
+        assertThat( columns.collate( all, keys ).get( map( "license", "ASL" ) ), equalTo( refs( a, c ) ) );
+
+        fake.metadata( a, "license", "GPL" );
+        columns.invalidate( a );
+
+        final Map<Map<String, String>, Set<ProjectVersionRef>> result = columns.collate( all, keys );
+        assertThat( result.get( map( "license", "ASL" ) ), equalTo( refs( c ) ) );
+        assertThat( result.get( map( "license", "GPL" ) ), equalTo( refs( a, b ) ) );
+        assertThat( fake.getMetadataReads( a ), equalTo( 2 ) );
+        assertThat( fake.getMetadataReads( c ), equalTo( 1 ) );
+    }
+
+    @Test
+    public void invalidateDuringReadIsNotBlockedAndForcesReread()
+        throws Exception
+    {
+        fake.metadata( a, "license", "ASL" );
+
+        final MetadataColumns columns = newColumns();
+        final Set<String> keys = Collections.singleton( "license" );
+
+        // the write lands while collate is reading a's metadata from the connection.
+        fake.onMetadataRead( () -> {
+            fake.metadata( a, "license", "GPL" );
+            final Thread writer = new Thread( () -> columns.invalidate( a ) );
+            writer.start();
+            try
+            {
+                writer.join( TimeUnit.SECONDS.toMillis( 10 ) );
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            assertThat( "invalidate() blocked on the metadata read", writer.isAlive(), equalTo( false ) );
+            fake.onMetadataRead( null );
+        } );
+
+        assertThat( columns.collate( refs( a ), keys ).get( map( "license", "ASL" ) ), equalTo( refs( a ) ) );
+        assertThat( columns.collate( refs( a ), keys ).get( map( "license", "GPL" ) ), equalTo( refs( a ) ) );
+        assertThat( fake.getMetadataReads( a ), equalTo( 2 ) );
+    }
+
+    private MetadataColumns newColumns()
+    {
+        return new MetadataColumns( fake.getConnection(), new ProjectRefInterner() );
+    }
+
+    private static Map<String, String> map( final String... pairs )
+    {
+        final Map<String, String> result = new HashMap<String, String>();
+        for ( int i = 0; i < pairs.length; i += 2 )
+        {
+            result.put( pairs[i], pairs[i + 1] );
+        }
+
+        return result;
+    }
+
+    private static Set<ProjectVersionRef> refs( final ProjectVersionRef... refs )
+    {
+        return new HashSet<ProjectVersionRef>( Arrays.asList( refs ) );
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.util;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.junit.Test;
+
+public class ProjectGavIndexTest
+{
+
+    @Test
+    public void prefixSelectsContiguousRangeInGavStringOrder()
+    {
+        final ProjectVersionRef fooBar = new SimpleProjectVersionRef( "org.foo", "bar", "1.0" );
+        final ProjectVersionRef fooBarApi = new SimpleProjectVersionRef( "org.foo", "bar-api", "1.0" );
+        final ProjectVersionRef fooBaz = new SimpleProjectVersionRef( "org.foo", "baz", "1.0" );
+        final ProjectVersionRef other = new SimpleProjectVersionRef( "org.other", "bar", "1.0" );
+
+        final ProjectGavIndex index = new ProjectGavIndex( 42, Arrays.asList( other, fooBaz, fooBar, fooBarApi ) );
+
+        assertThat( index.getStamp(), equalTo( 42L ) );
+        assertThat( index.size(), equalTo( 4 ) );
+
+        final List<ProjectVersionRef> bars = index.withPrefix( "org.foo:bar" );
+        assertThat( bars, equalTo( Arrays.asList( fooBarApi, fooBar ) ) );
+
+        assertThat( index.withPrefix( "org.foo:" ), equalTo( Arrays.asList( fooBarApi, fooBar, fooBaz ) ) );
+        assertThat( index.withPrefix( "org.nope" ).isEmpty(), equalTo( true ) );
+        assertThat( index.withPrefix( "" ).size(), equalTo( 4 ) );
+    }
+}
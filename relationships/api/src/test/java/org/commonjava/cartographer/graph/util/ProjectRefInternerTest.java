@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.util;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.maven.atlas.ident.DependencyScope;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.junit.Test;
+
+public class ProjectRefInternerTest
+{
+
+    @Test
+    public void idsAreStablePerGavAndGa()
+    {
+        final ProjectRefInterner interner = new ProjectRefInterner();
+
+        final int first = interner.versionId( new SimpleProjectVersionRef( "org.foo", "bar", "1" ) );
+        final int artifact = interner.versionId( new SimpleProjectVersionRef( "org.foo", "bar", "1" ).asJarArtifact() );
+        final int other = interner.versionId( new SimpleProjectVersionRef( "org.foo", "bar", "2" ) );
+
+        assertThat( artifact, equalTo( first ) );
+        assertThat( other, not( equalTo( first ) ) );
+        assertThat( interner.getVersionRef( first ), equalTo( new SimpleProjectVersionRef( "org.foo", "bar", "1" ) ) );
+
+        final int ga = interner.projectId( new SimpleProjectVersionRef( "org.foo", "bar", "2" ) );
+        assertThat( interner.projectId( new SimpleProjectRef( "org.foo", "bar" ) ), equalTo( ga ) );
+        assertThat( interner.getProjectCount(), equalTo( 1 ) );
+    }
+
+    @Test
+    public void mapsAndSetsSurviveGrowth()
+    {
+        final ProjectRefInterner interner = new ProjectRefInterner();
+        final IntObjectMap<String> map = new IntObjectMap<>();
+        final IntSet set = new IntSet();
+
+        for ( int i = 0; i < 1000; i++ )
+        {
+            final String name = "project-" + ( i % 500 );
+            final int id = interner.versionId( new SimpleProjectVersionRef( "org.foo", name, "1" ) );
+            map.put( id, name );
+            assertThat( set.add( id ), equalTo( i < 500 ) );
+        }
+
+        assertThat( interner.getVersionCount(), equalTo( 500 ) );
+        assertThat( map.size(), equalTo( 500 ) );
+        assertThat( set.size(), equalTo( 500 ) );
+        assertThat( map.get( 500 ), nullValue() );
+
+        map.forEach( ( id, name ) -> assertThat( interner.getVersionRef( id )
+                                                         .getArtifactId(), equalTo( name ) ) );
+    }
+
+    @Test
+    public void mapByDeclaringGroupsAllRelationships()
+        throws Exception
+    {
+        final URI source = new URI( "test:repo" );
+        final List<ProjectRelationship<?, ?>> rels = new ArrayList<ProjectRelationship<?, ?>>();
+        for ( int i = 0; i < 50; i++ )
+        {
+            final ProjectVersionRef declaring = new SimpleProjectVersionRef( "org.foo", "project-" + ( i % 5 ), "1" );
+            final ProjectVersionRef target = new SimpleProjectVersionRef( "org.foo", "dep-" + i, "1" );
+            rels.add( new SimpleDependencyRelationship( source, declaring, target.asJarArtifact(),
+                                                        DependencyScope.compile, i, false, false, false ) );
+        }
+
+        final Map<ProjectVersionRef, List<ProjectRelationship<?, ?>>> byDeclaring =
+            RelationshipUtils.mapByDeclaring( rels );
+
+        assertThat( byDeclaring.size(), equalTo( 5 ) );
+        for ( final List<ProjectRelationship<?, ?>> outbound : byDeclaring.values() )
+        {
+            assertThat( outbound.size(), equalTo( 10 ) );
+        }
+    }
+
+}
@@ -25,10 +25,13 @@ import org.commonjava.cartographer.graph.filter.ProjectRelationshipFilter;
 import org.commonjava.maven.atlas.graph.model.EProjectCycle;
 import org.commonjava.cartographer.graph.model.GraphPath;
 import org.commonjava.cartographer.graph.model.GraphPathInfo;
+import org.commonjava.cartographer.graph.model.GraphPathInfoInterner;
 import org.commonjava.maven.atlas.graph.rel.*;
+import org.commonjava.cartographer.graph.spi.ModificationStamps;
 import org.commonjava.cartographer.graph.spi.RelationshipGraphConnection;
 import org.commonjava.cartographer.graph.spi.RelationshipGraphConnectionException;
 import org.commonjava.cartographer.graph.spi.jung.model.JungGraphPath;
+import org.commonjava.cartographer.graph.traverse.PathSearch;
 import org.commonjava.cartographer.graph.traverse.RelationshipGraphTraversal;
 import org.commonjava.cartographer.graph.traverse.TraversalType;
 import org.commonjava.cartographer.graph.util.RelationshipUtils;
@@ -42,6 +45,7 @@ import org.slf4j.LoggerFactory;
 import java.net.URI;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.stream.Stream;
 
 import static org.commonjava.maven.atlas.graph.rel.RelationshipConstants.ANY_SOURCE_URI;
 import static org.commonjava.maven.atlas.graph.rel.RelationshipConstants.POM_ROOT_URI;
@@ -74,11 +78,28 @@ public class JungGraphConnection
 
     private final String workspaceId;
 
+    private volatile long modificationStamp = ModificationStamps.next();
+
     public JungGraphConnection( final String workspaceId )
     {
         this.workspaceId = workspaceId;
     }
 
+    @Override
+    public long getModificationStamp()
+    {
+        return modificationStamp;
+    }
+
+    /**
+     * Called as a mutation completes, so a reader that started before the change sees a different stamp once it's
+     * done.
+     */
+    private void touch()
+    {
+        modificationStamp = ModificationStamps.next();
+    }
+
     @Override
     public Collection<? extends ProjectRelationship<?, ?>> getRelationshipsDeclaredBy( final ViewParams params,
                                                                                     final ProjectVersionRef ref )
@@ -93,12 +114,56 @@ public class JungGraphConnection
         return imposeSelections( params, graph.getInEdges( ref.asProjectVersionRef() ) );
     }
 
+    @Override
+    public Collection<? extends ProjectRelationship<?, ?>> getRelationshipsTargetingGA( final ViewParams params,
+                                                                                     final ProjectRef ga )
+    {
+        final Set<ProjectVersionRef> versions = byGA.get( ga.asProjectRef() );
+        if ( versions == null || versions.isEmpty() )
+        {
+            return Collections.emptyList();
+        }
+
+        final List<ProjectRelationship<?, ?>> result = new ArrayList<ProjectRelationship<?, ?>>();
+        for ( final ProjectVersionRef version : versions )
+        {
+            final Collection<ProjectRelationship<?, ?>> edges = graph.getInEdges( version );
+            if ( edges == null )
+            {
+                continue;
+            }
+
+            for ( final ProjectRelationship<?, ?> edge : edges )
+            {
+                final ProjectRelationship<?, ?> selected = imposeSelection( params, edge );
+                if ( selected != null )
+                {
+                    result.add( selected );
+                }
+            }
+        }
+
+        return result;
+    }
+
     @Override
     public Collection<ProjectRelationship<?, ?>> getAllRelationships( final ViewParams params )
     {
         return imposeSelections( params, graph.getEdges() );
     }
 
+    @Override
+    public Stream<ProjectRelationship<?, ?>> streamAllRelationships( final ViewParams params )
+    {
+        // the graph is already in memory, so copying the edge references (not the edges) up front costs one array
+        // slot per edge, and keeps concurrent additions from breaking iteration. Selections are applied lazily.
+        final List<ProjectRelationship<?, ?>> edges = new ArrayList<ProjectRelationship<?, ?>>( graph.getEdges() );
+
+        return edges.stream()
+                    .map( edge -> imposeSelection( params, edge ) )
+                    .filter( Objects::nonNull );
+    }
+
     private Collection<ProjectRelationship<?, ?>> imposeSelections( final ViewParams params,
                                                                  final Collection<ProjectRelationship<?, ?>> edges )
     {
@@ -110,71 +175,83 @@ public class JungGraphConnection
         final List<ProjectRelationship<?, ?>> result = new ArrayList<ProjectRelationship<?, ?>>( edges.size() );
         for ( final ProjectRelationship<?, ?> edge : edges )
         {
-            if ( ( edge instanceof SimpleParentRelationship ) && ( (ParentRelationship) edge ).isTerminus() )
+            final ProjectRelationship<?, ?> selected = imposeSelection( params, edge );
+            if ( selected != null )
             {
-                continue;
+                result.add( selected );
             }
+        }
+
+        return result;
+    }
+
+    /**
+     * Apply the view's source, pom-location and version selections to a single edge.
+     * 
+     * @return the (possibly re-targeted) edge, or null if it isn't visible in the view.
+     */
+    private ProjectRelationship<?, ?> imposeSelection( final ViewParams params, final ProjectRelationship<?, ?> edge )
+    {
+        if ( ( edge instanceof SimpleParentRelationship ) && ( (ParentRelationship) edge ).isTerminus() )
+        {
+            return null;
+        }
 
-            final ProjectVersionRef target = edge.getTarget()
-                                                 .asProjectVersionRef();
+        final ProjectVersionRef target = edge.getTarget()
+                                             .asProjectVersionRef();
 
-            final Set<URI> sources = params.getActiveSources();
-            if ( sources != null && !sources.isEmpty() )
+        final Set<URI> sources = params.getActiveSources();
+        if ( sources != null && !sources.isEmpty() )
+        {
+            if ( !sources.contains( ANY_SOURCE_URI ) )
             {
-                if ( !sources.contains( ANY_SOURCE_URI ) )
+                Set<URI> s = edge.getSources();
+                if ( s == null )
                 {
-                    Set<URI> s = edge.getSources();
-                    if ( s == null )
-                    {
-                        s = Collections.singleton( UNKNOWN_SOURCE_URI );
-                    }
-
-                    boolean found = false;
-                    for ( final URI uri : s )
-                    {
-                        // TODO: What were the default sources??
-                        if ( /*sources == ViewParams.DEFAULT_SOURCES ||*/sources.contains( uri ) )
-                        {
-                            found = true;
-                            break;
-                        }
-                    }
+                    s = Collections.singleton( UNKNOWN_SOURCE_URI );
+                }
 
-                    if ( !found )
+                boolean found = false;
+                for ( final URI uri : s )
+                {
+                    // TODO: What were the default sources??
+                    if ( /*sources == ViewParams.DEFAULT_SOURCES ||*/sources.contains( uri ) )
                     {
-                        //                    log( "Found relationship in path with de-selected source-repository URI: %s", edge );
-                        continue;
+                        found = true;
+                        break;
                     }
                 }
-            }
 
-            final Set<URI> pomLocations = params.getActivePomLocations();
-            if ( pomLocations != null && !pomLocations.isEmpty() )
-            {
-                URI pomLocation = edge.getPomLocation();
-                if ( pomLocation == null )
+                if ( !found )
                 {
-                    pomLocation = POM_ROOT_URI;
-                }
-                if ( !pomLocations.contains( pomLocation ) )
-                {
-                    //                    log( "Found relationship in path with de-selected pom-location URI: %s", edge );
-                    continue;
+                    //                    log( "Found relationship in path with de-selected source-repository URI: %s", edge );
+                    return null;
                 }
             }
+        }
 
-            final ProjectVersionRef selected = params == null ? null : params.getSelection( target );
-            if ( selected != null )
+        final Set<URI> pomLocations = params.getActivePomLocations();
+        if ( pomLocations != null && !pomLocations.isEmpty() )
+        {
+            URI pomLocation = edge.getPomLocation();
+            if ( pomLocation == null )
             {
-                result.add( edge.selectTarget( selected ) );
+                pomLocation = POM_ROOT_URI;
             }
-            else
+            if ( !pomLocations.contains( pomLocation ) )
             {
-                result.add( edge );
+                //                    log( "Found relationship in path with de-selected pom-location URI: %s", edge );
+                return null;
             }
         }
 
-        return result;
+        final ProjectVersionRef selected = params == null ? null : params.getSelection( target );
+        if ( selected != null )
+        {
+            return edge.selectTarget( selected );
+        }
+
+        return edge;
     }
 
     @Override
@@ -259,6 +336,8 @@ public class JungGraphConnection
             }
         }
 
+        touch();
+
         return skipped;
     }
 
@@ -278,8 +357,6 @@ public class JungGraphConnection
     @Override
     public Set<List<ProjectRelationship<?, ?>>> getAllPathsTo( final ViewParams params, final ProjectVersionRef... refs )
     {
-        final PathDetectionTraversal traversal = new PathDetectionTraversal( this, params, refs );
-
         final Set<ProjectVersionRef> roots = params.getRoots();
         if ( roots == null )
         {
@@ -289,19 +366,31 @@ public class JungGraphConnection
             return null;
         }
 
-        for ( final ProjectVersionRef root : roots )
+        final Set<ProjectVersionRef> targets = new HashSet<ProjectVersionRef>( Arrays.asList( refs ) );
+        final List<PathSearch.Match> matches = new PathSearch( this, params, targets, null, true ).findPaths();
+
+        final Set<List<ProjectRelationship<?, ?>>> result =
+            new HashSet<List<ProjectRelationship<?, ?>>>( matches.size() );
+        for ( final PathSearch.Match match : matches )
         {
-            dfsTraverse( params, traversal, root );
+            result.add( new ArrayList<ProjectRelationship<?, ?>>( match.getRelationships() ) );
         }
 
-        final Set<JungGraphPath> paths = traversal.getPaths();
-        final Set<List<ProjectRelationship<?, ?>>> result = new HashSet<List<ProjectRelationship<?, ?>>>( paths.size() );
-        for ( final JungGraphPath path : paths )
+        return result;
+    }
+
+    @Override
+    public Stream<List<ProjectRelationship<?, ?>>> streamPathsTo( final ViewParams params,
+                                                                 final ProjectVersionRef... refs )
+    {
+        // the path search is exhaustive, so the paths are all found (and held) before the stream is returned.
+        final Set<List<ProjectRelationship<?, ?>>> paths = getAllPathsTo( params, refs );
+        if ( paths == null )
         {
-            result.add( path.getPathElements() );
+            return Stream.empty();
         }
 
-        return result;
+        return paths.stream();
     }
 
     @Override
@@ -350,7 +439,8 @@ public class JungGraphConnection
     private void dfsTraverse( final ViewParams params, final RelationshipGraphTraversal traversal,
                               final ProjectVersionRef root )
     {
-        dfsIterate( params, root, traversal, new JungGraphPath( root ), new GraphPathInfo( this, params ) );
+        dfsIterate( params, root, traversal, new JungGraphPath( root ),
+                    new GraphPathInfoInterner( this, params ).getRootPathInfo() );
     }
 
     private void dfsIterate( final ViewParams params, final ProjectVersionRef node,
@@ -397,7 +487,7 @@ public class JungGraphConnection
     private void bfsTraverse( final ViewParams params, final RelationshipGraphTraversal traversal,
                               final ProjectVersionRef root )
     {
-        final GraphPathInfo pathInfo = new GraphPathInfo( this, params );
+        final GraphPathInfo pathInfo = new GraphPathInfoInterner( this, params ).getRootPathInfo();
 
         bfsIterate( params, Collections.singletonMap( new JungGraphPath( root ), pathInfo ), traversal );
     }
@@ -626,6 +716,8 @@ public class JungGraphConnection
             incompleteSubgraphs.remove( rel.getDeclaring() );
         }
 
+        touch();
+
         return changed;
     }
 
@@ -702,6 +794,8 @@ public class JungGraphConnection
                 incompleteSubgraphs.remove( vertex );
             }
         }
+
+        touch();
     }
 
     @Override
@@ -751,6 +845,8 @@ public class JungGraphConnection
         md.put( key, value );
 
         addMetadataOwner( key, ref.asProjectVersionRef() );
+
+        touch();
     }
 
     private synchronized void addMetadataOwner( final String key, final ProjectVersionRef ref )
@@ -775,6 +871,27 @@ public class JungGraphConnection
 
         final Map<String, String> md = getMetadata( ref.asProjectVersionRef() );
         md.putAll( metadata );
+
+        for ( final String key : metadata.keySet() )
+        {
+            addMetadataOwner( key, ref.asProjectVersionRef() );
+        }
+
+        touch();
+    }
+
+    @Override
+    public void setMetadata( final Map<ProjectVersionRef, Map<String, String>> metadata )
+    {
+        if ( metadata == null )
+        {
+            return;
+        }
+
+        for ( final Map.Entry<ProjectVersionRef, Map<String, String>> entry : metadata.entrySet() )
+        {
+            setMetadata( entry.getKey(), entry.getValue() );
+        }
     }
 
     @Override
@@ -790,6 +907,8 @@ public class JungGraphConnection
                                                             .asProjectVersionRef() );
             }
         }
+
+        touch();
     }
 
     @Override
@@ -808,6 +927,8 @@ public class JungGraphConnection
                 addMetadataOwner( mdEntry.getKey(), ref );
             }
         }
+
+        touch();
     }
 
     @Override
@@ -816,6 +937,29 @@ public class JungGraphConnection
         return metadataOwners.get( key );
     }
 
+    @Override
+    public synchronized Set<ProjectVersionRef> getProjectsWithMetadata( final ViewParams params, final String key,
+                                                                        final String value )
+    {
+        final Set<ProjectVersionRef> result = new HashSet<ProjectVersionRef>();
+        final Set<ProjectVersionRef> owners = metadataOwners.get( key );
+        if ( owners == null )
+        {
+            return result;
+        }
+
+        for ( final ProjectVersionRef ref : owners )
+        {
+            final Map<String, String> md = metadata.get( ref );
+            if ( md != null && value.equals( md.get( key ) ) )
+            {
+                result.add( ref );
+            }
+        }
+
+        return result;
+    }
+
     //    public void selectVersionFor( final ProjectVersionRef variable, final ProjectVersionRef select )
     //        throws GraphDriverException
     //    {
@@ -899,6 +1043,8 @@ public class JungGraphConnection
         {
             graph.addVertex( ref.asProjectVersionRef() );
         }
+
+        touch();
     }
 
     @Deprecated
@@ -1015,6 +1161,8 @@ public class JungGraphConnection
         }
 
         incompleteSubgraphs.add( ref );
+
+        touch();
     }
 
     @Override
@@ -1059,6 +1207,36 @@ public class JungGraphConnection
         return null;
     }
 
+    @Override
+    public Map<ProjectRef, ProjectVersionRef> getManagedTargets( final ProjectVersionRef declaring,
+                                                                 final RelationshipType type )
+    {
+        final Map<ProjectRef, ProjectVersionRef> result = new HashMap<ProjectRef, ProjectVersionRef>();
+        if ( declaring == null || !graph.containsVertex( declaring.asProjectVersionRef() ) )
+        {
+            return result;
+        }
+
+        final Collection<ProjectRelationship<?, ?>> outEdges = graph.getOutEdges( declaring.asProjectVersionRef() );
+        if ( outEdges != null )
+        {
+            for ( final ProjectRelationship<?, ?> edge : outEdges )
+            {
+                if ( edge.isManaged() && type == edge.getType() )
+                {
+                    final ProjectVersionRef target = edge.getTarget()
+                                                         .asProjectVersionRef();
+                    if ( !result.containsKey( target.asProjectRef() ) )
+                    {
+                        result.put( target.asProjectRef(), target );
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
     @Override
     public GraphPath<?> createPath( final ProjectRelationship<?, ?>... rels )
     {
@@ -1118,8 +1296,6 @@ public class JungGraphConnection
     public Map<GraphPath<?>, GraphPathInfo> getPathMapTargeting( final ViewParams params,
                                                                  final Set<ProjectVersionRef> refs )
     {
-        final PathDetectionTraversal traversal = new PathDetectionTraversal( this, params, refs );
-
         final Set<ProjectVersionRef> roots = params.getRoots();
         if ( roots == null )
         {
@@ -1129,18 +1305,10 @@ public class JungGraphConnection
             return null;
         }
 
-        for ( final ProjectVersionRef root : roots )
-        {
-            dfsTraverse( params, traversal, root );
-        }
-
-        final Map<JungGraphPath, GraphPathInfo> allPathsMap = traversal.getPathMap();
-        final Set<JungGraphPath> paths = traversal.getPaths();
-
         final Map<GraphPath<?>, GraphPathInfo> result = new HashMap<GraphPath<?>, GraphPathInfo>();
-        for ( final JungGraphPath path : paths )
+        for ( final PathSearch.Match match : new PathSearch( this, params, refs, null, true ).findPaths() )
         {
-            result.put( path, allPathsMap.get( path ) );
+            result.put( match.getPath(), match.getPathInfo() );
         }
 
         return result;
@@ -1207,6 +1375,8 @@ public class JungGraphConnection
         throws RelationshipGraphConnectionException
     {
         errors.put( ref, error );
+
+        touch();
     }
 
     @Override
@@ -1226,6 +1396,8 @@ public class JungGraphConnection
         throws RelationshipGraphConnectionException
     {
         errors.remove( ref );
+
+        touch();
     }
 
 }
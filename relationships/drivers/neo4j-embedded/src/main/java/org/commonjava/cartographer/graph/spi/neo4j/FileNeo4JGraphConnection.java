@@ -20,8 +20,10 @@ import org.commonjava.cartographer.graph.ViewParams;
 import org.commonjava.maven.atlas.graph.model.EProjectCycle;
 import org.commonjava.cartographer.graph.model.GraphPath;
 import org.commonjava.cartographer.graph.model.GraphPathInfo;
+import org.commonjava.cartographer.graph.model.GraphPathInfoInterner;
 import org.commonjava.maven.atlas.graph.rel.*;
 import org.commonjava.maven.atlas.graph.rel.RelationshipType;
+import org.commonjava.cartographer.graph.spi.ModificationStamps;
 import org.commonjava.cartographer.graph.spi.RelationshipGraphConnectionException;
 import org.commonjava.cartographer.graph.spi.neo4j.io.Conversions;
 import org.commonjava.cartographer.graph.spi.neo4j.model.AbstractNeoProjectRelationship;
@@ -29,6 +31,8 @@ import org.commonjava.cartographer.graph.spi.neo4j.model.CyclePath;
 import org.commonjava.cartographer.graph.spi.neo4j.model.Neo4jGraphPath;
 import org.commonjava.cartographer.graph.spi.neo4j.traverse.*;
 import org.commonjava.cartographer.graph.spi.neo4j.update.CycleCacheUpdater;
+import org.commonjava.cartographer.graph.spi.neo4j.update.MetadataIndexes;
+import org.commonjava.cartographer.graph.spi.neo4j.update.MetadataReindexer;
 import org.commonjava.cartographer.graph.spi.neo4j.update.ViewUpdater;
 import org.commonjava.cartographer.graph.traverse.RelationshipGraphTraversal;
 import org.commonjava.cartographer.graph.traverse.TraversalType;
@@ -45,6 +49,7 @@ import org.neo4j.graphdb.index.IndexHits;
 import org.neo4j.graphdb.index.RelationshipIndex;
 import org.neo4j.graphdb.traversal.TraversalDescription;
 import org.neo4j.graphdb.traversal.Traverser;
+import org.neo4j.kernel.DeadlockDetectedException;
 import org.neo4j.kernel.Traversal;
 import org.neo4j.kernel.Uniqueness;
 import org.slf4j.Logger;
@@ -53,6 +58,9 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.commonjava.cartographer.graph.spi.neo4j.io.Conversions.*;
 import static org.commonjava.cartographer.graph.spi.neo4j.traverse.TraversalUtils.getGraphRelTypes;
@@ -79,7 +87,9 @@ public class FileNeo4JGraphConnection
 
     private static final String MISSING_NODES_IDX = "missing_nodes";
 
-    private static final String METADATA_INDEX_PREFIX = "has_metadata_";
+    private static final String METADATA_INDEX_PREFIX = MetadataIndexes.KEY_INDEX_PREFIX;
+
+    private static final long BACKGROUND_REINDEX_PAUSE_MILLIS = 100;
 
     private static final String MANAGED_GA = "managed-ga";
 
@@ -131,10 +141,18 @@ public class FileNeo4JGraphConnection
 
     private int storageBatchSize = DEFAULT_BATCH_SIZE;
 
+    private volatile long modificationStamp = ModificationStamps.next();
+
     private final FileNeo4jConnectionFactory factory;
 
     private final File dbDir;
 
+    private final MetadataIndexes metadataIndexes;
+
+    private MetadataReindexer backgroundReindexer;
+
+    private Thread backgroundReindexThread;
+
     FileNeo4JGraphConnection( final String workspaceId, final File dbDir, final boolean useShutdownHook, final int storageBatchSize,
                               final FileNeo4jConnectionFactory factory )
     {
@@ -187,6 +205,50 @@ public class FileNeo4JGraphConnection
         {
             tx.finish();
         }
+
+        this.metadataIndexes = new MetadataIndexes( graph );
+        if ( !MetadataReindexer.isCurrent( configNode ) )
+        {
+            startBackgroundReindex();
+        }
+    }
+
+    /**
+     * Stores written before metadata values were indexed on write need a full pass to catch up. Run it in chunks on a
+     * daemon thread so opening the store doesn't wait on it; until it completes, value lookups scan instead.
+     */
+    private synchronized void startBackgroundReindex()
+    {
+        backgroundReindexer =
+            new MetadataReindexer( graph, configNode, metadataIndexes, storageBatchSize,
+                                   BACKGROUND_REINDEX_PAUSE_MILLIS );
+
+        backgroundReindexThread = new Thread( backgroundReindexer, "metadata-reindex-" + workspaceId );
+        backgroundReindexThread.setDaemon( true );
+        backgroundReindexThread.start();
+    }
+
+    private synchronized void stopBackgroundReindex()
+    {
+        if ( backgroundReindexer == null )
+        {
+            return;
+        }
+
+        backgroundReindexer.stop();
+        backgroundReindexThread.interrupt();
+        try
+        {
+            backgroundReindexThread.join( 1000 * SHUTDOWN_WAIT );
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread()
+                  .interrupt();
+        }
+
+        backgroundReindexer = null;
+        backgroundReindexThread = null;
     }
 
     protected GraphDatabaseService getGraph()
@@ -309,6 +371,33 @@ public class FileNeo4JGraphConnection
         return null;
     }
 
+    @Override
+    public Collection<? extends ProjectRelationship<?, ?>> getRelationshipsTargetingGA( final ViewParams params,
+                                                                                     final ProjectRef ga )
+    {
+        checkClosed();
+
+        // the GA index yields each version's node, and neo4j keeps incoming relationships adjacent to the node.
+        final List<ProjectRelationship<?, ?>> result = new ArrayList<ProjectRelationship<?, ?>>();
+        for ( final ProjectVersionRef version : getProjectsMatching( params, ga ) )
+        {
+            final Collection<? extends ProjectRelationship<?, ?>> rels = getRelationshipsTargeting( params, version );
+            if ( rels == null )
+            {
+                continue;
+            }
+
+            for ( final ProjectRelationship<?, ?> rel : rels )
+            {
+                final ProjectVersionRef selected = params.getSelection( rel.getTarget()
+                                                                           .asProjectVersionRef() );
+                result.add( selected == null ? rel : rel.selectTarget( selected ) );
+            }
+        }
+
+        return result;
+    }
+
     @Override
     public Set<ProjectVersionRef> getAllProjects( final ViewParams params )
     {
@@ -398,6 +487,56 @@ public class FileNeo4JGraphConnection
         }
     }
 
+    @Override
+    public Stream<ProjectRelationship<?, ?>> streamAllRelationships( final ViewParams params )
+    {
+        checkClosed();
+
+        final IndexHits<Relationship> hits;
+        if ( registerView( params ) )
+        {
+            hits = new ViewIndexes( graph.index(), params ).getCachedRelationships()
+                                                           .query( RID, "*" );
+        }
+        else
+        {
+            hits = graph.index()
+                        .forRelationships( ALL_RELATIONSHIPS )
+                        .query( RELATIONSHIP_ID, "*" );
+        }
+
+        // index hits are pulled (and converted) only as the caller consumes the stream. Like getAllRelationships(),
+        // each read of the hits is done while holding their monitor.
+        final Spliterator<ProjectRelationship<?, ?>> spliterator =
+                new Spliterators.AbstractSpliterator<ProjectRelationship<?, ?>>( Long.MAX_VALUE, Spliterator.NONNULL )
+                {
+                    @Override
+                    public boolean tryAdvance( final Consumer<? super ProjectRelationship<?, ?>> action )
+                    {
+                        ProjectRelationship<?, ?> next = null;
+                        synchronized ( hits )
+                        {
+                            while ( next == null && hits.hasNext() )
+                            {
+                                final AbstractNeoProjectRelationship<?, ?, ?> rel =
+                                        toProjectRelationship( hits.next() );
+                                next = rel == null ? null : rel.detach();
+                            }
+                        }
+
+                        if ( next == null )
+                        {
+                            return false;
+                        }
+
+                        action.accept( next );
+                        return true;
+                    }
+                };
+
+        return StreamSupport.stream( spliterator, false ).onClose( hits::close );
+    }
+
     @Override
     public Map<GraphPath<?>, GraphPathInfo> getPathMapTargeting( final ViewParams params,
                                                                  final Set<ProjectVersionRef> refs )
@@ -414,10 +553,11 @@ public class FileNeo4JGraphConnection
         final PathCollectingVisitor visitor = new PathCollectingVisitor( endNodes );
         collectAtlasRelationships( params, visitor, getRoots( params ), false, Uniqueness.RELATIONSHIP_GLOBAL );
 
+        final GraphPathInfoInterner interner = new GraphPathInfoInterner( this, params );
         final Map<GraphPath<?>, GraphPathInfo> result = new HashMap<GraphPath<?>, GraphPathInfo>();
         for ( final Neo4jGraphPath path : visitor )
         {
-            GraphPathInfo info = new GraphPathInfo( this, params );
+            GraphPathInfo info = interner.getRootPathInfo();
             for ( final Long rid : path )
             {
                 final Relationship r = graph.getRelationshipById( rid );
@@ -481,6 +621,28 @@ public class FileNeo4JGraphConnection
         return result;
     }
 
+    @Override
+    public Stream<List<ProjectRelationship<?, ?>>> streamPathsTo( final ViewParams params,
+                                                                 final ProjectVersionRef... refs )
+    {
+        checkClosed();
+        if ( !registerView( params ) )
+        {
+            throw new IllegalArgumentException(
+                                                "You must specify at least one root GAV in order to retrieve path-related info." );
+        }
+
+        final Set<Node> endNodes = getNodes( refs );
+
+        final PathCollectingVisitor visitor = new PathCollectingVisitor( endNodes );
+        collectAtlasRelationships( params, visitor, getRoots( params ), false, Uniqueness.RELATIONSHIP_GLOBAL );
+
+        // the traversal has to finish before we know all the paths, so they're all held here, but only as
+        // relationship-id arrays; they're converted to relationships as the caller consumes the stream.
+        return StreamSupport.stream( visitor.spliterator(), false )
+                            .map( path -> convertToDetachedRelationships( path, adminAccess ) );
+    }
+
     @Override
     public synchronized Set<ProjectRelationship<?, ?>> addRelationships( final ProjectRelationship<?, ?>... rels )
     {
@@ -496,6 +658,8 @@ public class FileNeo4JGraphConnection
 
         //        printGraphStats();
 
+        touch();
+
         return skipped;
     }
 
@@ -1051,6 +1215,8 @@ public class FileNeo4JGraphConnection
     {
         closed = true;
 
+        stopBackgroundReindex();
+
         factory.connectionClosing( workspaceId );
 
         if ( graph != null )
@@ -1479,13 +1645,17 @@ public class FileNeo4JGraphConnection
                 return;
             }
 
+            final String old = Conversions.getMetadata( key, node );
             Conversions.setMetadata( key, value, node );
+            metadataIndexes.update( node, key, old, value );
             tx.success();
         }
         finally
         {
             tx.finish();
         }
+
+        touch();
     }
 
     @Override
@@ -1501,7 +1671,82 @@ public class FileNeo4JGraphConnection
                 return;
             }
 
+            final Map<String, String> old = getMetadataMap( node );
             Conversions.setMetadata( metadata, node );
+            metadataIndexes.update( node, old, metadata );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+
+        touch();
+    }
+
+    @Override
+    public void setMetadata( final Map<ProjectVersionRef, Map<String, String>> metadata )
+    {
+        if ( metadata == null || metadata.isEmpty() )
+        {
+            return;
+        }
+
+        final Map<Node, Map<String, String>> byNode = new HashMap<Node, Map<String, String>>();
+        for ( final Map.Entry<ProjectVersionRef, Map<String, String>> entry : metadata.entrySet() )
+        {
+            final Node node = getNode( entry.getKey() );
+            if ( node != null )
+            {
+                byNode.put( node, entry.getValue() );
+            }
+        }
+
+        for ( int attempt = 1;; attempt++ )
+        {
+            try
+            {
+                setMetadata( byNode );
+                break;
+            }
+            catch ( final DeadlockDetectedException e )
+            {
+                if ( attempt >= MetadataIndexes.WRITE_ATTEMPTS )
+                {
+                    throw e;
+                }
+
+                logger.warn( "Deadlock storing metadata for {} projects (attempt {}); retrying.", byNode.size(),
+                             attempt );
+                try
+                {
+                    Thread.sleep( MetadataIndexes.RETRY_PAUSE_MILLIS * attempt );
+                }
+                catch ( final InterruptedException ie )
+                {
+                    Thread.currentThread()
+                          .interrupt();
+                    throw e;
+                }
+            }
+        }
+
+        touch();
+    }
+
+    private void setMetadata( final Map<Node, Map<String, String>> byNode )
+    {
+        final Transaction tx = graph.beginTx();
+        try
+        {
+            // lock in the same order as the metadata reindexer, so the two can't deadlock.
+            for ( final Node node : MetadataIndexes.lockInIdOrder( tx, byNode.keySet() ) )
+            {
+                final Map<String, String> old = getMetadataMap( node );
+                Conversions.setMetadata( byNode.get( node ), node );
+                metadataIndexes.update( node, old, byNode.get( node ) );
+            }
+
             tx.success();
         }
         finally
@@ -1618,22 +1863,27 @@ public class FileNeo4JGraphConnection
     public void reindex()
         throws RelationshipGraphConnectionException
     {
-        final Transaction tx = graph.beginTx();
+        checkClosed();
+
+        // take over from any background pass; this one runs flat out, still one chunk per transaction.
+        stopBackgroundReindex();
+
+        final MetadataReindexer reindexer =
+            new MetadataReindexer( graph, configNode, metadataIndexes, storageBatchSize, 0 );
+        reindexer.reset();
         try
         {
-            final IndexHits<Node> nodes = graph.index()
-                                               .forNodes( BY_GAV_IDX )
-                                               .query( GAV, "*" );
-            for ( final Node node : nodes )
-            {
-                reindexNode( node );
-            }
-
-            tx.success();
+            reindexer.reindexAll();
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread()
+                  .interrupt();
+            throw new RelationshipGraphConnectionException( "Interrupted while reindexing: %s", e, dbDir );
         }
         finally
         {
-            tx.finish();
+            touch();
         }
     }
 
@@ -1649,46 +1899,62 @@ public class FileNeo4JGraphConnection
         final Transaction tx = graph.beginTx();
         try
         {
-            reindexNode( node );
+            metadataIndexes.reindex( node );
             tx.success();
         }
         finally
         {
             tx.finish();
         }
+
+        touch();
     }
 
-    private void reindexNode( final Node node )
+    @Override
+    public Set<ProjectVersionRef> getProjectsWithMetadata( final ViewParams params, final String key )
     {
-        final String gav = getStringProperty( GAV, node );
-        if ( gav == null )
-        {
-            return;
-        }
+        checkClosed();
 
-        final Map<String, String> md = getMetadataMap( node );
-        if ( md == null || md.isEmpty() )
-        {
-            return;
-        }
+        final IndexHits<Node> nodes = graph.index()
+                                           .forNodes( METADATA_INDEX_PREFIX + key )
+                                           .query( GAV, "*" );
 
-        for ( final String key : md.keySet() )
-        {
-            graph.index()
-                 .forNodes( METADATA_INDEX_PREFIX + key )
-                 .add( node, GAV, gav );
-        }
+        return filterToView( params, nodes );
     }
 
     @Override
-    public Set<ProjectVersionRef> getProjectsWithMetadata( final ViewParams params, final String key )
+    public Set<ProjectVersionRef> getProjectsWithMetadata( final ViewParams params, final String key,
+                                                           final String value )
     {
         checkClosed();
 
+        if ( MetadataReindexer.isCurrent( configNode ) )
+        {
+            final IndexHits<Node> nodes = graph.index()
+                                               .forNodes( MetadataIndexes.VALUE_INDEX )
+                                               .get( key, value );
+
+            return filterToView( params, nodes );
+        }
+
+        // the value index is still being built; check the values directly.
+        final List<Node> matches = new ArrayList<Node>();
         final IndexHits<Node> nodes = graph.index()
                                            .forNodes( METADATA_INDEX_PREFIX + key )
                                            .query( GAV, "*" );
+        for ( final Node node : nodes )
+        {
+            if ( value.equals( Conversions.getMetadata( key, node ) ) )
+            {
+                matches.add( node );
+            }
+        }
 
+        return filterToView( params, matches );
+    }
+
+    private Set<ProjectVersionRef> filterToView( final ViewParams params, final Iterable<Node> nodes )
+    {
         if ( registerView( params ) )
         {
             final Index<Node> cachedNodes = new ViewIndexes( graph.index(), params ).getCachedNodes();
@@ -1729,6 +1995,8 @@ public class FileNeo4JGraphConnection
                 tx.finish();
             }
         }
+
+        touch();
     }
 
     @Deprecated
@@ -1911,6 +2179,8 @@ public class FileNeo4JGraphConnection
                 tx.finish();
             }
         }
+
+        touch();
     }
 
     @Override
@@ -1976,6 +2246,44 @@ public class FileNeo4JGraphConnection
         return null;
     }
 
+    @Override
+    public Map<ProjectRef, ProjectVersionRef> getManagedTargets( final ProjectVersionRef declaring,
+                                                                 final RelationshipType type )
+    {
+        final Map<ProjectRef, ProjectVersionRef> result = new HashMap<ProjectRef, ProjectVersionRef>();
+        if ( declaring == null )
+        {
+            return result;
+        }
+
+        final Node node = getNode( declaring );
+        if ( node == null )
+        {
+            return result;
+        }
+
+        final GraphRelType relType = GraphRelType.map( type, true );
+        if ( relType == null )
+        {
+            return result;
+        }
+
+        final Iterable<Relationship> relationships = node.getRelationships( Direction.OUTGOING, relType );
+        if ( relationships != null )
+        {
+            for ( final Relationship r : relationships )
+            {
+                final ProjectVersionRef target = toProjectVersionRef( r.getEndNode() );
+                if ( !result.containsKey( target.asProjectRef() ) )
+                {
+                    result.put( target.asProjectRef(), target );
+                }
+            }
+        }
+
+        return result;
+    }
+
     @Override
     public List<ProjectVersionRef> getPathRefs( final ViewParams params, final GraphPath<?> path )
     {
@@ -2272,6 +2580,8 @@ public class FileNeo4JGraphConnection
         {
             tx.finish();
         }
+
+        touch();
     }
 
     private void updateCaches( final Map<Long, ProjectRelationship<?, ?>> newRelationships )
@@ -2407,6 +2717,21 @@ public class FileNeo4JGraphConnection
         return workspaceId;
     }
 
+    @Override
+    public long getModificationStamp()
+    {
+        return modificationStamp;
+    }
+
+    /**
+     * Called as a mutation completes, so a reader that started before the change sees a different stamp once it's
+     * done.
+     */
+    private void touch()
+    {
+        modificationStamp = ModificationStamps.next();
+    }
+
     @Override
     public void addProjectError( final ProjectVersionRef ref, final String error )
         throws RelationshipGraphConnectionException
@@ -2428,6 +2753,8 @@ public class FileNeo4JGraphConnection
         {
             tx.finish();
         }
+
+        touch();
     }
 
     @Override
@@ -2465,6 +2792,8 @@ public class FileNeo4JGraphConnection
         }
 
         node.removeProperty( Conversions.PROJECT_ERROR );
+
+        touch();
     }
 
     @Override
@@ -68,6 +68,8 @@ public final class AtlasCollector<STATE>
 
     private RelationshipGraphConnection connection;
 
+    private GraphPathInfoCache pathInfos;
+
     public AtlasCollector( final TraverseVisitor visitor, final Node start,
                            final RelationshipGraphConnection connection, final ViewParams view, final Node viewNode,
                            final GraphAdmin admin, final GraphRelType... types )
@@ -90,6 +92,7 @@ public final class AtlasCollector<STATE>
         this.startNodes = startNodes;
 
         this.view = view;
+        this.pathInfos = new GraphPathInfoCache( connection, view, admin );
     }
 
     public AtlasCollector( final TraverseVisitor visitor, final Set<Node> startNodes,
@@ -127,13 +130,8 @@ public final class AtlasCollector<STATE>
 
         final Neo4jGraphPath graphPath = new Neo4jGraphPath( path );
 
-        GraphPathInfo pathInfo = new GraphPathInfo( connection, view );
         // if we're here, we're pre-cleared to blindly construct this pathInfo (see child iteration below)
-        for ( final Long rid : graphPath )
-        {
-            final Relationship r = admin.getRelationship( rid );
-            pathInfo = pathInfo.getChildPathInfo( toProjectRelationship( r ) );
-        }
+        final GraphPathInfo pathInfo = pathInfos.getPathInfo( path, graphPath );
 
         logger.debug( "For {}, using pathInfo: {}", graphPath, pathInfo );
 
@@ -234,6 +232,7 @@ public final class AtlasCollector<STATE>
                 logger.debug( "Including child: {} with next-path: {} and childPathInfo: {} from parent path: {}", r,
                               nextPath, nextPathInfo, path );
                 visitor.includingChild( r, nextPath, nextPathInfo, path );
+                pathInfos.addChild( r, nextPathInfo );
 
                 logger.debug( "+= {}", wrap( r ) );
                 nextRelationships.add( r );
@@ -277,6 +276,7 @@ public final class AtlasCollector<STATE>
             new AtlasCollector<STATE>( visitor, startNodes, connection, view, viewNode, admin, types,
                                        direction.reverse() );
         collector.setUseSelections( useSelections );
+        collector.pathInfos = pathInfos;
 
         return collector;
     }
@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.spi.neo4j.traverse;
+
+import static org.commonjava.cartographer.graph.spi.neo4j.io.Conversions.toProjectRelationship;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.commonjava.cartographer.graph.ViewParams;
+import org.commonjava.cartographer.graph.model.GraphPathInfo;
+import org.commonjava.cartographer.graph.model.GraphPathInfoInterner;
+import org.commonjava.cartographer.graph.spi.RelationshipGraphConnection;
+import org.commonjava.cartographer.graph.spi.neo4j.GraphAdmin;
+import org.commonjava.cartographer.graph.spi.neo4j.model.Neo4jGraphPath;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.Relationship;
+
+/**
+ * Tracks the {@link GraphPathInfo} for paths expanded during a single traversal. Since Neo4j hands the expander
+ * whole paths, each expansion would otherwise have to replay the filter/mutator chain from the root. Instead, when a
+ * path is expanded the expander registers the info for each child relationship it returns, keyed by that
+ * relationship's id, and the child path picks it up (and evicts it) when it is expanded in turn. Lookups only touch
+ * the path's last relationship, so they cost the same at any depth, and entries only live between a parent's
+ * expansion and its child's.
+ * <br/>
+ * If two different parents register different infos for the same relationship, the entry is dropped and paths ending
+ * in that relationship fall back to replaying their relationship chain. All infos are hash-consed through a
+ * {@link GraphPathInfoInterner}.
+ *
+ * @author jdcasey
+ */
+public final class GraphPathInfoCache
+{
+
+    private final GraphPathInfoInterner interner;
+
+    private final GraphAdmin admin;
+
+    private final ConcurrentMap<Long, GraphPathInfo> childInfos = new ConcurrentHashMap<Long, GraphPathInfo>();
+
+    private final Set<Long> ambiguous = Collections.newSetFromMap( new ConcurrentHashMap<Long, Boolean>() );
+
+    public GraphPathInfoCache( final RelationshipGraphConnection connection, final ViewParams view,
+                               final GraphAdmin admin )
+    {
+        this.interner = new GraphPathInfoInterner( connection, view );
+        this.admin = admin;
+    }
+
+    /**
+     * Retrieve the info for the given path, consuming the entry its parent registered for the path's last
+     * relationship. The {@link Neo4jGraphPath} is only walked if no usable entry was registered.
+     */
+    public GraphPathInfo getPathInfo( final Path path, final Neo4jGraphPath graphPath )
+    {
+        final Relationship last = path.lastRelationship();
+        if ( last == null )
+        {
+            return interner.getRootPathInfo();
+        }
+
+        final Long rid = last.getId();
+        if ( !ambiguous.contains( rid ) )
+        {
+            final GraphPathInfo info = childInfos.remove( rid );
+            if ( info != null )
+            {
+                return info;
+            }
+        }
+
+        return replay( graphPath );
+    }
+
+    /**
+     * Register the info for the child path that extends the path being expanded by the given relationship.
+     */
+    public void addChild( final Relationship child, final GraphPathInfo childInfo )
+    {
+        final Long rid = child.getId();
+        if ( ambiguous.contains( rid ) )
+        {
+            return;
+        }
+
+        final GraphPathInfo existing = childInfos.putIfAbsent( rid, childInfo );
+        if ( existing != null && existing != childInfo )
+        {
+            ambiguous.add( rid );
+            childInfos.remove( rid );
+        }
+    }
+
+    public int size()
+    {
+        return childInfos.size();
+    }
+
+    private GraphPathInfo replay( final Neo4jGraphPath graphPath )
+    {
+        GraphPathInfo info = interner.getRootPathInfo();
+        for ( final Long rid : graphPath )
+        {
+            final Relationship r = admin.getRelationship( rid );
+            info = info.getChildPathInfo( toProjectRelationship( r ) );
+        }
+
+        return info;
+    }
+
+}
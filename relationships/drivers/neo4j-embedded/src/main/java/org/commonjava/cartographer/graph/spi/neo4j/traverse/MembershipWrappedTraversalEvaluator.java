@@ -15,7 +15,6 @@
  */
 package org.commonjava.cartographer.graph.spi.neo4j.traverse;
 
-import static org.commonjava.cartographer.graph.spi.neo4j.io.Conversions.toProjectRelationship;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -66,6 +65,8 @@ public class MembershipWrappedTraversalEvaluator<STATE>
 
     private final RelationshipGraphConnection connection;
 
+    private final GraphPathInfoCache pathInfos;
+
     public MembershipWrappedTraversalEvaluator( final Set<Long> rootIds, final RelationshipGraphTraversal traversal,
                                                 final RelationshipGraphConnection connection, final ViewParams view,
                                                 final Node viewNode, final GraphAdmin admin,
@@ -78,6 +79,7 @@ public class MembershipWrappedTraversalEvaluator<STATE>
         this.viewNode = viewNode;
         this.admin = admin;
         this.types = types;
+        this.pathInfos = new GraphPathInfoCache( connection, view, admin );
     }
 
     private MembershipWrappedTraversalEvaluator( final MembershipWrappedTraversalEvaluator<STATE> ev, final boolean reversedExpander )
@@ -89,6 +91,7 @@ public class MembershipWrappedTraversalEvaluator<STATE>
         this.admin = ev.admin;
         this.viewNode = ev.viewNode;
         this.types = ev.types;
+        this.pathInfos = ev.pathInfos;
         this.reversedExpander = reversedExpander;
     }
 
@@ -148,12 +151,7 @@ public class MembershipWrappedTraversalEvaluator<STATE>
         }
 
         final Neo4jGraphPath graphPath = new Neo4jGraphPath( path );
-        GraphPathInfo pathInfo = new GraphPathInfo( connection, view );
-        for ( final Long rid : graphPath )
-        {
-            final Relationship r = admin.getRelationship( rid );
-            pathInfo = pathInfo.getChildPathInfo( toProjectRelationship( r ) );
-        }
+        final GraphPathInfo pathInfo = pathInfos.getPathInfo( path, graphPath );
 
         GraphRelType[] childTypes = types;
         final ProjectRelationshipFilter filter = pathInfo.getFilter();
@@ -211,6 +209,7 @@ public class MembershipWrappedTraversalEvaluator<STATE>
             {
                 logger.debug( "Adding for expansion: {}", projectRel );
                 result.add( r );
+                pathInfos.addChild( r, pathInfo.getChildPathInfo( projectRel ) );
             }
             else
             {
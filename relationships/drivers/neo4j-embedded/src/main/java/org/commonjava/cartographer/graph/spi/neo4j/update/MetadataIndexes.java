@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.spi.neo4j.update;
+
+import static org.commonjava.cartographer.graph.spi.neo4j.io.Conversions.GAV;
+import static org.commonjava.cartographer.graph.spi.neo4j.io.Conversions.getMetadataMap;
+import static org.commonjava.cartographer.graph.spi.neo4j.io.Conversions.getStringProperty;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.index.Index;
+
+/**
+ * Maintains the metadata indexes of a project node: one {@link #KEY_INDEX_PREFIX} index per metadata key, holding
+ * the GAV of each node with a value for that key, and the {@link #VALUE_INDEX}, holding each node under its
+ * key/value pairs. All methods must be called inside a transaction.
+ */
+public final class MetadataIndexes
+{
+
+    public static final String KEY_INDEX_PREFIX = "has_metadata_";
+
+    public static final String VALUE_INDEX = "metadata_values";
+
+    /**
+     * How many times a multi-node metadata write is attempted before a deadlock is passed on to the caller.
+     */
+    public static final int WRITE_ATTEMPTS = 3;
+
+    /**
+     * Pause before retrying a write that hit a deadlock; multiplied by the attempt number.
+     */
+    public static final long RETRY_PAUSE_MILLIS = 50;
+
+    private static final Comparator<Node> BY_ID = new Comparator<Node>()
+    {
+        @Override
+        public int compare( final Node first, final Node second )
+        {
+            return Long.compare( first.getId(), second.getId() );
+        }
+    };
+
+    private final GraphDatabaseService graph;
+
+    public MetadataIndexes( final GraphDatabaseService graph )
+    {
+        this.graph = graph;
+    }
+
+    /**
+     * Write-lock the nodes in ascending id order, and return them in that order. Every write that changes the metadata
+     * of more than one node takes its locks this way, so two such writes can't deadlock each other.
+     */
+    public static List<Node> lockInIdOrder( final Transaction tx, final Collection<Node> nodes )
+    {
+        final List<Node> sorted = new ArrayList<Node>( nodes );
+        Collections.sort( sorted, BY_ID );
+        for ( final Node node : sorted )
+        {
+            tx.acquireWriteLock( node );
+        }
+
+        return sorted;
+    }
+
+    /**
+     * Record a change to one metadata value of the node, given the value it had before the write.
+     */
+    public void update( final Node node, final String key, final String oldValue, final String newValue )
+    {
+        final String gav = getStringProperty( GAV, node );
+        if ( gav == null || newValue == null || newValue.equals( oldValue ) )
+        {
+            return;
+        }
+
+        final Index<Node> values = graph.index()
+                                        .forNodes( VALUE_INDEX );
+        if ( oldValue == null )
+        {
+            graph.index()
+                 .forNodes( KEY_INDEX_PREFIX + key )
+                 .add( node, GAV, gav );
+        }
+        else
+        {
+            values.remove( node, key, oldValue );
+        }
+
+        values.add( node, key, newValue );
+    }
+
+    /**
+     * Record changes to several metadata values of the node, given its metadata before the write (maybe null).
+     */
+    public void update( final Node node, final Map<String, String> oldMetadata, final Map<String, String> metadata )
+    {
+        for ( final Map.Entry<String, String> entry : metadata.entrySet() )
+        {
+            final String old = oldMetadata == null ? null : oldMetadata.get( entry.getKey() );
+            update( node, entry.getKey(), old, entry.getValue() );
+        }
+    }
+
+    /**
+     * Rebuild the node's entries from its metadata properties. Existing entries are removed first, so this is safe to
+     * repeat.
+     */
+    public void reindex( final Node node )
+    {
+        final String gav = getStringProperty( GAV, node );
+        if ( gav == null )
+        {
+            return;
+        }
+
+        final Index<Node> values = graph.index()
+                                        .forNodes( VALUE_INDEX );
+        values.remove( node );
+
+        final Map<String, String> metadata = getMetadataMap( node );
+        if ( metadata == null )
+        {
+            return;
+        }
+
+        for ( final Map.Entry<String, String> entry : metadata.entrySet() )
+        {
+            final Index<Node> keyIndex = graph.index()
+                                              .forNodes( KEY_INDEX_PREFIX + entry.getKey() );
+            keyIndex.remove( node, GAV );
+            keyIndex.add( node, GAV, gav );
+
+            if ( entry.getValue() != null )
+            {
+                values.add( node, entry.getKey(), entry.getValue() );
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.spi.neo4j.update;
+
+import static org.commonjava.cartographer.graph.spi.neo4j.io.Conversions.getConfigProperty;
+import static org.commonjava.cartographer.graph.spi.neo4j.io.Conversions.removeConfigProperty;
+import static org.commonjava.cartographer.graph.spi.neo4j.io.Conversions.setConfigProperty;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.kernel.GraphDatabaseAPI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rebuilds the {@link MetadataIndexes} of every node, in node id order, one chunk of nodes per transaction. After each
+ * chunk the next node id is saved on the config node, so a pass cut short by shutdown picks up where it stopped the
+ * next time the store is opened, looking nodes up by id from there rather than walking the store from the start. When
+ * the pass completes, the store is marked with {@link #INDEX_VERSION} and no longer needs it.
+ * <br/>
+ * Chunks are locked through {@link MetadataIndexes#lockInIdOrder}, like batched metadata writes. A chunk that hits a
+ * deadlock with some other writer is rolled back and retried.
+ * <br/>
+ * Run in the background for stores written before metadata was indexed on write, with a pause between chunks so it
+ * doesn't crowd out requests; or directly, without a pause, for an explicit reindex.
+ */
+public final class MetadataReindexer
+    implements Runnable
+{
+
+    /**
+     * Stores marked with this version have their metadata indexes maintained on write.
+     */
+    public static final String INDEX_VERSION = "2";
+
+    private static final String INDEX_VERSION_PROPERTY = "metadata-index-version";
+
+    static final String NEXT_NODE_PROPERTY = "metadata-reindex-next";
+
+    private final Logger logger = LoggerFactory.getLogger( getClass() );
+
+    private final GraphDatabaseService graph;
+
+    private final Node configNode;
+
+    private final MetadataIndexes indexes;
+
+    private final int chunkSize;
+
+    private final long pauseMillis;
+
+    private volatile boolean stopped;
+
+    public MetadataReindexer( final GraphDatabaseService graph, final Node configNode, final MetadataIndexes indexes,
+                              final int chunkSize, final long pauseMillis )
+    {
+        this.graph = graph;
+        this.configNode = configNode;
+        this.indexes = indexes;
+        this.chunkSize = Math.max( 1, chunkSize );
+        this.pauseMillis = pauseMillis;
+    }
+
+    public static boolean isCurrent( final Node configNode )
+    {
+        return INDEX_VERSION.equals( getConfigProperty( INDEX_VERSION_PROPERTY, configNode, null ) );
+    }
+
+    /**
+     * Stop after the current chunk. The checkpoint stays, so the pass resumes from there next time.
+     */
+    public void stop()
+    {
+        stopped = true;
+    }
+
+    /**
+     * Forget the current marker and checkpoint, so the next pass starts from the first node.
+     */
+    public void reset()
+    {
+        final Transaction tx = graph.beginTx();
+        try
+        {
+            removeConfigProperty( INDEX_VERSION_PROPERTY, configNode );
+            removeConfigProperty( NEXT_NODE_PROPERTY, configNode );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    @Override
+    public void run()
+    {
+        try
+        {
+            reindexAll();
+        }
+        catch ( final InterruptedException e )
+        {
+            logger.info( "Metadata reindex interrupted. It will resume when the store is next opened." );
+        }
+        catch ( final RuntimeException e )
+        {
+            logger.error( String.format( "Metadata reindex failed. Reason: %s", e.getMessage() ), e );
+        }
+    }
+
+    /**
+     * @return true if the pass completed; false if it was stopped first.
+     */
+    public boolean reindexAll()
+        throws InterruptedException
+    {
+        final long start = Long.parseLong( getConfigProperty( NEXT_NODE_PROPERTY, configNode, "0" ) );
+        logger.info( "Reindexing metadata from node: {} in chunks of {}.", start, chunkSize );
+
+        int count = 0;
+        final List<Node> chunk = new ArrayList<Node>( chunkSize );
+        final Iterator<Node> nodes = nodesFrom( start );
+        while ( nodes.hasNext() )
+        {
+            chunk.add( nodes.next() );
+            if ( chunk.size() >= chunkSize )
+            {
+                if ( stopped )
+                {
+                    return false;
+                }
+
+                reindexChunk( chunk, false );
+                count += chunk.size();
+                chunk.clear();
+
+                if ( pauseMillis > 0 )
+                {
+                    Thread.sleep( pauseMillis );
+                }
+            }
+        }
+
+        if ( stopped )
+        {
+            return false;
+        }
+
+        reindexChunk( chunk, true );
+        count += chunk.size();
+
+        logger.info( "Metadata reindex complete; {} nodes indexed.", count );
+        return true;
+    }
+
+    private void reindexChunk( final List<Node> chunk, final boolean last )
+        throws InterruptedException
+    {
+        for ( int attempt = 1;; attempt++ )
+        {
+            try
+            {
+                tryReindexChunk( chunk, last );
+                return;
+            }
+            catch ( final DeadlockDetectedException e )
+            {
+                if ( attempt >= MetadataIndexes.WRITE_ATTEMPTS )
+                {
+                    throw e;
+                }
+
+                logger.warn( "Deadlock reindexing metadata for {} nodes (attempt {}); retrying.", chunk.size(),
+                             attempt );
+                Thread.sleep( MetadataIndexes.RETRY_PAUSE_MILLIS * attempt );
+            }
+        }
+    }
+
+    private void tryReindexChunk( final List<Node> chunk, final boolean last )
+    {
+        final Transaction tx = graph.beginTx();
+        try
+        {
+            // serialize with metadata writes to these nodes, so we don't index a value they're replacing.
+            for ( final Node node : MetadataIndexes.lockInIdOrder( tx, chunk ) )
+            {
+                indexes.reindex( node );
+            }
+
+            if ( last )
+            {
+                setConfigProperty( INDEX_VERSION_PROPERTY, INDEX_VERSION, configNode );
+                removeConfigProperty( NEXT_NODE_PROPERTY, configNode );
+            }
+            else
+            {
+                final long next = chunk.get( chunk.size() - 1 )
+                                       .getId() + 1;
+                setConfigProperty( NEXT_NODE_PROPERTY, Long.toString( next ), configNode );
+            }
+
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    /**
+     * Iterate the nodes with ids from the given one up to the highest id in use when the pass started. Nodes are looked
+     * up by id, so resuming a pass doesn't read the nodes before the checkpoint. Nodes created after that are indexed
+     * by their own writes.
+     */
+    private Iterator<Node> nodesFrom( final long start )
+    {
+        // the store is always opened through GraphDatabaseFactory, whose databases expose their node manager.
+        final long highest = ( (GraphDatabaseAPI) graph ).getNodeManager()
+                                                         .getHighestPossibleIdInUse( Node.class );
+
+        return new Iterator<Node>()
+        {
+            private long nextId = start;
+
+            private Node next;
+
+            @Override
+            public boolean hasNext()
+            {
+                while ( next == null && nextId <= highest )
+                {
+                    try
+                    {
+                        next = graph.getNodeById( nextId );
+                    }
+                    catch ( final NotFoundException e )
+                    {
+                        // deleted node; skip the id.
+                    }
+
+                    nextId++;
+                }
+
+                return next != null;
+            }
+
+            @Override
+            public Node next()
+            {
+                if ( !hasNext() )
+                {
+                    throw new NoSuchElementException();
+                }
+
+                final Node result = next;
+                next = null;
+                return result;
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException( "Read-only node iteration." );
+            }
+        };
+    }
+}
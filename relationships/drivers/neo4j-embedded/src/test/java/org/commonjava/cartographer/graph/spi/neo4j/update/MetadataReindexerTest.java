@@ -0,0 +1,172 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.graph.spi.neo4j.update;
+
+import static org.commonjava.cartographer.graph.spi.neo4j.io.Conversions.GAV;
+import static org.commonjava.cartographer.graph.spi.neo4j.io.Conversions.getConfigProperty;
+import static org.commonjava.cartographer.graph.spi.neo4j.io.Conversions.setConfigProperty;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.commonjava.cartographer.graph.spi.neo4j.io.Conversions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+
+public class MetadataReindexerTest
+{
+
+    private static final String KEY = "key";
+
+    private static final String VALUE = "value";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private GraphDatabaseService graph;
+
+    private Node configNode;
+
+    private List<Node> projects;
+
+    @Before
+    public void before()
+        throws Exception
+    {
+        graph = new GraphDatabaseFactory().newEmbeddedDatabase( temp.newFolder( "db" ).getAbsolutePath() );
+
+        final Transaction tx = graph.beginTx();
+        try
+        {
+            configNode = graph.createNode();
+
+            // metadata written straight to the nodes, as by a version of the driver that didn't index on write.
+            projects = new ArrayList<Node>();
+            for ( int i = 0; i < 7; i++ )
+            {
+                final Node node = graph.createNode();
+                node.setProperty( GAV, "org.foo:project-" + i + ":1.0" );
+                Conversions.setMetadata( KEY, VALUE, node );
+                projects.add( node );
+            }
+
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    @After
+    public void after()
+    {
+        if ( graph != null )
+        {
+            graph.shutdown();
+        }
+    }
+
+    @Test
+    public void chunkedPassIndexesEveryNodeAndMarksStore()
+        throws Exception
+    {
+        final boolean complete = newReindexer().reindexAll();
+
+        assertThat( complete, equalTo( true ) );
+        assertThat( indexed(), equalTo( ids( projects ) ) );
+        assertThat( MetadataReindexer.isCurrent( configNode ), equalTo( true ) );
+        assertThat( getConfigProperty( MetadataReindexer.NEXT_NODE_PROPERTY, configNode, null ), nullValue() );
+    }
+
+    @Test
+    public void resumesFromCheckpoint()
+        throws Exception
+    {
+        final Node resumeAt = projects.get( 3 );
+        final Transaction tx = graph.beginTx();
+        try
+        {
+            setConfigProperty( MetadataReindexer.NEXT_NODE_PROPERTY, Long.toString( resumeAt.getId() ), configNode );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+
+        newReindexer().reindexAll();
+
+        // nodes before the checkpoint were covered by the earlier, interrupted pass; this one doesn't touch them.
+        assertThat( indexed(), equalTo( ids( projects.subList( 3, projects.size() ) ) ) );
+        assertThat( MetadataReindexer.isCurrent( configNode ), equalTo( true ) );
+    }
+
+    @Test
+    public void resetStartsOver()
+        throws Exception
+    {
+        final MetadataReindexer reindexer = newReindexer();
+        reindexer.reindexAll();
+        reindexer.reset();
+
+        assertThat( MetadataReindexer.isCurrent( configNode ), equalTo( false ) );
+
+        reindexer.reindexAll();
+        assertThat( indexed(), equalTo( ids( projects ) ) );
+    }
+
+    private MetadataReindexer newReindexer()
+    {
+        return new MetadataReindexer( graph, configNode, new MetadataIndexes( graph ), 2, 0 );
+    }
+
+    private Set<Long> indexed()
+    {
+        final Set<Long> result = new HashSet<Long>();
+        for ( final Node node : graph.index()
+                                     .forNodes( MetadataIndexes.VALUE_INDEX )
+                                     .get( KEY, VALUE ) )
+        {
+            result.add( node.getId() );
+        }
+
+        return result;
+    }
+
+    private Set<Long> ids( final List<Node> nodes )
+    {
+        final Set<Long> result = new HashSet<Long>();
+        for ( final Node node : nodes )
+        {
+            result.add( node.getId() );
+        }
+
+        return result;
+    }
+}
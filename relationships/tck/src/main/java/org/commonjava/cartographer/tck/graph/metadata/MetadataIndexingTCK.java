@@ -0,0 +1,176 @@
+/**
+ * Copyright (C) 2012 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.tck.graph.metadata;
+
+import static org.commonjava.maven.atlas.graph.rel.RelationshipConstants.POM_ROOT_URI;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.commonjava.cartographer.graph.RelationshipGraph;
+import org.commonjava.cartographer.graph.ViewParams;
+import org.commonjava.cartographer.tck.graph.AbstractSPI_TCK;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.graph.rel.SimpleDependencyRelationship;
+import org.commonjava.maven.atlas.ident.DependencyScope;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleArtifactRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.junit.Test;
+
+/**
+ * Metadata lookups by key and by key/value must see every write as soon as it returns, and must give the same answers
+ * after a full reindex. Drivers that reindex in chunks should be handed more projects than fit in one.
+ */
+public class MetadataIndexingTCK
+    extends AbstractSPI_TCK
+{
+
+    private static final String KEY = "tck-key";
+
+    private static final int MANY_PROJECTS = 1200;
+
+    @Test
+    public void singleWritesAreIndexedByKeyAndValue()
+        throws Exception
+    {
+        final ProjectVersionRef root = project( "root" );
+        final ProjectVersionRef a = project( "a" );
+        final ProjectVersionRef b = project( "b" );
+
+        final RelationshipGraph graph = openGraph( new ViewParams( newWorkspaceId() ), true );
+        graph.storeRelationships( dependency( root, a, 0 ), dependency( root, b, 1 ) );
+
+        graph.addMetadata( a, KEY, "one" );
+        graph.addMetadata( b, Collections.singletonMap( KEY, "two" ) );
+
+        assertThat( graph.getProjectsWithMetadata( KEY ), equalTo( refs( a, b ) ) );
+        assertThat( graph.getProjectsWithMetadata( KEY, "one" ), equalTo( refs( a ) ) );
+        assertThat( graph.getProjectsWithMetadata( KEY, "two" ), equalTo( refs( b ) ) );
+
+        graph.addMetadata( a, KEY, "two" );
+
+        assertThat( graph.getProjectsWithMetadata( KEY, "one" ), equalTo( refs() ) );
+        assertThat( graph.getProjectsWithMetadata( KEY, "two" ), equalTo( refs( a, b ) ) );
+    }
+
+    @Test
+    public void batchWritesAreIndexedByKeyAndValue()
+        throws Exception
+    {
+        final RelationshipGraph graph = openGraph( new ViewParams( newWorkspaceId() ), true );
+        final List<ProjectVersionRef> projects = storeProjects( graph, 10 );
+
+        graph.addMetadata( valuesByParity( projects ) );
+
+        assertThat( graph.getProjectsWithMetadata( KEY ), equalTo( new HashSet<ProjectVersionRef>( projects ) ) );
+        assertThat( graph.getProjectsWithMetadata( KEY, "even" ), equalTo( withParity( projects, 0 ) ) );
+        assertThat( graph.getProjectsWithMetadata( KEY, "odd" ), equalTo( withParity( projects, 1 ) ) );
+    }
+
+    @Test
+    public void fullReindexKeepsLookups()
+        throws Exception
+    {
+        final RelationshipGraph graph = openGraph( new ViewParams( newWorkspaceId() ), true );
+        final List<ProjectVersionRef> projects = storeProjects( graph, MANY_PROJECTS );
+
+        graph.addMetadata( valuesByParity( projects ) );
+        graph.reindex();
+
+        assertThat( graph.getProjectsWithMetadata( KEY ), equalTo( new HashSet<ProjectVersionRef>( projects ) ) );
+        assertThat( graph.getProjectsWithMetadata( KEY, "even" ), equalTo( withParity( projects, 0 ) ) );
+        assertThat( graph.getProjectsWithMetadata( KEY, "odd" ), equalTo( withParity( projects, 1 ) ) );
+
+        // writes after the reindex are still indexed on write.
+        final ProjectVersionRef first = projects.get( 0 );
+        graph.addMetadata( first, KEY, "odd" );
+
+        final Set<ProjectVersionRef> odd = withParity( projects, 1 );
+        odd.add( first );
+        assertThat( graph.getProjectsWithMetadata( KEY, "odd" ), equalTo( odd ) );
+    }
+
+    private List<ProjectVersionRef> storeProjects( final RelationshipGraph graph, final int count )
+        throws Exception
+    {
+        final ProjectVersionRef root = project( "root" );
+        final List<ProjectVersionRef> projects = new ArrayList<ProjectVersionRef>( count );
+        final List<ProjectRelationship<?, ?>> rels = new ArrayList<ProjectRelationship<?, ?>>( count );
+        for ( int i = 0; i < count; i++ )
+        {
+            final ProjectVersionRef project = project( "project-" + i );
+            projects.add( project );
+            rels.add( dependency( root, project, i ) );
+        }
+
+        graph.storeRelationships( rels );
+        return projects;
+    }
+
+    private Map<ProjectVersionRef, Map<String, String>> valuesByParity( final List<ProjectVersionRef> projects )
+    {
+        final Map<ProjectVersionRef, Map<String, String>> metadata =
+            new HashMap<ProjectVersionRef, Map<String, String>>();
+        for ( int i = 0; i < projects.size(); i++ )
+        {
+            metadata.put( projects.get( i ), Collections.singletonMap( KEY, i % 2 == 0 ? "even" : "odd" ) );
+        }
+
+        return metadata;
+    }
+
+    private Set<ProjectVersionRef> withParity( final List<ProjectVersionRef> projects, final int parity )
+    {
+        final Set<ProjectVersionRef> result = new HashSet<ProjectVersionRef>();
+        for ( int i = parity; i < projects.size(); i += 2 )
+        {
+            result.add( projects.get( i ) );
+        }
+
+        return result;
+    }
+
+    private SimpleDependencyRelationship dependency( final ProjectVersionRef from, final ProjectVersionRef to,
+                                                     final int index )
+        throws Exception
+    {
+        final URI source = sourceURI();
+        return new SimpleDependencyRelationship( source, POM_ROOT_URI, from,
+                                                 new SimpleArtifactRef( to, "jar", null ),
+                                                 DependencyScope.compile, index, false, false, false );
+    }
+
+    private ProjectVersionRef project( final String artifactId )
+    {
+        return new SimpleProjectVersionRef( "org.tck.metadata", artifactId, "1.0" );
+    }
+
+    private Set<ProjectVersionRef> refs( final ProjectVersionRef... refs )
+    {
+        final Set<ProjectVersionRef> result = new HashSet<ProjectVersionRef>();
+        Collections.addAll( result, refs );
+        return result;
+    }
+}
@@ -18,14 +18,24 @@ package org.commonjava.cartographer.client;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationConfig;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
 import org.apache.http.HttpStatus;
 import org.commonjava.cartographer.CartoAPIObjectMapperModules;
+import org.commonjava.cartographer.CartoWireFormat;
+import org.commonjava.cartographer.graph.agg.ProgressListener;
+import org.commonjava.cartographer.graph.fn.GraphExportWriter;
+import org.commonjava.cartographer.graph.fn.ProjectBatchWriter;
 import org.commonjava.cartographer.request.GraphAnalysisRequest;
 import org.commonjava.cartographer.request.GraphCalculation;
 import org.commonjava.cartographer.request.MetadataCollationRequest;
@@ -35,6 +45,7 @@ import org.commonjava.cartographer.request.MultiGraphRequest;
 import org.commonjava.cartographer.request.MultiRenderRequest;
 import org.commonjava.cartographer.request.PathsRequest;
 import org.commonjava.cartographer.request.PomRequest;
+import org.commonjava.cartographer.request.ProjectBatchRequest;
 import org.commonjava.cartographer.request.ProjectGraphRelationshipsRequest;
 import org.commonjava.cartographer.request.ProjectGraphRequest;
 import org.commonjava.cartographer.request.RepositoryContentRequest;
@@ -45,16 +56,19 @@ import org.commonjava.cartographer.request.build.GraphCompositionBuilder;
 import org.commonjava.cartographer.request.build.GraphDescriptionBuilder;
 import org.commonjava.cartographer.request.build.MetadataCollationRequestBuilder;
 import org.commonjava.cartographer.request.build.MetadataExtractionRequestBuilder;
+import org.commonjava.cartographer.request.build.MetadataRescanRequestBuilder;
 import org.commonjava.cartographer.request.build.MetadataUpdateRequestBuilder;
 import org.commonjava.cartographer.request.build.MultiGraphRequestBuilder;
 import org.commonjava.cartographer.request.build.MultiRenderRequestBuilder;
 import org.commonjava.cartographer.request.build.PathsRequestBuilder;
 import org.commonjava.cartographer.request.build.PomRequestBuilder;
+import org.commonjava.cartographer.request.build.ProjectBatchRequestBuilder;
 import org.commonjava.cartographer.request.build.ProjectGraphRelationshipsRequestBuilder;
 import org.commonjava.cartographer.request.build.ProjectGraphRequestBuilder;
 import org.commonjava.cartographer.request.build.RepositoryContentRequestBuilder;
 import org.commonjava.cartographer.rest.dto.DownlogRequest;
 import org.commonjava.cartographer.rest.dto.DownlogRequestBuilder;
+import org.commonjava.cartographer.rest.dto.ProgressEvent;
 import org.commonjava.cartographer.rest.dto.RepoContentResult;
 import org.commonjava.cartographer.rest.dto.UrlMapResult;
 import org.commonjava.cartographer.rest.dto.WorkspaceList;
@@ -64,7 +78,10 @@ import org.commonjava.cartographer.result.MappedProjectRelationshipsResult;
 import org.commonjava.cartographer.result.MappedProjectResult;
 import org.commonjava.cartographer.result.MappedProjectsResult;
 import org.commonjava.cartographer.result.MetadataCollationResult;
+import org.commonjava.cartographer.result.MetadataRescanResult;
 import org.commonjava.cartographer.result.MetadataResult;
+import org.commonjava.cartographer.result.ProjectBatchEntry;
+import org.commonjava.cartographer.result.ProjectBatchResult;
 import org.commonjava.cartographer.result.ProjectErrors;
 import org.commonjava.cartographer.result.ProjectListResult;
 import org.commonjava.cartographer.result.ProjectPathsResult;
@@ -81,13 +98,33 @@ import org.commonjava.util.jhttpc.HttpFactory;
 import org.commonjava.util.jhttpc.auth.ClientAuthenticator;
 import org.commonjava.util.jhttpc.auth.PasswordManager;
 import org.commonjava.util.jhttpc.model.SiteConfig;
+import org.commonjava.util.jhttpc.model.SiteConfigBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.ANY;
 import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.NONE;
@@ -100,8 +137,42 @@ import static com.fasterxml.jackson.databind.DeserializationFeature.*;
 public class CartographerRESTClient
     implements AutoCloseable
 {
+    public static final int DEFAULT_ASYNC_THREADS = 8;
+
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final TypeReference<ProjectRelationship<?, ?>> RELATIONSHIP_TYPE =
+            new TypeReference<ProjectRelationship<?, ?>>()
+            {
+            };
+
+    /**
+     * Registering the Cartographer modules is expensive, so it's done once here. Clients created from a URL or site
+     * config each get a copy, so changes made through one client's {@link #getObjectMapper()} don't leak into others.
+     */
+    private static volatile ObjectMapper templateMapper;
+
+    private static final AtomicInteger ASYNC_POOL_COUNTER = new AtomicInteger();
+
     private final ClientHttpSupport http;
 
+    private final Map<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private volatile boolean binaryWireFormat;
+
+    private int asyncThreads = DEFAULT_ASYNC_THREADS;
+
+    private ExecutorService asyncExecutor;
+
+    private boolean ownsAsyncExecutor;
+
+    @FunctionalInterface
+    public interface ClientCall<T>
+    {
+        T call()
+                throws Exception;
+    }
+
     public CartographerRESTClient( ClientHttpSupport http )
     {
         this.http = http;
@@ -110,22 +181,66 @@ public class CartographerRESTClient
     public CartographerRESTClient( final String baseUrl, final PasswordManager passwordManager )
             throws ClientHttpException
     {
-        this.http = new ClientHttpSupport( baseUrl, passwordManager, newObjectMapper() );
+        this.http = new ClientHttpSupport( baseUrl, passwordManager, clientObjectMapper() );
     }
 
     public CartographerRESTClient( final String baseUrl, final ClientAuthenticator authenticator )
             throws ClientHttpException
     {
-        this.http = new ClientHttpSupport( baseUrl, authenticator, newObjectMapper() );
+        this.http = new ClientHttpSupport( baseUrl, authenticator, clientObjectMapper() );
     }
 
     public CartographerRESTClient( final SiteConfig siteConfig, final HttpFactory httpFactory )
             throws ClientHttpException
     {
-        this.http = new ClientHttpSupport( siteConfig, newObjectMapper(), httpFactory );
+        this.http = new ClientHttpSupport( siteConfig, clientObjectMapper(), httpFactory );
+    }
+
+    /**
+     * Create a client for tools that issue many calls, often concurrently. Up to maxConnections connections to the
+     * server are kept open and reused, and the async variants of the operations (see
+     * {@link ClientGraphOps#listProjectsAsync(ProjectGraphRequest)}, for example) run on the same number of threads.
+     */
+    public static CartographerRESTClient newHighThroughputClient( final String baseUrl,
+                                                                  final PasswordManager passwordManager,
+                                                                  final int maxConnections )
+            throws ClientHttpException
+    {
+        final SiteConfig siteConfig =
+                new SiteConfigBuilder( "cartographer", baseUrl ).withMaxConnections( maxConnections ).build();
+
+        final CartographerRESTClient client =
+                new CartographerRESTClient( siteConfig, new HttpFactory( passwordManager ) );
+
+        client.setAsyncThreads( maxConnections );
+        return client;
     }
 
     public ObjectMapper newObjectMapper()
+    {
+        return configureObjectMapper();
+    }
+
+    private static ObjectMapper clientObjectMapper()
+    {
+        ObjectMapper mapper = templateMapper;
+        if ( mapper == null )
+        {
+            synchronized ( CartographerRESTClient.class )
+            {
+                mapper = templateMapper;
+                if ( mapper == null )
+                {
+                    mapper = configureObjectMapper();
+                    templateMapper = mapper;
+                }
+            }
+        }
+
+        return mapper.copy();
+    }
+
+    private static ObjectMapper configureObjectMapper()
     {
         ObjectMapper mapper = new ObjectMapper();
         mapper.registerModules( new CartoAPIObjectMapperModules().getSerializerModules() );
@@ -145,6 +260,90 @@ public class CartographerRESTClient
         return getHttp().getObjectMapper();
     }
 
+    /**
+     * When enabled, graph payloads ({@link GraphExport}, {@link GraphDifference}, {@link GraphCalculation} and
+     * {@link MappedProjectRelationshipsResult}) are requested in the binary {@link CartoWireFormat#APPLICATION_SMILE}
+     * encoding instead of JSON. Requests are still sent as JSON.
+     */
+    public CartographerRESTClient setBinaryWireFormat( final boolean binaryWireFormat )
+    {
+        this.binaryWireFormat = binaryWireFormat;
+        return this;
+    }
+
+    public boolean isBinaryWireFormat()
+    {
+        return binaryWireFormat;
+    }
+
+    /**
+     * Number of threads used to run async calls, if no executor has been set via
+     * {@link #setAsyncExecutor(ExecutorService)}. Only takes effect before the first async call.
+     */
+    public synchronized CartographerRESTClient setAsyncThreads( final int asyncThreads )
+    {
+        this.asyncThreads = asyncThreads;
+        return this;
+    }
+
+    /**
+     * Run async calls on the given executor instead of a pool owned by this client. The caller remains responsible
+     * for shutting it down.
+     */
+    public synchronized CartographerRESTClient setAsyncExecutor( final ExecutorService asyncExecutor )
+    {
+        if ( ownsAsyncExecutor && this.asyncExecutor != null )
+        {
+            this.asyncExecutor.shutdown();
+        }
+
+        this.asyncExecutor = asyncExecutor;
+        this.ownsAsyncExecutor = false;
+        return this;
+    }
+
+    /**
+     * Run the given call on this client's async executor.
+     */
+    public <T> CompletableFuture<T> async( final ClientCall<T> call )
+    {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        getAsyncExecutor().execute( () -> {
+            if ( future.isCancelled() )
+            {
+                return;
+            }
+
+            try
+            {
+                future.complete( call.call() );
+            }
+            catch ( Exception e )
+            {
+                future.completeExceptionally( e );
+            }
+        } );
+
+        return future;
+    }
+
+    private synchronized ExecutorService getAsyncExecutor()
+    {
+        if ( asyncExecutor == null )
+        {
+            final int pool = ASYNC_POOL_COUNTER.incrementAndGet();
+            final AtomicInteger threadCounter = new AtomicInteger();
+            asyncExecutor = Executors.newFixedThreadPool( Math.max( 1, asyncThreads ), ( runnable ) -> {
+                final Thread t = new Thread( runnable, "carto-client-" + pool + "-" + threadCounter.incrementAndGet() );
+                t.setDaemon( true );
+                return t;
+            } );
+            ownsAsyncExecutor = true;
+        }
+
+        return asyncExecutor;
+    }
+
     public ProjectListResult list( ProjectGraphRequest request )
             throws CartoClientException, ClientHttpException
     {
@@ -208,7 +407,7 @@ public class CartographerRESTClient
     public GraphExport graph( SingleGraphRequest request )
             throws CartoClientException, ClientHttpException
     {
-        return getHttp().postWithResponse( "depgraph/graph/export", request, GraphExport.class );
+        return postGraphPayload( "depgraph/graph/export", request, GraphExport.class );
     }
 
     public GraphExport export( SingleGraphRequest request )
@@ -217,18 +416,101 @@ public class CartographerRESTClient
         return graph( request );
     }
 
+    /**
+     * Export the graph, handing relationships to the writer as they're read off the wire rather than collecting them
+     * into a {@link GraphExport} first.
+     */
+    public void export( SingleGraphRequest request, GraphExportWriter writer )
+            throws CartoClientException, ClientHttpException
+    {
+        final String path = "depgraph/graph/export";
+        try (HttpResources resources = getHttp().postRaw( path, request, entityHeaders() ))
+        {
+            if ( !checkStatus( resources, path ) )
+            {
+                return;
+            }
+
+            try (JsonParser parser = openParser( resources ))
+            {
+                readGraphExport( parser, writer );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new CartoClientException( "Failed to read graph export from: %s. Reason: %s", e, path,
+                                            e.getMessage() );
+        }
+    }
+
     public MappedProjectRelationshipsResult relationshipsDeclaredBy( ProjectGraphRelationshipsRequest request )
             throws CartoClientException, ClientHttpException
     {
-        return getHttp().postWithResponse( "depgraph/project/relationships", request,
-                                           MappedProjectRelationshipsResult.class );
+        return postGraphPayload( "depgraph/project/relationships", request, MappedProjectRelationshipsResult.class );
     }
 
     public MappedProjectRelationshipsResult relationshipsTargeting( ProjectGraphRelationshipsRequest request )
             throws CartoClientException, ClientHttpException
     {
-        return getHttp().postWithResponse( "depgraph/project/targeting", request,
-                                           MappedProjectRelationshipsResult.class );
+        return postGraphPayload( "depgraph/project/targeting", request, MappedProjectRelationshipsResult.class );
+    }
+
+    /**
+     * Direct relationships, parents and metadata for many projects in one round-trip.
+     */
+    public ProjectBatchResult batch( ProjectBatchRequest request )
+            throws CartoClientException, ClientHttpException
+    {
+        return postGraphPayload( "depgraph/project/batch", request, ProjectBatchResult.class );
+    }
+
+    /**
+     * Like {@link #batch(ProjectBatchRequest)}, but hands each project's entry to the writer as it's read off the
+     * wire.
+     */
+    public void batch( ProjectBatchRequest request, ProjectBatchWriter writer )
+            throws CartoClientException, ClientHttpException
+    {
+        final String path = "depgraph/project/batch";
+        try (HttpResources resources = getHttp().postRaw( path, request, entityHeaders() ))
+        {
+            if ( !checkStatus( resources, path ) )
+            {
+                return;
+            }
+
+            try (JsonParser parser = openParser( resources ))
+            {
+                final ObjectReader reader = readerFor( getObjectMapper().constructType( ProjectBatchEntry.class ) );
+                if ( parser.nextToken() != JsonToken.START_OBJECT )
+                {
+                    throw new CartoClientException( "Expected a batch result object, but got: %s",
+                                                    parser.getCurrentToken() );
+                }
+
+                while ( parser.nextToken() == JsonToken.FIELD_NAME )
+                {
+                    final String field = parser.getCurrentName();
+                    if ( parser.nextToken() == JsonToken.START_ARRAY && "projects".equals( field ) )
+                    {
+                        final Iterator<ProjectBatchEntry> it = new ArrayElementIterator<>( parser, reader );
+                        while ( it.hasNext() )
+                        {
+                            writer.write( it.next() );
+                        }
+                    }
+                    else
+                    {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new CartoClientException( "Failed to read batch result from: %s. Reason: %s", e, path,
+                                            e.getMessage() );
+        }
     }
 
     public MetadataResult getMetadata( MetadataExtractionRequest request )
@@ -243,10 +525,10 @@ public class CartographerRESTClient
         return getHttp().postWithResponse( "depgraph/meta/updates", request, ProjectListResult.class );
     }
 
-    public ProjectListResult rescanMetadata( ProjectGraphRequest request )
+    public MetadataRescanResult rescanMetadata( ProjectGraphRequest request )
             throws CartoClientException, ClientHttpException
     {
-        return getHttp().postWithResponse( "depgraph/meta/rescan", request, ProjectListResult.class );
+        return getHttp().postWithResponse( "depgraph/meta/rescan", request, MetadataRescanResult.class );
     }
 
     public MetadataCollationResult collateMetadata( MetadataCollationRequest request )
@@ -270,25 +552,25 @@ public class CartographerRESTClient
     public GraphDifference<ProjectVersionRef> calculateGraphDrift( GraphAnalysisRequest request )
             throws CartoClientException, ClientHttpException
     {
-        return getHttp().postWithResponse( "depgraph/calc/drift", request,
-                                           new TypeReference<GraphDifference<ProjectVersionRef>>()
-                                           {
-                                           } );
+        return postGraphPayload( "depgraph/calc/drift", request,
+                                 new TypeReference<GraphDifference<ProjectVersionRef>>()
+                                 {
+                                 } );
     }
 
     public GraphDifference<ProjectRelationship<?, ?>> graphDiff( GraphAnalysisRequest request )
             throws CartoClientException, ClientHttpException
     {
-        return getHttp().postWithResponse( "depgraph/calc/drift", request,
-                                           new TypeReference<GraphDifference<ProjectRelationship<?, ?>>>()
-                                           {
-                                           } );
+        return postGraphPayload( "depgraph/calc/drift", request,
+                                 new TypeReference<GraphDifference<ProjectRelationship<?, ?>>>()
+                                 {
+                                 } );
     }
 
     public GraphCalculation calculate( MultiGraphRequest request )
             throws CartoClientException, ClientHttpException
     {
-        return getHttp().postWithResponse( "depgraph/calc/drift", request, GraphCalculation.class );
+        return postGraphPayload( "depgraph/calc/drift", request, GraphCalculation.class );
     }
 
     public UrlMapResult repositoryUrlMap( RepositoryContentRequest request )
@@ -369,6 +651,84 @@ public class CartographerRESTClient
         return MultiGraphRequestBuilder.newMultiGraphResolverRequestBuilder();
     }
 
+    /**
+     * A fresh id for a request's progressId, so its progress can be watched with
+     * {@link #watchProgress(String, ProgressListener)}.
+     */
+    public String newProgressId()
+    {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Watch the progress channel for a request's progressId (or an async job id), passing each event to the listener
+     * on a dedicated daemon thread. Open the watch before sending the request to see all of its events. The watch ends
+     * when the channel completes (asynchronous jobs always do), when the server closes it after a period without
+     * events, or when the returned subscription is closed, which callers of synchronous requests should do once the
+     * request returns.
+     */
+    public ProgressSubscription watchProgress( final String progressId, final ProgressListener listener )
+    {
+        final ProgressSubscription subscription = new ProgressSubscription( progressId );
+        final String path = UrlUtils.buildUrl( "depgraph/progress", progressId );
+
+        final Thread t = new Thread( () -> {
+            final Map<String, String> headers = new HashMap<>();
+            headers.put( "Accept", "application/x-ndjson" );
+
+            try (HttpResources resources = getHttp().getRaw( path, headers ))
+            {
+                subscription.setResources( resources );
+                if ( !checkStatus( resources, path ) )
+                {
+                    return;
+                }
+
+                final ObjectReader reader = readerFor( getObjectMapper().constructType( ProgressEvent.class ) );
+                final BufferedReader in =
+                        new BufferedReader( new InputStreamReader( openEntity( resources ), StandardCharsets.UTF_8 ) );
+
+                String line;
+                while ( !subscription.isClosed() && ( line = in.readLine() ) != null )
+                {
+                    if ( line.trim().isEmpty() )
+                    {
+                        continue;
+                    }
+
+                    final ProgressEvent event = reader.readValue( line );
+                    listener.onProgress( event );
+                    if ( event.getType() != null && event.getType().isFinal() )
+                    {
+                        break;
+                    }
+                }
+            }
+            catch ( Exception e )
+            {
+                if ( !subscription.isClosed() )
+                {
+                    Logger logger = LoggerFactory.getLogger( getClass() );
+                    logger.warn( "Stopped watching progress: " + progressId + ". Reason: " + e.getMessage(), e );
+                }
+            }
+            finally
+            {
+                subscription.close();
+            }
+        }, "carto-progress-" + progressId );
+
+        t.setDaemon( true );
+        subscription.start( t );
+
+        return subscription;
+    }
+
+    public ProjectBatchRequestBuilder newProjectBatchRequest()
+    {
+        return ProjectBatchRequestBuilder.newProjectBatchRequestBuilder();
+    }
+
     public PomRequestBuilder newPomRequest()
     {
         return PomRequestBuilder.newPomRequestBuilder();
@@ -399,6 +759,11 @@ public class CartographerRESTClient
         return MetadataCollationRequestBuilder.newMetadataRecipeBuilder();
     }
 
+    public MetadataRescanRequestBuilder newMetadataRescanRequest()
+    {
+        return MetadataRescanRequestBuilder.newMetadataRescanRequestBuilder();
+    }
+
     public MultiRenderRequestBuilder newMultiRenderRequest()
     {
         return MultiRenderRequestBuilder.newMultiRenderRecipeBuilder();
@@ -429,11 +794,242 @@ public class CartographerRESTClient
         return new CartoAPIObjectMapperModules().getSerializerModules();
     }
 
+    private <T> T postGraphPayload( final String path, final Object request, final Class<T> type )
+            throws CartoClientException, ClientHttpException
+    {
+        return postForEntity( path, request, getObjectMapper().getTypeFactory().constructType( type ) );
+    }
+
+    private <T> T postGraphPayload( final String path, final Object request, final TypeReference<T> typeRef )
+            throws CartoClientException, ClientHttpException
+    {
+        return postForEntity( path, request, getObjectMapper().getTypeFactory().constructType( typeRef ) );
+    }
+
+    /**
+     * Deserialize the response directly from the (possibly compressed) response stream, rather than reading it into
+     * a string first. Returns null if the server had nothing to return.
+     */
+    private <T> T postForEntity( final String path, final Object request, final JavaType type )
+            throws CartoClientException, ClientHttpException
+    {
+        try (HttpResources resources = getHttp().postRaw( path, request, entityHeaders() ))
+        {
+            if ( !checkStatus( resources, path ) )
+            {
+                return null;
+            }
+
+            try (JsonParser parser = openParser( resources ))
+            {
+                return readerFor( type ).readValue( parser );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new CartoClientException( "Failed to read response from: %s. Reason: %s", e, path, e.getMessage() );
+        }
+    }
+
+    private Map<String, String> entityHeaders()
+    {
+        Map<String, String> headers = new HashMap<>();
+        headers.put( "Accept", binaryWireFormat ? CartoWireFormat.APPLICATION_SMILE : "application/json" );
+        headers.put( "Accept-Encoding", ACCEPT_ENCODING );
+        headers.put( "Content-Type", "application/json" );
+        return headers;
+    }
+
+    /**
+     * Rendered output (dotfiles, dependency trees and lists) is large and repetitive text, so ask for it compressed.
+     */
+    private Map<String, String> textHeaders()
+    {
+        Map<String, String> headers = new HashMap<>();
+        headers.put( "Accept-Encoding", ACCEPT_ENCODING );
+        headers.put( "Content-Type", "application/json" );
+        return headers;
+    }
+
+    /**
+     * Returns false if the server answered 204 (it does so when there's nothing to return), true if it answered 200.
+     */
+    private boolean checkStatus( final HttpResources resources, final String path )
+            throws ClientHttpException
+    {
+        final int status = resources.getStatusCode();
+        if ( status == HttpStatus.SC_NO_CONTENT )
+        {
+            return false;
+        }
+
+        if ( status != HttpStatus.SC_OK )
+        {
+            throw new ClientHttpException( status, "Error retrieving %s.\n%s", path,
+                                           new ClientHttpResponseErrorDetails( resources.getResponse() ) );
+        }
+
+        return true;
+    }
+
+    private JsonParser openParser( final HttpResources resources )
+            throws IOException
+    {
+        final InputStream in = openEntity( resources );
+        final Header contentType = resources.getResponse().getFirstHeader( "Content-Type" );
+        if ( contentType != null && contentType.getValue().startsWith( CartoWireFormat.APPLICATION_SMILE ) )
+        {
+            return CartoWireFormat.openSmileParser( in );
+        }
+
+        return getObjectMapper().getFactory().createParser( in );
+    }
+
+    /**
+     * The HTTP client normally decompresses responses itself (and drops the Content-Encoding header when it does).
+     * If it hasn't, decode the entity here.
+     */
+    private InputStream openEntity( final HttpResources resources )
+            throws IOException
+    {
+        final InputStream in = resources.getResponseEntityContent();
+        final Header encoding = resources.getResponse().getFirstHeader( "Content-Encoding" );
+        if ( encoding == null )
+        {
+            return in;
+        }
+
+        switch ( encoding.getValue().trim().toLowerCase() )
+        {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream( in );
+            case "deflate":
+                return new InflaterInputStream( in );
+            default:
+                return in;
+        }
+    }
+
+    private ObjectReader readerFor( final JavaType type )
+    {
+        return readers.computeIfAbsent( type, ( t ) -> getObjectMapper().readerFor( t ) );
+    }
+
+    /**
+     * The server writes all of the export summary's fields (even null or empty ones) before the relationships. So when
+     * any summary field arrives first, the relationships are streamed to the writer straight from the parser.
+     * Otherwise (an older server, which writes the relationships first), they're buffered until the summary has been
+     * read.
+     */
+    private void readGraphExport( final JsonParser parser, final GraphExportWriter writer )
+            throws IOException, CartoClientException
+    {
+        if ( parser.nextToken() != JsonToken.START_OBJECT )
+        {
+            throw new CartoClientException( "Expected a graph export object, but got: %s", parser.getCurrentToken() );
+        }
+
+        final ObjectMapper mapper = getObjectMapper();
+        final ObjectReader relationshipReader =
+                readerFor( mapper.getTypeFactory().constructType( RELATIONSHIP_TYPE ) );
+
+        final ObjectNode summary = mapper.createObjectNode();
+        List<ProjectRelationship<?, ?>> buffered = null;
+
+        while ( parser.nextToken() == JsonToken.FIELD_NAME )
+        {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if ( !"relationships".equals( field ) )
+            {
+                summary.set( field, mapper.readTree( parser ) );
+            }
+            else if ( value != JsonToken.START_ARRAY )
+            {
+                parser.skipChildren();
+            }
+            else if ( summary.size() > 0 )
+            {
+                final Iterator<ProjectRelationship<?, ?>> it = new ArrayElementIterator<>( parser, relationshipReader );
+                writer.write( mapper.treeToValue( summary, GraphExport.class ),
+                              StreamSupport.stream( Spliterators.spliteratorUnknownSize( it, Spliterator.NONNULL ),
+                                                    false ) );
+                return;
+            }
+            else
+            {
+                buffered = new ArrayList<>();
+                new ArrayElementIterator<ProjectRelationship<?, ?>>( parser, relationshipReader ).forEachRemaining(
+                        buffered::add );
+            }
+        }
+
+        writer.write( mapper.treeToValue( summary, GraphExport.class ),
+                      buffered == null ? Stream.empty() : buffered.stream() );
+    }
+
+    /**
+     * Reads the elements of a JSON array one at a time. The parser must be positioned on the array's START_ARRAY.
+     */
+    private static final class ArrayElementIterator<T>
+            implements Iterator<T>
+    {
+        private final JsonParser parser;
+
+        private final ObjectReader reader;
+
+        private JsonToken next;
+
+        ArrayElementIterator( final JsonParser parser, final ObjectReader reader )
+        {
+            this.parser = parser;
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if ( next == null )
+            {
+                try
+                {
+                    next = parser.nextToken();
+                }
+                catch ( IOException e )
+                {
+                    throw new IllegalStateException( "Failed to read next array element: " + e.getMessage(), e );
+                }
+            }
+
+            return next != null && next != JsonToken.END_ARRAY;
+        }
+
+        @Override
+        public T next()
+        {
+            if ( !hasNext() )
+            {
+                throw new NoSuchElementException();
+            }
+
+            next = null;
+            try
+            {
+                return reader.readValue( parser );
+            }
+            catch ( IOException e )
+            {
+                throw new IllegalStateException( "Failed to read array element: " + e.getMessage(), e );
+            }
+        }
+    }
+
     private String postWithStringOutput( String path, Object request )
             throws CartoClientException, ClientHttpException
     {
         String result = null;
-        try (HttpResources resources = getHttp().postRaw( path, request ))
+        try (HttpResources resources = getHttp().postRaw( path, request, textHeaders() ))
         {
             if ( resources.getStatusCode() != HttpStatus.SC_OK )
             {
@@ -441,7 +1037,7 @@ public class CartographerRESTClient
                                                 new ClientHttpResponseErrorDetails( resources.getResponse() ) );
             }
 
-            result = IOUtils.toString( resources.getResponseEntityContent() );
+            result = IOUtils.toString( openEntity( resources ), StandardCharsets.UTF_8 );
         }
         catch ( IOException e )
         {
@@ -456,6 +1052,15 @@ public class CartographerRESTClient
     public void close()
             throws Exception
     {
+        synchronized ( this )
+        {
+            if ( ownsAsyncExecutor && asyncExecutor != null )
+            {
+                asyncExecutor.shutdown();
+                asyncExecutor = null;
+            }
+        }
+
         if ( http != null )
         {
             http.close();
@@ -26,6 +26,8 @@ import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
 import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
 import org.commonjava.propulsor.client.http.ClientHttpException;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Created by jdcasey on 8/17/15.
  */
@@ -83,4 +85,20 @@ public class ClientCalculatorOps
             throw new CartoDataException( "Failed to execute: " + e.getMessage(), e );
         }
     }
+
+    public CompletableFuture<GraphDifference<ProjectRelationship<?, ?>>> differenceAsync( GraphAnalysisRequest request )
+    {
+        return module.async( () -> difference( request ) );
+    }
+
+    public CompletableFuture<GraphDifference<ProjectVersionRef>> intersectingTargetDriftAsync(
+            GraphAnalysisRequest request )
+    {
+        return module.async( () -> intersectingTargetDrift( request ) );
+    }
+
+    public CompletableFuture<GraphCalculation> calculateAsync( MultiGraphRequest request )
+    {
+        return module.async( () -> calculate( request ) );
+    }
 }
@@ -17,8 +17,12 @@ package org.commonjava.cartographer.client;
 
 import org.commonjava.cartographer.CartoDataException;
 import org.commonjava.cartographer.CartoRequestException;
+import org.commonjava.cartographer.graph.fn.GraphExportWriter;
+import org.commonjava.cartographer.graph.fn.ProjectBatchWriter;
+import org.commonjava.cartographer.graph.fn.ProjectPathsWriter;
 import org.commonjava.cartographer.ops.GraphOps;
 import org.commonjava.cartographer.request.PathsRequest;
+import org.commonjava.cartographer.request.ProjectBatchRequest;
 import org.commonjava.cartographer.request.ProjectGraphRelationshipsRequest;
 import org.commonjava.cartographer.request.ProjectGraphRequest;
 import org.commonjava.cartographer.request.SingleGraphRequest;
@@ -28,10 +32,18 @@ import org.commonjava.cartographer.result.MappedProjectResult;
 import org.commonjava.cartographer.result.MappedProjectsResult;
 import org.commonjava.cartographer.result.ProjectErrors;
 import org.commonjava.cartographer.result.ProjectListResult;
+import org.commonjava.cartographer.result.ProjectPath;
+import org.commonjava.cartographer.result.ProjectPaths;
 import org.commonjava.cartographer.result.ProjectPathsResult;
 import org.commonjava.cartographer.graph.traverse.model.BuildOrder;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
 import org.commonjava.propulsor.client.http.ClientHttpException;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Created by jdcasey on 8/17/15.
  */
@@ -76,6 +88,42 @@ public class ClientGraphOps
         }
     }
 
+    /**
+     * The paths endpoint answers with a single document, so it is read in full before the paths are handed to the
+     * writer.
+     */
+    @Override
+    public void getPaths( PathsRequest request, ProjectPathsWriter writer )
+            throws CartoDataException, CartoRequestException
+    {
+        final ProjectPathsResult result = getPaths( request );
+        if ( result == null || result.getProjects() == null )
+        {
+            return;
+        }
+
+        try
+        {
+            for ( Map.Entry<ProjectVersionRef, ProjectPaths> entry : result.getProjects().entrySet() )
+            {
+                final List<ProjectPath> paths = entry.getValue().getPaths();
+                if ( paths == null )
+                {
+                    continue;
+                }
+
+                for ( ProjectPath path : paths )
+                {
+                    writer.write( entry.getKey(), path );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new CartoDataException( "Failed to write paths: " + e.getMessage(), e );
+        }
+    }
+
     @Override
     public ProjectErrors getProjectErrors( ProjectGraphRequest request )
             throws CartoDataException, CartoRequestException
@@ -215,4 +263,114 @@ public class ClientGraphOps
             throw new CartoDataException( "Failed to execute: " + e.getMessage(), e );
         }
     }
+
+    /**
+     * Relationships are handed to the writer as they arrive from the server, so the export is never held in memory
+     * as a whole.
+     */
+    @Override
+    public void exportGraph( SingleGraphRequest request, GraphExportWriter writer )
+            throws CartoDataException, CartoRequestException
+    {
+        try
+        {
+            module.export( carto.normalizeRequest( request ), writer );
+        }
+        catch ( CartoClientException | ClientHttpException e )
+        {
+            throw new CartoDataException( "Failed to execute: " + e.getMessage(), e );
+        }
+    }
+
+    @Override
+    public void batchQuery( ProjectBatchRequest request, ProjectBatchWriter writer )
+            throws CartoDataException, CartoRequestException
+    {
+        try
+        {
+            module.batch( carto.normalizeRequest( request ), writer );
+        }
+        catch ( CartoClientException | ClientHttpException e )
+        {
+            throw new CartoDataException( "Failed to execute: " + e.getMessage(), e );
+        }
+    }
+
+    public CompletableFuture<ProjectListResult> listProjectsAsync( ProjectGraphRequest request )
+    {
+        return module.async( () -> listProjects( request ) );
+    }
+
+    public CompletableFuture<ProjectPathsResult> getPathsAsync( PathsRequest request )
+    {
+        return module.async( () -> getPaths( request ) );
+    }
+
+    public CompletableFuture<ProjectErrors> getProjectErrorsAsync( ProjectGraphRequest request )
+    {
+        return module.async( () -> getProjectErrors( request ) );
+    }
+
+    public CompletableFuture<MappedProjectResult> getProjectParentAsync( ProjectGraphRequest request )
+    {
+        return module.async( () -> getProjectParent( request ) );
+    }
+
+    public CompletableFuture<MappedProjectRelationshipsResult> getDirectRelationshipsFromAsync(
+            ProjectGraphRelationshipsRequest request )
+    {
+        return module.async( () -> getDirectRelationshipsFrom( request ) );
+    }
+
+    public CompletableFuture<MappedProjectRelationshipsResult> getDirectRelationshipsToAsync(
+            ProjectGraphRelationshipsRequest request )
+    {
+        return module.async( () -> getDirectRelationshipsTo( request ) );
+    }
+
+    public CompletableFuture<ProjectListResult> reindexAsync( ProjectGraphRequest request )
+    {
+        return module.async( () -> reindex( request ) );
+    }
+
+    public CompletableFuture<ProjectListResult> getIncompleteAsync( ProjectGraphRequest request )
+    {
+        return module.async( () -> getIncomplete( request ) );
+    }
+
+    public CompletableFuture<ProjectListResult> getVariableAsync( ProjectGraphRequest request )
+    {
+        return module.async( () -> getVariable( request ) );
+    }
+
+    public CompletableFuture<MappedProjectsResult> getAncestryAsync( ProjectGraphRequest request )
+    {
+        return module.async( () -> getAncestry( request ) );
+    }
+
+    public CompletableFuture<BuildOrder> getBuildOrderAsync( ProjectGraphRequest request )
+    {
+        return module.async( () -> getBuildOrder( request ) );
+    }
+
+    public CompletableFuture<GraphExport> exportGraphAsync( SingleGraphRequest request )
+    {
+        return module.async( () -> exportGraph( request ) );
+    }
+
+    public CompletableFuture<Void> exportGraphAsync( SingleGraphRequest request, GraphExportWriter writer )
+    {
+        return module.async( () -> {
+            exportGraph( request, writer );
+            return null;
+        } );
+    }
+
+    public CompletableFuture<Void> batchQueryAsync( ProjectBatchRequest request, ProjectBatchWriter writer )
+    {
+        return module.async( () -> {
+            batchQuery( request, writer );
+            return null;
+        } );
+    }
 }
@@ -140,4 +140,12 @@ public class ClientGraphRenderingOps
             throw new CartoDataException( "Failed to execute: " + e.getMessage(), e );
         }
     }
+
+    @Override
+    public void dotfile( MultiRenderRequest request, PrintWriter writer )
+            throws CartoDataException, CartoRequestException
+    {
+        writer.write( dotfile( request ) );
+        writer.flush();
+    }
 }
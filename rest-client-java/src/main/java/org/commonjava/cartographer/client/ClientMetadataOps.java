@@ -21,8 +21,9 @@ import org.commonjava.cartographer.ops.MetadataOps;
 import org.commonjava.cartographer.request.MetadataCollationRequest;
 import org.commonjava.cartographer.request.MetadataExtractionRequest;
 import org.commonjava.cartographer.request.MetadataUpdateRequest;
-import org.commonjava.cartographer.request.ProjectGraphRequest;
+import org.commonjava.cartographer.request.MetadataRescanRequest;
 import org.commonjava.cartographer.result.MetadataCollationResult;
+import org.commonjava.cartographer.result.MetadataRescanResult;
 import org.commonjava.cartographer.result.MetadataResult;
 import org.commonjava.cartographer.result.ProjectListResult;
 import org.commonjava.propulsor.client.http.ClientHttpException;
@@ -72,7 +73,7 @@ public class ClientMetadataOps
     }
 
     @Override
-    public ProjectListResult rescanMetadata( ProjectGraphRequest request )
+    public MetadataRescanResult rescanMetadata( MetadataRescanRequest request )
             throws CartoDataException, CartoRequestException
     {
         try
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.client;
+
+import org.commonjava.propulsor.client.http.helper.HttpResources;
+
+/**
+ * Handle for a progress channel being watched by {@link CartographerRESTClient#watchProgress}. Events are delivered on
+ * a dedicated daemon thread until the channel completes, the server closes the stream, or this is closed.
+ */
+public final class ProgressSubscription
+        implements AutoCloseable
+{
+
+    private final String progressId;
+
+    private volatile HttpResources resources;
+
+    private volatile Thread thread;
+
+    private volatile boolean closed;
+
+    ProgressSubscription( final String progressId )
+    {
+        this.progressId = progressId;
+    }
+
+    public String getProgressId()
+    {
+        return progressId;
+    }
+
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    /**
+     * Wait (up to the given time) for the watch to finish, normally because the channel completed.
+     */
+    public boolean await( final long millis )
+            throws InterruptedException
+    {
+        final Thread t = thread;
+        if ( t != null )
+        {
+            t.join( millis );
+            return !t.isAlive();
+        }
+
+        return true;
+    }
+
+    /**
+     * Stop watching. Closing the response unblocks the reader thread.
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        final HttpResources r = resources;
+        if ( r != null )
+        {
+            try
+            {
+                r.close();
+            }
+            catch ( final Exception e )
+            {
+                // the stream is being abandoned anyway.
+            }
+        }
+    }
+
+    void start( final Thread thread )
+    {
+        this.thread = thread;
+        thread.start();
+    }
+
+    void setResources( final HttpResources resources )
+    {
+        this.resources = resources;
+        if ( closed )
+        {
+            close();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.maven.cartographer.ftest;
+
+import org.commonjava.cartographer.client.CartographerRESTClient;
+import org.commonjava.cartographer.client.ClientCartographer;
+import org.commonjava.cartographer.client.ClientGraphOps;
+import org.commonjava.cartographer.request.GraphDescription;
+import org.commonjava.cartographer.request.ProjectBatchQuery;
+import org.commonjava.cartographer.request.ProjectBatchRequest;
+import org.commonjava.cartographer.request.ProjectGraphRequest;
+import org.commonjava.cartographer.request.build.GraphDescriptionBuilder;
+import org.commonjava.cartographer.request.build.ProjectBatchRequestBuilder;
+import org.commonjava.cartographer.request.build.ProjectGraphRequestBuilder;
+import org.commonjava.cartographer.result.GraphExport;
+import org.commonjava.cartographer.result.ProjectBatchEntry;
+import org.commonjava.cartographer.result.ProjectListResult;
+import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
+import org.commonjava.maven.atlas.ident.ref.SimpleProjectVersionRef;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Runs the streaming and async calls of {@link CartographerRESTClient} against a local server, and checks that they
+ * see the same graph as the buffered, synchronous calls. Uses the simple-dep graph from the TCK:
+ * <pre>
+ *   org.foo:consumer:1 --depends on--> org.bar:dep:1.1
+ * </pre>
+ */
+public class ClientStreamingTest
+{
+
+    private static final String REPO_RESOURCE = "graphs/simple-dep/repo/org/foo/consumer/1/consumer-1.pom";
+
+    private static final int REPO_RESOURCE_TRIM = 5;
+
+    private static final ProjectVersionRef CONSUMER = new SimpleProjectVersionRef( "org.foo", "consumer", "1" );
+
+    private static final ProjectVersionRef DEP = new SimpleProjectVersionRef( "org.bar", "dep", "1.1" );
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private LocalTestDriver driver;
+
+    private CartographerRESTClient client;
+
+    private ClientCartographer carto;
+
+    @Before
+    public void before()
+            throws Exception
+    {
+        driver = new LocalTestDriver();
+        driver.start( temp );
+
+        final URL pomUrl = Thread.currentThread()
+                                 .getContextClassLoader()
+                                 .getResource( REPO_RESOURCE );
+
+        assertThat( REPO_RESOURCE + " is not on the classpath!", pomUrl, notNullValue() );
+
+        File f = new File( pomUrl.getPath() );
+        for ( int i = 0; i < REPO_RESOURCE_TRIM; i++ )
+        {
+            f = f.getParentFile();
+        }
+
+        final String path = f.getPath();
+        driver.createRepoAlias( "test", ( path.contains( ".jar!" ) ? "jar:" : "file:" ) + path );
+
+        client = new CartographerRESTClient( driver.getSiteConfig(), driver.getHttpFactory() );
+        carto = new ClientCartographer( client );
+    }
+
+    @After
+    public void after()
+            throws Exception
+    {
+        if ( carto != null )
+        {
+            carto.close();
+        }
+
+        if ( driver != null )
+        {
+            driver.stop();
+        }
+    }
+
+    @Test
+    public void streamingExportMatchesBufferedExport()
+            throws Exception
+    {
+        final ProjectGraphRequest request = graphRequest();
+
+        final Set<ProjectRelationship<?, ?>> streamed = new HashSet<>();
+        final List<GraphExport> summaries = new ArrayList<>();
+        final List<Boolean> readAhead = new ArrayList<>();
+        client.export( request, ( summary, relationships ) -> {
+            summaries.add( summary );
+
+            // relationships still being read off the parser have no known size; a buffered list would.
+            final Spliterator<ProjectRelationship<?, ?>> it = relationships.spliterator();
+            readAhead.add( it.hasCharacteristics( Spliterator.SIZED ) );
+            it.forEachRemaining( streamed::add );
+        } );
+
+        final GraphExport buffered = client.graph( request );
+
+        assertThat( summaries.size(), equalTo( 1 ) );
+        assertThat( "relationships were read to the end before the writer was called", readAhead.get( 0 ),
+                    equalTo( false ) );
+        assertThat( buffered.getRelationships().isEmpty(), equalTo( false ) );
+        assertThat( streamed, equalTo( buffered.getRelationships() ) );
+    }
+
+    @Test
+    public void streamingBatchDeliversOneEntryPerProject()
+            throws Exception
+    {
+        // resolve the graph first, so the batch has something to look up
+        client.graph( graphRequest() );
+
+        final ProjectBatchRequest request = ProjectBatchRequestBuilder.newProjectBatchRequestBuilder()
+                                                                      .withProjects( CONSUMER, DEP )
+                                                                      .withQueries( ProjectBatchQuery.DECLARED,
+                                                                                    ProjectBatchQuery.TARGETING )
+                                                                      .withGraph( graphDescription() )
+                                                                      .withSource( "test" )
+                                                                      .withWorkspaceId( "client-streaming" )
+                                                                      .build();
+
+        final Map<ProjectVersionRef, ProjectBatchEntry> entries = new HashMap<>();
+        client.batch( request, ( entry ) -> entries.put( entry.getProject(), entry ) );
+
+        assertThat( entries.keySet(), equalTo( new HashSet<>( request.getProjects() ) ) );
+
+        final Set<ProjectVersionRef> consumerDeps = entries.get( CONSUMER )
+                                                           .getDeclared()
+                                                           .stream()
+                                                           .map( ( rel ) -> rel.getTarget().asProjectVersionRef() )
+                                                           .collect( Collectors.toSet() );
+
+        assertThat( consumerDeps.contains( DEP ), equalTo( true ) );
+    }
+
+    @Test
+    public void asyncCallsMatchSyncCalls()
+            throws Exception
+    {
+        final ClientGraphOps ops = (ClientGraphOps) carto.getGrapher();
+        final ProjectGraphRequest request = graphRequest();
+
+        final GraphExport async = ops.exportGraphAsync( request ).get( 30, TimeUnit.SECONDS );
+        final GraphExport sync = ops.exportGraph( request );
+        assertThat( async.getRelationships(), equalTo( sync.getRelationships() ) );
+
+        final ProjectListResult asyncProjects = ops.listProjectsAsync( request ).get( 30, TimeUnit.SECONDS );
+        final ProjectListResult syncProjects = ops.listProjects( request );
+        assertThat( new HashSet<>( asyncProjects.getProjects() ),
+                    equalTo( new HashSet<>( syncProjects.getProjects() ) ) );
+
+        final Set<ProjectRelationship<?, ?>> streamed = new HashSet<>();
+        ops.exportGraphAsync( request, ( summary, relationships ) -> relationships.forEach( streamed::add ) )
+           .get( 30, TimeUnit.SECONDS );
+
+        assertThat( streamed, equalTo( sync.getRelationships() ) );
+    }
+
+    @Test
+    public void clientsDoNotShareMapperConfiguration()
+            throws Exception
+    {
+        try (CartographerRESTClient other = new CartographerRESTClient( driver.getSiteConfig(),
+                                                                        driver.getHttpFactory() ))
+        {
+            client.getObjectMapper().configure( FAIL_ON_UNKNOWN_PROPERTIES, true );
+
+            assertThat( other.getObjectMapper().isEnabled( FAIL_ON_UNKNOWN_PROPERTIES ), equalTo( false ) );
+        }
+    }
+
+    private ProjectGraphRequest graphRequest()
+    {
+        return ProjectGraphRequestBuilder.newProjectGraphRequestBuilder()
+                                         .withGraph( graphDescription() )
+                                         .withSource( "test" )
+                                         .withWorkspaceId( "client-streaming" )
+                                         .withResolve( true )
+                                         .build();
+    }
+
+    private GraphDescription graphDescription()
+    {
+        return GraphDescriptionBuilder.newGraphDescriptionBuilder()
+                                      .withRoots( CONSUMER )
+                                      .withPreset( "requires" )
+                                      .build();
+    }
+}
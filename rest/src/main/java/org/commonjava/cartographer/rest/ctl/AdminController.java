@@ -17,6 +17,8 @@ package org.commonjava.cartographer.rest.ctl;
 
 import org.commonjava.cartographer.CartoException;
 import org.commonjava.cartographer.Cartographer;
+import org.commonjava.cartographer.rest.dto.ResultCacheStats;
+import org.commonjava.cartographer.rest.util.ResultCache;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
@@ -31,6 +33,9 @@ public class AdminController
     @Inject
     private Cartographer cartographer;
 
+    @Inject
+    private ResultCache resultCache;
+
     public Map<String,String> getSourceAliasMap()
             throws CartoException
     {
@@ -42,4 +47,9 @@ public class AdminController
     {
         return cartographer.addSourceAlias( alias, url );
     }
+
+    public ResultCacheStats getResultCacheStats()
+    {
+        return resultCache.getStats();
+    }
 }
@@ -15,27 +15,40 @@
  */
 package org.commonjava.cartographer.rest.ctl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.commonjava.cartographer.CartoDataException;
 import org.commonjava.cartographer.CartoRequestException;
+import org.commonjava.cartographer.CartoWireFormat;
+import org.commonjava.cartographer.graph.fn.ValueHolder;
 import org.commonjava.cartographer.ops.GraphOps;
 import org.commonjava.cartographer.request.PathsRequest;
 import org.commonjava.cartographer.request.ProjectGraphRequest;
 import org.commonjava.cartographer.request.SingleGraphRequest;
 import org.commonjava.cartographer.rest.CartoRESTException;
+import org.commonjava.cartographer.rest.util.JsonStreaming;
 import org.commonjava.cartographer.rest.util.RecipeHelper;
+import org.commonjava.cartographer.rest.util.ResultCache;
 import org.commonjava.cartographer.result.GraphExport;
 import org.commonjava.cartographer.result.MappedProjectsResult;
 import org.commonjava.cartographer.result.ProjectErrors;
 import org.commonjava.cartographer.result.ProjectListResult;
 import org.commonjava.cartographer.result.ProjectPathsResult;
 import org.commonjava.cartographer.graph.traverse.model.BuildOrder;
+import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
 import org.commonjava.propulsor.deploy.undertow.util.ApplicationStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.commonjava.propulsor.deploy.undertow.util.StandardApplicationContent.application_json;
 
 @ApplicationScoped
 public class GraphController
@@ -48,6 +61,9 @@ public class GraphController
     @Inject
     private RecipeHelper configHelper;
 
+    @Inject
+    private ObjectMapper serializer;
+
     public ProjectListResult reindex( final ProjectGraphRequest recipe )
         throws CartoRESTException
     {
@@ -101,6 +117,79 @@ public class GraphController
         }
     }
 
+    /**
+     * Find the paths up front (so errors still get a proper response status), spooling them as JSON while the search
+     * pages through them, then copy the spool to the response. Only one page of paths is held in memory at a time.
+     */
+    public StreamingOutput streamPaths( final PathsRequest recipe )
+        throws CartoRESTException
+    {
+        return ResultCache.spool( ( out ) -> writePaths( recipe, out ) ).prepare()::write;
+    }
+
+    /**
+     * Write the paths to the given stream as JSON, in the same shape as {@link ProjectPathsResult}. Each target's
+     * paths are written as the search hands them over.
+     */
+    public void writePaths( final PathsRequest recipe, final OutputStream out )
+        throws CartoRESTException, IOException
+    {
+        configHelper.setRecipeDefaults( recipe );
+
+        final ObjectWriter writer = JsonStreaming.writer( serializer );
+        final JsonGenerator generator = JsonStreaming.openGenerator( out, serializer );
+        generator.writeStartObject();
+
+        final ValueHolder<ProjectVersionRef> current = new ValueHolder<>();
+        try
+        {
+            ops.getPaths( recipe, ( target, path ) -> {
+                if ( current.get() == null )
+                {
+                    generator.writeObjectFieldStart( "projects" );
+                }
+                else if ( !current.get().equals( target ) )
+                {
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                }
+
+                if ( !target.equals( current.get() ) )
+                {
+                    current.set( target );
+                    generator.writeObjectFieldStart( target.toString() );
+                    generator.writeArrayFieldStart( "paths" );
+                }
+
+                writer.writeValue( generator, path );
+            } );
+        }
+        catch ( final CartoDataException e )
+        {
+            throw new CartoRESTException( "Failed to discover paths for request: %s. Reason: %s", e, recipe,
+                                          e.getMessage() );
+        }
+        catch ( CartoRequestException e )
+        {
+            throw new CartoRESTException( ApplicationStatus.BAD_REQUEST.code(), "Invalid request: %s. Reason: %s", e,
+                                          recipe, e.getMessage() );
+        }
+
+        if ( current.get() == null )
+        {
+            JsonStreaming.writeField( generator, writer, "projects", null );
+        }
+        else
+        {
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+
+        generator.writeEndObject();
+        generator.flush();
+    }
+
     public ProjectErrors errors( final InputStream configStream )
         throws CartoRESTException
     {
@@ -312,4 +401,63 @@ public class GraphController
         }
     }
 
+    /**
+     * Write the graph export to the given stream as JSON. Relationships are written as they're read from the graph, so
+     * the export is never held in memory as a whole.
+     */
+    public void writeProjectGraph( final SingleGraphRequest recipe, final OutputStream out )
+        throws CartoRESTException
+    {
+        writeProjectGraph( recipe, out, application_json );
+    }
+
+    /**
+     * Write the graph export to the given stream, encoded for the given media type (JSON or
+     * {@link CartoWireFormat#APPLICATION_SMILE}).
+     */
+    public void writeProjectGraph( final SingleGraphRequest recipe, final OutputStream out, final String mediaType )
+        throws CartoRESTException
+    {
+        configHelper.setRecipeDefaults( recipe );
+
+        final ObjectWriter writer = JsonStreaming.writer( serializer );
+        try
+        {
+            ops.exportGraph( recipe, ( summary, relationships ) -> {
+                final JsonGenerator generator = JsonStreaming.openGenerator( out, serializer, mediaType );
+                generator.writeStartObject();
+
+                // summary first, so clients can hand it over before streaming the relationships. These keys are
+                // written even when null or empty: a client that sees one before the relationships knows the summary
+                // is complete, while older servers write the relationships first.
+                writeSummaryField( generator, writer, "missing", summary.getMissing() );
+                writeSummaryField( generator, writer, "variable", summary.getVariable() );
+                writeSummaryField( generator, writer, "errors", summary.getErrors() );
+                writeSummaryField( generator, writer, "cycles", summary.getCycles() );
+                JsonStreaming.writeArrayField( generator, writer, "relationships", relationships.iterator() );
+
+                generator.writeEndObject();
+                generator.flush();
+            } );
+        }
+        catch ( final CartoDataException e )
+        {
+            throw new CartoRESTException( "Failed to export project graph for: {}. Reason: {}", e, recipe,
+                                              e.getMessage() );
+        }
+        catch ( CartoRequestException e )
+        {
+            throw new CartoRESTException( ApplicationStatus.BAD_REQUEST.code(), "Invalid request: %s. Reason: %s", e,
+                                              recipe, e.getMessage() );
+        }
+    }
+
+    private static void writeSummaryField( final JsonGenerator generator, final ObjectWriter writer,
+                                           final String name, final Object value )
+        throws IOException
+    {
+        generator.writeFieldName( name );
+        writer.writeValue( generator, value );
+    }
+
 }
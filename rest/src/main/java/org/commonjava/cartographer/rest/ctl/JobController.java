@@ -0,0 +1,590 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.rest.ctl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.commonjava.cartographer.conf.CartographerConfig;
+import org.commonjava.cartographer.graph.RelationshipGraphFactory;
+import org.commonjava.cartographer.request.AbstractGraphRequest;
+import org.commonjava.cartographer.request.RepositoryContentRequest;
+import org.commonjava.cartographer.request.SingleGraphRequest;
+import org.commonjava.cartographer.rest.CartoRESTException;
+import org.commonjava.cartographer.rest.dto.JobState;
+import org.commonjava.cartographer.rest.dto.JobStatus;
+import org.commonjava.cartographer.rest.util.ProgressChannels;
+import org.commonjava.cdi.util.weft.ExecutorConfig;
+import org.commonjava.cdi.util.weft.WeftManaged;
+import org.commonjava.propulsor.deploy.undertow.util.ApplicationStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.commonjava.propulsor.deploy.undertow.util.StandardApplicationContent.application_json;
+import static org.commonjava.propulsor.deploy.undertow.util.StandardApplicationContent.application_zip;
+import static org.commonjava.propulsor.deploy.undertow.util.StandardApplicationContent.text_plain;
+
+/**
+ * Runs long graph requests (repository zips, dependency trees, graph exports) in the background, so they don't hold
+ * an HTTP worker (or depend on a proxy's timeout) for the duration of discovery.
+ * <br/>
+ * Jobs are queued by priority (then submission order) and run on {@link #JOB_THREADS} threads, with at most
+ * {@link CartographerConfig#getJobWorkspaceConcurrency()} jobs per workspace at a time. Results are written to the
+ * work directory and kept for {@link CartographerConfig#getJobResultTtlSeconds()} after the job finishes.
+ * <br/>
+ * The job id is a fingerprint of the job type and request, so resubmitting the same request (a client retrying after
+ * a timeout, say) returns the existing job rather than starting a new one. That holds while the job is queued or
+ * running, and after it succeeds as long as its workspace hasn't been modified since it finished; otherwise the
+ * request runs again under the same id. Finished jobs are recorded next to their results, so their status and result
+ * can still be retrieved after a server restart, though a resubmission then runs again (the workspace's stamp from the
+ * earlier run is unknown).
+ */
+@ApplicationScoped
+public class JobController
+{
+
+    public static final int JOB_THREADS = 4;
+
+    public static final int DEFAULT_PRIORITY = 5;
+
+    private static final String JOBS_DIR = "jobs";
+
+    private static final String RESULT_EXT = ".out";
+
+    private static final String STATUS_EXT = ".json";
+
+    private static final String TEMP_EXT = ".tmp";
+
+    private final Logger logger = LoggerFactory.getLogger( getClass() );
+
+    @Inject
+    private CartographerConfig config;
+
+    @Inject
+    private ObjectMapper serializer;
+
+    @Inject
+    private RepositoryController repositoryController;
+
+    @Inject
+    private RenderingController renderingController;
+
+    @Inject
+    private GraphController graphController;
+
+    @Inject
+    private ProgressChannels progressChannels;
+
+    @Inject
+    private RelationshipGraphFactory graphFactory;
+
+    @Inject
+    @WeftManaged
+    @ExecutorConfig( daemon = true, named = "carto-jobs", priority = 4, threads = JOB_THREADS )
+    private ExecutorService jobExecutor;
+
+    private final Map<String, Job> jobs = new HashMap<>();
+
+    private final TreeSet<Job> queue = new TreeSet<>(
+            Comparator.comparingInt( ( Job job ) -> -job.status.getPriority() ).thenComparingLong( job -> job.seq ) );
+
+    private final Map<String, Integer> runningByWorkspace = new HashMap<>();
+
+    private int running;
+
+    private long sequence;
+
+    @FunctionalInterface
+    private interface JobWriter
+    {
+        void write( OutputStream out )
+                throws IOException, CartoRESTException;
+    }
+
+    /**
+     * Clear out results from an earlier run that have expired, along with any partial results and results that were
+     * never recorded as finished.
+     */
+    @PostConstruct
+    public void purgeStoredJobs()
+    {
+        final File[] files = getJobsDir().listFiles();
+        if ( files == null )
+        {
+            return;
+        }
+
+        for ( final File file : files )
+        {
+            final String name = file.getName();
+            if ( name.endsWith( TEMP_EXT ) )
+            {
+                FileUtils.deleteQuietly( file );
+            }
+            else if ( name.endsWith( STATUS_EXT ) )
+            {
+                // loading deletes the job's files if it's expired (or unreadable).
+                loadStoredJob( name.substring( 0, name.length() - STATUS_EXT.length() ) );
+            }
+            else if ( name.endsWith( RESULT_EXT ) && !statusFile(
+                    name.substring( 0, name.length() - RESULT_EXT.length() ) ).exists() )
+            {
+                FileUtils.deleteQuietly( file );
+            }
+        }
+    }
+
+    public JobStatus submitZipRepository( final RepositoryContentRequest recipe, final int priority )
+            throws CartoRESTException
+    {
+        return submit( "repo/zip", recipe, priority, application_zip,
+                       ( out ) -> repositoryController.getZipRepository( recipe, out ) );
+    }
+
+    public JobStatus submitDepTree( final RepositoryContentRequest recipe, final int priority )
+            throws CartoRESTException
+    {
+        return submit( "render/depTree", recipe, priority, text_plain,
+                       ( out ) -> renderingController.writeTree( recipe, out ) );
+    }
+
+    public JobStatus submitGraphExport( final SingleGraphRequest recipe, final int priority )
+            throws CartoRESTException
+    {
+        return submit( "graph/export", recipe, priority, application_json,
+                       ( out ) -> graphController.writeProjectGraph( recipe, out ) );
+    }
+
+    public synchronized JobStatus getStatus( final String id )
+            throws CartoRESTException
+    {
+        return snapshot( getJob( id ) );
+    }
+
+    /**
+     * Wait up to the given time for the job to finish, then return its status.
+     */
+    public synchronized JobStatus awaitStatus( final String id, final long timeout, final TimeUnit unit )
+            throws CartoRESTException
+    {
+        final long deadline = System.currentTimeMillis() + unit.toMillis( timeout );
+        Job job = getJob( id );
+        while ( !job.status.getState().isDone() )
+        {
+            final long remaining = deadline - System.currentTimeMillis();
+            if ( remaining <= 0 )
+            {
+                break;
+            }
+
+            try
+            {
+                wait( remaining );
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            job = getJob( id );
+        }
+
+        return snapshot( job );
+    }
+
+    /**
+     * Retrieve the result file of a job that has {@link JobState#SUCCEEDED}.
+     */
+    public File getResult( final String id )
+            throws CartoRESTException
+    {
+        final JobStatus status = getStatus( id );
+        if ( status.getState() != JobState.SUCCEEDED )
+        {
+            throw new CartoRESTException( ApplicationStatus.BAD_REQUEST.code(), "Job: %s has no result. State: %s", id,
+                                          status.getState() );
+        }
+
+        return resultFile( id );
+    }
+
+    /**
+     * Cancel the job if it's still active, and discard its result. A running job is interrupted, which stops its
+     * discovery at the next pass (or wait on a pass).
+     */
+    public JobStatus cancel( final String id )
+            throws CartoRESTException
+    {
+        final JobStatus status;
+        synchronized ( this )
+        {
+            final Job job = getJob( id );
+            if ( !job.status.getState().isDone() )
+            {
+                queue.remove( job );
+                if ( job.future != null )
+                {
+                    job.future.cancel( true );
+                }
+
+                finish( job, JobState.CANCELLED, null );
+            }
+
+            jobs.remove( id );
+            status = snapshot( job );
+        }
+
+        deleteFiles( id );
+        return status;
+    }
+
+    private JobStatus submit( final String type, final AbstractGraphRequest recipe, final int priority,
+                              final String contentType, final JobWriter writer )
+            throws CartoRESTException
+    {
+        if ( recipe == null )
+        {
+            throw new CartoRESTException( ApplicationStatus.BAD_REQUEST.code(), "JSON configuration not supplied" );
+        }
+
+        final String id = fingerprint( type, recipe );
+        synchronized ( this )
+        {
+            purgeExpired();
+
+            Job job = jobs.get( id );
+            if ( job == null || job.status.getState() == JobState.FAILED
+                    || job.status.getState() == JobState.CANCELLED )
+            {
+                job = loadStoredJob( id );
+            }
+
+            if ( job != null && job.status.getState() == JobState.SUCCEEDED && isStale( job ) )
+            {
+                logger.debug( "Workspace: {} changed since job: {} finished; running it again.",
+                              recipe.getWorkspaceId(), id );
+                jobs.remove( id );
+                deleteFiles( id );
+                job = null;
+            }
+
+            if ( job != null && job.status.getState() != JobState.FAILED
+                    && job.status.getState() != JobState.CANCELLED )
+            {
+                logger.debug( "Returning existing job: {}", job.status );
+                return snapshot( job );
+            }
+
+            // the job reports its progress on the channel named by its id.
+            recipe.setProgressId( id );
+
+            final JobStatus status = new JobStatus( id, type, recipe.getWorkspaceId(), priority, contentType );
+            status.setResultPath( "depgraph/jobs/" + id + "/result" );
+
+            job = new Job( status, writer, sequence++ );
+            jobs.put( id, job );
+            queue.add( job );
+
+            logger.info( "Queued job: {} (priority: {}, queued: {})", status, priority, queue.size() );
+            dispatch();
+
+            return snapshot( job );
+        }
+    }
+
+    /**
+     * Start queued jobs in priority order, skipping jobs whose workspace is already at its concurrency limit.
+     */
+    private synchronized void dispatch()
+    {
+        final int perWorkspace = config.getJobWorkspaceConcurrency();
+        final Iterator<Job> it = queue.iterator();
+        while ( running < JOB_THREADS && it.hasNext() )
+        {
+            final Job job = it.next();
+            final String workspaceId = job.status.getWorkspaceId();
+            final int active = runningByWorkspace.getOrDefault( workspaceId, 0 );
+            if ( active >= perWorkspace )
+            {
+                continue;
+            }
+
+            it.remove();
+            running++;
+            runningByWorkspace.put( workspaceId, active + 1 );
+
+            job.status.setState( JobState.RUNNING );
+            job.status.setStarted( System.currentTimeMillis() );
+            job.future = jobExecutor.submit( () -> run( job ) );
+        }
+    }
+
+    private void run( final Job job )
+    {
+        final String id = job.status.getId();
+        // a cancelled run may still be winding down when the same request is resubmitted, so don't share its temp file.
+        final File temp = new File( getJobsDir(), id + "-" + job.seq + TEMP_EXT );
+
+        JobState state = JobState.FAILED;
+        String error = null;
+        try
+        {
+            try (OutputStream out = new BufferedOutputStream( new FileOutputStream( temp ) ))
+            {
+                job.writer.write( out );
+            }
+
+            // cancel() runs under the same lock, so either it sees the result and deletes it, or we see the
+            // cancellation and never publish the result.
+            synchronized ( this )
+            {
+                if ( job.status.getState() != JobState.CANCELLED )
+                {
+                    Files.move( temp.toPath(), resultFile( id ).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                                StandardCopyOption.ATOMIC_MOVE );
+
+                    state = JobState.SUCCEEDED;
+                }
+            }
+        }
+        catch ( final CartoRESTException | IOException | RuntimeException e )
+        {
+            logger.error( String.format( "Job failed: %s. Reason: %s", job.status, e.getMessage() ), e );
+            error = e.getMessage();
+        }
+        finally
+        {
+            FileUtils.deleteQuietly( temp );
+
+            synchronized ( this )
+            {
+                running--;
+
+                final String workspaceId = job.status.getWorkspaceId();
+                final int active = runningByWorkspace.getOrDefault( workspaceId, 1 ) - 1;
+                if ( active > 0 )
+                {
+                    runningByWorkspace.put( workspaceId, active );
+                }
+                else
+                {
+                    runningByWorkspace.remove( workspaceId );
+                }
+
+                if ( job.status.getState() != JobState.CANCELLED )
+                {
+                    job.stamp = graphFactory.getModificationStamp( workspaceId );
+                    finish( job, state, error );
+                }
+
+                dispatch();
+            }
+        }
+    }
+
+    private synchronized void finish( final Job job, final JobState state, final String error )
+    {
+        final long now = System.currentTimeMillis();
+        job.status.setState( state );
+        job.status.setError( error );
+        job.status.setFinished( now );
+        job.status.setExpires( now + TimeUnit.SECONDS.toMillis( config.getJobResultTtlSeconds() ) );
+
+        if ( state == JobState.SUCCEEDED )
+        {
+            try
+            {
+                serializer.writeValue( statusFile( job.status.getId() ), job.status );
+            }
+            catch ( final IOException e )
+            {
+                logger.warn( "Failed to record status of job: {}. It won't be available after a restart. Reason: {}",
+                             job.status, e.getMessage() );
+            }
+        }
+
+        logger.info( "Finished job: {}", job.status );
+        progressChannels.complete( job.status.getId(), error == null ? state.name() : state.name() + ": " + error );
+        notifyAll();
+    }
+
+    private synchronized void purgeExpired()
+    {
+        final long now = System.currentTimeMillis();
+        for ( final Iterator<Job> it = jobs.values().iterator(); it.hasNext(); )
+        {
+            final JobStatus status = it.next().status;
+            if ( status.getExpires() != null && status.getExpires() < now )
+            {
+                it.remove();
+                deleteFiles( status.getId() );
+            }
+        }
+    }
+
+    /**
+     * Load a finished job recorded by this or an earlier server run. Returns null (and deletes its files) if it has
+     * expired.
+     */
+    private Job loadStoredJob( final String id )
+    {
+        final File statusFile = statusFile( id );
+        if ( !statusFile.exists() )
+        {
+            return null;
+        }
+
+        try
+        {
+            final JobStatus status = serializer.readValue( statusFile, JobStatus.class );
+            if ( status.getExpires() != null && status.getExpires() >= System.currentTimeMillis() && resultFile(
+                    id ).exists() )
+            {
+                final Job job = new Job( status, null, -1 );
+                synchronized ( this )
+                {
+                    jobs.put( id, job );
+                }
+                return job;
+            }
+        }
+        catch ( final IOException e )
+        {
+            logger.warn( "Cannot read status of job: {}. Discarding it. Reason: {}", id, e.getMessage() );
+        }
+
+        deleteFiles( id );
+        return null;
+    }
+
+    private Job getJob( final String id )
+            throws CartoRESTException
+    {
+        Job job;
+        synchronized ( this )
+        {
+            purgeExpired();
+            job = jobs.get( id );
+        }
+
+        if ( job == null )
+        {
+            job = loadStoredJob( id );
+        }
+
+        if ( job == null )
+        {
+            throw new CartoRESTException( ApplicationStatus.NOT_FOUND.code(), "No such job: %s", id );
+        }
+
+        return job;
+    }
+
+    private String fingerprint( final String type, final AbstractGraphRequest recipe )
+            throws CartoRESTException
+    {
+        try
+        {
+            return DigestUtils.sha256Hex( type + "\n" + ProgressChannels.fingerprintJson( serializer, recipe ) );
+        }
+        catch ( final JsonProcessingException e )
+        {
+            throw new CartoRESTException( "Failed to serialize to JSON: %s", e, e.getMessage() );
+        }
+    }
+
+    /**
+     * A finished result is stale if its workspace has been modified since, or if that can't be told (the job was loaded
+     * from an earlier server run).
+     */
+    private boolean isStale( final Job job )
+    {
+        return job.stamp < 0 || job.stamp != graphFactory.getModificationStamp( job.status.getWorkspaceId() );
+    }
+
+    private JobStatus snapshot( final Job job )
+    {
+        return serializer.convertValue( job.status, JobStatus.class );
+    }
+
+    private void deleteFiles( final String id )
+    {
+        FileUtils.deleteQuietly( resultFile( id ) );
+        FileUtils.deleteQuietly( statusFile( id ) );
+    }
+
+    private File resultFile( final String id )
+    {
+        return new File( getJobsDir(), id + RESULT_EXT );
+    }
+
+    private File statusFile( final String id )
+    {
+        return new File( getJobsDir(), id + STATUS_EXT );
+    }
+
+    private File getJobsDir()
+    {
+        final File dir = new File( config.getWorkBasedir(), JOBS_DIR );
+        dir.mkdirs();
+        return dir;
+    }
+
+    private static final class Job
+    {
+        private final JobStatus status;
+
+        private final JobWriter writer;
+
+        private final long seq;
+
+        private Future<?> future;
+
+        /**
+         * Modification stamp of the workspace when the job finished, or -1 if unknown.
+         */
+        private long stamp = -1;
+
+        Job( final JobStatus status, final JobWriter writer, final long seq )
+        {
+            this.status = status;
+            this.writer = writer;
+            this.seq = seq;
+        }
+    }
+
+}
@@ -21,10 +21,11 @@ import org.commonjava.cartographer.ops.MetadataOps;
 import org.commonjava.cartographer.request.MetadataCollationRequest;
 import org.commonjava.cartographer.request.MetadataExtractionRequest;
 import org.commonjava.cartographer.request.MetadataUpdateRequest;
-import org.commonjava.cartographer.request.ProjectGraphRequest;
+import org.commonjava.cartographer.request.MetadataRescanRequest;
 import org.commonjava.cartographer.rest.CartoRESTException;
 import org.commonjava.cartographer.rest.util.RecipeHelper;
 import org.commonjava.cartographer.result.MetadataCollationResult;
+import org.commonjava.cartographer.result.MetadataRescanResult;
 import org.commonjava.cartographer.result.MetadataResult;
 import org.commonjava.cartographer.result.ProjectListResult;
 import org.commonjava.propulsor.deploy.undertow.util.ApplicationStatus;
@@ -134,9 +135,10 @@ public class MetadataController
         }
     }
 
-    public ProjectListResult rescan( ProjectGraphRequest recipe )
+    public MetadataRescanResult rescan( final MetadataRescanRequest recipe )
             throws CartoRESTException
     {
+        configHelper.setRecipeDefaults( recipe );
         try
         {
             return ops.rescanMetadata( recipe );
@@ -15,12 +15,17 @@
  */
 package org.commonjava.cartographer.rest.ctl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.commonjava.cartographer.CartoDataException;
 import org.commonjava.cartographer.CartoRequestException;
 import org.commonjava.cartographer.ops.GraphOps;
+import org.commonjava.cartographer.request.ProjectBatchRequest;
 import org.commonjava.cartographer.request.ProjectGraphRelationshipsRequest;
 import org.commonjava.cartographer.request.ProjectGraphRequest;
 import org.commonjava.cartographer.rest.CartoRESTException;
+import org.commonjava.cartographer.rest.util.JsonStreaming;
 import org.commonjava.cartographer.rest.util.RecipeHelper;
 import org.commonjava.cartographer.result.MappedProjectRelationshipsResult;
 import org.commonjava.cartographer.result.MappedProjectResult;
@@ -29,7 +34,9 @@ import org.commonjava.propulsor.deploy.undertow.util.ApplicationStatus;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 @ApplicationScoped
 public class ProjectController
@@ -40,6 +47,9 @@ public class ProjectController
     @Inject
     private RecipeHelper configHelper;
 
+    @Inject
+    private ObjectMapper serializer;
+
     public ProjectListResult list( final InputStream stream )
             throws CartoRESTException
     {
@@ -154,4 +164,53 @@ public class ProjectController
         }
     }
 
+    /**
+     * Answer the batch of lookups, writing each project's entry to the stream (JSON or
+     * {@link org.commonjava.cartographer.CartoWireFormat#APPLICATION_SMILE}) as soon as it's available. The output is
+     * an object with a single <code>projects</code> array, in request order.
+     */
+    public void writeBatch( final ProjectBatchRequest recipe, final OutputStream out, final String mediaType )
+        throws CartoRESTException
+    {
+        configHelper.setRecipeDefaults( recipe );
+
+        final ObjectWriter writer = JsonStreaming.writer( serializer );
+        final JsonGenerator[] generator = new JsonGenerator[1];
+        try
+        {
+            ops.batchQuery( recipe, ( entry ) -> {
+                if ( generator[0] == null )
+                {
+                    generator[0] = JsonStreaming.openGenerator( out, serializer, mediaType );
+                    generator[0].writeStartObject();
+                    generator[0].writeArrayFieldStart( "projects" );
+                }
+
+                writer.writeValue( generator[0], entry );
+            } );
+
+            if ( generator[0] != null )
+            {
+                generator[0].writeEndArray();
+                generator[0].writeEndObject();
+                generator[0].flush();
+            }
+        }
+        catch ( final CartoDataException e )
+        {
+            throw new CartoRESTException( "Failed to answer batch query: {}. Reason: {}", e, recipe,
+                                              e.getMessage() );
+        }
+        catch ( CartoRequestException e )
+        {
+            throw new CartoRESTException( ApplicationStatus.BAD_REQUEST.code(), "Invalid request: %s. Reason: %s", e,
+                                              recipe, e.getMessage() );
+        }
+        catch ( final IOException e )
+        {
+            throw new CartoRESTException( "Failed to write batch query results for: {}. Reason: {}", e, recipe,
+                                              e.getMessage() );
+        }
+    }
+
 }
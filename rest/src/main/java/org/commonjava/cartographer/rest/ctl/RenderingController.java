@@ -48,8 +48,11 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Map;
 
@@ -184,6 +187,58 @@ public class RenderingController
         return out;
     }
 
+    /**
+     * Render the dependency tree to the given stream as the graph is walked, instead of building the whole text first.
+     */
+    public void writeTree( final RepositoryContentRequest recipe, final OutputStream out )
+            throws CartoRESTException
+    {
+        configHelper.setRecipeDefaults( recipe );
+
+        final PrintWriter writer = new PrintWriter( new OutputStreamWriter( out, StandardCharsets.UTF_8 ) );
+        try
+        {
+            ops.depTree( recipe, false, writer );
+        }
+        catch ( final CartoDataException e )
+        {
+            throw new CartoRESTException( "Failed to generate dependency tree. Reason: {}", e, e.getMessage() );
+        }
+        catch ( CartoRequestException e )
+        {
+            throw new CartoRESTException( ApplicationStatus.BAD_REQUEST.code(), "Invalid request: %s. Reason: %s", e,
+                                          recipe, e.getMessage() );
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Render the dependency list to the given stream as the graph is walked, instead of building the whole text first.
+     */
+    public void writeList( final RepositoryContentRequest recipe, final OutputStream out )
+            throws CartoRESTException
+    {
+        configHelper.setRecipeDefaults( recipe );
+
+        final PrintWriter writer = new PrintWriter( new OutputStreamWriter( out, StandardCharsets.UTF_8 ) );
+        try
+        {
+            ops.depList( recipe, writer );
+        }
+        catch ( final CartoDataException e )
+        {
+            throw new CartoRESTException( "Failed to generate dependency list. Reason: {}", e, e.getMessage() );
+        }
+        catch ( CartoRequestException e )
+        {
+            throw new CartoRESTException( ApplicationStatus.BAD_REQUEST.code(), "Invalid request: %s. Reason: %s", e,
+                                          recipe, e.getMessage() );
+        }
+
+        writer.flush();
+    }
+
     @Deprecated
     public File tree( final String groupId, final String artifactId, final String version, final String workspaceId,
                       final DependencyScope scope, final Map<String, String[]> params )
@@ -317,4 +372,30 @@ public class RenderingController
         }
     }
 
+    /**
+     * Render the dotfile to the given stream as the graph is walked.
+     */
+    public void writeDotfile( final MultiRenderRequest recipe, final OutputStream out )
+        throws CartoRESTException
+    {
+        configHelper.setRecipeDefaults( recipe );
+
+        try
+        {
+            final PrintWriter writer = new PrintWriter( new OutputStreamWriter( out, StandardCharsets.UTF_8 ) );
+            ops.dotfile( recipe, writer );
+            writer.flush();
+        }
+        catch ( final CartoDataException e )
+        {
+            throw new CartoRESTException( "Failed to render Graphviz dotfile for: %s. Reason: %s", e, recipe,
+                                              e.getMessage() );
+        }
+        catch ( CartoRequestException e )
+        {
+            throw new CartoRESTException( ApplicationStatus.BAD_REQUEST.code(), "Invalid request: %s. Reason: %s", e,
+                                              recipe, e.getMessage() );
+        }
+    }
+
 }
@@ -15,12 +15,16 @@
  */
 package org.commonjava.cartographer.rest.ctl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.commonjava.cartographer.CartoDataException;
 import org.commonjava.cartographer.CartoRequestException;
 import org.commonjava.cartographer.ops.ResolveOps;
 import org.commonjava.cartographer.rest.dto.DownlogRequest;
 import org.commonjava.cartographer.request.RepositoryContentRequest;
 import org.commonjava.cartographer.rest.CartoRESTException;
+import org.commonjava.cartographer.rest.util.JsonStreaming;
 import org.commonjava.cartographer.rest.util.RecipeHelper;
 import org.commonjava.cartographer.rest.dto.ArtifactRepoContent;
 import org.commonjava.cartographer.rest.dto.DownlogResult;
@@ -28,6 +32,8 @@ import org.commonjava.cartographer.rest.dto.ProjectRepoContent;
 import org.commonjava.cartographer.rest.dto.RepoContentResult;
 import org.commonjava.cartographer.rest.dto.UrlMapProject;
 import org.commonjava.cartographer.rest.dto.UrlMapResult;
+import org.commonjava.cdi.util.weft.ExecutorConfig;
+import org.commonjava.cdi.util.weft.WeftManaged;
 import org.commonjava.maven.atlas.ident.ref.ArtifactRef;
 import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
 import org.commonjava.maven.galley.TransferException;
@@ -38,27 +44,36 @@ import org.commonjava.maven.galley.maven.util.ArtifactPathUtils;
 import org.commonjava.maven.galley.model.ConcreteResource;
 import org.commonjava.maven.galley.model.Location;
 import org.commonjava.maven.galley.model.Transfer;
-import org.commonjava.maven.galley.model.TransferBatch;
 import org.commonjava.propulsor.deploy.undertow.util.ApplicationStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import javax.ws.rs.core.StreamingOutput;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.MalformedURLException;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -70,6 +85,18 @@ import static org.commonjava.maven.galley.util.UrlUtils.buildUrl;
 public class RepositoryController
 {
 
+    /**
+     * Number of artifacts each zip request retrieves ahead of the entry it is writing. This bounds a request's
+     * in-flight retrievals, however many threads the shared zip executor has.
+     */
+    static final int ZIP_FETCH_AHEAD = 8;
+
+    /**
+     * Threads in the zip executor shared by all zip requests; enough for several requests to keep their
+     * {@link #ZIP_FETCH_AHEAD} windows busy at once.
+     */
+    static final int ZIP_THREADS = 32;
+
     private final Logger logger = LoggerFactory.getLogger( getClass() );
 
     @Inject
@@ -84,6 +111,14 @@ public class RepositoryController
     @Inject
     private TypeMapper typeMapper;
 
+    @Inject
+    private ObjectMapper serializer;
+
+    @Inject
+    @WeftManaged
+    @ExecutorConfig( daemon = true, named = "carto-repo-zip", priority = 8, threads = ZIP_THREADS )
+    private ExecutorService zipExecutor;
+
     public UrlMapResult getUrlMap( final InputStream configStream, final String baseUri )
             throws CartoRESTException
     {
@@ -140,85 +175,166 @@ public class RepositoryController
         getZipRepository( dto, zipStream );
     }
 
+    /**
+     * Write the repository as a zip, with entries in path order. Artifacts are retrieved in parallel, up to
+     * {@link #ZIP_FETCH_AHEAD} entries ahead of the one being written, so the first entries go out while later ones
+     * are still downloading, and no more than that window of artifacts is pulled into the cache ahead of the client.
+     */
     public void getZipRepository( final RepositoryContentRequest dto, final OutputStream zipStream )
                     throws CartoRESTException
     {
-        ZipOutputStream stream = null;
-        try
-        {
-            final Map<ProjectVersionRef, Map<ArtifactRef, ConcreteResource>> contents = resolveContents( dto );
+        final Map<ProjectVersionRef, Map<ArtifactRef, ConcreteResource>> contents = resolveContents( dto );
 
-            final Set<ConcreteResource> entries = new HashSet<>();
-            final Set<String> seenPaths = new HashSet<>();
+        final Map<String, ConcreteResource> entries = new TreeMap<>();
 
-            logger.info( "Iterating contents with {} GAVs.", contents.size() );
-            for ( final Map<ArtifactRef, ConcreteResource> artifactResources : contents.values() )
+        logger.info( "Iterating contents with {} GAVs.", contents.size() );
+        for ( final Map<ArtifactRef, ConcreteResource> artifactResources : contents.values() )
+        {
+            for ( final Entry<ArtifactRef, ConcreteResource> entry : artifactResources.entrySet() )
             {
-                for ( final Entry<ArtifactRef, ConcreteResource> entry : artifactResources.entrySet() )
-                {
-                    final ArtifactRef ref = entry.getKey();
-                    final ConcreteResource resource = entry.getValue();
+                final ArtifactRef ref = entry.getKey();
+                final ConcreteResource resource = entry.getValue();
 
-                    //                        logger.info( "Checking {} ({}) for inclusion...", ref, resource );
+                //                        logger.info( "Checking {} ({}) for inclusion...", ref, resource );
 
-                    final String path = resource.getPath();
-                    if ( seenPaths.contains( path ) )
-                    {
-                        logger.warn( "Conflicting path: {}. Skipping {}.", path, ref );
-                        continue;
-                    }
-
-                    seenPaths.add( path );
-
-                    //                        logger.info( "Adding to batch: {} via resource: {}", ref, resource );
-                    entries.add( resource );
+                final String path = resource.getPath();
+                if ( entries.containsKey( path ) )
+                {
+                    logger.warn( "Conflicting path: {}. Skipping {}.", path, ref );
+                    continue;
                 }
+
+                entries.put( path, resource );
             }
+        }
 
-            logger.info( "Starting batch retrieval of {} artifacts.", entries.size() );
-            TransferBatch batch = new TransferBatch( entries );
-            batch = transferManager.batchRetrieve( batch, new EventMetadata() );
+        logger.info( "Streaming zip of {} artifacts.", entries.size() );
 
-            logger.info( "Retrieved {} artifacts. Creating zip.", batch.getTransfers().size() );
+        final Iterator<ConcreteResource> toFetch = entries.values().iterator();
+        final Deque<Future<Transfer>> pending = new ArrayDeque<>( ZIP_FETCH_AHEAD );
 
-            // FIXME: Stream to a temp file, then pass that to the Response.ok() handler...
+        ZipOutputStream stream = null;
+        int written = 0;
+        try
+        {
             stream = new ZipOutputStream( zipStream );
+            final WritableByteChannel channel = Channels.newChannel( stream );
 
-            final List<Transfer> items = new ArrayList<>( batch.getTransfers().values() );
-            Collections.sort( items, (f, s)-> f.getPath().compareTo( s.getPath() ) );
+            while ( pending.size() < ZIP_FETCH_AHEAD && toFetch.hasNext() )
+            {
+                pending.add( retrieveAsync( toFetch.next() ) );
+            }
 
-            for ( final Transfer item : items )
+            while ( !pending.isEmpty() )
             {
-                //                    logger.info( "Adding: {}", item );
+                final Transfer item = pending.removeFirst().get();
+                if ( toFetch.hasNext() )
+                {
+                    pending.add( retrieveAsync( toFetch.next() ) );
+                }
+
                 if ( item != null )
                 {
-                    final String path = item.getPath();
-                    final ZipEntry ze = new ZipEntry( path );
-                    stream.putNextEntry( ze );
-
-                    InputStream itemStream = null;
-                    try
-                    {
-                        itemStream = item.openInputStream();
-                        copy( itemStream, stream );
-                    }
-                    finally
-                    {
-                        closeQuietly( itemStream );
-                    }
+                    //                    logger.info( "Adding: {}", item );
+                    stream.putNextEntry( new ZipEntry( item.getPath() ) );
+                    writeEntry( item, stream, channel );
+                    stream.closeEntry();
+                    written++;
                 }
             }
+
+            stream.finish();
+            logger.info( "Wrote {} artifacts to zip.", written );
         }
-        catch ( final IOException | TransferException e )
+        catch ( final IOException e )
         {
             throw new CartoRESTException( "Failed to generate runtime repository. Reason: {}", e, e.getMessage() );
         }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new CartoRESTException( "Interrupted while generating runtime repository.", e );
+        }
+        catch ( final ExecutionException e )
+        {
+            final Throwable cause = e.getCause();
+            throw new CartoRESTException( "Failed to generate runtime repository. Reason: {}", cause,
+                                          cause.getMessage() );
+        }
         finally
         {
+            for ( final Future<Transfer> future : pending )
+            {
+                future.cancel( true );
+            }
+
             closeQuietly( stream );
         }
     }
 
+    /**
+     * Retrieve one artifact on the zip executor. Missing artifacts and retrieval errors are logged and come back as
+     * null, and the artifact is left out of the zip (as batch retrieval did).
+     */
+    private Future<Transfer> retrieveAsync( final ConcreteResource resource )
+    {
+        return zipExecutor.submit( () -> {
+            try
+            {
+                final Transfer transfer = transferManager.retrieve( resource, true, new EventMetadata() );
+                if ( transfer == null || !transfer.exists() )
+                {
+                    logger.warn( "Not found: {}. Leaving it out of the zip.", resource );
+                    return null;
+                }
+
+                return transfer;
+            }
+            catch ( final TransferException e )
+            {
+                logger.error( String.format( "Failed to retrieve: %s. Leaving it out of the zip. Reason: %s",
+                                             resource, e.getMessage() ), e );
+                return null;
+            }
+        } );
+    }
+
+    /**
+     * Copy a retrieved artifact into the current zip entry. When the cache exposes the artifact as a file, its channel
+     * feeds the zip directly via {@link FileChannel#transferTo(long, long, WritableByteChannel)}; otherwise it's
+     * copied from the transfer's stream.
+     */
+    private void writeEntry( final Transfer item, final OutputStream stream, final WritableByteChannel channel )
+                    throws IOException
+    {
+        final File file = item.getDetachedFile();
+        if ( file != null && file.isFile() )
+        {
+            try (FileChannel in = FileChannel.open( file.toPath(), StandardOpenOption.READ ))
+            {
+                final long size = in.size();
+                long position = 0;
+                while ( position < size )
+                {
+                    position += in.transferTo( position, size - position, channel );
+                }
+            }
+
+            return;
+        }
+
+        InputStream itemStream = null;
+        try
+        {
+            itemStream = item.openInputStream();
+            copy( itemStream, stream );
+        }
+        finally
+        {
+            closeQuietly( itemStream );
+        }
+    }
+
     public RepoContentResult getRepoContent( RepositoryContentRequest request, String baseUri )
             throws CartoRESTException
     {
@@ -226,30 +342,74 @@ public class RepositoryController
         RepoContentResult result = new RepoContentResult();
         for ( ProjectVersionRef key: contents.keySet() )
         {
-            ProjectRepoContent projectContent = new ProjectRepoContent();
-            result.addProject( key, projectContent );
+            result.addProject( key, getProjectRepoContent( contents.get( key ), baseUri, result::addRepoUrl ) );
+        }
 
-            Map<ArtifactRef, ConcreteResource> artifactMap = contents.get( key );
-            for ( ArtifactRef artifact: artifactMap.keySet() )
-            {
-                ConcreteResource item = artifactMap.get( artifact );
-                Location location = item.getLocation();
+        return result;
+    }
 
-                String baseUrl = formatRepositoryUrl( location, baseUri );
-                result.addRepoUrl( location.getName(), baseUrl );
-                try
-                {
-                    String path = ArtifactPathUtils.formatArtifactPath( artifact, typeMapper );
-                    projectContent.addArtifact( new ArtifactRepoContent( artifact, location.getName(), path ) );
-                }
-                catch ( TransferException e )
+    /**
+     * Resolve the contents up front (so errors still get a proper response status), then write the result as JSON one
+     * project at a time, without building the whole {@link RepoContentResult} first.
+     */
+    public StreamingOutput streamRepoContent( final RepositoryContentRequest request, final String baseUri )
+            throws CartoRESTException
+    {
+        final Map<ProjectVersionRef, Map<ArtifactRef, ConcreteResource>> contents = resolveContents( request );
+
+        return ( output ) -> {
+            final ObjectWriter writer = JsonStreaming.writer( serializer );
+            final Map<String, String> repoUrls = new HashMap<>();
+
+            final JsonGenerator generator = JsonStreaming.openGenerator( output, serializer );
+            generator.writeStartObject();
+
+            if ( contents.isEmpty() )
+            {
+                JsonStreaming.writeField( generator, writer, "projects", null );
+            }
+            else
+            {
+                generator.writeObjectFieldStart( "projects" );
+                for ( final Entry<ProjectVersionRef, Map<ArtifactRef, ConcreteResource>> entry : contents.entrySet() )
                 {
-                    logger.error( "Failed to format artifact path: %s. Reason: %s", e, artifact, e.getMessage() );
+                    generator.writeFieldName( entry.getKey().toString() );
+                    writer.writeValue( generator, getProjectRepoContent( entry.getValue(), baseUri, repoUrls::put ) );
                 }
+                generator.writeEndObject();
+            }
+
+            JsonStreaming.writeField( generator, writer, "repoUrls", repoUrls.isEmpty() ? null : repoUrls );
+
+            generator.writeEndObject();
+            generator.flush();
+        };
+    }
+
+    private ProjectRepoContent getProjectRepoContent( final Map<ArtifactRef, ConcreteResource> artifactMap,
+                                                      final String baseUri,
+                                                      final BiConsumer<String, String> repoUrls )
+    {
+        ProjectRepoContent projectContent = new ProjectRepoContent();
+        for ( ArtifactRef artifact: artifactMap.keySet() )
+        {
+            ConcreteResource item = artifactMap.get( artifact );
+            Location location = item.getLocation();
+
+            String baseUrl = formatRepositoryUrl( location, baseUri );
+            repoUrls.accept( location.getName(), baseUrl );
+            try
+            {
+                String path = ArtifactPathUtils.formatArtifactPath( artifact, typeMapper );
+                projectContent.addArtifact( new ArtifactRepoContent( artifact, location.getName(), path ) );
+            }
+            catch ( TransferException e )
+            {
+                logger.error( "Failed to format artifact path: %s. Reason: %s", e, artifact, e.getMessage() );
             }
         }
 
-        return result;
+        return projectContent;
     }
 
     private Map<ProjectVersionRef, Map<ArtifactRef, ConcreteResource>> resolveContents(
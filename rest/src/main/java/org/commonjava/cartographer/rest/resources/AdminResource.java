@@ -28,6 +28,7 @@ import org.commonjava.cartographer.request.SourceAliasRequest;
 import org.commonjava.cartographer.rest.CartoRESTException;
 import org.commonjava.cartographer.rest.ctl.AdminController;
 import org.commonjava.cartographer.rest.ctl.CalculatorController;
+import org.commonjava.cartographer.rest.dto.ResultCacheStats;
 import org.commonjava.cartographer.result.GraphDifference;
 import org.commonjava.cartographer.result.SourceAliasMapResult;
 import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
@@ -111,4 +112,14 @@ public class AdminResource
         return null;
     }
 
+    @ApiOperation( "Retrieve hit / miss counters for the result cache." )
+    @ApiResponses( { @ApiResponse( code = 200, response = ResultCacheStats.class, message = "Result cache stats" ) } )
+    @Path( "/result-cache" )
+    @GET
+    @Produces( application_json )
+    public ResultCacheStats getResultCacheStats()
+    {
+        return controller.getResultCacheStats();
+    }
+
 }
@@ -15,6 +15,7 @@
  */
 package org.commonjava.cartographer.rest.resources;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
@@ -22,12 +23,10 @@ import io.swagger.annotations.ApiResponses;
 import org.commonjava.cartographer.request.GraphAnalysisRequest;
 import org.commonjava.cartographer.request.GraphCalculation;
 import org.commonjava.cartographer.request.MultiGraphRequest;
-import org.commonjava.cartographer.rest.CartoRESTException;
 import org.commonjava.cartographer.rest.ctl.CalculatorController;
+import org.commonjava.cartographer.rest.util.ResultCache;
 import org.commonjava.cartographer.result.GraphDifference;
 import org.commonjava.cartographer.result.SourceAliasMapResult;
-import org.commonjava.maven.atlas.graph.rel.ProjectRelationship;
-import org.commonjava.maven.atlas.ident.ref.ProjectVersionRef;
 import org.commonjava.propulsor.deploy.resteasy.RestResources;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,9 +37,14 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
-import static org.commonjava.cartographer.rest.util.ResponseUtils.throwError;
+import static org.commonjava.cartographer.CartoWireFormat.APPLICATION_SMILE;
+import static org.commonjava.cartographer.rest.util.JsonStreaming.SMILE_PRODUCES;
+import static org.commonjava.cartographer.rest.util.JsonStreaming.streamJson;
+import static org.commonjava.cartographer.rest.util.JsonStreaming.streamSmile;
 import static org.commonjava.propulsor.deploy.undertow.util.StandardApplicationContent.application_json;
 
 @Api( value = "Calculator Resource", description = "Calculator Resource." )
@@ -57,25 +61,22 @@ public class CalculatorResource
     @Inject
     private CalculatorController controller;
 
+    @Inject
+    private ObjectMapper serializer;
+
+    @Inject
+    private ResultCache resultCache;
+
     @ApiOperation( "Get Graph Difference." )
     @ApiResponses( { @ApiResponse( code = 200, response = GraphDifference.class, message = "Graph Difference" ),
             @ApiResponse( code = 404, message = "Not found" ) } )
     @Path( "/diff" )
     @POST
     @Produces( application_json )
-    public GraphDifference<ProjectRelationship<?, ?>> difference( final GraphAnalysisRequest request )
+    public Response difference( final GraphAnalysisRequest request, final @Context HttpHeaders headers )
     {
-        Response response = null;
-        try
-        {
-            return controller.difference( request );
-        }
-        catch ( final CartoRESTException e )
-        {
-            logger.error( e.getMessage(), e );
-            throwError( e );
-        }
-        return null;
+        return resultCache.respond( headers, "calc/diff", request, application_json,
+                                    () -> streamJson( controller.difference( request ), serializer )::write );
     }
 
     @ApiOperation( "Drift Graph Difference." )
@@ -84,19 +85,10 @@ public class CalculatorResource
     @Path( "/drift" )
     @POST
     @Produces( application_json )
-    public GraphDifference<ProjectVersionRef> drift( final GraphAnalysisRequest request )
+    public Response drift( final GraphAnalysisRequest request, final @Context HttpHeaders headers )
     {
-        Response response = null;
-        try
-        {
-            return controller.drift( request );
-        }
-        catch ( final CartoRESTException e )
-        {
-            logger.error( e.getMessage(), e );
-            throwError( e );
-        }
-        return null;
+        return resultCache.respond( headers, "calc/drift", request, application_json,
+                                    () -> streamJson( controller.drift( request ), serializer )::write );
     }
 
     @ApiOperation( "Graph Calculation." )
@@ -105,17 +97,45 @@ public class CalculatorResource
     @Path( "/calculate" )
     @POST
     @Produces( application_json )
-    public GraphCalculation calculate( MultiGraphRequest request )
+    public Response calculate( final MultiGraphRequest request, final @Context HttpHeaders headers )
+    {
+        return resultCache.respond( headers, "calc/calculate", request, application_json,
+                                    () -> streamJson( controller.calculate( request ), serializer )::write );
+    }
+
+    @ApiOperation( "Get Graph Difference, in the binary Smile encoding." )
+    @ApiResponses( { @ApiResponse( code = 200, response = GraphDifference.class, message = "Graph Difference" ),
+            @ApiResponse( code = 404, message = "Not found" ) } )
+    @Path( "/diff" )
+    @POST
+    @Produces( SMILE_PRODUCES )
+    public Response differenceSmile( final GraphAnalysisRequest request, final @Context HttpHeaders headers )
+    {
+        return resultCache.respond( headers, "calc/diff", request, APPLICATION_SMILE,
+                                    () -> streamSmile( controller.difference( request ), serializer )::write );
+    }
+
+    @ApiOperation( "Drift Graph Difference, in the binary Smile encoding." )
+    @ApiResponses( { @ApiResponse( code = 200, response = GraphDifference.class, message = "Graph Difference" ),
+            @ApiResponse( code = 404, message = "Not found" ) } )
+    @Path( "/drift" )
+    @POST
+    @Produces( SMILE_PRODUCES )
+    public Response driftSmile( final GraphAnalysisRequest request, final @Context HttpHeaders headers )
+    {
+        return resultCache.respond( headers, "calc/drift", request, APPLICATION_SMILE,
+                                    () -> streamSmile( controller.drift( request ), serializer )::write );
+    }
+
+    @ApiOperation( "Graph Calculation, in the binary Smile encoding." )
+    @ApiResponses( { @ApiResponse( code = 200, response = GraphCalculation.class, message = "Graph Calculation" ),
+            @ApiResponse( code = 404, message = "Not found" ) } )
+    @Path( "/calculate" )
+    @POST
+    @Produces( SMILE_PRODUCES )
+    public Response calculateSmile( final MultiGraphRequest request, final @Context HttpHeaders headers )
     {
-        try
-        {
-            return controller.calculate( request );
-        }
-        catch ( final CartoRESTException e )
-        {
-            logger.error( e.getMessage(), e );
-            throwError( e );
-        }
-        return null;
+        return resultCache.respond( headers, "calc/calculate", request, APPLICATION_SMILE,
+                                    () -> streamSmile( controller.calculate( request ), serializer )::write );
     }
 }
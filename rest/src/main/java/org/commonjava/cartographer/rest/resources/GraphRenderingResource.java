@@ -24,6 +24,7 @@ import org.commonjava.cartographer.request.PomRequest;
 import org.commonjava.cartographer.request.RepositoryContentRequest;
 import org.commonjava.cartographer.rest.CartoRESTException;
 import org.commonjava.cartographer.rest.ctl.RenderingController;
+import org.commonjava.cartographer.rest.util.ResultCache;
 import org.commonjava.propulsor.deploy.resteasy.RestResources;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -31,11 +32,20 @@ import javax.inject.Inject;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
-import java.io.File;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
 
 import static org.commonjava.cartographer.rest.util.ResponseUtils.throwError;
+import static org.commonjava.cartographer.rest.util.ResultCache.spool;
 import static org.commonjava.propulsor.deploy.undertow.util.StandardApplicationContent.*;
 
+/**
+ * The dotfile, tree and list renderings are not written straight to the response. They go through
+ * {@link ResultCache#spool(ResultCache.SpoolWriter)}, which keeps them in memory up to 1 MB and then uses a temp
+ * file, and are compressed as the spool is copied out. This is the same trade-off /graph/export makes: rendering
+ * failures still get a proper error status, and the graph isn't held open while a slow client reads.
+ */
 @Api( value = "Graph Rendering Resource", description = "Graph Rendering Resource." )
 @Path( "/api/depgraph/render" )
 @ApplicationScoped
@@ -48,6 +58,9 @@ public class GraphRenderingResource
     @Inject
     private RenderingController controller;
 
+    @Inject
+    private ResultCache resultCache;
+
     @ApiOperation( "pom." )
     @ApiResponses( { @ApiResponse( code = 200, response = String.class, message = "pom" ) } )
     @Path( "/pom" )
@@ -71,52 +84,31 @@ public class GraphRenderingResource
     @Path( "/dotfile" )
     @POST
     @Produces( TYPE_GRAPHVIZ )
-    public String dotfile( final MultiRenderRequest recipe )
+    public Response dotfile( final MultiRenderRequest recipe, final @Context HttpHeaders headers )
     {
-        try
-        {
-            return controller.dotfile( recipe );
-        }
-        catch ( final CartoRESTException e )
-        {
-            throwError( e );
-        }
-        return null;
+        return resultCache.respondEncoded( headers, "render/dotfile", recipe, TYPE_GRAPHVIZ,
+                                           spool( ( out ) -> controller.writeDotfile( recipe, out ) ) );
     }
 
     @ApiOperation( "tree." )
-    @ApiResponses( { @ApiResponse( code = 200, response = File.class, message = "tree" ) } )
+    @ApiResponses( { @ApiResponse( code = 200, response = String.class, message = "tree" ) } )
     @Path( "/depTree" )
     @POST
     @Produces( text_plain )
-    public File tree( final RepositoryContentRequest recipe )
+    public Response tree( final RepositoryContentRequest recipe, final @Context HttpHeaders headers )
     {
-        try
-        {
-            return controller.tree( recipe );
-        }
-        catch ( final CartoRESTException e )
-        {
-            throwError( e );
-        }
-        return null;
+        return resultCache.respondEncoded( headers, "render/depTree", recipe, text_plain,
+                                           spool( ( out ) -> controller.writeTree( recipe, out ) ) );
     }
 
     @ApiOperation( "list." )
-    @ApiResponses( { @ApiResponse( code = 200, response = File.class, message = "file" ) } )
+    @ApiResponses( { @ApiResponse( code = 200, response = String.class, message = "list" ) } )
     @Path( "/depList" )
     @POST
     @Produces( text_plain )
-    public File list( final RepositoryContentRequest recipe )
+    public Response list( final RepositoryContentRequest recipe, final @Context HttpHeaders headers )
     {
-        try
-        {
-            return controller.list( recipe );
-        }
-        catch ( final CartoRESTException e )
-        {
-            throwError( e );
-        }
-        return null;
+        return resultCache.respondEncoded( headers, "render/depList", recipe, text_plain,
+                                           spool( ( out ) -> controller.writeList( recipe, out ) ) );
     }
 }
@@ -15,6 +15,7 @@
  */
 package org.commonjava.cartographer.rest.resources;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
@@ -24,6 +25,7 @@ import org.commonjava.cartographer.request.ProjectGraphRequest;
 import org.commonjava.cartographer.request.SingleGraphRequest;
 import org.commonjava.cartographer.rest.CartoRESTException;
 import org.commonjava.cartographer.rest.ctl.GraphController;
+import org.commonjava.cartographer.rest.util.ResultCache;
 import org.commonjava.cartographer.result.GraphExport;
 import org.commonjava.cartographer.result.MappedProjectsResult;
 import org.commonjava.cartographer.result.ProjectErrors;
@@ -40,7 +42,15 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import static org.commonjava.cartographer.CartoWireFormat.APPLICATION_SMILE;
+import static org.commonjava.cartographer.rest.util.JsonStreaming.SMILE_PRODUCES;
+import static org.commonjava.cartographer.rest.util.JsonStreaming.streamJson;
+import static org.commonjava.cartographer.rest.util.ResultCache.spool;
 import static org.commonjava.cartographer.rest.util.ResponseUtils.throwError;
 import static org.commonjava.propulsor.deploy.undertow.util.StandardApplicationContent.*;
 
@@ -57,15 +67,21 @@ public class GraphResource
     @Inject
     private GraphController controller;
 
+    @Inject
+    private ResultCache resultCache;
+
+    @Inject
+    private ObjectMapper serializer;
+
     @ApiOperation( "Get Paths." )
     @ApiResponses( { @ApiResponse( code = 200, response = ProjectPathsResult.class, message = "Project Paths" ) } )
     @Path( "/paths" )
     @POST
-    public ProjectPathsResult getPaths( final PathsRequest recipe )
+    public StreamingOutput getPaths( final PathsRequest recipe )
     {
         try
         {
-            return controller.getPaths( recipe );
+            return controller.streamPaths( recipe );
         }
         catch ( final CartoRESTException e )
         {
@@ -168,34 +184,32 @@ public class GraphResource
     @ApiResponses( { @ApiResponse( code = 200, response = BuildOrder.class, message = "Build Order" ) } )
     @Path( "/build-order" )
     @POST
-    public BuildOrder buildOrder( final ProjectGraphRequest recipe )
+    public Response buildOrder( final ProjectGraphRequest recipe, final @Context HttpHeaders headers )
     {
-        try
-        {
-            return controller.buildOrder( recipe );
-        }
-        catch ( final CartoRESTException e )
-        {
-            throwError( e );
-        }
-        return null;
+        return resultCache.respond( headers, "graph/build-order", recipe, application_json,
+                                    () -> streamJson( controller.buildOrder( recipe ), serializer )::write );
     }
 
     @ApiOperation( "Graph." )
     @ApiResponses( { @ApiResponse( code = 200, response = GraphExport.class, message = "Graph Export" ) } )
     @Path( "/export" )
     @POST
-    public GraphExport graph( final SingleGraphRequest recipe )
+    public Response graph( final SingleGraphRequest recipe, final @Context HttpHeaders headers )
     {
-        try
-        {
-            return controller.projectGraph( recipe );
-        }
-        catch ( final CartoRESTException e )
-        {
-            throwError( e );
-        }
-        return null;
+        return resultCache.respond( headers, "graph/export", recipe, application_json,
+                                    spool( ( out ) -> controller.writeProjectGraph( recipe, out ) ) );
+    }
+
+    @ApiOperation( "Graph, in the binary Smile encoding." )
+    @ApiResponses( { @ApiResponse( code = 200, response = GraphExport.class, message = "Graph Export" ) } )
+    @Path( "/export" )
+    @POST
+    @Produces( SMILE_PRODUCES )
+    public Response graphSmile( final SingleGraphRequest recipe, final @Context HttpHeaders headers )
+    {
+        return resultCache.respond( headers, "graph/export", recipe, APPLICATION_SMILE,
+                                    spool( ( out ) -> controller.writeProjectGraph( recipe, out,
+                                                                                 APPLICATION_SMILE ) ) );
     }
 
 }
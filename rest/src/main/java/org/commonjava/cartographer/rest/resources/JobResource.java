@@ -0,0 +1,218 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.rest.resources;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.commonjava.cartographer.request.RepositoryContentRequest;
+import org.commonjava.cartographer.request.SingleGraphRequest;
+import org.commonjava.cartographer.rest.CartoRESTException;
+import org.commonjava.cartographer.rest.ctl.JobController;
+import org.commonjava.cartographer.rest.dto.JobState;
+import org.commonjava.cartographer.rest.dto.JobStatus;
+import org.commonjava.propulsor.deploy.resteasy.RestResources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import static org.commonjava.cartographer.rest.util.ResponseUtils.throwError;
+import static org.commonjava.propulsor.deploy.undertow.util.StandardApplicationContent.application_json;
+
+@Api( value = "Job Resource", description = "Run long graph requests asynchronously, then retrieve their results." )
+@Path( "/api/depgraph/jobs" )
+@Consumes( { "application/json", "application/indy*+json" } )
+@ApplicationScoped
+public class JobResource
+        implements RestResources
+{
+
+    private static final int MAX_WAIT_SECONDS = 60;
+
+    private final Logger logger = LoggerFactory.getLogger( getClass() );
+
+    @Inject
+    private JobController controller;
+
+    @ApiOperation( "Queue a job to build a zip of the repository content for a graph." )
+    @ApiResponses( { @ApiResponse( code = 202, response = JobStatus.class, message = "Job queued (or already known)" ) } )
+    @Path( "/repo/zip" )
+    @POST
+    @Produces( application_json )
+    public Response submitZipRepository( final RepositoryContentRequest request,
+                                         final @QueryParam( "priority" ) @DefaultValue( "5" ) int priority,
+                                         final @Context UriInfo uriInfo )
+    {
+        try
+        {
+            return accepted( controller.submitZipRepository( request, priority ), uriInfo );
+        }
+        catch ( final CartoRESTException e )
+        {
+            logger.error( e.getMessage(), e );
+            throwError( e );
+        }
+
+        return null;
+    }
+
+    @ApiOperation( "Queue a job to render the dependency tree for a graph." )
+    @ApiResponses( { @ApiResponse( code = 202, response = JobStatus.class, message = "Job queued (or already known)" ) } )
+    @Path( "/render/depTree" )
+    @POST
+    @Produces( application_json )
+    public Response submitDepTree( final RepositoryContentRequest request,
+                                   final @QueryParam( "priority" ) @DefaultValue( "5" ) int priority,
+                                   final @Context UriInfo uriInfo )
+    {
+        try
+        {
+            return accepted( controller.submitDepTree( request, priority ), uriInfo );
+        }
+        catch ( final CartoRESTException e )
+        {
+            logger.error( e.getMessage(), e );
+            throwError( e );
+        }
+
+        return null;
+    }
+
+    @ApiOperation( "Queue a job to export a graph." )
+    @ApiResponses( { @ApiResponse( code = 202, response = JobStatus.class, message = "Job queued (or already known)" ) } )
+    @Path( "/graph/export" )
+    @POST
+    @Produces( application_json )
+    public Response submitGraphExport( final SingleGraphRequest request,
+                                       final @QueryParam( "priority" ) @DefaultValue( "5" ) int priority,
+                                       final @Context UriInfo uriInfo )
+    {
+        try
+        {
+            return accepted( controller.submitGraphExport( request, priority ), uriInfo );
+        }
+        catch ( final CartoRESTException e )
+        {
+            logger.error( e.getMessage(), e );
+            throwError( e );
+        }
+
+        return null;
+    }
+
+    @ApiOperation( "Retrieve the status of a job." )
+    @ApiResponses( { @ApiResponse( code = 200, response = JobStatus.class, message = "Job status" ),
+            @ApiResponse( code = 404, message = "No such job (or its result has expired)" ) } )
+    @Path( "/{id}" )
+    @GET
+    @Produces( application_json )
+    public JobStatus getStatus( final @PathParam( "id" ) String id )
+    {
+        try
+        {
+            return controller.getStatus( id );
+        }
+        catch ( final CartoRESTException e )
+        {
+            logger.error( e.getMessage(), e );
+            throwError( e );
+        }
+
+        return null;
+    }
+
+    @ApiOperation( "Retrieve the result of a job, optionally waiting (up to 60s) for it to finish." )
+    @ApiResponses( { @ApiResponse( code = 200, message = "Job result, in the job's content type" ),
+            @ApiResponse( code = 202, response = JobStatus.class, message = "Job is still queued or running" ),
+            @ApiResponse( code = 404, message = "No such job (or its result has expired)" ),
+            @ApiResponse( code = 409, response = JobStatus.class, message = "Job failed or was cancelled" ) } )
+    @Path( "/{id}/result" )
+    @GET
+    public Response getResult( final @PathParam( "id" ) String id,
+                               final @QueryParam( "wait" ) @DefaultValue( "0" ) int wait )
+    {
+        try
+        {
+            final int waitSeconds = Math.max( 0, Math.min( wait, MAX_WAIT_SECONDS ) );
+            final JobStatus status = controller.awaitStatus( id, waitSeconds, TimeUnit.SECONDS );
+            if ( status.getState() == JobState.SUCCEEDED )
+            {
+                final File result = controller.getResult( id );
+                return Response.ok( result, status.getContentType() ).build();
+            }
+            else if ( status.getState().isDone() )
+            {
+                return Response.status( Response.Status.CONFLICT ).type( application_json ).entity( status ).build();
+            }
+
+            return Response.status( Response.Status.ACCEPTED ).type( application_json ).entity( status ).build();
+        }
+        catch ( final CartoRESTException e )
+        {
+            logger.error( e.getMessage(), e );
+            throwError( e );
+        }
+
+        return null;
+    }
+
+    @ApiOperation( "Cancel a job, and discard its result." )
+    @ApiResponses( { @ApiResponse( code = 200, response = JobStatus.class, message = "Final job status" ),
+            @ApiResponse( code = 404, message = "No such job" ) } )
+    @Path( "/{id}" )
+    @DELETE
+    @Produces( application_json )
+    public JobStatus cancel( final @PathParam( "id" ) String id )
+    {
+        try
+        {
+            return controller.cancel( id );
+        }
+        catch ( final CartoRESTException e )
+        {
+            logger.error( e.getMessage(), e );
+            throwError( e );
+        }
+
+        return null;
+    }
+
+    private Response accepted( final JobStatus status, final UriInfo uriInfo )
+    {
+        return Response.status( Response.Status.ACCEPTED )
+                       .location( uriInfo.getBaseUriBuilder().path( "api" ).path( status.getResultPath() ).build() )
+                       .type( application_json )
+                       .entity( status )
+                       .build();
+    }
+}
@@ -22,10 +22,11 @@ import io.swagger.annotations.ApiResponses;
 import org.commonjava.cartographer.request.MetadataCollationRequest;
 import org.commonjava.cartographer.request.MetadataExtractionRequest;
 import org.commonjava.cartographer.request.MetadataUpdateRequest;
-import org.commonjava.cartographer.request.ProjectGraphRequest;
+import org.commonjava.cartographer.request.MetadataRescanRequest;
 import org.commonjava.cartographer.rest.CartoRESTException;
 import org.commonjava.cartographer.rest.ctl.MetadataController;
 import org.commonjava.cartographer.result.MetadataCollationResult;
+import org.commonjava.cartographer.result.MetadataRescanResult;
 import org.commonjava.cartographer.result.MetadataResult;
 import org.commonjava.cartographer.result.ProjectListResult;
 import org.commonjava.propulsor.deploy.resteasy.RestResources;
@@ -70,10 +71,10 @@ public class MetadataResource
     }
 
     @ApiOperation( "Rescan." )
-    @ApiResponses( { @ApiResponse( code = 200, response = ProjectListResult.class, message = "Project List" ) } )
+    @ApiResponses( { @ApiResponse( code = 200, response = MetadataRescanResult.class, message = "Rescan Result" ) } )
     @Path( "/rescan" )
     @POST
-    public ProjectListResult rescan( final ProjectGraphRequest recipe )
+    public MetadataRescanResult rescan( final MetadataRescanRequest recipe )
     {
         try
         {
@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.rest.resources;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.commonjava.cartographer.rest.dto.ProgressEvent;
+import org.commonjava.cartographer.rest.util.ProgressChannels;
+import org.commonjava.propulsor.deploy.resteasy.RestResources;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import static org.commonjava.cartographer.rest.util.ProgressChannels.EVENT_STREAM;
+import static org.commonjava.cartographer.rest.util.ProgressChannels.NDJSON;
+
+@Api( value = "Progress Resource", description = "Watch the progress of running graph requests and jobs." )
+@Path( "/api/depgraph/progress" )
+@ApplicationScoped
+public class ProgressResource
+        implements RestResources
+{
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private static final int RETRY_AFTER_SECONDS = 5;
+
+    @Inject
+    private ProgressChannels channels;
+
+    @ApiOperation( "Stream progress events for a request's progressId (or a job id) as Server-Sent Events." )
+    @ApiResponses( { @ApiResponse( code = 200, response = ProgressEvent.class, message = "Progress events" ),
+                       @ApiResponse( code = 503, message = "Too many progress watches are open" ) } )
+    @Path( "/{id}" )
+    @GET
+    @Produces( EVENT_STREAM )
+    public Response watchEvents( final @PathParam( "id" ) String id,
+                                 final @QueryParam( "after" ) @DefaultValue( "0" ) long after,
+                                 final @HeaderParam( LAST_EVENT_ID ) Long lastEventId )
+    {
+        final long start = lastEventId == null ? after : Math.max( after, lastEventId );
+        return watch( id, start, EVENT_STREAM );
+    }
+
+    @ApiOperation( "Stream progress events for a request's progressId (or a job id) as newline-delimited JSON." )
+    @ApiResponses( { @ApiResponse( code = 200, response = ProgressEvent.class, message = "Progress events" ),
+                       @ApiResponse( code = 503, message = "Too many progress watches are open" ) } )
+    @Path( "/{id}" )
+    @GET
+    @Produces( NDJSON )
+    public Response watchJson( final @PathParam( "id" ) String id,
+                               final @QueryParam( "after" ) @DefaultValue( "0" ) long after )
+    {
+        return watch( id, after, NDJSON );
+    }
+
+    private Response watch( final String id, final long after, final String mediaType )
+    {
+        if ( !channels.hasWatchCapacity() )
+        {
+            return Response.status( Response.Status.SERVICE_UNAVAILABLE )
+                           .header( "Retry-After", RETRY_AFTER_SECONDS )
+                           .build();
+        }
+
+        return Response.ok( (StreamingOutput) ( out ) -> channels.watch( id, after, mediaType, out ), mediaType )
+                       .header( "Cache-Control", "no-cache" )
+                       .build();
+    }
+}
@@ -15,16 +15,19 @@
  */
 package org.commonjava.cartographer.rest.resources;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import org.commonjava.cartographer.request.ProjectBatchRequest;
 import org.commonjava.cartographer.request.ProjectGraphRelationshipsRequest;
 import org.commonjava.cartographer.request.ProjectGraphRequest;
 import org.commonjava.cartographer.rest.CartoRESTException;
 import org.commonjava.cartographer.rest.ctl.ProjectController;
 import org.commonjava.cartographer.result.MappedProjectRelationshipsResult;
 import org.commonjava.cartographer.result.MappedProjectResult;
+import org.commonjava.cartographer.result.ProjectBatchResult;
 import org.commonjava.cartographer.result.ProjectListResult;
 import org.commonjava.propulsor.deploy.resteasy.RestResources;
 
@@ -34,7 +37,11 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.StreamingOutput;
 
+import static org.commonjava.cartographer.CartoWireFormat.APPLICATION_SMILE;
+import static org.commonjava.cartographer.rest.util.JsonStreaming.SMILE_PRODUCES;
+import static org.commonjava.cartographer.rest.util.JsonStreaming.streamSmile;
 import static org.commonjava.cartographer.rest.util.ResponseUtils.throwError;
 import static org.commonjava.propulsor.deploy.undertow.util.StandardApplicationContent.*;
 
@@ -49,6 +56,9 @@ public class ProjectResource
     @Inject
     private ProjectController controller;
 
+    @Inject
+    private ObjectMapper serializer;
+
     @ApiOperation( "List projects." )
     @ApiResponses( { @ApiResponse( code = 200, response = ProjectListResult.class, message = "Project List Result" ) } )
     @Path( "/list" )
@@ -122,4 +132,75 @@ public class ProjectResource
         return null;
     }
 
+    @ApiOperation( "Relationships Declared By, in the binary Smile encoding." )
+    @ApiResponses( { @ApiResponse( code = 200, response = MappedProjectRelationshipsResult.class, message = "Mapped Project Relationships" ) } )
+    @Path( "/relationships" )
+    @POST
+    @Produces( SMILE_PRODUCES )
+    public StreamingOutput dependenciesOfSmile( final ProjectGraphRelationshipsRequest recipe )
+    {
+        try
+        {
+            return streamSmile( controller.relationshipsDeclaredBy( recipe ), serializer );
+        }
+        catch ( final CartoRESTException e )
+        {
+            throwError( e );
+        }
+
+        return null;
+    }
+
+    @ApiOperation( "Relationships Targeting, in the binary Smile encoding." )
+    @ApiResponses( { @ApiResponse( code = 200, response = MappedProjectRelationshipsResult.class, message = "Mapped Project Relationships" ) } )
+    @Path( "/targeting" )
+    @POST
+    @Produces( SMILE_PRODUCES )
+    public StreamingOutput relationshipsTargetingSmile( final ProjectGraphRelationshipsRequest recipe )
+    {
+        try
+        {
+            return streamSmile( controller.relationshipsTargeting( recipe ), serializer );
+        }
+        catch ( final CartoRESTException e )
+        {
+            throwError( e );
+        }
+
+        return null;
+    }
+
+    @ApiOperation( "Direct relationships, parents and metadata for a list of projects, from one graph in one pass." )
+    @ApiResponses( { @ApiResponse( code = 200, response = ProjectBatchResult.class, message = "Project batch result" ) } )
+    @Path( "/batch" )
+    @POST
+    public StreamingOutput batch( final ProjectBatchRequest recipe )
+    {
+        return batch( recipe, application_json );
+    }
+
+    @ApiOperation( "Batch project lookups, in the binary Smile encoding." )
+    @ApiResponses( { @ApiResponse( code = 200, response = ProjectBatchResult.class, message = "Project batch result" ) } )
+    @Path( "/batch" )
+    @POST
+    @Produces( SMILE_PRODUCES )
+    public StreamingOutput batchSmile( final ProjectBatchRequest recipe )
+    {
+        return batch( recipe, APPLICATION_SMILE );
+    }
+
+    private StreamingOutput batch( final ProjectBatchRequest recipe, final String mediaType )
+    {
+        return ( out ) -> {
+            try
+            {
+                controller.writeBatch( recipe, out, mediaType );
+            }
+            catch ( final CartoRESTException e )
+            {
+                throwError( e );
+            }
+        };
+    }
+
 }
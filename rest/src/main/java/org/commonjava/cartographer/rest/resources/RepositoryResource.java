@@ -62,19 +62,18 @@ public class RepositoryResource
     @Path( "/content" )
     @Produces( { "application/json", "application/indy*+json" } )
     @POST
-    public RepoContentResult getRepoContent( final RepositoryContentRequest request, final @Context UriInfo uriInfo )
+    public StreamingOutput getRepoContent( final RepositoryContentRequest request, final @Context UriInfo uriInfo )
     {
-        Response response = null;
         try
         {
             final String baseUri = uriInfo.getAbsolutePathBuilder().path( "api" ).build().toString();
 
-            return controller.getRepoContent( request, baseUri );
+            return controller.streamRepoContent( request, baseUri );
         }
         catch ( final CartoRESTException e )
         {
             logger.error( e.getMessage(), e );
-            response = formatResponse( e );
+            throwError( e );
         }
 
         return null;
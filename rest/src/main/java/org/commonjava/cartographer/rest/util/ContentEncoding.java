@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.rest.util;
+
+import javax.ws.rs.core.HttpHeaders;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content codings the server can apply to large text responses (rendered dotfiles, dependency trees and lists), and
+ * negotiation of one of them against the client's Accept-Encoding header.
+ */
+public enum ContentEncoding
+{
+    GZIP( "gzip" ),
+    DEFLATE( "deflate" ),
+    IDENTITY( "identity" );
+
+    public static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+    public static final String CONTENT_ENCODING = "Content-Encoding";
+
+    public static final String VARY = "Vary";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String token;
+
+    ContentEncoding( final String token )
+    {
+        this.token = token;
+    }
+
+    public String token()
+    {
+        return token;
+    }
+
+    /**
+     * Wrap the response stream in a compressing stream for this coding. Callers must {@link #finish(OutputStream)}
+     * the result instead of closing it, since the container owns the underlying stream.
+     */
+    public OutputStream wrap( final OutputStream out )
+            throws IOException
+    {
+        switch ( this )
+        {
+            case GZIP:
+                return new GZIPOutputStream( out, BUFFER_SIZE );
+            case DEFLATE:
+                return new DeflaterOutputStream( out );
+            default:
+                return out;
+        }
+    }
+
+    /**
+     * Write out any trailing compressed data without closing the underlying stream.
+     */
+    public void finish( final OutputStream wrapped )
+            throws IOException
+    {
+        if ( wrapped instanceof DeflaterOutputStream )
+        {
+            ( (DeflaterOutputStream) wrapped ).finish();
+        }
+
+        wrapped.flush();
+    }
+
+    /**
+     * Choose the coding with the highest quality value in the request's Accept-Encoding header, preferring gzip over
+     * deflate on ties. Anything we don't support (br, zstd, ...) is ignored; no header means identity.
+     */
+    public static ContentEncoding negotiate( final HttpHeaders headers )
+    {
+        final List<String> values = headers == null ? null : headers.getRequestHeader( ACCEPT_ENCODING );
+        if ( values == null )
+        {
+            return IDENTITY;
+        }
+
+        float gzip = -1;
+        float deflate = -1;
+        float any = -1;
+        for ( final String value : values )
+        {
+            for ( final String part : value.split( "," ) )
+            {
+                final String[] params = part.trim().split( ";" );
+                final String coding = params[0].trim().toLowerCase();
+                final float q = quality( params );
+
+                if ( GZIP.token.equals( coding ) || "x-gzip".equals( coding ) )
+                {
+                    gzip = Math.max( gzip, q );
+                }
+                else if ( DEFLATE.token.equals( coding ) )
+                {
+                    deflate = Math.max( deflate, q );
+                }
+                else if ( "*".equals( coding ) )
+                {
+                    any = Math.max( any, q );
+                }
+            }
+        }
+
+        if ( gzip < 0 )
+        {
+            gzip = any;
+        }
+
+        if ( deflate < 0 )
+        {
+            deflate = any;
+        }
+
+        if ( gzip > 0 && gzip >= deflate )
+        {
+            return GZIP;
+        }
+
+        return deflate > 0 ? DEFLATE : IDENTITY;
+    }
+
+    private static float quality( final String[] params )
+    {
+        for ( int i = 1; i < params.length; i++ )
+        {
+            final String param = params[i].trim();
+            if ( param.startsWith( "q=" ) )
+            {
+                try
+                {
+                    return Float.parseFloat( param.substring( 2 ).trim() );
+                }
+                catch ( final NumberFormatException e )
+                {
+                    return 0;
+                }
+            }
+        }
+
+        return 1;
+    }
+}
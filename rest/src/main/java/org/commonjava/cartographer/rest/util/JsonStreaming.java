@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.rest.util;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.commonjava.cartographer.CartoWireFormat;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Helpers for writing JSON responses straight to the response stream with a {@link JsonGenerator}, rather than
+ * rendering them into a String first. The same helpers write the binary {@link CartoWireFormat#APPLICATION_SMILE}
+ * encoding when that's what the client accepts.
+ */
+public final class JsonStreaming
+{
+
+    /**
+     * {@link CartoWireFormat#APPLICATION_SMILE} with a lower server-side quality, so clients that accept anything
+     * (<code>*&#47;*</code>) still get JSON, and only clients asking for Smile explicitly get the binary encoding.
+     */
+    public static final String SMILE_PRODUCES = CartoWireFormat.APPLICATION_SMILE + ";qs=0.5";
+
+    private JsonStreaming()
+    {
+    }
+
+    /**
+     * Serialize the DTO directly to the response stream.
+     */
+    public static StreamingOutput streamJson( final Object dto, final ObjectMapper objectMapper )
+    {
+        return ( out ) -> {
+            final JsonGenerator generator = openGenerator( out, objectMapper );
+            writer( objectMapper ).writeValue( generator, dto );
+            generator.flush();
+        };
+    }
+
+    /**
+     * Serialize the DTO directly to the response stream, using the binary Smile encoding.
+     */
+    public static StreamingOutput streamSmile( final Object dto, final ObjectMapper objectMapper )
+    {
+        return ( out ) -> {
+            final JsonGenerator generator = CartoWireFormat.openSmileGenerator( out );
+            writer( objectMapper ).writeValue( generator, dto );
+            generator.flush();
+        };
+    }
+
+    /**
+     * Open a generator for the given media type: Smile for {@link CartoWireFormat#APPLICATION_SMILE}, otherwise JSON.
+     */
+    public static JsonGenerator openGenerator( final OutputStream out, final ObjectMapper objectMapper,
+                                               final String mediaType )
+            throws IOException
+    {
+        if ( CartoWireFormat.APPLICATION_SMILE.equals( mediaType ) )
+        {
+            return CartoWireFormat.openSmileGenerator( out );
+        }
+
+        return openGenerator( out, objectMapper );
+    }
+
+    /**
+     * Open a generator on the response stream. Closing (or flushing) the generator won't close the response stream.
+     */
+    public static JsonGenerator openGenerator( final OutputStream out, final ObjectMapper objectMapper )
+            throws IOException
+    {
+        final JsonGenerator generator = objectMapper.getFactory().createGenerator( out );
+        generator.disable( JsonGenerator.Feature.AUTO_CLOSE_TARGET );
+        return generator;
+    }
+
+    /**
+     * Writer for individual values within a larger document. It doesn't flush after every value.
+     */
+    public static ObjectWriter writer( final ObjectMapper objectMapper )
+    {
+        return objectMapper.writer().without( SerializationFeature.FLUSH_AFTER_WRITE_VALUE );
+    }
+
+    /**
+     * Write a named array field, one element at a time. Like a mapped collection property, the field is left out when
+     * it's empty and the writer's config doesn't write empty arrays.
+     */
+    public static void writeArrayField( final JsonGenerator generator, final ObjectWriter writer, final String name,
+                                        final Iterator<?> elements )
+            throws IOException
+    {
+        if ( !elements.hasNext() && !writesEmpty( writer.getConfig() ) )
+        {
+            return;
+        }
+
+        generator.writeArrayFieldStart( name );
+        while ( elements.hasNext() )
+        {
+            writer.writeValue( generator, elements.next() );
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Write a named field, serializing the whole value in one go. The field is left out where the writer's config would
+     * leave out the same value as a bean property: nulls unless inclusion is ALWAYS, and empty collections, maps and
+     * arrays under NON_EMPTY or without {@link SerializationFeature#WRITE_EMPTY_JSON_ARRAYS}.
+     */
+    public static void writeField( final JsonGenerator generator, final ObjectWriter writer, final String name,
+                                   final Object value )
+            throws IOException
+    {
+        if ( !isIncluded( writer.getConfig(), value ) )
+        {
+            return;
+        }
+
+        generator.writeFieldName( name );
+        writer.writeValue( generator, value );
+    }
+
+    private static boolean isIncluded( final SerializationConfig config, final Object value )
+    {
+        final JsonInclude.Include inclusion = config.getSerializationInclusion();
+        if ( value == null )
+        {
+            return inclusion == JsonInclude.Include.ALWAYS || inclusion == JsonInclude.Include.USE_DEFAULTS;
+        }
+
+        if ( !isEmpty( value ) )
+        {
+            return true;
+        }
+
+        final boolean isArray = value instanceof Collection || value.getClass()
+                                                                     .isArray();
+        return inclusion != JsonInclude.Include.NON_EMPTY && !( isArray && !writesEmpty( config ) );
+    }
+
+    private static boolean isEmpty( final Object value )
+    {
+        if ( value instanceof Collection )
+        {
+            return ( (Collection<?>) value ).isEmpty();
+        }
+        else if ( value instanceof Map )
+        {
+            return ( (Map<?, ?>) value ).isEmpty();
+        }
+        else if ( value.getClass()
+                       .isArray() )
+        {
+            return Array.getLength( value ) == 0;
+        }
+
+        return false;
+    }
+
+    private static boolean writesEmpty( final SerializationConfig config )
+    {
+        return config.isEnabled( SerializationFeature.WRITE_EMPTY_JSON_ARRAYS )
+                && config.getSerializationInclusion() != JsonInclude.Include.NON_EMPTY;
+    }
+
+}
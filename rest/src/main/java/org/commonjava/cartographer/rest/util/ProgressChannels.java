@@ -0,0 +1,316 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.rest.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.commonjava.cartographer.graph.agg.ProgressListener;
+import org.commonjava.cartographer.rest.dto.ProgressEvent;
+import org.commonjava.cartographer.rest.dto.ProgressEventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Named channels of {@link ProgressEvent}s. A graph request names its channel with its progressId (asynchronous jobs
+ * use the job id), and clients watch the channel as Server-Sent Events or newline-delimited JSON.
+ * <br/>
+ * Clients usually open the channel before submitting the request, so watching a channel creates it. Each channel
+ * keeps its last {@link #BUFFER_SIZE} events, so a client that reconnects (with Last-Event-ID, or the after
+ * parameter) picks up where it left off. Channels are dropped once they've been idle for {@link #IDLE_MILLIS}, or
+ * for {@link #UNSTARTED_IDLE_MILLIS} if nothing has been published to them. At most {@link #MAX_WATCHERS} watches
+ * run at once, since each one holds a request thread.
+ */
+@ApplicationScoped
+public class ProgressChannels
+{
+
+    public static final String EVENT_STREAM = "text/event-stream";
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final String PROGRESS_ID = "progressId";
+
+    private static final int BUFFER_SIZE = 1000;
+
+    private static final long IDLE_MILLIS = TimeUnit.MINUTES.toMillis( 5 );
+
+    private static final long UNSTARTED_IDLE_MILLIS = TimeUnit.MINUTES.toMillis( 1 );
+
+    private static final long SWEEP_MILLIS = TimeUnit.MINUTES.toMillis( 1 );
+
+    private static final long KEEPALIVE_MILLIS = TimeUnit.SECONDS.toMillis( 15 );
+
+    private static final int MAX_WATCHERS = 64;
+
+    private final Logger logger = LoggerFactory.getLogger( getClass() );
+
+    @Inject
+    private ObjectMapper serializer;
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextSweep = new AtomicLong();
+
+    private final Semaphore watchers = new Semaphore( MAX_WATCHERS );
+
+    /**
+     * Listener that publishes to the named channel.
+     */
+    public ProgressListener listenerFor( final String id )
+    {
+        return ( event ) -> publish( id, event );
+    }
+
+    public void publish( final String id, final ProgressEvent event )
+    {
+        sweepIfDue();
+
+        // publish inside compute(), so a sweep can't drop the channel between looking it up and adding the event.
+        channels.compute( id, ( k, existing ) -> {
+            final Channel channel = existing == null ? new Channel() : existing;
+            synchronized ( channel )
+            {
+                event.setSeq( ++channel.seq );
+                channel.events.addLast( event );
+                if ( channel.events.size() > BUFFER_SIZE )
+                {
+                    channel.events.removeFirst();
+                }
+
+                channel.touched = System.currentTimeMillis();
+                channel.notifyAll();
+            }
+
+            return channel;
+        } );
+    }
+
+    /**
+     * False if {@link #MAX_WATCHERS} watches are already running, in which case {@link #watch} would return without
+     * writing anything.
+     */
+    public boolean hasWatchCapacity()
+    {
+        return watchers.availablePermits() > 0;
+    }
+
+    /**
+     * Publish the final event for the channel; watchers finish once they've sent it.
+     */
+    public void complete( final String id, final String message )
+    {
+        final ProgressEvent event = new ProgressEvent( ProgressEventType.COMPLETE, null );
+        event.setMessage( message );
+        publish( id, event );
+    }
+
+    /**
+     * Write the channel's events to the response as they arrive, starting after the given sequence number. This
+     * returns when the channel completes, when it has been idle for {@link #IDLE_MILLIS} (or
+     * {@link #UNSTARTED_IDLE_MILLIS}, if nothing has been published to it) or when the client goes away.
+     */
+    public void watch( final String id, final long after, final String mediaType, final OutputStream out )
+            throws IOException
+    {
+        if ( !watchers.tryAcquire() )
+        {
+            logger.warn( "Too many progress watchers; not watching: {}", id );
+            return;
+        }
+
+        try
+        {
+            doWatch( id, after, mediaType, out );
+        }
+        finally
+        {
+            watchers.release();
+        }
+    }
+
+    private void doWatch( final String id, final long after, final String mediaType, final OutputStream out )
+            throws IOException
+    {
+        final boolean sse = EVENT_STREAM.equals( mediaType );
+        final ObjectWriter writer =
+                JsonStreaming.writer( serializer ).without( SerializationFeature.INDENT_OUTPUT );
+
+        final Channel channel = channel( id );
+        long last = after;
+        long active = System.currentTimeMillis();
+        while ( true )
+        {
+            final List<ProgressEvent> batch = new ArrayList<>();
+            final long idleLimit;
+            synchronized ( channel )
+            {
+                final long deadline = System.currentTimeMillis() + KEEPALIVE_MILLIS;
+                long now;
+                while ( channel.seq <= last && ( now = System.currentTimeMillis() ) < deadline )
+                {
+                    try
+                    {
+                        channel.wait( deadline - now );
+                    }
+                    catch ( final InterruptedException e )
+                    {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+
+                for ( final ProgressEvent event : channel.events )
+                {
+                    if ( event.getSeq() > last )
+                    {
+                        batch.add( event );
+                    }
+                }
+
+                // keep the channel around while someone is watching it.
+                channel.touched = System.currentTimeMillis();
+                idleLimit = channel.seq == 0 ? UNSTARTED_IDLE_MILLIS : IDLE_MILLIS;
+            }
+
+            if ( !batch.isEmpty() )
+            {
+                active = System.currentTimeMillis();
+            }
+            else if ( System.currentTimeMillis() - active > idleLimit )
+            {
+                logger.debug( "Progress channel: {} is idle; closing watch.", id );
+                return;
+            }
+
+            final StringBuilder sb = new StringBuilder();
+            if ( batch.isEmpty() )
+            {
+                sb.append( sse ? ":\n\n" : "\n" );
+            }
+
+            boolean complete = false;
+            for ( final ProgressEvent event : batch )
+            {
+                final String json = writer.writeValueAsString( event );
+                if ( sse )
+                {
+                    sb.append( "id: " ).append( event.getSeq() ).append( '\n' );
+                    sb.append( "event: " ).append( event.getType().name().toLowerCase() ).append( '\n' );
+                    sb.append( "data: " ).append( json ).append( "\n\n" );
+                }
+                else
+                {
+                    sb.append( json ).append( '\n' );
+                }
+
+                last = event.getSeq();
+                complete = complete || event.getType().isFinal();
+            }
+
+            out.write( sb.toString().getBytes( StandardCharsets.UTF_8 ) );
+            out.flush();
+
+            if ( complete )
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Serialize a request for fingerprinting (cache keys, job ids), leaving out its progressId: which channel a
+     * request reports to doesn't change its result.
+     */
+    public static String fingerprintJson( final ObjectMapper serializer, final Object recipe )
+            throws JsonProcessingException
+    {
+        final JsonNode tree;
+        try
+        {
+            tree = serializer.valueToTree( recipe );
+        }
+        catch ( final IllegalArgumentException e )
+        {
+            throw new JsonMappingException( e.getMessage(), e );
+        }
+
+        if ( tree instanceof ObjectNode )
+        {
+            ( (ObjectNode) tree ).remove( PROGRESS_ID );
+        }
+
+        return serializer.writeValueAsString( tree );
+    }
+
+    private Channel channel( final String id )
+    {
+        sweepIfDue();
+        return channels.computeIfAbsent( id, ( k ) -> new Channel() );
+    }
+
+    /**
+     * Drop idle channels, at most once every {@link #SWEEP_MILLIS}. Only the caller that wins the race to move the
+     * next sweep time does the work; everyone else goes straight on.
+     */
+    private void sweepIfDue()
+    {
+        final long now = System.currentTimeMillis();
+        final long due = nextSweep.get();
+        if ( now < due || !nextSweep.compareAndSet( due, now + SWEEP_MILLIS ) )
+        {
+            return;
+        }
+
+        for ( final String id : channels.keySet() )
+        {
+            channels.computeIfPresent( id, ( k, channel ) -> channel.isIdle( now ) ? null : channel );
+        }
+    }
+
+    private static final class Channel
+    {
+        private final Deque<ProgressEvent> events = new ArrayDeque<>();
+
+        private long seq;
+
+        private long touched = System.currentTimeMillis();
+
+        private synchronized boolean isIdle( final long now )
+        {
+            return now - touched > ( seq == 0 ? UNSTARTED_IDLE_MILLIS : IDLE_MILLIS );
+        }
+    }
+}
@@ -44,6 +44,9 @@ public class RecipeHelper
     @Inject
     private CartographerConfig config;
 
+    @Inject
+    private ProgressChannels progressChannels;
+
     protected RecipeHelper()
     {
     }
@@ -64,6 +67,11 @@ public class RecipeHelper
         }
 
         recipe.setDefaultPreset( this.config.getDefaultWebFilterPreset() );
+
+        if ( recipe.getProgressId() != null && progressChannels != null )
+        {
+            recipe.setProgressListener( progressChannels.listenerFor( recipe.getProgressId() ) );
+        }
     }
 
     public DownlogRequest readDownlogDTO( final InputStream configStream )
@@ -15,7 +15,6 @@
  */
 package org.commonjava.cartographer.rest.util;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.commonjava.cartographer.rest.CartoRESTException;
@@ -42,6 +41,8 @@ import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Map;
 
+import static org.commonjava.cartographer.rest.util.JsonStreaming.streamJson;
+
 public final class ResponseUtils
 {
 
@@ -73,20 +74,10 @@ public final class ResponseUtils
             return Response.noContent().build();
         }
 
-        Response response;
-        try
-        {
-            response = Response.created( location )
-                               .entity( objectMapper.writeValueAsString( dto ) )
-                               .type( StandardApplicationContent.application_json )
-                               .build();
-        }
-        catch ( final JsonProcessingException e )
-        {
-            response = formatResponse( e, "Failed to serialize DTO to JSON: " + dto );
-        }
-
-        return response;
+        return Response.created( location )
+                       .entity( streamJson( dto, objectMapper ) )
+                       .type( StandardApplicationContent.application_json )
+                       .build();
     }
 
     public static Response formatCreatedResponse( final String baseUri, final CreationDTO dto )
@@ -106,18 +97,7 @@ public final class ResponseUtils
             return Response.noContent().build();
         }
 
-        Response response;
-        try
-        {
-            response =
-                    Response.ok( objectMapper.writeValueAsString( dto ), StandardApplicationContent.application_json ).build();
-        }
-        catch ( final JsonProcessingException e )
-        {
-            response = formatResponse( e, "Failed to serialize DTO to JSON: " + dto );
-        }
-
-        return response;
+        return Response.ok( streamJson( dto, objectMapper ), StandardApplicationContent.application_json ).build();
     }
 
     public static ResponseBuilder setInfoHeaders( final ResponseBuilder builder, final Transfer item,
@@ -0,0 +1,608 @@
+/**
+ * Copyright (C) 2013 Red Hat, Inc. (jdcasey@commonjava.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.commonjava.cartographer.rest.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.output.DeferredFileOutputStream;
+import org.commonjava.cartographer.conf.CartographerConfig;
+import org.commonjava.cartographer.graph.RelationshipGraphFactory;
+import org.commonjava.cartographer.request.AbstractGraphRequest;
+import org.commonjava.cartographer.request.GraphAnalysisRequest;
+import org.commonjava.cartographer.request.MultiGraphRequest;
+import org.commonjava.cartographer.rest.CartoRESTException;
+import org.commonjava.cartographer.rest.dto.ResultCacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.commons.lang.StringUtils.join;
+import static org.commonjava.cartographer.rest.util.ResponseUtils.throwError;
+
+/**
+ * Cache of serialized responses for deterministic graph queries (build order, export, calculations, rendering).
+ * <br/>
+ * Entries are keyed by a fingerprint of the endpoint, media type and request JSON, and are only valid for the
+ * modification stamps their workspaces had when the request started (see
+ * {@link RelationshipGraphFactory#getModificationStamp(String)}). A response is only stored if none of its workspaces
+ * changed while it was being computed, so results from a resolve that discovered new projects are never cached.
+ * <br/>
+ * The ETag is derived from the same fingerprint and stamps, so If-None-Match can be answered with a 304 without
+ * computing (or even caching) the result. Requests that ask for resolution (and so maybe discovery) bypass the cache
+ * and get no ETag: answering them from an earlier result would skip the discovery they asked for.
+ * <br/>
+ * The result is always computed before the response is committed, via {@link ResultProducer#prepare()}, so failures
+ * still get a proper error status. Only serializing the prepared result happens while the response is written.
+ * <br/>
+ * Large text responses can also be compressed (see {@link #respondEncoded}). The cache always holds the uncompressed
+ * body, so one entry serves every content coding; the coding is only appended to the ETag.
+ */
+@ApplicationScoped
+public class ResultCache
+{
+
+    /**
+     * Computes a response body (resolving graphs, running discovery and so on) and returns a writer that serializes it.
+     * This runs before the response is committed.
+     */
+    @FunctionalInterface
+    public interface ResultProducer
+    {
+        ResultWriter prepare()
+                throws CartoRESTException;
+    }
+
+    /**
+     * Writes a prepared response body to the response stream.
+     */
+    @FunctionalInterface
+    public interface ResultWriter
+    {
+        void write( OutputStream out )
+                throws IOException;
+    }
+
+    /**
+     * Renders a body that is produced while reading the graph, such as a graph export or a dotfile.
+     */
+    @FunctionalInterface
+    public interface SpoolWriter
+    {
+        void write( OutputStream out )
+                throws IOException, CartoRESTException;
+    }
+
+    /**
+     * Bodies rendered through {@link #spool(SpoolWriter)} stay in memory up to this size, then go to a temp file.
+     */
+    private static final int SPOOL_MEMORY_THRESHOLD = 1024 * 1024;
+
+    private final Logger logger = LoggerFactory.getLogger( getClass() );
+
+    @Inject
+    private RelationshipGraphFactory graphFactory;
+
+    @Inject
+    private CartographerConfig config;
+
+    @Inject
+    private ObjectMapper serializer;
+
+    /**
+     * Stamps restart when the server does, so ETags from an earlier server instance must never match.
+     */
+    private final String instanceId = Long.toHexString( System.currentTimeMillis() );
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>( 16, 0.75f, true );
+
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong notModified = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong stores = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public Response respond( final HttpHeaders headers, final String endpoint, final AbstractGraphRequest recipe,
+                             final String mediaType, final ResultProducer producer )
+    {
+        final List<String> workspaceIds =
+                recipe == null ? Collections.emptyList() : Collections.singletonList( recipe.getWorkspaceId() );
+
+        final boolean resolving = recipe != null && recipe.isResolve();
+        return respond( headers, endpoint, recipe, workspaceIds, resolving, mediaType, null, producer );
+    }
+
+    /**
+     * Same as {@link #respond(HttpHeaders, String, AbstractGraphRequest, String, ResultProducer)}, but the body is
+     * compressed with whatever content coding the client negotiated via Accept-Encoding.
+     */
+    public Response respondEncoded( final HttpHeaders headers, final String endpoint,
+                                    final AbstractGraphRequest recipe, final String mediaType,
+                                    final ResultProducer producer )
+    {
+        final List<String> workspaceIds =
+                recipe == null ? Collections.emptyList() : Collections.singletonList( recipe.getWorkspaceId() );
+
+        final boolean resolving = recipe != null && recipe.isResolve();
+        return respond( headers, endpoint, recipe, workspaceIds, resolving, mediaType,
+                        ContentEncoding.negotiate( headers ), producer );
+    }
+
+    public Response respond( final HttpHeaders headers, final String endpoint, final GraphAnalysisRequest recipe,
+                             final String mediaType, final ResultProducer producer )
+    {
+        final List<String> workspaceIds = new ArrayList<>();
+        boolean resolving = false;
+        if ( recipe != null && recipe.getGraphRequests() != null )
+        {
+            for ( final MultiGraphRequest req : recipe.getGraphRequests() )
+            {
+                workspaceIds.add( req.getWorkspaceId() );
+                resolving = resolving || req.isResolve();
+            }
+        }
+
+        return respond( headers, endpoint, recipe, workspaceIds, resolving, mediaType, null, producer );
+    }
+
+    /**
+     * Run the writer now, while the graph is open, into a buffer that spills to a temp file past
+     * {@link #SPOOL_MEMORY_THRESHOLD}. The returned writer just copies the buffer to the response and cleans up, so the
+     * graph isn't held open while a slow client reads, and rendering failures surface before the response starts.
+     */
+    public static ResultProducer spool( final SpoolWriter writer )
+    {
+        return () -> {
+            final DeferredFileOutputStream spool =
+                    new DeferredFileOutputStream( SPOOL_MEMORY_THRESHOLD, "carto-result-", ".tmp", null );
+            try
+            {
+                try
+                {
+                    writer.write( spool );
+                }
+                finally
+                {
+                    spool.close();
+                }
+            }
+            catch ( final IOException e )
+            {
+                deleteSpool( spool );
+                throw new CartoRESTException( "Failed to render result. Reason: %s", e, e.getMessage() );
+            }
+            catch ( final CartoRESTException | RuntimeException e )
+            {
+                deleteSpool( spool );
+                throw e;
+            }
+
+            return ( out ) -> {
+                try
+                {
+                    spool.writeTo( out );
+                }
+                finally
+                {
+                    deleteSpool( spool );
+                }
+            };
+        };
+    }
+
+    private static void deleteSpool( final DeferredFileOutputStream spool )
+    {
+        final File file = spool.getFile();
+        if ( file != null && file.exists() && !file.delete() )
+        {
+            file.deleteOnExit();
+        }
+    }
+
+    public ResultCacheStats getStats()
+    {
+        final int size;
+        final long bytes;
+        synchronized ( this )
+        {
+            size = entries.size();
+            bytes = totalBytes;
+        }
+
+        return new ResultCacheStats( hits.get(), notModified.get(), misses.get(), stores.get(), evictions.get(), size,
+                                     bytes );
+    }
+
+    /**
+     * @param encoding the negotiated content coding, or null if the endpoint doesn't compress (and so doesn't Vary
+     * on Accept-Encoding)
+     */
+    private Response respond( final HttpHeaders headers, final String endpoint, final Object recipe,
+                              final List<String> workspaceIds, final boolean resolving, final String mediaType,
+                              final ContentEncoding encoding, final ResultProducer producer )
+    {
+        final ContentEncoding coding = encoding == null ? ContentEncoding.IDENTITY : encoding;
+
+        final Key key = resolving ? null : keyFor( endpoint, recipe, workspaceIds, mediaType );
+        if ( key == null )
+        {
+            final ResultWriter writer = prepare( endpoint, producer );
+            return encode( Response.ok( (StreamingOutput) ( out ) -> write( endpoint, writer, out, coding, null ),
+                                        mediaType ), encoding ).build();
+        }
+
+        String tag = instanceId + "-" + key.fingerprint + "-" + key.stamps;
+        if ( coding != ContentEncoding.IDENTITY )
+        {
+            tag += "-" + coding.token();
+        }
+
+        final EntityTag etag = new EntityTag( tag );
+        if ( matches( headers.getRequestHeaders().get( HttpHeaders.IF_NONE_MATCH ), etag ) )
+        {
+            notModified.incrementAndGet();
+            logger.debug( "{}: not modified ({})", endpoint, etag );
+            return encode( Response.notModified( etag ), encoding ).build();
+        }
+
+        final byte[] cached = get( key );
+        if ( cached != null )
+        {
+            hits.incrementAndGet();
+            logger.debug( "{}: returning cached result ({} bytes)", endpoint, cached.length );
+            if ( coding == ContentEncoding.IDENTITY )
+            {
+                return encode( Response.ok( cached, mediaType ), encoding ).tag( etag ).build();
+            }
+
+            final ResultWriter replay = ( o ) -> o.write( cached );
+            return encode( Response.ok( (StreamingOutput) ( out ) -> write( endpoint, replay, out, coding, null ),
+                                        mediaType ), encoding ).tag( etag ).build();
+        }
+
+        misses.incrementAndGet();
+        final ResultWriter writer = prepare( endpoint, producer );
+        return encode( Response.ok( (StreamingOutput) ( out ) -> {
+            final int limit = config.getResultCacheMaxEntrySize();
+            final byte[] body = write( endpoint, writer, out, coding, limit );
+            if ( body != null )
+            {
+                put( key, body );
+            }
+        }, mediaType ), encoding ).tag( etag ).build();
+    }
+
+    private static Response.ResponseBuilder encode( final Response.ResponseBuilder builder,
+                                                    final ContentEncoding encoding )
+    {
+        if ( encoding == null )
+        {
+            return builder;
+        }
+
+        builder.header( ContentEncoding.VARY, ContentEncoding.ACCEPT_ENCODING );
+        if ( encoding != ContentEncoding.IDENTITY )
+        {
+            builder.header( ContentEncoding.CONTENT_ENCODING, encoding.token() );
+        }
+
+        return builder;
+    }
+
+    private Key keyFor( final String endpoint, final Object recipe, final List<String> workspaceIds,
+                        final String mediaType )
+    {
+        if ( config.getResultCacheEntries() < 1 || recipe == null || workspaceIds.isEmpty() || workspaceIds.contains(
+                null ) )
+        {
+            return null;
+        }
+
+        final String stamps = currentStamps( workspaceIds );
+        if ( stamps == null )
+        {
+            return null;
+        }
+
+        final String json;
+        try
+        {
+            json = ProgressChannels.fingerprintJson( serializer, recipe );
+        }
+        catch ( final JsonProcessingException e )
+        {
+            logger.warn( "Cannot fingerprint request to: {}; it won't be cached. Reason: {}", endpoint,
+                         e.getMessage() );
+            return null;
+        }
+
+        final String fingerprint = DigestUtils.sha256Hex( endpoint + "\n" + mediaType + "\n" + json );
+        return new Key( fingerprint, workspaceIds, stamps );
+    }
+
+    /**
+     * Join the workspaces' stamps, or return null if any workspace hasn't been opened yet (so its stamp is unknown).
+     */
+    private String currentStamps( final List<String> workspaceIds )
+    {
+        final List<Long> stamps = new ArrayList<>( workspaceIds.size() );
+        for ( final String workspaceId : workspaceIds )
+        {
+            final long stamp = graphFactory.getModificationStamp( workspaceId );
+            if ( stamp < 0 )
+            {
+                return null;
+            }
+
+            stamps.add( stamp );
+        }
+
+        return join( stamps, "." );
+    }
+
+    private synchronized byte[] get( final Key key )
+    {
+        final Entry entry = entries.get( key.fingerprint );
+        if ( entry == null )
+        {
+            return null;
+        }
+
+        if ( !entry.stamps.equals( key.stamps ) || isExpired( entry ) )
+        {
+            remove( key.fingerprint );
+            return null;
+        }
+
+        return entry.body;
+    }
+
+    private void put( final Key key, final byte[] body )
+    {
+        if ( !key.stamps.equals( currentStamps( key.workspaceIds ) ) )
+        {
+            logger.debug( "Workspace(s) {} changed while computing; not caching.", key.workspaceIds );
+            return;
+        }
+
+        if ( body.length > config.getResultCacheMaxSize() )
+        {
+            return;
+        }
+
+        synchronized ( this )
+        {
+            remove( key.fingerprint );
+
+            entries.put( key.fingerprint, new Entry( key.stamps, body ) );
+            totalBytes += body.length;
+            stores.incrementAndGet();
+
+            final int maxEntries = config.getResultCacheEntries();
+            final long maxSize = config.getResultCacheMaxSize();
+            final Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while ( it.hasNext() && ( entries.size() > maxEntries || totalBytes > maxSize ) )
+            {
+                final Entry evicted = it.next().getValue();
+                it.remove();
+                totalBytes -= evicted.body.length;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private void remove( final String fingerprint )
+    {
+        final Entry old = entries.remove( fingerprint );
+        if ( old != null )
+        {
+            totalBytes -= old.body.length;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private boolean isExpired( final Entry entry )
+    {
+        return System.currentTimeMillis() - entry.created > TimeUnit.SECONDS.toMillis(
+                config.getResultCacheTtlSeconds() );
+    }
+
+    /**
+     * Compute the result before the response is committed, so a failure still gets its own status code.
+     */
+    private ResultWriter prepare( final String endpoint, final ResultProducer producer )
+    {
+        try
+        {
+            return producer.prepare();
+        }
+        catch ( final CartoRESTException e )
+        {
+            logger.error( String.format( "%s: %s", endpoint, e.getMessage() ), e );
+            throwError( e );
+        }
+
+        return null;
+    }
+
+    /**
+     * Run the writer against the (possibly compressed) response stream. If captureLimit is given, the uncompressed
+     * body is captured on the way through and returned, unless it grows past the limit. The status line has been sent
+     * by now, so a failure can only abort the response.
+     */
+    private byte[] write( final String endpoint, final ResultWriter writer, final OutputStream out,
+                          final ContentEncoding encoding, final Integer captureLimit )
+            throws IOException
+    {
+        final OutputStream encoded = encoding.wrap( out );
+        final CapturingOutputStream capture =
+                captureLimit == null ? null : new CapturingOutputStream( encoded, captureLimit );
+
+        try
+        {
+            writer.write( capture == null ? encoded : capture );
+        }
+        catch ( final IOException | RuntimeException e )
+        {
+            logger.error( String.format( "%s: failed to write response; aborting it. Reason: %s", endpoint,
+                                         e.getMessage() ), e );
+            throw e;
+        }
+
+        encoding.finish( encoded );
+
+        return capture == null ? null : capture.getCaptured();
+    }
+
+    private static boolean matches( final List<String> ifNoneMatch, final EntityTag etag )
+    {
+        if ( ifNoneMatch == null )
+        {
+            return false;
+        }
+
+        final String value = etag.getValue();
+        for ( final String header : ifNoneMatch )
+        {
+            for ( String tag : header.split( "," ) )
+            {
+                tag = tag.trim();
+                if ( tag.startsWith( "W/" ) )
+                {
+                    tag = tag.substring( 2 );
+                }
+
+                if ( tag.equals( "*" ) || tag.equals( "\"" + value + "\"" ) )
+                {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static final class Key
+    {
+        private final String fingerprint;
+
+        private final List<String> workspaceIds;
+
+        private final String stamps;
+
+        Key( final String fingerprint, final List<String> workspaceIds, final String stamps )
+        {
+            this.fingerprint = fingerprint;
+            this.workspaceIds = workspaceIds;
+            this.stamps = stamps;
+        }
+    }
+
+    private static final class Entry
+    {
+        private final String stamps;
+
+        private final byte[] body;
+
+        private final long created = System.currentTimeMillis();
+
+        Entry( final String stamps, final byte[] body )
+        {
+            this.stamps = stamps;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Passes everything through to the response, keeping a copy until it grows past the size limit.
+     */
+    private static final class CapturingOutputStream
+            extends FilterOutputStream
+    {
+        private final int limit;
+
+        private ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+        CapturingOutputStream( final OutputStream out, final int limit )
+        {
+            super( out );
+            this.limit = limit;
+        }
+
+        @Override
+        public void write( final int b )
+                throws IOException
+        {
+            out.write( b );
+            capture( new byte[] { (byte) b }, 0, 1 );
+        }
+
+        @Override
+        public void write( final byte[] b, final int off, final int len )
+                throws IOException
+        {
+            out.write( b, off, len );
+            capture( b, off, len );
+        }
+
+        private void capture( final byte[] b, final int off, final int len )
+        {
+            if ( captured == null )
+            {
+                return;
+            }
+
+            if ( captured.size() + len > limit )
+            {
+                captured = null;
+                return;
+            }
+
+            captured.write( b, off, len );
+        }
+
+        byte[] getCaptured()
+        {
+            return captured == null ? null : captured.toByteArray();
+        }
+    }
+
+}